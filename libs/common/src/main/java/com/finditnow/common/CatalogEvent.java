@@ -0,0 +1,47 @@
+package com.finditnow.common;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A change to the catalog published by shop-service on the {@link #STREAM} Redis stream, for other services
+ * to drop what they cached about the shop, product or listing. Delivery is at least once and events carry
+ * no data beyond the ids: consumers invalidate and read again.
+ *
+ * @param shopId    set for shop and listing events
+ * @param productId set for product and listing events; a listing is the inventory of a product in a shop
+ */
+public record CatalogEvent(Type type, Long shopId, Long productId) {
+    public static final String STREAM = "catalog:events";
+
+    public enum Type {
+        SHOP_CHANGED, SHOP_DELETED, PRODUCT_CHANGED, PRODUCT_DELETED, LISTING_CHANGED, LISTING_DELETED
+    }
+
+    public Map<String, String> toFields() {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("type", type.name());
+        if (shopId != null) {
+            fields.put("shopId", shopId.toString());
+        }
+        if (productId != null) {
+            fields.put("productId", productId.toString());
+        }
+        return fields;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the fields do not describe an event of a known type
+     */
+    public static CatalogEvent fromFields(Map<String, String> fields) {
+        String type = fields.get("type");
+        if (type == null) {
+            throw new IllegalArgumentException("Catalog event without a type: " + fields);
+        }
+        String shopId = fields.get("shopId");
+        String productId = fields.get("productId");
+        return new CatalogEvent(Type.valueOf(type),
+                shopId == null ? null : Long.valueOf(shopId),
+                productId == null ? null : Long.valueOf(productId));
+    }
+}
@@ -0,0 +1,47 @@
+package com.finditnow.common;
+
+/**
+ * Delivery charge for a shop-to-customer trip. Shared so services that only need a quote (cart pricing)
+ * compute the same number as delivery-service without calling it.
+ */
+public class DeliveryPricing {
+    private static final double EARTH_RADIUS_KM = 6371;
+
+    public record Quote(double amount, double distanceKm) {
+    }
+
+    /**
+     * Flat 20 below 5 km, 40 below 10 km, then 60 plus 5 per km beyond 10. Amount and distance are rounded
+     * to two decimals.
+     */
+    public static Quote quote(double shopLat, double shopLng, double userLat, double userLng) {
+        double distance = distanceKm(shopLat, shopLng, userLat, userLng);
+
+        double amount;
+        if (distance < 5) {
+            amount = 20.0;
+        } else if (distance < 10) {
+            amount = 40.0;
+        } else {
+            amount = 60.0 + (distance - 10) * 5.0;
+        }
+
+        return new Quote(Math.round(amount * 100.0) / 100.0, Math.round(distance * 100.0) / 100.0);
+    }
+
+    /**
+     * Haversine distance between two latitude/longitude points.
+     */
+    public static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1))
+                * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return EARTH_RADIUS_KM * c;
+    }
+}
@@ -83,10 +83,24 @@ public final class InterServiceClient {
         return callWithoutCache(toService, path, method, body);
     }
 
+    /**
+     * Uncached call with extra request headers, e.g. an {@code Idempotency-Key} for commands that are retried
+     *
+     * @param toService target service name
+     * @param path      API path
+     * @param method    HTTP method
+     * @param body      request body (can be null for GET and DELETE)
+     * @param headers   headers added to the request
+     * @return HTTP response
+     */
+    public static HttpResponse<String> call(String toService, String path, String method, String body, Map<String, String> headers) throws Exception {
+        return callWithoutCache(toService, path, method, body, headers);
+    }
+
     // ---------- CACHE-ENABLED CALL ----------
 
     private static HttpResponse<String> callWithCache(String toService, String path, String method, String body, long cacheTtlSeconds) throws Exception {
-        String cacheKey = buildCacheKey(toService, path, body);
+        String cacheKey = buildCacheKey(toService, path);
 
         // Try to get from cache
         String cachedResponse = redisStore.getKeyValue(cacheKey);
@@ -108,9 +122,13 @@ public final class InterServiceClient {
     }
 
     private static HttpResponse<String> callWithoutCache(String toService, String path, String method, String body) throws Exception {
+        return callWithoutCache(toService, path, method, body, Map.of());
+    }
+
+    private static HttpResponse<String> callWithoutCache(String toService, String path, String method, String body, Map<String, String> headers) throws Exception {
         String token = getServiceToken(toService);
 
-        HttpRequest request = buildRequest(toService, path, method, body, token);
+        HttpRequest request = buildRequest(toService, path, method, body, token, headers);
 
         HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
 
@@ -119,7 +137,7 @@ public final class InterServiceClient {
             tokenCache.remove(toService);
 
             token = getServiceToken(toService);
-            request = buildRequest(toService, path, method, body, token);
+            request = buildRequest(toService, path, method, body, token, headers);
             response = http.send(request, HttpResponse.BodyHandlers.ofString());
         }
 
@@ -128,17 +146,10 @@ public final class InterServiceClient {
 
     // ---------- CACHE UTILITIES ----------
 
-    private static String buildCacheKey(String toService, String path, String body) {
-        // Create a unique cache key based on service, path, and body
-        String keyBase = "api-cache:" + toService + ":" + path;
-
-        if (body != null && !body.isEmpty()) {
-            // Include hash of body for requests with query parameters in body
-            int bodyHash = body.hashCode();
-            keyBase += ":" + bodyHash;
-        }
-
-        return keyBase;
+    private static String buildCacheKey(String toService, String path) {
+        // Only GET responses are cached and GET requests are sent without a body, so the path identifies
+        // the response; callers passing null or "{}" share the entry and invalidateCache reaches both
+        return "api-cache:" + toService + ":" + path;
     }
 
     private static String serializeResponse(HttpResponse<String> response) {
@@ -160,7 +171,7 @@ public final class InterServiceClient {
      */
     public static void invalidateCache(String toService, String path) {
         if (redisStore != null) {
-            String cacheKey = buildCacheKey(toService, path, null);
+            String cacheKey = buildCacheKey(toService, path);
             redisStore.deleteKey(cacheKey);
         }
     }
@@ -214,10 +225,11 @@ public final class InterServiceClient {
 
     // ---------- REQUEST BUILDING ----------
 
-    private static HttpRequest buildRequest(String toService, String path, String method, String body, String token) {
+    private static HttpRequest buildRequest(String toService, String path, String method, String body, String token, Map<String, String> headers) {
         String url = resolveServiceUrl(toService) + path;
 
         HttpRequest.Builder builder = HttpRequest.newBuilder().uri(URI.create(url)).header("Authorization", "Bearer " + token).header("Content-Type", "application/json");
+        headers.forEach(builder::header);
 
         return switch (method) {
             case "POST" -> builder.POST(HttpRequest.BodyPublishers.ofString(body)).build();
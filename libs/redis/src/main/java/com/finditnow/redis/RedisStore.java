@@ -5,14 +5,27 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
-
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.params.XAddParams;
+import redis.clients.jedis.params.XReadParams;
+import redis.clients.jedis.resps.StreamEntry;
+
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class RedisStore {
     private static final Logger logger = LoggerFactory.getLogger(RedisStore.class);
     private static RedisStore store;
     private final JedisPool pool;
+    private final Map<String, String> scriptShas = new ConcurrentHashMap<>();
 
     private RedisStore() {
         String redisHost = Config.get("REDIS_HOST", "localhost");
@@ -111,4 +124,109 @@ public class RedisStore {
             jed.del(key + ":");
         }
     }
+
+    /**
+     * Reads several keys in a single round trip (MGET).
+     *
+     * @return values in the order of {@code keys}; missing keys map to {@code null}
+     */
+    public List<String> getKeyValues(List<String> keys) {
+        try (Jedis jed = pool.getResource()) {
+            return jed.mget(keys.stream().map(key -> key + ":").toArray(String[]::new));
+        }
+    }
+
+    /**
+     * Atomically increments every key by one (MULTI/EXEC), so readers using
+     * {@link #getKeyValues(List)} observe either none or all of the increments.
+     */
+    public void incrementKeys(List<String> keys) {
+        try (Jedis jed = pool.getResource()) {
+            Transaction tx = jed.multi();
+            for (String key : keys) {
+                tx.incr(key + ":");
+            }
+            tx.exec();
+        }
+    }
+
+    /**
+     * Sets the key only if it does not exist yet (SET NX PX).
+     *
+     * @return true if this call created the key
+     */
+    public boolean setIfAbsent(String key, String value, long ttlMillis) {
+        try (Jedis jed = pool.getResource()) {
+            return "OK".equals(jed.set(key + ":", value, SetParams.setParams().nx().px(ttlMillis)));
+        }
+    }
+
+    /**
+     * Runs a Lua script atomically (EVALSHA, loading the script on first use or after a server restart).
+     * Keys get the same ":" suffix as every other method of the store.
+     *
+     * @return the script's reply as decoded by Jedis: {@code Long}, {@code String}, {@code List} or {@code null}
+     */
+    public Object evalScript(String script, List<String> keys, List<String> args) {
+        List<String> storeKeys = keys.stream().map(key -> key + ":").toList();
+        try (Jedis jed = pool.getResource()) {
+            String sha = scriptShas.computeIfAbsent(script, jed::scriptLoad);
+            try {
+                return jed.evalsha(sha, storeKeys, args);
+            } catch (JedisNoScriptException e) {
+                sha = jed.scriptLoad(script);
+                scriptShas.put(script, sha);
+                return jed.evalsha(sha, storeKeys, args);
+            }
+        }
+    }
+
+    /**
+     * Appends entries to a stream in one round trip (pipelined XADD), trimming it to roughly
+     * {@code maxLength} entries.
+     *
+     * @return ids of the new entries, in order
+     */
+    public List<String> appendToStream(String stream, List<Map<String, String>> entries, long maxLength) {
+        XAddParams params = XAddParams.xAddParams().maxLen(maxLength).approximateTrimming();
+        try (Jedis jed = pool.getResource()) {
+            Pipeline pipeline = jed.pipelined();
+            List<Response<StreamEntryID>> ids = new ArrayList<>(entries.size());
+            for (Map<String, String> entry : entries) {
+                ids.add(pipeline.xadd(stream + ":", params, entry));
+            }
+            pipeline.sync();
+            return ids.stream().map(id -> id.get().toString()).toList();
+        }
+    }
+
+    /**
+     * @return id of the newest entry of a stream, {@code "0-0"} if it is empty or does not exist
+     */
+    public String lastStreamId(String stream) {
+        try (Jedis jed = pool.getResource()) {
+            List<StreamEntry> last = jed.xrevrange(stream + ":", "+", "-", 1);
+            return last.isEmpty() ? "0-0" : last.get(0).getID().toString();
+        }
+    }
+
+    /**
+     * Reads the entries of a stream that come after {@code afterId} (XREAD), waiting up to
+     * {@code blockMillis} for one to arrive. Keep the wait below the connection's socket timeout.
+     *
+     * @return at most {@code count} entries, empty if none arrived in time
+     */
+    public List<StreamRecord> readStream(String stream, String afterId, int count, long blockMillis) {
+        try (Jedis jed = pool.getResource()) {
+            List<Map.Entry<String, List<StreamEntry>>> reply = jed.xread(
+                    XReadParams.xReadParams().count(count).block((int) blockMillis),
+                    Map.of(stream + ":", new StreamEntryID(afterId)));
+            if (reply == null || reply.isEmpty()) {
+                return List.of();
+            }
+            return reply.get(0).getValue().stream()
+                    .map(entry -> new StreamRecord(entry.getID().toString(), entry.getFields()))
+                    .toList();
+        }
+    }
 }
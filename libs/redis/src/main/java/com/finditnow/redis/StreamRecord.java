@@ -0,0 +1,9 @@
+package com.finditnow.redis;
+
+import java.util.Map;
+
+/**
+ * An entry of a Redis stream.
+ */
+public record StreamRecord(String id, Map<String, String> fields) {
+}
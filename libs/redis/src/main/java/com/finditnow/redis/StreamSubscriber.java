@@ -0,0 +1,80 @@
+package com.finditnow.redis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Follows a Redis stream on a background thread and hands every new entry to a listener, in stream order.
+ * <p>
+ * Reading starts at the newest entry when {@link #start()} is called; entries added while the subscriber
+ * is not running are not delivered, so it suits cache invalidation where the cache also expires on its
+ * own. A failing listener is logged and skipped, Redis errors are retried after a pause. Each subscriber
+ * keeps one pooled connection busy while it waits.
+ */
+public class StreamSubscriber implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(StreamSubscriber.class);
+    private static final int BATCH = 100;
+    private static final long BLOCK_MILLIS = 1000;
+    private static final long RETRY_MILLIS = 5000;
+
+    private final RedisStore store;
+    private final String stream;
+    private final Consumer<StreamRecord> listener;
+    private volatile boolean running;
+    private Thread thread;
+
+    public StreamSubscriber(RedisStore store, String stream, Consumer<StreamRecord> listener) {
+        this.store = store;
+        this.stream = stream;
+        this.listener = listener;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = Thread.ofVirtual().name("stream-subscriber-" + stream).start(this::follow);
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void follow() {
+        String lastId = null;
+        while (running) {
+            try {
+                if (lastId == null) {
+                    lastId = store.lastStreamId(stream);
+                }
+                List<StreamRecord> records = store.readStream(stream, lastId, BATCH, BLOCK_MILLIS);
+                for (StreamRecord record : records) {
+                    try {
+                        listener.accept(record);
+                    } catch (Exception e) {
+                        logger.warn("Listener of stream {} failed on entry {}: {}", stream, record.id(), e.getMessage());
+                    }
+                    lastId = record.id();
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Reading stream {} failed, retrying in {} ms: {}", stream, RETRY_MILLIS, e.getMessage());
+                try {
+                    Thread.sleep(RETRY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ configurations {
 }
 
 dependencies {
+    implementation(project(":libs:common"))
     implementation(project(":libs:jwt"))
     implementation(project(":libs:database"))
     implementation(project(":libs:interservice-caller"))
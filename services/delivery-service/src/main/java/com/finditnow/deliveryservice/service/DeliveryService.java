@@ -1,5 +1,6 @@
 package com.finditnow.deliveryservice.service;
 
+import com.finditnow.common.DeliveryPricing;
 import com.finditnow.deliveryservice.dto.*;
 import com.finditnow.deliveryservice.entity.*;
 import com.finditnow.deliveryservice.repository.DeliveryAgentRepository;
@@ -27,8 +28,6 @@ public class DeliveryService {
     private final AssignmentService assignmentService;
     private final com.finditnow.deliveryservice.clients.OrderClient orderClient;
 
-    private static final double EARTH_RADIUS = 6371; // km
-
     /**
      * Calculates delivery charge and distance based on shop and user coordinates.
      *
@@ -41,23 +40,11 @@ public class DeliveryService {
             return new DeliveryQuoteResponse(0.0, 0.0);
         }
 
-        double distance = calculateDistanceIds(
+        DeliveryPricing.Quote quote = DeliveryPricing.quote(
                 request.getShopLatitude(), request.getShopLongitude(),
                 request.getUserLatitude(), request.getUserLongitude());
 
-        double amount;
-        if (distance < 5) {
-            amount = 20.0;
-        } else if (distance < 10) {
-            amount = 40.0;
-        } else {
-            amount = 60.0 + (distance - 10) * 5.0;
-        }
-
-        amount = Math.round(amount * 100.0) / 100.0;
-        distance = Math.round(distance * 100.0) / 100.0;
-
-        return new DeliveryQuoteResponse(amount, distance);
+        return new DeliveryQuoteResponse(quote.amount(), quote.distanceKm());
     }
 
     /**
@@ -66,12 +53,20 @@ public class DeliveryService {
      * - Persists the delivery in CREATED state
      * - TAKEAWAY deliveries are immediately marked DELIVERED
      * - Attempts best-effort assignment for non-takeaway deliveries
+     * - Idempotent per order: order-service retries until it sees a success,
+     *   so a repeated request returns the delivery created the first time
      *
      * Assignment failure MUST NOT roll back delivery creation.
      */
     @Transactional
     public DeliveryResponse initiateDelivery(InitiateDeliveryRequest request) {
 
+        Delivery existing = deliveryRepository.findByOrderId(request.getOrderId()).orElse(null);
+        if (existing != null) {
+            log.info("Delivery {} already initiated for order {}", existing.getId(), request.getOrderId());
+            return mapToResponse(existing);
+        }
+
         Delivery delivery = new Delivery();
         delivery.setOrderId(request.getOrderId());
         delivery.setShopId(request.getShopId());
@@ -476,24 +471,6 @@ public class DeliveryService {
                 .build();
     }
 
-    /**
-     * Calculates Haversine distance between two latitude/longitude points.
-     */
-    private double calculateDistanceIds(
-            double lat1, double lon1, double lat2, double lon2) {
-
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
-                + Math.cos(Math.toRadians(lat1))
-                        * Math.cos(Math.toRadians(lat2))
-                        * Math.sin(dLon / 2) * Math.sin(dLon / 2);
-
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return EARTH_RADIUS * c;
-    }
-
     /**
      * Maps Delivery entity to API response.
      */
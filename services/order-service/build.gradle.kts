@@ -26,6 +26,7 @@ dependencies {
     implementation(project(":libs:redis"))
     implementation(project(":libs:database"))
     implementation(project(":libs:interservice-caller"))
+    implementation(project(":libs:common"))
 
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
     implementation("org.springframework.boot:spring-boot-starter-web")
@@ -38,9 +39,15 @@ dependencies {
 
     implementation("org.postgresql:postgresql:42.7.8")
 
+    testImplementation("org.springframework.boot:spring-boot-starter-test")
+
     compileOnly("org.projectlombok:lombok:1.18.30")
     annotationProcessor("org.projectlombok:lombok:1.18.30")
 
     // Source: https://mvnrepository.com/artifact/com.razorpay/razorpay-java
     implementation("com.razorpay:razorpay-java:1.4.8")
-}
\ No newline at end of file
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
@@ -5,8 +5,10 @@ import com.finditnow.database.Database;
 import com.finditnow.interservice.InterServiceClient;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class OrderServiceApplication {
     public static void main(String[] args) {
         Database.setEnv("order_service");
@@ -0,0 +1,60 @@
+package com.finditnow.orderservice.clients;
+
+import com.finditnow.common.CatalogEvent;
+import com.finditnow.interservice.InterServiceClient;
+import com.finditnow.redis.RedisStore;
+import com.finditnow.redis.StreamRecord;
+import com.finditnow.redis.StreamSubscriber;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops cached shop-service responses when shop-service publishes a change to the shop, so shop details and
+ * owners can be cached for days and still be current.
+ */
+@Slf4j
+@Component
+public class CatalogEventListener {
+    private final StreamSubscriber subscriber;
+    private final boolean enabled;
+
+    public CatalogEventListener(RedisStore redisStore,
+                                @Value("${catalog.events.enabled:true}") boolean enabled) {
+        this.subscriber = new StreamSubscriber(redisStore, CatalogEvent.STREAM, this::onRecord);
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            subscriber.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriber.close();
+    }
+
+    void onRecord(StreamRecord record) {
+        CatalogEvent event = CatalogEvent.fromFields(record.fields());
+        switch (event.type()) {
+            case SHOP_CHANGED -> {
+                InterServiceClient.invalidateCache("shop-service", "/shop/" + event.shopId());
+                log.debug("Dropped cached shop {} after {}", event.shopId(), event.type());
+            }
+            case SHOP_DELETED -> {
+                InterServiceClient.invalidateCache("shop-service", "/shop/" + event.shopId());
+                InterServiceClient.invalidateCache("shop-service", ShopOwnershipClient.ownerPath(event.shopId()));
+                log.debug("Dropped cached shop {} and its owner after {}", event.shopId(), event.type());
+            }
+            default -> {
+                // Products and listings are read from the cart, which is never cached
+            }
+        }
+    }
+}
@@ -3,7 +3,6 @@ package com.finditnow.orderservice.clients;
 import com.finditnow.interservice.InterServiceClient;
 import com.finditnow.interservice.JsonUtil;
 import com.finditnow.orderservice.dtos.DeliveryQuoteResponse;
-import com.finditnow.orderservice.dtos.InitiateDeliveryRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -23,21 +22,6 @@ public class DeliveryClient {
     private String deliveryServiceUrl;
     private static final long QUOTE_CACHE_SECONDS = Duration.ofDays(15).toSeconds();
 
-    public void initiateDelivery(InitiateDeliveryRequest request) {
-        try {
-            var res = InterServiceClient.call("delivery-service", "/deliveries/initiate", "POST", JsonUtil.toJson(request));
-//            String url = deliveryServiceUrl + "/deliveries/initiate";
-//            restTemplate.postForObject(url, request, Object.class);
-            if (res.statusCode() >= 200 && res.statusCode() < 300) {
-                log.info("Initiated delivery for order: {}", request.getOrderId());
-            }else{
-                throw new RuntimeException("Failed to initiate delivery: status code " + res.statusCode());
-            }
-        } catch (Exception e) {
-            log.error("Failed to initiate delivery for order: {}", request.getOrderId(), e);
-        }
-    }
-
     public com.finditnow.orderservice.dtos.DeliveryQuoteResponse calculateQuote(
             com.finditnow.orderservice.dtos.DeliveryQuoteRequest request) {
         try {
@@ -0,0 +1,42 @@
+package com.finditnow.orderservice.clients;
+
+import com.finditnow.interservice.InterServiceClient;
+import com.finditnow.interservice.JsonUtil;
+import com.finditnow.orderservice.dtos.ShopOwnerResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Asks shop-service who owns a shop. The owner of a shop never changes, so answers are cached for long and
+ * only dropped when the shop is deleted (see {@link CatalogEventListener}).
+ */
+@Component
+@Slf4j
+public class ShopOwnershipClient {
+    private static final long OWNER_CACHE_SECONDS = Duration.ofDays(15).toSeconds();
+
+    static String ownerPath(Long shopId) {
+        return "/internal/shops/" + shopId + "/owner";
+    }
+
+    /**
+     * @return true if the user owns the shop; false if not, if the shop does not exist or if shop-service
+     * could not be asked
+     */
+    public boolean isOwner(Long shopId, UUID userId) {
+        try {
+            var res = InterServiceClient.call("shop-service", ownerPath(shopId), "GET", null, true, OWNER_CACHE_SECONDS);
+            if (res.statusCode() < 200 || res.statusCode() >= 300) {
+                return false;
+            }
+            ShopOwnerResponse owner = JsonUtil.fromJson(res.body(), ShopOwnerResponse.class);
+            return owner.getOwnerId() != null && owner.getOwnerId().equals(userId);
+        } catch (Exception e) {
+            log.error("Failed to look up the owner of shop {}", shopId, e);
+            return false;
+        }
+    }
+}
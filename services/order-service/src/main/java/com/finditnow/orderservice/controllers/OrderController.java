@@ -1,12 +1,13 @@
 package com.finditnow.orderservice.controllers;
 
+import com.finditnow.orderservice.clients.ShopOwnershipClient;
 import com.finditnow.orderservice.dtos.CancelOrderRequest;
 import com.finditnow.orderservice.dtos.CreateOrderFromCartRequest;
 import com.finditnow.orderservice.dtos.OrderResponse;
 import com.finditnow.orderservice.dtos.StatusUpdateRequest;
+import com.finditnow.orderservice.services.OrderIdempotency;
 import com.finditnow.orderservice.services.OrderService;
 import jakarta.validation.Valid;
-import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -20,17 +21,27 @@ import java.util.UUID;
 @RequestMapping("/orders")
 public class OrderController {
     public final OrderService orderService;
+    private final ShopOwnershipClient shopOwnershipClient;
+    private final OrderIdempotency orderIdempotency;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, ShopOwnershipClient shopOwnershipClient,
+                           OrderIdempotency orderIdempotency) {
         this.orderService = orderService;
+        this.shopOwnershipClient = shopOwnershipClient;
+        this.orderIdempotency = orderIdempotency;
     }
 
+    /**
+     * Retries carrying the same {@code Idempotency-Key} header get the order created by the first request.
+     */
     @PostMapping("/from-cart")
     public ResponseEntity<OrderResponse> createOrderFromCart(
             @RequestBody CreateOrderFromCartRequest request,
-            @RequestAttribute("userId") String userIdStr) {
+            @RequestAttribute("userId") String userIdStr,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         UUID userId = UUID.fromString(userIdStr);
-        OrderResponse order = orderService.createOrderFromCart(request, userId);
+        OrderResponse order = orderIdempotency.execute(userId, idempotencyKey, request,
+                () -> orderService.createOrderFromCart(request, userId));
         return ResponseEntity.ok(order);
     }
 
@@ -43,10 +54,19 @@ public class OrderController {
         return ResponseEntity.ok(order);
     }
 
+    /**
+     * All of the user's orders by default; passing {@code cursor} (empty for the first page) switches to
+     * keyset pages of {@code size} orders.
+     */
     @GetMapping("/mine")
-    public ResponseEntity<List<OrderResponse>> getUserOrders(
-            @RequestAttribute("userId") String userIdStr) {
+    public ResponseEntity<?> getUserOrders(
+            @RequestAttribute("userId") String userIdStr,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
         UUID userId = UUID.fromString(userIdStr);
+        if (cursor != null) {
+            return ResponseEntity.ok(orderService.getUserOrders(userId, cursor, size));
+        }
         List<OrderResponse> orders = orderService.getUserOrders(userId);
         return ResponseEntity.ok(orders);
     }
@@ -66,27 +86,58 @@ public class OrderController {
         return ResponseEntity.ok(order);
     }
 
+    /**
+     * Offset pages by default; passing {@code cursor} (empty for the first page) switches to keyset pages.
+     */
     @GetMapping("/shop/{shopId}")
-    public ResponseEntity<Page<OrderResponse>> getShopOrders(
+    public ResponseEntity<?> getShopOrders(
             @PathVariable Long shopId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        // TODO: Validate user owns the shop
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestAttribute("userId") String userIdStr,
+            @RequestAttribute("profile") String profile) {
+        if (!canAccessShop(shopId, userIdStr, profile)) {
+            return shopForbidden();
+        }
+        if (cursor != null) {
+            return ResponseEntity.ok(orderService.getShopOrders(shopId, cursor, size));
+        }
         return ResponseEntity.ok(orderService.getShopOrders(shopId, page, size));
     }
 
     @GetMapping("/shop/{shopId}/earnings")
-    public ResponseEntity<Double> getShopEarnings(@PathVariable Long shopId) {
-        // TODO: Validate user owns the shop
+    public ResponseEntity<?> getShopEarnings(
+            @PathVariable Long shopId,
+            @RequestAttribute("userId") String userIdStr,
+            @RequestAttribute("profile") String profile) {
+        if (!canAccessShop(shopId, userIdStr, profile)) {
+            return shopForbidden();
+        }
         return ResponseEntity.ok(orderService.getShopEarnings(shopId));
     }
 
     @GetMapping("/shop/{shopId}/recent-products")
-    public ResponseEntity<List<String>> getRecentShopProducts(@PathVariable Long shopId) {
-        // TODO: Validate user owns the shop
+    public ResponseEntity<?> getRecentShopProducts(
+            @PathVariable Long shopId,
+            @RequestAttribute("userId") String userIdStr,
+            @RequestAttribute("profile") String profile) {
+        if (!canAccessShop(shopId, userIdStr, profile)) {
+            return shopForbidden();
+        }
         return ResponseEntity.ok(orderService.getRecentShopProducts(shopId));
     }
 
+    private boolean canAccessShop(Long shopId, String userIdStr, String profile) {
+        return "ADMIN".equalsIgnoreCase(profile)
+                || shopOwnershipClient.isOwner(shopId, UUID.fromString(userIdStr));
+    }
+
+    private ResponseEntity<Map<String, String>> shopForbidden() {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(Map.of("error", "You don't have permission to view this shop's orders"));
+    }
+
     /**
      * Customer cancels their own order. Requires CUSTOMER role and order ownership.
      * Allowed only when order status is CREATED, CONFIRMED, or PAID.
@@ -2,8 +2,10 @@ package com.finditnow.orderservice.daos;
 
 import com.finditnow.orderservice.entities.Order;
 import com.finditnow.orderservice.repositories.OrderRepository;
+import com.finditnow.orderservice.utils.OrderCursor;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -17,16 +19,26 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class OrderDao {
     private final OrderRepository orderRepository;
+    private final ShopStatsDao shopStatsDao;
 
     @Transactional
     public Order save(Order order) {
-        return orderRepository.save(order);
+        Order saved = orderRepository.save(order);
+        shopStatsDao.orderSaved(saved);
+        return saved;
     }
 
     public Optional<Order> findById(UUID id) {
         return orderRepository.findById(id);
     }
 
+    /**
+     * Locks the order until the end of the transaction, for status changes that depend on the current status
+     */
+    public Optional<Order> findByIdForUpdate(UUID id) {
+        return orderRepository.findByIdForUpdate(id);
+    }
+
     public List<Order> findByUserId(UUID userId) {
         return orderRepository.findByUserIdOrderByCreatedAtDesc(userId);
     }
@@ -35,18 +47,27 @@ public class OrderDao {
         return orderRepository.findByShopIdOrderByCreatedAtDesc(shopId);
     }
 
-    public Page<Order> findByShopId(Long shopId, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        return orderRepository.findByShopId(shopId, pageable);
+    /**
+     * Newest first, the {@code limit} orders placed before {@code cursor}, or the newest when it is null
+     */
+    public List<Order> findByUserId(UUID userId, OrderCursor cursor, int limit) {
+        return cursor == null
+                ? orderRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId, Limit.of(limit))
+                : orderRepository.findByUserIdBefore(userId, cursor.createdAt(), cursor.id(), Limit.of(limit));
     }
 
-    public Double calculateTotalEarnings(Long shopId) {
-        return orderRepository.calculateTotalEarningsByShopId(shopId);
+    /**
+     * Newest first, the {@code limit} orders placed before {@code cursor}, or the newest when it is null
+     */
+    public List<Order> findByShopId(Long shopId, OrderCursor cursor, int limit) {
+        return cursor == null
+                ? orderRepository.findByShopIdOrderByCreatedAtDescIdDesc(shopId, Limit.of(limit))
+                : orderRepository.findByShopIdBefore(shopId, cursor.createdAt(), cursor.id(), Limit.of(limit));
     }
 
-    public List<String> findRecentProducts(Long shopId) {
-        // Fetch top 5 recent unique products
-        return orderRepository.findRecentProductNamesByShopId(shopId, PageRequest.of(0, 5));
+    public Page<Order> findByShopId(Long shopId, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size);
+        return orderRepository.findByShopId(shopId, pageable);
     }
 
     @Transactional
@@ -54,7 +75,22 @@ public class OrderDao {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         order.setStatus(status);
-        return orderRepository.save(order);
+        return save(order);
+    }
+
+    /**
+     * Fails an order whose cart could not be consumed. A payment that arrived in the meantime is marked for a
+     * refund, since the order will never be delivered.
+     */
+    @Transactional
+    public Order failCheckout(UUID orderId) {
+        Order order = orderRepository.findByIdForUpdate(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+        order.setStatus(Order.OrderStatus.CHECKOUT_FAILED);
+        if (order.getPaymentStatus() == Order.PaymentStatus.PAID) {
+            order.setPaymentStatus(Order.PaymentStatus.REFUND_PENDING);
+        }
+        return save(order);
     }
 
     @Transactional
@@ -0,0 +1,81 @@
+package com.finditnow.orderservice.daos;
+
+import com.finditnow.orderservice.entities.Order;
+import com.finditnow.orderservice.entities.OrderItem;
+import com.finditnow.orderservice.repositories.ShopStatsRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Per shop and day aggregates for the shop dashboard, so earnings and recent products read a row per day
+ * instead of every order. {@link OrderDao} applies each order change in the transaction that saves it.
+ */
+@Component
+@RequiredArgsConstructor
+public class ShopStatsDao {
+    private final ShopStatsRepository shopStatsRepository;
+
+    /**
+     * Adds the difference the saved order makes to its shop's stats: a new order adds itself and its items, an
+     * order moving into or out of CANCELLED or CHECKOUT_FAILED subtracts or adds them again.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void orderSaved(Order order) {
+        boolean isNew = order.getCountedInStats() == null;
+        boolean before = !isNew && order.getCountedInStats();
+        boolean after = order.countsInStats();
+        order.setCountedInStats(after);
+        if (before == after && !isNew) {
+            return;
+        }
+
+        int sign = after == before ? 0 : after ? 1 : -1;
+        LocalDateTime orderedAt = order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now();
+        LocalDate day = orderedAt.toLocalDate();
+        double amount = order.getTotalAmount() != null ? order.getTotalAmount() : 0.0;
+        shopStatsRepository.addToDay(order.getShopId(), day, sign * amount, sign);
+
+        List<OrderItem> items = order.getOrderItems();
+        if (items == null || items.isEmpty()) {
+            return;
+        }
+        shopStatsRepository.addProductSales(order.getShopId(), day,
+                items.stream().map(OrderItem::getProductName).toArray(String[]::new),
+                items.stream().map(item -> sign * (item.getQuantity() != null ? item.getQuantity() : 0)).toArray(Integer[]::new),
+                orderedAt);
+    }
+
+    public double earnings(Long shopId) {
+        Double earnings = shopStatsRepository.sumEarnings(shopId);
+        return earnings != null ? earnings : 0.0;
+    }
+
+    public List<String> recentProducts(Long shopId, int limit) {
+        return shopStatsRepository.findRecentProductNames(shopId, limit);
+    }
+
+    public List<Long> shopIdsWithOrders() {
+        return shopStatsRepository.findShopIdsWithOrders();
+    }
+
+    public List<Long> shopIdsMissingStats() {
+        return shopStatsRepository.findShopIdsMissingStats();
+    }
+
+    /**
+     * Recomputes one shop's stats from its orders. Order changes committing meanwhile wait for the deleted
+     * rows' locks and then add their difference to the rebuilt rows, or are already part of the rebuild.
+     */
+    @Transactional
+    public void rebuild(Long shopId) {
+        shopStatsRepository.deleteStats(shopId);
+        shopStatsRepository.deleteProductSales(shopId);
+        shopStatsRepository.rebuildStats(shopId);
+        shopStatsRepository.rebuildProductSales(shopId);
+    }
+}
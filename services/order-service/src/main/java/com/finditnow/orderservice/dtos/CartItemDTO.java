@@ -11,6 +11,7 @@ import java.util.UUID;
 public class CartItemDTO {
     @JsonProperty("itemId")
     private UUID id;
+    private Long inventoryId;
     private Long productId;
     private String productName;
     private Double price;
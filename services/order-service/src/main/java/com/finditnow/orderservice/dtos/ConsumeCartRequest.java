@@ -0,0 +1,26 @@
+package com.finditnow.orderservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The units an order took from its cart; shop-service consumes exactly these and refuses a cart that no
+ * longer holds them
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConsumeCartRequest {
+    private List<Item> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private Long inventoryId;
+        private Integer quantity;
+    }
+}
@@ -0,0 +1,19 @@
+package com.finditnow.orderservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private int size;
+    /**
+     * Cursor of the next page; null on the last page
+     */
+    private String nextCursor;
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -11,7 +12,10 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_user_created", columnList = "userId, createdAt"),
+        @Index(name = "idx_orders_shop_created", columnList = "shopId, createdAt")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -60,12 +64,33 @@ public class Order {
     @Column(name = "cancelled_at")
     private LocalDateTime cancelledAt;
 
+    // Touching the items of one order in a list loads those of up to 100 orders of it in one query
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     private List<OrderItem> orderItems = new ArrayList<>();
 
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Payment> payments = new ArrayList<>();
 
+    /**
+     * Whether the shop's daily stats count this order as it was last loaded or saved; null for a new order
+     */
+    @Transient
+    private Boolean countedInStats;
+
+    @PostLoad
+    void rememberCountedInStats() {
+        countedInStats = countsInStats();
+    }
+
+    /**
+     * Cancelled orders and orders whose cart could not be consumed earn nothing; every other order counts
+     * towards the shop's earnings and sales
+     */
+    public boolean countsInStats() {
+        return status != OrderStatus.CANCELLED && status != OrderStatus.CHECKOUT_FAILED;
+    }
+
     public enum OrderStatus {
         CREATED,
         CONFIRMED,
@@ -76,7 +101,8 @@ public class Order {
         OUT_FOR_DELIVERY,
         DELIVERED,
         FAILED, // Delivery failed, will be re-pooled
-        CANCELLED
+        CANCELLED,
+        CHECKOUT_FAILED // Cart could not be consumed, the order is never fulfilled
     }
 
     public enum PaymentMethod {
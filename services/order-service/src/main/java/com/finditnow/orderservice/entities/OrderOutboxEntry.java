@@ -0,0 +1,82 @@
+package com.finditnow.orderservice.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A command to another service, written in the transaction of the order change that caused it and sent
+ * later by the relay. Commands of one order are sent one at a time, in the order they were written.
+ */
+@Entity
+@Table(name = "order_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderOutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private UUID orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private Command command;
+
+    @Column(nullable = false)
+    private String path;
+
+    @Column(columnDefinition = "TEXT")
+    private String body;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    /**
+     * When the command is due; null once it failed for good and waits for an operator
+     */
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Same for every attempt of this command, so a receiver can recognize a retry of work it already did
+     */
+    public String idempotencyKey() {
+        return orderId + ":" + command.name().toLowerCase();
+    }
+
+    public enum Command {
+        CONSUME_CART("shop-service", "POST"),
+        INITIATE_DELIVERY("delivery-service", "POST"),
+        CANCEL_DELIVERY("delivery-service", "PUT");
+
+        private final String service;
+        private final String method;
+
+        Command(String service, String method) {
+            this.service = service;
+            this.method = method;
+        }
+
+        public String service() {
+            return service;
+        }
+
+        public String method() {
+            return method;
+        }
+    }
+}
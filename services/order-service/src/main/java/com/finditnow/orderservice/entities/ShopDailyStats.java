@@ -0,0 +1,43 @@
+package com.finditnow.orderservice.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Earnings and order count of a shop for the day its orders were placed, kept in step with the orders in
+ * the same transaction. Items sold per product and day are kept alongside in {@code shop_daily_product_sales},
+ * which is only ever read and written with native SQL.
+ */
+@Entity
+@Table(name = "shop_daily_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShopDailyStats {
+
+    @EmbeddedId
+    private Key key;
+
+    @Column(nullable = false)
+    private Double earnings;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        @Column(name = "shop_id", nullable = false)
+        private Long shopId;
+
+        @Column(nullable = false)
+        private LocalDate day;
+    }
+}
@@ -0,0 +1,146 @@
+package com.finditnow.orderservice.outbox;
+
+import com.finditnow.interservice.JsonUtil;
+import com.finditnow.orderservice.daos.OrderDao;
+import com.finditnow.orderservice.dtos.CartItemDTO;
+import com.finditnow.orderservice.dtos.ConsumeCartRequest;
+import com.finditnow.orderservice.dtos.InitiateDeliveryRequest;
+import com.finditnow.orderservice.entities.OrderOutboxEntry;
+import com.finditnow.orderservice.entities.OrderOutboxEntry.Command;
+import com.finditnow.orderservice.repositories.OrderOutboxRepository;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Transactional outbox of commands to shop-service and delivery-service. {@link com.finditnow.orderservice.services.OrderService}
+ * records a command in the transaction of the order change, so it is sent if and only if the change commits;
+ * {@link OrderOutboxRelay} sends committed commands later and retries them with exponential backoff.
+ * <p>
+ * A command that keeps failing is parked for an operator after {@code order.outbox.max-attempts}, as is one the
+ * receiver rejects outright. A cart that cannot be consumed fails its order instead, and the order's later
+ * commands are dropped: a delivery must not start for goods that were never taken out of stock.
+ */
+@Slf4j
+@Component
+public class OrderOutbox {
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final OrderDao orderDao;
+    private final int maxAttempts;
+    private final long backoffBaseMillis;
+    private final long backoffMaxMillis;
+    private final long leaseSeconds;
+
+    public OrderOutbox(OrderOutboxRepository orderOutboxRepository, OrderDao orderDao,
+                       @Value("${order.outbox.max-attempts:10}") int maxAttempts,
+                       @Value("${order.outbox.backoff-base-ms:1000}") long backoffBaseMillis,
+                       @Value("${order.outbox.backoff-max-ms:300000}") long backoffMaxMillis,
+                       @Value("${order.outbox.lease-seconds:60}") long leaseSeconds) {
+        this.orderOutboxRepository = orderOutboxRepository;
+        this.orderDao = orderDao;
+        this.maxAttempts = maxAttempts;
+        this.backoffBaseMillis = backoffBaseMillis;
+        this.backoffMaxMillis = backoffMaxMillis;
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    /**
+     * @param items the cart lines the order was built from; the cart is consumed only if it still holds them
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void consumeCart(UUID orderId, UUID cartId, List<CartItemDTO> items) {
+        ConsumeCartRequest request = new ConsumeCartRequest(items.stream()
+                .map(item -> new ConsumeCartRequest.Item(item.getInventoryId(), item.getQuantity()))
+                .toList());
+        record(orderId, Command.CONSUME_CART, "/cart/" + cartId + "/internal/consume", JsonUtil.toJson(request));
+    }
+
+    /**
+     * @param request the delivery to start; null to build it from the order when the command is sent
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void initiateDelivery(UUID orderId, InitiateDeliveryRequest request) {
+        record(orderId, Command.INITIATE_DELIVERY, "/deliveries/initiate", request != null ? JsonUtil.toJson(request) : null);
+    }
+
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void cancelDelivery(UUID orderId) {
+        record(orderId, Command.CANCEL_DELIVERY, "/deliveries/order/" + orderId + "/cancel", "{}");
+    }
+
+    private void record(UUID orderId, Command command, String path, String body) {
+        LocalDateTime now = LocalDateTime.now();
+        orderOutboxRepository.save(new OrderOutboxEntry(null, orderId, command, path, body, 0, now, null, now));
+    }
+
+    /**
+     * Claims the oldest due commands for {@code order.outbox.lease-seconds}; a relay that dies while sending
+     * them leaves them to be claimed again once the lease runs out.
+     */
+    @Transactional
+    public List<OrderOutboxEntry> claimBatch(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderOutboxEntry> entries = orderOutboxRepository.lockDue(now, limit);
+        LocalDateTime leaseEnd = now.plusSeconds(leaseSeconds);
+        entries.forEach(entry -> entry.setNextAttemptAt(leaseEnd));
+        return entries;
+    }
+
+    @Transactional
+    public void completed(Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            orderOutboxRepository.deleteAllByIds(ids);
+        }
+    }
+
+    /**
+     * @param retryable false when the receiver rejected the command and sending it again cannot help
+     */
+    @Transactional
+    public void failed(Long id, boolean retryable, String error) {
+        OrderOutboxEntry entry = orderOutboxRepository.findById(id).orElse(null);
+        if (entry == null) {
+            return;
+        }
+        entry.setAttempts(entry.getAttempts() + 1);
+        entry.setLastError(error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+
+        if (retryable && entry.getAttempts() < maxAttempts) {
+            entry.setNextAttemptAt(LocalDateTime.now().plusNanos(backoffMillis(entry.getAttempts()) * 1_000_000));
+            log.warn("{} for order {} failed (attempt {}), retrying: {}", entry.getCommand(), entry.getOrderId(),
+                    entry.getAttempts(), error);
+            return;
+        }
+
+        if (entry.getCommand() == Command.CONSUME_CART) {
+            log.error("Cart of order {} could not be consumed, failing the order: {}", entry.getOrderId(), error);
+            orderDao.failCheckout(entry.getOrderId());
+            orderOutboxRepository.deleteAllByOrderId(entry.getOrderId());
+        } else {
+            log.error("{} for order {} failed after {} attempts, parked: {}", entry.getCommand(), entry.getOrderId(),
+                    entry.getAttempts(), error);
+            entry.setNextAttemptAt(null);
+        }
+    }
+
+    /**
+     * Exponential backoff capped at {@code order.outbox.backoff-max-ms}, with up to 20% jitter so commands
+     * that failed together are not retried together
+     */
+    long backoffMillis(int attempts) {
+        long delay = backoffBaseMillis << Math.min(attempts - 1, 30);
+        if (delay <= 0 || delay > backoffMaxMillis) {
+            delay = backoffMaxMillis;
+        }
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+}
@@ -0,0 +1,137 @@
+package com.finditnow.orderservice.outbox;
+
+import com.finditnow.interservice.InterServiceClient;
+import com.finditnow.interservice.JsonUtil;
+import com.finditnow.orderservice.entities.OrderOutboxEntry;
+import com.finditnow.orderservice.entities.OrderOutboxEntry.Command;
+import com.finditnow.orderservice.services.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Sends committed {@link OrderOutbox} commands every {@code order.outbox.relay-interval-ms}. Each batch is
+ * claimed in a short transaction, sent concurrently on virtual threads with no transaction open, and settled
+ * in one transaction for the sent commands plus one per failure. Every request carries the command's
+ * idempotency key, since a command is sent again whenever its outcome was not recorded.
+ */
+@Slf4j
+@Component
+public class OrderOutboxRelay {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private final OrderOutbox orderOutbox;
+    private final OrderService orderService;
+    private final ExecutorService interServiceExecutor;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    public OrderOutboxRelay(OrderOutbox orderOutbox, OrderService orderService, ExecutorService interServiceExecutor,
+                            @Value("${order.outbox.relay-enabled:true}") boolean enabled,
+                            @Value("${order.outbox.batch-size:100}") int batchSize,
+                            @Value("${order.outbox.max-batches-per-run:10}") int maxBatchesPerRun) {
+        this.orderOutbox = orderOutbox;
+        this.orderService = orderService;
+        this.interServiceExecutor = interServiceExecutor;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    @Scheduled(fixedDelayString = "${order.outbox.relay-interval-ms:500}")
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+
+        int sent = 0;
+        try {
+            int batch;
+            int batches = 0;
+            do {
+                List<OrderOutboxEntry> entries = orderOutbox.claimBatch(batchSize);
+                batch = entries.size();
+                sent += send(entries);
+            } while (batch == batchSize && ++batches < maxBatchesPerRun);
+        } catch (Exception e) {
+            log.warn("Order outbox relay failed after {} commands, retrying next run: {}", sent, e.getMessage());
+            return;
+        }
+        if (sent > 0) {
+            log.debug("Sent {} order commands", sent);
+        }
+    }
+
+    /**
+     * @return number of commands the receivers accepted
+     */
+    int send(List<OrderOutboxEntry> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        List<CompletableFuture<Failure>> sends = entries.stream()
+                .map(entry -> CompletableFuture.supplyAsync(() -> sendOne(entry), interServiceExecutor))
+                .toList();
+
+        List<Long> accepted = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            Failure failure = sends.get(i).join();
+            if (failure == null) {
+                accepted.add(entries.get(i).getId());
+            } else {
+                orderOutbox.failed(entries.get(i).getId(), failure.retryable(), failure.error());
+            }
+        }
+        orderOutbox.completed(accepted);
+        return accepted.size();
+    }
+
+    /**
+     * @return null if the receiver accepted the command
+     */
+    private Failure sendOne(OrderOutboxEntry entry) {
+        Command command = entry.getCommand();
+        try {
+            String body = entry.getBody();
+            if (body == null && command == Command.INITIATE_DELIVERY) {
+                body = JsonUtil.toJson(orderService.buildDeliveryRequest(entry.getOrderId()));
+            } else if (body == null) {
+                // CONSUME_CART recorded before it carried the order's lines
+                body = "{}";
+            }
+            HttpResponse<String> res = call(entry, body);
+            int status = res.statusCode();
+            if (status >= 200 && status < 300) {
+                return null;
+            }
+            return new Failure(retryable(status), "HTTP " + status + ": " + res.body());
+        } catch (Exception e) {
+            return new Failure(true, e.toString());
+        }
+    }
+
+    HttpResponse<String> call(OrderOutboxEntry entry, String body) throws Exception {
+        Command command = entry.getCommand();
+        return InterServiceClient.call(command.service(), entry.getPath(), command.method(), body,
+                Map.of(IDEMPOTENCY_KEY_HEADER, entry.idempotencyKey()));
+    }
+
+    /**
+     * Client errors other than a timeout or throttling will not go away by sending the same request again
+     */
+    static boolean retryable(int status) {
+        return status >= 500 || status == 408 || status == 429;
+    }
+
+    private record Failure(boolean retryable, String error) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.finditnow.orderservice.repositories;
+
+import com.finditnow.orderservice.entities.OrderOutboxEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface OrderOutboxRepository extends JpaRepository<OrderOutboxEntry, Long> {
+
+    /**
+     * Oldest due commands not claimed by another relay, locked until the end of the transaction. Only the
+     * first pending command of each order qualifies, so an order's commands are sent in sequence.
+     * {@code now} comes from the JVM clock that also writes {@code next_attempt_at}, so both sides of the
+     * comparison are in the same time zone.
+     */
+    @Query(value = """
+    SELECT * FROM order_outbox o
+    WHERE o.next_attempt_at <= :now
+      AND NOT EXISTS (SELECT 1 FROM order_outbox p WHERE p.order_id = o.order_id AND p.id < o.id)
+    ORDER BY o.id
+    LIMIT :limit
+    FOR UPDATE SKIP LOCKED
+    """, nativeQuery = true)
+    List<OrderOutboxEntry> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("DELETE FROM OrderOutboxEntry e WHERE e.id IN :ids")
+    int deleteAllByIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM OrderOutboxEntry e WHERE e.orderId = :orderId")
+    int deleteAllByOrderId(@Param("orderId") UUID orderId);
+}
@@ -1,34 +1,52 @@
 package com.finditnow.orderservice.repositories;
 
 import com.finditnow.orderservice.entities.Order;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, UUID> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findByIdForUpdate(@Param("id") UUID id);
+
     List<Order> findByUserIdOrderByCreatedAtDesc(UUID userId);
 
     List<Order> findByShopIdOrderByCreatedAtDesc(Long shopId);
 
     Page<Order> findByShopId(Long shopId, Pageable pageable);
 
-    @Query("SELECT SUM(o.totalAmount) FROM Order o WHERE o.shopId = :shopId AND o.status <> 'CANCELLED'")
-    Double calculateTotalEarningsByShopId(@Param("shopId") Long shopId);
+    List<Order> findByUserIdOrderByCreatedAtDescIdDesc(UUID userId, Limit limit);
+
+    @Query("""
+            SELECT o FROM Order o
+            WHERE o.userId = :userId
+              AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id))
+            ORDER BY o.createdAt DESC, o.id DESC
+            """)
+    List<Order> findByUserIdBefore(@Param("userId") UUID userId, @Param("createdAt") LocalDateTime createdAt,
+                                   @Param("id") UUID id, Limit limit);
+
+    List<Order> findByShopIdOrderByCreatedAtDescIdDesc(Long shopId, Limit limit);
 
     @Query("""
-            SELECT i.productName
-            FROM Order o
-            JOIN o.orderItems i
+            SELECT o FROM Order o
             WHERE o.shopId = :shopId
-            GROUP BY i.productName
-            ORDER BY MAX(o.createdAt) DESC
+              AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id))
+            ORDER BY o.createdAt DESC, o.id DESC
             """)
-    List<String> findRecentProductNamesByShopId(@Param("shopId") Long shopId, Pageable pageable);
+    List<Order> findByShopIdBefore(@Param("shopId") Long shopId, @Param("createdAt") LocalDateTime createdAt,
+                                   @Param("id") UUID id, Limit limit);
 }
@@ -0,0 +1,119 @@
+package com.finditnow.orderservice.repositories;
+
+import com.finditnow.orderservice.entities.ShopDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ShopStatsRepository extends JpaRepository<ShopDailyStats, ShopDailyStats.Key> {
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO shop_daily_stats (shop_id, day, earnings, order_count)
+            VALUES (:shopId, :day, :earnings, :orders)
+            ON CONFLICT (shop_id, day) DO UPDATE
+            SET earnings = shop_daily_stats.earnings + EXCLUDED.earnings,
+                order_count = shop_daily_stats.order_count + EXCLUDED.order_count
+            """, nativeQuery = true)
+    int addToDay(@Param("shopId") Long shopId, @Param("day") LocalDate day,
+                 @Param("earnings") double earnings, @Param("orders") long orders);
+
+    /**
+     * Adds the quantities of one order, given as parallel arrays, in one statement; {@code orderedAt} only
+     * ever moves the last order time of a product forward
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO shop_daily_product_sales (shop_id, day, product_name, quantity, last_ordered_at)
+            SELECT :shopId, :day, v.product_name, SUM(v.quantity), :orderedAt
+            FROM unnest(CAST(:productNames AS text[]), CAST(:quantities AS int[])) AS v(product_name, quantity)
+            WHERE v.product_name IS NOT NULL
+            GROUP BY v.product_name
+            ON CONFLICT (shop_id, day, product_name) DO UPDATE
+            SET quantity = shop_daily_product_sales.quantity + EXCLUDED.quantity,
+                last_ordered_at = GREATEST(shop_daily_product_sales.last_ordered_at, EXCLUDED.last_ordered_at)
+            """, nativeQuery = true)
+    int addProductSales(@Param("shopId") Long shopId, @Param("day") LocalDate day,
+                        @Param("productNames") String[] productNames, @Param("quantities") Integer[] quantities,
+                        @Param("orderedAt") LocalDateTime orderedAt);
+
+    @Query(value = "SELECT SUM(earnings) FROM shop_daily_stats WHERE shop_id = :shopId", nativeQuery = true)
+    Double sumEarnings(@Param("shopId") Long shopId);
+
+    @Query(value = """
+            SELECT product_name
+            FROM shop_daily_product_sales
+            WHERE shop_id = :shopId
+            GROUP BY product_name
+            ORDER BY MAX(last_ordered_at) DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<String> findRecentProductNames(@Param("shopId") Long shopId, @Param("limit") int limit);
+
+    @Query(value = "SELECT DISTINCT shop_id FROM orders", nativeQuery = true)
+    List<Long> findShopIdsWithOrders();
+
+    /**
+     * Shops with orders on a day that has no stats row: orders placed before the stats existed, since every
+     * later order writes its day's row in its own transaction
+     */
+    @Query(value = """
+            SELECT DISTINCT o.shop_id
+            FROM orders o
+            WHERE NOT EXISTS (SELECT 1 FROM shop_daily_stats s
+                              WHERE s.shop_id = o.shop_id AND s.day = CAST(o.created_at AS date))
+            """, nativeQuery = true)
+    List<Long> findShopIdsMissingStats();
+
+    @Modifying
+    @Query(value = "DELETE FROM shop_daily_stats WHERE shop_id = :shopId", nativeQuery = true)
+    int deleteStats(@Param("shopId") Long shopId);
+
+    @Modifying
+    @Query(value = "DELETE FROM shop_daily_product_sales WHERE shop_id = :shopId", nativeQuery = true)
+    int deleteProductSales(@Param("shopId") Long shopId);
+
+    /**
+     * Recomputes the shop's daily stats from its orders; run after {@link #deleteStats} in one transaction.
+     * Rows written meanwhile by another rebuild of the shop are overwritten with the same values.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO shop_daily_stats (shop_id, day, earnings, order_count)
+            SELECT o.shop_id, CAST(o.created_at AS date),
+                   COALESCE(SUM(o.total_amount) FILTER (WHERE o.status NOT IN ('CANCELLED', 'CHECKOUT_FAILED')), 0),
+                   COUNT(*) FILTER (WHERE o.status NOT IN ('CANCELLED', 'CHECKOUT_FAILED'))
+            FROM orders o
+            WHERE o.shop_id = :shopId
+            GROUP BY o.shop_id, CAST(o.created_at AS date)
+            ON CONFLICT (shop_id, day) DO UPDATE
+            SET earnings = EXCLUDED.earnings, order_count = EXCLUDED.order_count
+            """, nativeQuery = true)
+    int rebuildStats(@Param("shopId") Long shopId);
+
+    /**
+     * Recomputes the shop's product sales from its orders; run after {@link #deleteProductSales} in one
+     * transaction
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO shop_daily_product_sales (shop_id, day, product_name, quantity, last_ordered_at)
+            SELECT o.shop_id, CAST(o.created_at AS date), i.product_name,
+                   COALESCE(SUM(i.quantity) FILTER (WHERE o.status NOT IN ('CANCELLED', 'CHECKOUT_FAILED')), 0),
+                   MAX(o.created_at)
+            FROM orders o
+            JOIN order_items i ON i.order_id = o.id
+            WHERE o.shop_id = :shopId AND i.product_name IS NOT NULL
+            GROUP BY o.shop_id, CAST(o.created_at AS date), i.product_name
+            ON CONFLICT (shop_id, day, product_name) DO UPDATE
+            SET quantity = EXCLUDED.quantity, last_ordered_at = EXCLUDED.last_ordered_at
+            """, nativeQuery = true)
+    int rebuildProductSales(@Param("shopId") Long shopId);
+}
@@ -0,0 +1,157 @@
+package com.finditnow.orderservice.services;
+
+import com.finditnow.interservice.JsonUtil;
+import com.finditnow.orderservice.dtos.OrderResponse;
+import com.finditnow.redis.RedisStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Makes order creation safe to retry with an {@code Idempotency-Key} header. The key is claimed in Redis under
+ * {@code order:idem:<userId>:<key>} before the order is created and replaced by the resulting
+ * {@link OrderResponse} afterwards, so a retry gets the first order back instead of placing a second one.
+ * <p>
+ * A retry that arrives while the first request is still running waits for its result for up to
+ * {@code order.idempotency.wait-ms} and gets 409 if there is none by then. A failed request releases the key,
+ * so it can be retried. Reusing a key for a different request is refused with 422. When Redis is unreachable,
+ * orders are created without the check.
+ */
+@Slf4j
+@Component
+public class OrderIdempotency {
+    private static final String PREFIX = "order:idem:";
+    private static final String PENDING = "P|";
+    private static final String DONE = "D|";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long POLL_INTERVAL_MS = 50;
+    private static final String RELEASE_SCRIPT =
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0";
+
+    private final RedisStore redisStore;
+    private final long inFlightTtlMillis;
+    private final long resultTtlSeconds;
+    private final long waitMillis;
+
+    public OrderIdempotency(RedisStore redisStore,
+                            @Value("${order.idempotency.in-flight-ttl-ms:60000}") long inFlightTtlMillis,
+                            @Value("${order.idempotency.result-ttl-seconds:86400}") long resultTtlSeconds,
+                            @Value("${order.idempotency.wait-ms:10000}") long waitMillis) {
+        this.redisStore = redisStore;
+        this.inFlightTtlMillis = inFlightTtlMillis;
+        this.resultTtlSeconds = resultTtlSeconds;
+        this.waitMillis = waitMillis;
+    }
+
+    /**
+     * Runs {@code create} once per user and key; without a key it simply runs it.
+     *
+     * @param request the request body, compared with the body the key was first used with
+     */
+    public OrderResponse execute(UUID userId, String idempotencyKey, Object request, Supplier<OrderResponse> create) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return create.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String key = PREFIX + userId + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request);
+        String claim = PENDING + fingerprint + "|" + UUID.randomUUID();
+        long deadline = System.currentTimeMillis() + waitMillis;
+
+        while (true) {
+            boolean claimed;
+            String current = null;
+            try {
+                claimed = redisStore.setIfAbsent(key, claim, inFlightTtlMillis);
+                if (!claimed) {
+                    current = redisStore.getKeyValue(key);
+                }
+            } catch (Exception e) {
+                log.warn("Idempotency store unavailable, creating order without key {}: {}", idempotencyKey,
+                        e.getMessage());
+                return create.get();
+            }
+            if (claimed) {
+                return runClaimed(key, claim, fingerprint, create);
+            }
+
+            if (current != null) {
+                if (!current.startsWith(PENDING + fingerprint + "|") && !current.startsWith(DONE + fingerprint + "|")) {
+                    throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                            "Idempotency-Key was already used for a different request");
+                }
+                if (current.startsWith(DONE)) {
+                    return JsonUtil.fromJson(current.substring(DONE.length() + fingerprint.length() + 1),
+                            OrderResponse.class);
+                }
+            }
+            // Still in flight, or just released by a failed attempt: claim it again on the next pass
+            if (System.currentTimeMillis() >= deadline) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "A request with this Idempotency-Key is still in progress");
+            }
+            sleep();
+        }
+    }
+
+    private OrderResponse runClaimed(String key, String claim, String fingerprint, Supplier<OrderResponse> create) {
+        OrderResponse response;
+        try {
+            response = create.get();
+        } catch (RuntimeException e) {
+            release(key, claim);
+            throw e;
+        }
+        try {
+            redisStore.setKey(key, DONE + fingerprint + "|" + JsonUtil.toJson(response), resultTtlSeconds);
+        } catch (Exception e) {
+            log.warn("Failed to store result of order {} for its idempotency key: {}", response.getId(),
+                    e.getMessage());
+        }
+        return response;
+    }
+
+    /**
+     * SHA-256 of the request serialized as JSON, so a different body cannot pass for the original one.
+     */
+    static String fingerprint(Object request) {
+        try {
+            byte[] json = JsonUtil.toJson(request).getBytes(StandardCharsets.UTF_8);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private void release(String key, String claim) {
+        try {
+            // Only our own claim; it may have expired and been taken by a retry meanwhile
+            redisStore.evalScript(RELEASE_SCRIPT, List.of(key), List.of(claim));
+        } catch (Exception e) {
+            log.warn("Failed to release idempotency key {}, retries wait until it expires: {}", key, e.getMessage());
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "A request with this Idempotency-Key is still in progress");
+        }
+    }
+}
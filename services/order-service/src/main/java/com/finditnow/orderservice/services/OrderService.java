@@ -5,20 +5,27 @@ import com.finditnow.interservice.JsonUtil;
 import com.finditnow.orderservice.clients.DeliveryClient;
 import com.finditnow.orderservice.daos.OrderDao;
 import com.finditnow.orderservice.daos.PaymentDao;
+import com.finditnow.orderservice.daos.ShopStatsDao;
 import com.finditnow.orderservice.dtos.*;
 import com.finditnow.orderservice.entities.Order;
 import com.finditnow.orderservice.entities.OrderItem;
+import com.finditnow.orderservice.outbox.OrderOutbox;
+import com.finditnow.orderservice.utils.OrderCursor;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,17 +34,44 @@ import java.util.stream.Collectors;
 public class OrderService {
     private final OrderDao orderDao;
     private final PaymentDao paymentDao;
+    private final ShopStatsDao shopStatsDao;
     private final DeliveryClient deliveryClient;
+    private final OrderOutbox orderOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService interServiceExecutor;
     private final long SHOP_CACHE_SECONDS = Duration.ofDays(15).toSeconds();
     private final long USER_ADDRESS_CACHE_SECONDS = Duration.ofDays(15).toSeconds();
+    private static final int MAX_PAGE_SIZE = 100;
 
     // This should be configured via application.properties
     private static final String CART_SERVICE_URL = "http://localhost:8081";
 
-    @Transactional
+    /**
+     * Places an order in stages so that no stage waits longer than it has to:
+     * <ol>
+     *     <li>the cart and the delivery address are fetched concurrently, the shop as soon as the cart names it</li>
+     *     <li>the delivery quote is priced from that shop and address</li>
+     *     <li>the order is inserted in a transaction of its own, so a DB connection is held only for the insert,
+     *     together with the {@link OrderOutbox} commands to consume the cart and, for COD, to initiate the
+     *     delivery with the same shop and address</li>
+     * </ol>
+     * The order is returned as soon as that transaction commits; the commands are sent afterwards. The cart is
+     * consumed for exactly the lines the order was built from, so if it was changed in between, or cannot be
+     * consumed for any other reason, the order ends up CHECKOUT_FAILED.
+     */
     public OrderResponse createOrderFromCart(CreateOrderFromCartRequest request, UUID userId) {
-        // 1. Fetch cart from cart service
-        CartDTO cart = fetchCart(request.getCartId(), userId);
+        boolean takeaway = "TAKEAWAY".equalsIgnoreCase(request.getDeliveryType());
+
+        // 1. Fetch cart from cart service, and meanwhile the shop of the cart and the delivery address
+        CompletableFuture<CartDTO> cartFuture =
+                CompletableFuture.supplyAsync(() -> fetchCart(request.getCartId(), userId), interServiceExecutor);
+        CompletableFuture<ShopResponse> shopFuture =
+                cartFuture.thenApplyAsync(cart -> cart == null ? null : fetchShop(cart.getShopId()), interServiceExecutor);
+        CompletableFuture<UserAddressApiResponse.UserAddress> addressFuture = request.getAddressId() == null
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.supplyAsync(() -> fetchAddress(request.getAddressId()), interServiceExecutor);
+
+        CartDTO cart = join(cartFuture);
 
         if (cart == null || cart.getItems().isEmpty()) {
             throw new RuntimeException("Cart is empty or not found");
@@ -53,10 +87,13 @@ public class OrderService {
                 .mapToDouble(item -> item.getPrice() * item.getQuantity())
                 .sum();
 
+        ShopResponse shop = lookupOrNull(shopFuture, "shop " + cart.getShopId());
+        UserAddressApiResponse.UserAddress address = lookupOrNull(addressFuture, "address " + request.getAddressId());
+
         // 3.1 Calculate Delivery Charge
         double deliveryCharge = 0.0;
-        if (!"TAKEAWAY".equalsIgnoreCase(request.getDeliveryType())) {
-            DeliveryQuoteResponse quote = getDeliveryQuote(cart.getShopId(), request.getAddressId());
+        if (!takeaway) {
+            DeliveryQuoteResponse quote = getDeliveryQuote(shop, address);
             deliveryCharge = quote.getAmount();
         }
         totalAmount += deliveryCharge;
@@ -65,11 +102,14 @@ public class OrderService {
         Order order = new Order();
         order.setUserId(userId);
         order.setShopId(cart.getShopId());
-        order.setStatus(Order.OrderStatus.CREATED);
         order.setPaymentMethod(
                 "online".equals(request.getPaymentMethod())
                         ? Order.PaymentMethod.ONLINE
                         : Order.PaymentMethod.CASH_ON_DELIVERY);
+        // For COD, mark as confirmed
+        order.setStatus(order.getPaymentMethod() == Order.PaymentMethod.CASH_ON_DELIVERY
+                ? Order.OrderStatus.CONFIRMED
+                : Order.OrderStatus.CREATED);
         order.setPaymentStatus(Order.PaymentStatus.PENDING);
         order.setTotalAmount(totalAmount);
         order.setDeliveryAddressId(request.getAddressId());
@@ -90,20 +130,16 @@ public class OrderService {
             order.getOrderItems().add(orderItem);
         }
 
-        // 6. Save order
-        Order savedOrder = orderDao.save(order);
-
-        // 7. Clear cart (call cart service)
-        consumeCart(request.getCartId(), userId);
-
-        // 8. For COD, mark as confirmed
-        if (savedOrder.getPaymentMethod() == Order.PaymentMethod.CASH_ON_DELIVERY) {
-            savedOrder.setStatus(Order.OrderStatus.CONFIRMED);
-            // savedOrder = orderDao.save(savedOrder);
-
-            // Initiate Delivery for COD
-            initiateDelivery(savedOrder);
-        }
+        // 6. Save order, the only step inside a transaction, with the commands to clear the cart and, for COD,
+        //    to initiate the delivery
+        Order savedOrder = transactionTemplate.execute(status -> {
+            Order saved = orderDao.save(order);
+            orderOutbox.consumeCart(saved.getId(), request.getCartId(), cart.getItems());
+            if (saved.getPaymentMethod() == Order.PaymentMethod.CASH_ON_DELIVERY) {
+                orderOutbox.initiateDelivery(saved.getId(), buildDeliveryRequest(saved, shop, address));
+            }
+            return saved;
+        });
 
         return mapToOrderResponse(savedOrder);
     }
@@ -126,6 +162,36 @@ public class OrderService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Keyset page of the user's orders, newest first; an empty cursor asks for the first page
+     */
+    public CursorPageResponse<OrderResponse> getUserOrders(UUID userId, String cursor, int size) {
+        int limit = pageSize(size);
+        return toCursorPage(orderDao.findByUserId(userId, OrderCursor.decode(cursor), limit), limit);
+    }
+
+    /**
+     * Keyset page of the shop's orders, newest first; an empty cursor asks for the first page
+     */
+    public CursorPageResponse<OrderResponse> getShopOrders(Long shopId, String cursor, int size) {
+        int limit = pageSize(size);
+        return toCursorPage(orderDao.findByShopId(shopId, OrderCursor.decode(cursor), limit), limit);
+    }
+
+    private static int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    private CursorPageResponse<OrderResponse> toCursorPage(List<Order> orders, int limit) {
+        String nextCursor = null;
+        if (orders.size() == limit) {
+            Order last = orders.get(orders.size() - 1);
+            nextCursor = new OrderCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        // The items of the whole page are loaded together, see Order.orderItems
+        return new CursorPageResponse<>(orders.stream().map(this::mapToOrderResponse).toList(), limit, nextCursor);
+    }
+
     public Page<OrderResponse> getShopOrders(Long shopId, int page, int size) {
         // In a real scenario, you'd verify if the authenticated user owns this shop
         return orderDao.findByShopId(shopId, page, size)
@@ -133,51 +199,113 @@ public class OrderService {
     }
 
     public Double getShopEarnings(Long shopId) {
-        Double earnings = orderDao.calculateTotalEarnings(shopId);
-        return earnings != null ? earnings : 0.0;
+        return shopStatsDao.earnings(shopId);
     }
 
     public List<String> getRecentShopProducts(Long shopId) {
-        return orderDao.findRecentProducts(shopId);
+        // Fetch top 5 recent unique products
+        return shopStatsDao.recentProducts(shopId, 5);
     }
 
+    /**
+     * Confirms a CREATED order once it is paid and queues its delivery. An order that is confirmed already is left
+     * as is; one that was cancelled or whose checkout failed is not revived, its payment is marked for a refund.
+     */
     @Transactional
     public void confirmOrderPayment(UUID orderId) {
-        Order order = orderDao.findById(orderId)
+        // Locked, so a concurrent cancellation or failed checkout cannot be overwritten
+        Order order = orderDao.findByIdForUpdate(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
 
+        if (order.getStatus() != Order.OrderStatus.CREATED) {
+            if (order.getStatus() == Order.OrderStatus.CANCELLED
+                    || order.getStatus() == Order.OrderStatus.CHECKOUT_FAILED) {
+                log.warn("Payment received for order {} in status {}, marking it for refund", orderId, order.getStatus());
+                order.setPaymentStatus(Order.PaymentStatus.REFUND_PENDING);
+                orderDao.save(order);
+            } else {
+                log.info("Order {} is already {}, ignoring repeated payment confirmation", orderId, order.getStatus());
+            }
+            return;
+        }
+
         order.setPaymentStatus(Order.PaymentStatus.PAID);
         order.setStatus(Order.OrderStatus.CONFIRMED);
         orderDao.save(order);
 
-        // Initiate Delivery for Online Payment
-        initiateDelivery(order);
+        // Initiate Delivery for Online Payment, built from the order when the command is sent
+        orderOutbox.initiateDelivery(orderId, null);
 
         log.info("Order {} confirmed after successful payment", orderId);
     }
 
     public DeliveryQuoteResponse getDeliveryQuote(Long shopId, UUID addressId) {
+        CompletableFuture<ShopResponse> shop = CompletableFuture.supplyAsync(() -> fetchShop(shopId), interServiceExecutor);
+        CompletableFuture<UserAddressApiResponse.UserAddress> address =
+                CompletableFuture.supplyAsync(() -> fetchAddress(addressId), interServiceExecutor);
+        return getDeliveryQuote(lookupOrNull(shop, "shop " + shopId), lookupOrNull(address, "address " + addressId));
+    }
+
+    private DeliveryQuoteResponse getDeliveryQuote(ShopResponse shopResponse, UserAddressApiResponse.UserAddress userAddress) {
+        if (shopResponse == null || userAddress == null) {
+            log.error("failed to get delivery quote: shop or address unavailable, returning sample quote");
+            return new DeliveryQuoteResponse(0.0, 0.0);
+        }
+        return deliveryClient.calculateQuote(
+                DeliveryQuoteRequest.builder()
+                        .shopLatitude(shopResponse.getLatitude()).shopLongitude(shopResponse.getLongitude())
+                        .userLatitude(userAddress.getLatitude()).userLongitude(userAddress.getLongitude())
+                        .build());
+    }
+
+    private ShopResponse fetchShop(Long shopId) {
         try {
-            var shopRes = InterServiceClient.call("shop-service", "/shop/" + shopId.toString(), "GET", "{}", true, SHOP_CACHE_SECONDS);
+            var shopRes = InterServiceClient.call("shop-service", "/shop/" + shopId.toString(), "GET", null, true, SHOP_CACHE_SECONDS);
 
             log.info("Shop response received: {}", shopRes.body());
 
-            ShopResponse shopResponse = JsonUtil.fromJson(shopRes.body(), ShopResponse.class);
+            return JsonUtil.fromJson(shopRes.body(), ShopResponse.class);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
 
-            var userRes = InterServiceClient.call("user-service", "/addresses/" + addressId.toString(), "GET", "{}", true, USER_ADDRESS_CACHE_SECONDS);
+    private UserAddressApiResponse.UserAddress fetchAddress(UUID addressId) {
+        try {
+            var userRes = InterServiceClient.call("user-service", "/addresses/" + addressId.toString(), "GET", null, true, USER_ADDRESS_CACHE_SECONDS);
 
             log.info("User address received: {}", userRes.body());
 
-            UserAddressApiResponse.UserAddress userAddress = JsonUtil.fromJson(userRes.body(), UserAddressApiResponse.class).getData();
-
-            return deliveryClient.calculateQuote(
-                    DeliveryQuoteRequest.builder()
-                            .shopLatitude(shopResponse.getLatitude()).shopLongitude(shopResponse.getLongitude())
-                            .userLatitude(userAddress.getLatitude()).userLongitude(userAddress.getLongitude())
-                            .build());
+            return JsonUtil.fromJson(userRes.body(), UserAddressApiResponse.class).getData();
         } catch (Exception e) {
-            log.error("failed to get delivery quote:  {} , returning sample quote", e.getMessage(), e);
-            return new DeliveryQuoteResponse(0.0, 0.0);
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Waits for a lookup that checkout can do without; failures are logged and read as null.
+     */
+    private static <T> T lookupOrNull(CompletableFuture<T> lookup, String what) {
+        try {
+            return lookup.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.error("failed to look up {}: {}", what, cause.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Waits for a lookup that checkout needs, rethrowing its failure as is.
+     */
+    private static <T> T join(CompletableFuture<T> lookup) {
+        try {
+            return lookup.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
     }
 
@@ -196,16 +324,6 @@ public class OrderService {
 //         return TestCartData.getCartById(cartId);
     }
 
-    private void consumeCart(UUID cartId, UUID userId) {
-        //call cart service for clearing the cart
-        try {
-            InterServiceClient.call("shop-service", "/cart/" + cartId.toString() + "/internal/consume", "DELETE", null);
-        } catch (Exception e) {
-            log.error("Error while fetching cart for cartId: {}", cartId, e);
-            throw new RuntimeException("failed in fetching the cart for cartId: " + cartId);
-        }
-    }
-
     /**
      * Customer cancels their own order. Allowed only when status is CREATED, CONFIRMED, or PAID.
      * Propagates cancellation to Delivery service. If payment was PAID, sets payment status to REFUND_PENDING.
@@ -228,7 +346,8 @@ public class OrderService {
                 || status == Order.OrderStatus.PACKED
                 || status == Order.OrderStatus.PICKED_UP
                 || status == Order.OrderStatus.IN_TRANSIT
-                || status == Order.OrderStatus.FAILED) {
+                || status == Order.OrderStatus.FAILED
+                || status == Order.OrderStatus.CHECKOUT_FAILED) {
             throw new RuntimeException("Order cannot be cancelled in current state");
         }
 
@@ -247,13 +366,7 @@ public class OrderService {
         }
 
         Order savedOrder = orderDao.save(order);
-
-        try {
-            InterServiceClient.call("delivery-service", "/deliveries/order/" + orderId + "/cancel", "PUT", "{}");
-            log.info("Delivery cancelled for order {}", orderId);
-        } catch (Exception e) {
-            log.error("Failed to cancel delivery for order {}; order cancellation not rolled back", orderId, e);
-        }
+        orderOutbox.cancelDelivery(orderId);
 
         return mapToOrderResponse(savedOrder);
     }
@@ -292,7 +405,21 @@ public class OrderService {
         return response;
     }
 
-    private void initiateDelivery(Order order) {
+    /**
+     * The delivery request of an order, with the shop and delivery addresses looked up now
+     */
+    public InitiateDeliveryRequest buildDeliveryRequest(UUID orderId) {
+        Order order = orderDao.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found: " + orderId));
+        CompletableFuture<ShopResponse> shop = CompletableFuture.supplyAsync(() -> fetchShop(order.getShopId()), interServiceExecutor);
+        CompletableFuture<UserAddressApiResponse.UserAddress> address = order.getDeliveryAddressId() == null
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.supplyAsync(() -> fetchAddress(order.getDeliveryAddressId()), interServiceExecutor);
+        return buildDeliveryRequest(order, lookupOrNull(shop, "shop " + order.getShopId()),
+                lookupOrNull(address, "address " + order.getDeliveryAddressId()));
+    }
+
+    private InitiateDeliveryRequest buildDeliveryRequest(Order order, ShopResponse shopResponse, UserAddressApiResponse.UserAddress userAddress) {
         InitiateDeliveryRequest.InitiateDeliveryRequestBuilder request = InitiateDeliveryRequest.builder()
                 .orderId(order.getId())
                 .shopId(order.getShopId())
@@ -300,24 +427,14 @@ public class OrderService {
                 .type(order.getDeliveryType())
                 .amount(order.getDeliveryCharge())
                 .instructions(order.getInstructions());
-        ShopResponse shopResponse = null;
-        UserAddressApiResponse.UserAddress userAddress = null;
-        try {
-            var shopRes = InterServiceClient.call("shop-service", "/shop/" + order.getShopId().toString(), "GET", null, true);
-
-            shopResponse = JsonUtil.fromJson(shopRes.body(), ShopResponse.class);
-
-            var userRes = InterServiceClient.call("user-service", "/addresses/" + order.getDeliveryAddressId().toString(), "GET", null, true);
-
-            userAddress = JsonUtil.fromJson(userRes.body(), UserAddressApiResponse.class).getData();
+        if (shopResponse != null && userAddress != null) {
             request.pickupAddress(shopResponse.getAddress())
                     .deliveryAddress(userAddress.getFullAddress());
-        } catch (Exception e) {
-            log.error("failed rest call to shop service, or user service during intiate delivery {}", e.getMessage());
+        } else {
+            log.error("shop or user address unavailable during intiate delivery for order {}", order.getId());
             request.pickupAddress("Sample pickup address").deliveryAddress("sample delivery address");
         }
-
-        deliveryClient.initiateDelivery(request.build());
+        return request.build();
     }
 
     @Transactional
@@ -250,13 +250,12 @@ public class PaymentService {
         payment.setCollectedAt(LocalDateTime.now());
         paymentDao.save(payment);
 
-        // Update order status
-        Order order = payment.getOrder();
-        order.setPaymentStatus(Order.PaymentStatus.PAID);
-        order.setStatus(Order.OrderStatus.CONFIRMED);
-        orderDao.save(order);
+        // Update order status the same way as the callback, so a failed or cancelled order is not revived and
+        // a confirmed one gets its delivery
+        UUID orderId = payment.getOrder().getId();
+        orderService.confirmOrderPayment(orderId);
 
-        log.info("Payment captured successfully for order: {}, payment: {}", order.getId(), razorpayPaymentId);
+        log.info("Payment captured successfully for order: {}, payment: {}", orderId, razorpayPaymentId);
     }
 
     private void handlePaymentFailed(Payment payment, String razorpayPaymentId) {
@@ -0,0 +1,68 @@
+package com.finditnow.orderservice.services;
+
+import com.finditnow.orderservice.daos.ShopStatsDao;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Rebuilds the shop daily stats from the orders, one shop per transaction. On startup it rebuilds the shops
+ * whose older orders the stats do not cover yet, so the stats fill themselves the first time the service
+ * starts with them and after any interrupted run; with {@code order.stats.backfill-on-startup} it rebuilds
+ * every shop. Safe to run again at any time, also on several instances at once.
+ */
+@Slf4j
+@Component
+public class ShopStatsBackfill {
+    private final ShopStatsDao shopStatsDao;
+    private final boolean onStartup;
+
+    public ShopStatsBackfill(ShopStatsDao shopStatsDao,
+                             @Value("${order.stats.backfill-on-startup:false}") boolean onStartup) {
+        this.shopStatsDao = shopStatsDao;
+        this.onStartup = onStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        Thread.ofVirtual().name("shop-stats-backfill").start(onStartup ? this::backfill : this::backfillMissing);
+    }
+
+    public void backfill() {
+        rebuild(shopStatsDao.shopIdsWithOrders());
+    }
+
+    /**
+     * Rebuilds only the shops that have orders on days without stats
+     */
+    public void backfillMissing() {
+        List<Long> shopIds;
+        try {
+            shopIds = shopStatsDao.shopIdsMissingStats();
+        } catch (Exception e) {
+            log.error("Failed to find shops missing daily stats: {}", e.getMessage());
+            return;
+        }
+        if (!shopIds.isEmpty()) {
+            rebuild(shopIds);
+        }
+    }
+
+    private void rebuild(List<Long> shopIds) {
+        log.info("Backfilling daily stats of {} shops", shopIds.size());
+        int failed = 0;
+        for (Long shopId : shopIds) {
+            try {
+                shopStatsDao.rebuild(shopId);
+            } catch (Exception e) {
+                failed++;
+                log.error("Failed to backfill daily stats of shop {}: {}", shopId, e.getMessage());
+            }
+        }
+        log.info("Backfilled daily stats of {} shops, {} failed", shopIds.size() - failed, failed);
+    }
+}
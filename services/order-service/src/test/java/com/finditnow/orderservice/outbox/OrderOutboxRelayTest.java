@@ -0,0 +1,125 @@
+package com.finditnow.orderservice.outbox;
+
+import com.finditnow.interservice.JsonUtil;
+import com.finditnow.orderservice.dtos.InitiateDeliveryRequest;
+import com.finditnow.orderservice.entities.OrderOutboxEntry;
+import com.finditnow.orderservice.entities.OrderOutboxEntry.Command;
+import com.finditnow.orderservice.services.OrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderOutboxRelayTest {
+
+        @Mock
+        private OrderOutbox orderOutbox;
+
+        @Mock
+        private OrderService orderService;
+
+        private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        private OrderOutboxRelay relay;
+
+        @BeforeEach
+        void setUp() {
+                relay = spy(new OrderOutboxRelay(orderOutbox, orderService, executor, true, 100, 10));
+        }
+
+        @AfterEach
+        void tearDown() {
+                executor.close();
+        }
+
+        @Test
+        void retryable_OnlyServerErrorsTimeoutsAndThrottling() {
+                assertTrue(OrderOutboxRelay.retryable(500));
+                assertTrue(OrderOutboxRelay.retryable(503));
+                assertTrue(OrderOutboxRelay.retryable(408));
+                assertTrue(OrderOutboxRelay.retryable(429));
+
+                assertFalse(OrderOutboxRelay.retryable(400));
+                assertFalse(OrderOutboxRelay.retryable(404));
+                assertFalse(OrderOutboxRelay.retryable(409));
+                assertFalse(OrderOutboxRelay.retryable(422));
+        }
+
+        @Test
+        void send_SettlesEveryCommandByItsOutcome() throws Exception {
+                OrderOutboxEntry accepted = entry(1L, Command.CONSUME_CART, "{\"items\":[]}");
+                OrderOutboxEntry rejected = entry(2L, Command.CONSUME_CART, "{\"items\":[]}");
+                OrderOutboxEntry unavailable = entry(3L, Command.CANCEL_DELIVERY, "{}");
+                OrderOutboxEntry unreachable = entry(4L, Command.CANCEL_DELIVERY, "{}");
+                doReturn(response(204, "")).when(relay).call(eq(accepted), any());
+                doReturn(response(400, "Cart no longer holds the ordered items")).when(relay).call(eq(rejected), any());
+                doReturn(response(503, "")).when(relay).call(eq(unavailable), any());
+                doThrow(new IOException("Connection reset")).when(relay).call(eq(unreachable), any());
+
+                assertEquals(1, relay.send(List.of(accepted, rejected, unavailable, unreachable)));
+
+                verify(orderOutbox).completed(List.of(1L));
+                verify(orderOutbox).failed(2L, false, "HTTP 400: Cart no longer holds the ordered items");
+                verify(orderOutbox).failed(3L, true, "HTTP 503: ");
+                verify(orderOutbox).failed(eq(4L), eq(true), contains("Connection reset"));
+        }
+
+        @Test
+        void send_DeliveryRequestDeferredToSendTimeIsBuiltFromTheOrder() throws Exception {
+                OrderOutboxEntry entry = entry(1L, Command.INITIATE_DELIVERY, null);
+                InitiateDeliveryRequest request = InitiateDeliveryRequest.builder()
+                                .orderId(entry.getOrderId()).shopId(7L).amount(40.0).build();
+                when(orderService.buildDeliveryRequest(entry.getOrderId())).thenReturn(request);
+                doReturn(response(200, "")).when(relay).call(any(), any());
+
+                relay.send(List.of(entry));
+
+                verify(relay).call(entry, JsonUtil.toJson(request));
+        }
+
+        @Test
+        void send_CartCommandRecordedWithoutItemsIsSentWithAnEmptyBody() throws Exception {
+                OrderOutboxEntry entry = entry(1L, Command.CONSUME_CART, null);
+                doReturn(response(204, "")).when(relay).call(any(), any());
+
+                relay.send(List.of(entry));
+
+                verify(relay).call(entry, "{}");
+                verifyNoInteractions(orderService);
+        }
+
+        @Test
+        void send_EmptyBatchTouchesNothing() {
+                assertEquals(0, relay.send(List.of()));
+
+                verifyNoInteractions(orderOutbox);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static HttpResponse<String> response(int status, String body) {
+                HttpResponse<String> response = mock(HttpResponse.class);
+                when(response.statusCode()).thenReturn(status);
+                lenient().when(response.body()).thenReturn(body);
+                return response;
+        }
+
+        private static OrderOutboxEntry entry(Long id, Command command, String body) {
+                LocalDateTime now = LocalDateTime.now();
+                return new OrderOutboxEntry(id, UUID.randomUUID(), command, "/path", body, 0, now, null, now);
+        }
+}
@@ -0,0 +1,173 @@
+package com.finditnow.orderservice.outbox;
+
+import com.finditnow.interservice.JsonUtil;
+import com.finditnow.orderservice.daos.OrderDao;
+import com.finditnow.orderservice.dtos.CartItemDTO;
+import com.finditnow.orderservice.dtos.ConsumeCartRequest;
+import com.finditnow.orderservice.entities.OrderOutboxEntry;
+import com.finditnow.orderservice.entities.OrderOutboxEntry.Command;
+import com.finditnow.orderservice.repositories.OrderOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderOutboxTest {
+
+        @Mock
+        private OrderOutboxRepository orderOutboxRepository;
+
+        @Mock
+        private OrderDao orderDao;
+
+        private OrderOutbox outbox;
+
+        private final UUID orderId = UUID.randomUUID();
+
+        @BeforeEach
+        void setUp() {
+                outbox = new OrderOutbox(orderOutboxRepository, orderDao, 3, 1000, 60_000, 60);
+        }
+
+        @Test
+        void consumeCart_CarriesTheOrderedLines() {
+                UUID cartId = UUID.randomUUID();
+                CartItemDTO item = new CartItemDTO();
+                item.setInventoryId(10L);
+                item.setQuantity(2);
+
+                outbox.consumeCart(orderId, cartId, List.of(item));
+
+                ArgumentCaptor<OrderOutboxEntry> saved = ArgumentCaptor.forClass(OrderOutboxEntry.class);
+                verify(orderOutboxRepository).save(saved.capture());
+                OrderOutboxEntry entry = saved.getValue();
+                assertEquals(Command.CONSUME_CART, entry.getCommand());
+                assertEquals("/cart/" + cartId + "/internal/consume", entry.getPath());
+                assertEquals(new ConsumeCartRequest(List.of(new ConsumeCartRequest.Item(10L, 2))),
+                                JsonUtil.fromJson(entry.getBody(), ConsumeCartRequest.class));
+                assertNotNull(entry.getNextAttemptAt());
+        }
+
+        @Test
+        void claimBatch_LeasesTheClaimedCommands() {
+                OrderOutboxEntry first = entry(1L, Command.CONSUME_CART, 0);
+                OrderOutboxEntry second = entry(2L, Command.CANCEL_DELIVERY, 0);
+                when(orderOutboxRepository.lockDue(any(), eq(10))).thenReturn(List.of(first, second));
+
+                assertEquals(List.of(first, second), outbox.claimBatch(10));
+
+                // Not due again until the lease runs out, so another relay skips them meanwhile
+                LocalDateTime soonest = LocalDateTime.now().plusSeconds(59);
+                assertTrue(first.getNextAttemptAt().isAfter(soonest));
+                assertTrue(second.getNextAttemptAt().isAfter(soonest));
+        }
+
+        @Test
+        void completed_NothingAcceptedDeletesNothing() {
+                outbox.completed(List.of());
+
+                verify(orderOutboxRepository, never()).deleteAllByIds(anyCollection());
+        }
+
+        @Test
+        void failed_RetryableCommandIsRescheduledWithBackoff() {
+                OrderOutboxEntry entry = entry(1L, Command.INITIATE_DELIVERY, 0);
+                when(orderOutboxRepository.findById(1L)).thenReturn(Optional.of(entry));
+
+                outbox.failed(1L, true, "HTTP 503");
+
+                assertEquals(1, entry.getAttempts());
+                assertEquals("HTTP 503", entry.getLastError());
+                assertTrue(entry.getNextAttemptAt().isAfter(LocalDateTime.now().plusNanos(900_000_000)));
+                verifyNoInteractions(orderDao);
+        }
+
+        @Test
+        void failed_RetryableCommandIsParkedAfterMaxAttempts() {
+                OrderOutboxEntry entry = entry(1L, Command.INITIATE_DELIVERY, 2);
+                when(orderOutboxRepository.findById(1L)).thenReturn(Optional.of(entry));
+
+                outbox.failed(1L, true, "HTTP 503");
+
+                assertEquals(3, entry.getAttempts());
+                assertNull(entry.getNextAttemptAt());
+                verify(orderOutboxRepository, never()).deleteAllByOrderId(any());
+        }
+
+        @Test
+        void failed_RejectedCommandIsParkedAtOnce() {
+                OrderOutboxEntry entry = entry(1L, Command.CANCEL_DELIVERY, 0);
+                when(orderOutboxRepository.findById(1L)).thenReturn(Optional.of(entry));
+
+                outbox.failed(1L, false, "HTTP 404");
+
+                assertNull(entry.getNextAttemptAt());
+                verifyNoInteractions(orderDao);
+        }
+
+        @Test
+        void failed_RejectedCartFailsTheOrderAndDropsItsLaterCommands() {
+                OrderOutboxEntry entry = entry(1L, Command.CONSUME_CART, 0);
+                when(orderOutboxRepository.findById(1L)).thenReturn(Optional.of(entry));
+
+                outbox.failed(1L, false, "HTTP 400: Cart no longer holds the ordered items");
+
+                verify(orderDao).failCheckout(orderId);
+                // The INITIATE_DELIVERY queued behind it must never be sent
+                verify(orderOutboxRepository).deleteAllByOrderId(orderId);
+        }
+
+        @Test
+        void failed_CartStillUnreachableAfterMaxAttemptsFailsTheOrder() {
+                OrderOutboxEntry entry = entry(1L, Command.CONSUME_CART, 2);
+                when(orderOutboxRepository.findById(1L)).thenReturn(Optional.of(entry));
+
+                outbox.failed(1L, true, "java.net.ConnectException");
+
+                verify(orderDao).failCheckout(orderId);
+                verify(orderOutboxRepository).deleteAllByOrderId(orderId);
+        }
+
+        @Test
+        void failed_LongErrorIsCut() {
+                OrderOutboxEntry entry = entry(1L, Command.CANCEL_DELIVERY, 0);
+                when(orderOutboxRepository.findById(1L)).thenReturn(Optional.of(entry));
+
+                outbox.failed(1L, true, "x".repeat(5000));
+
+                assertEquals(1000, entry.getLastError().length());
+        }
+
+        @Test
+        void backoffMillis_DoublesUpToTheCapWithJitter() {
+                assertBetween(1000, 1200, outbox.backoffMillis(1));
+                assertBetween(2000, 2400, outbox.backoffMillis(2));
+                assertBetween(8000, 9600, outbox.backoffMillis(4));
+                assertBetween(60_000, 72_000, outbox.backoffMillis(7));
+                // Shifting this far overflows; still capped
+                assertBetween(60_000, 72_000, outbox.backoffMillis(64));
+        }
+
+        private OrderOutboxEntry entry(Long id, Command command, int attempts) {
+                LocalDateTime now = LocalDateTime.now();
+                return new OrderOutboxEntry(id, orderId, command, "/path", null, attempts, now, null, now);
+        }
+
+        private static void assertBetween(long min, long max, long actual) {
+                assertTrue(actual >= min && actual <= max, actual + " not in [" + min + ", " + max + "]");
+        }
+}
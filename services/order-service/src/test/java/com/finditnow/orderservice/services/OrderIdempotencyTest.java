@@ -0,0 +1,151 @@
+package com.finditnow.orderservice.services;
+
+import com.finditnow.interservice.JsonUtil;
+import com.finditnow.orderservice.dtos.CreateOrderFromCartRequest;
+import com.finditnow.orderservice.dtos.OrderResponse;
+import com.finditnow.redis.RedisStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderIdempotencyTest {
+
+        @Mock
+        private RedisStore redisStore;
+
+        private OrderIdempotency idempotency;
+
+        private final UUID userId = UUID.randomUUID();
+
+        private final AtomicInteger created = new AtomicInteger();
+
+        private CreateOrderFromCartRequest request;
+
+        private OrderResponse order;
+
+        private String key;
+
+        @BeforeEach
+        void setUp() {
+                idempotency = new OrderIdempotency(redisStore, 60_000, 86_400, 0);
+                request = new CreateOrderFromCartRequest();
+                request.setCartId(UUID.randomUUID());
+                request.setPaymentMethod("online");
+                order = new OrderResponse();
+                order.setId(UUID.randomUUID());
+                key = "order:idem:" + userId + ":key-1";
+        }
+
+        @Test
+        void execute_WithoutKeyJustCreates() {
+                assertSame(order, idempotency.execute(userId, null, request, create()));
+
+                assertEquals(1, created.get());
+                verifyNoInteractions(redisStore);
+        }
+
+        @Test
+        void execute_ClaimedKeyKeepsTheCreatedOrderForRetries() {
+                String fingerprint = OrderIdempotency.fingerprint(request);
+                when(redisStore.setIfAbsent(eq(key), startsWith("P|" + fingerprint + "|"), eq(60_000L))).thenReturn(true);
+
+                assertSame(order, idempotency.execute(userId, "key-1", request, create()));
+
+                assertEquals(1, created.get());
+                verify(redisStore).setKey(key, "D|" + fingerprint + "|" + JsonUtil.toJson(order), 86_400L);
+        }
+
+        @Test
+        void execute_RetryOfACompletedRequestGetsTheFirstOrder() {
+                String fingerprint = OrderIdempotency.fingerprint(request);
+                when(redisStore.setIfAbsent(eq(key), anyString(), anyLong())).thenReturn(false);
+                when(redisStore.getKeyValue(key)).thenReturn("D|" + fingerprint + "|" + JsonUtil.toJson(order));
+
+                OrderResponse response = idempotency.execute(userId, "key-1", request, create());
+
+                assertEquals(order.getId(), response.getId());
+                assertEquals(0, created.get());
+        }
+
+        @Test
+        void execute_RetryWhileTheFirstRequestRunsIsConflict() {
+                String fingerprint = OrderIdempotency.fingerprint(request);
+                when(redisStore.setIfAbsent(eq(key), anyString(), anyLong())).thenReturn(false);
+                when(redisStore.getKeyValue(key)).thenReturn("P|" + fingerprint + "|" + UUID.randomUUID());
+
+                ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                                () -> idempotency.execute(userId, "key-1", request, create()));
+
+                assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+                assertEquals(0, created.get());
+        }
+
+        @Test
+        void execute_KeyReusedForAnotherRequestIsUnprocessable() {
+                CreateOrderFromCartRequest other = new CreateOrderFromCartRequest();
+                other.setCartId(UUID.randomUUID());
+                when(redisStore.setIfAbsent(eq(key), anyString(), anyLong())).thenReturn(false);
+                when(redisStore.getKeyValue(key))
+                                .thenReturn("D|" + OrderIdempotency.fingerprint(other) + "|" + JsonUtil.toJson(order));
+
+                ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                                () -> idempotency.execute(userId, "key-1", request, create()));
+
+                assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatusCode());
+                assertEquals(0, created.get());
+        }
+
+        @Test
+        void execute_FailedRequestReleasesItsOwnClaim() {
+                when(redisStore.setIfAbsent(eq(key), anyString(), anyLong())).thenReturn(true);
+
+                assertThrows(IllegalStateException.class, () -> idempotency.execute(userId, "key-1", request, () -> {
+                        throw new IllegalStateException("Cart is empty");
+                }));
+
+                ArgumentCaptor<String> claim = ArgumentCaptor.forClass(String.class);
+                verify(redisStore).setIfAbsent(eq(key), claim.capture(), anyLong());
+                verify(redisStore).evalScript(anyString(), eq(List.of(key)), eq(List.of(claim.getValue())));
+                verify(redisStore, never()).setKey(anyString(), anyString(), anyLong());
+        }
+
+        @Test
+        void execute_RedisDownCreatesWithoutTheCheck() {
+                when(redisStore.setIfAbsent(anyString(), anyString(), anyLong()))
+                                .thenThrow(new RuntimeException("connection refused"));
+
+                assertSame(order, idempotency.execute(userId, "key-1", request, create()));
+
+                assertEquals(1, created.get());
+        }
+
+        @Test
+        void execute_OverlongKeyIsRefused() {
+                assertThrows(IllegalArgumentException.class,
+                                () -> idempotency.execute(userId, "k".repeat(256), request, create()));
+
+                verifyNoInteractions(redisStore);
+        }
+
+        private Supplier<OrderResponse> create() {
+                return () -> {
+                        created.incrementAndGet();
+                        return order;
+                };
+        }
+}
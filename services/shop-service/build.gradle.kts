@@ -26,6 +26,7 @@ repositories {
 }
 
 dependencies {
+    implementation(project(":libs:common"))
     implementation(project(":libs:jwt"))
     implementation(project(":libs:redis"))
     implementation(project(":libs:database"))
@@ -35,6 +36,9 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-web")
     implementation("org.springframework.boot:spring-boot-starter-security")
     implementation("org.springframework.boot:spring-boot-starter-validation")
+    implementation("com.github.ben-manes.caffeine:caffeine")
+    implementation("com.github.ben-manes.caffeine:jcache")
+    implementation("org.hibernate.orm:hibernate-jcache")
 
     implementation("io.jsonwebtoken:jjwt-api:0.12.3")
     implementation("io.jsonwebtoken:jjwt-impl:0.12.3")
@@ -5,8 +5,10 @@ import com.finditnow.database.Database;
 import com.finditnow.interservice.InterServiceClient;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ShopApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,150 @@
+package com.finditnow.shopservice.cache;
+
+import com.finditnow.redis.RedisStore;
+import com.finditnow.redis.StreamRecord;
+import com.finditnow.redis.StreamSubscriber;
+import com.finditnow.shopservice.entity.Category;
+import com.finditnow.shopservice.entity.Product;
+import com.finditnow.shopservice.entity.Shop;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps the second-level caches of all instances in step. Hibernate evicts its own cache when this instance
+ * writes a cached entity; the write is also published on a Redis stream after commit, and every other
+ * instance evicts the entity (and, for categories, the cached query results) when it reads the message.
+ * <p>
+ * Other instances serve the old entity until the message arrives, normally within milliseconds; cache
+ * entries also expire after the TTL configured in {@code application.conf} in case a message is lost.
+ */
+@Slf4j
+@Component
+public class EntityCacheInvalidator implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+    static final String STREAM = "shop:entity-cache:evictions";
+    private static final long STREAM_MAX_LENGTH = 10_000;
+    private static final Map<String, Class<?>> CACHED = Map.of(
+            Category.class.getSimpleName(), Category.class,
+            Shop.class.getSimpleName(), Shop.class,
+            Product.class.getSimpleName(), Product.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final RedisStore redisStore;
+    private final boolean enabled;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final StreamSubscriber subscriber;
+
+    public EntityCacheInvalidator(EntityManagerFactory entityManagerFactory, RedisStore redisStore,
+                                  @Value("${spring.jpa.properties.hibernate.cache.use_second_level_cache:false}") boolean enabled) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.redisStore = redisStore;
+        this.enabled = enabled;
+        this.subscriber = new StreamSubscriber(redisStore, STREAM, this::onRecord);
+    }
+
+    @PostConstruct
+    void register() {
+        if (!enabled) {
+            return;
+        }
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            subscriber.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriber.close();
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return CACHED.containsValue(persister.getMappedClass());
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        // A new row is in nobody's entity cache, but it can change the result of cached category queries
+        if (Hibernate.getClass(event.getEntity()) == Category.class) {
+            publish(Category.class, event.getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publish(Hibernate.getClass(event.getEntity()), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(Hibernate.getClass(event.getEntity()), event.getId());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    private void publish(Class<?> type, Object id) {
+        if (!CACHED.containsValue(type)) {
+            return;
+        }
+        try {
+            redisStore.appendToStream(STREAM, List.of(Map.of(
+                    "entity", type.getSimpleName(),
+                    "id", id.toString(),
+                    "origin", instanceId)), STREAM_MAX_LENGTH);
+        } catch (Exception e) {
+            log.warn("Failed to publish eviction of {} {}, other instances keep it until it expires: {}",
+                    type.getSimpleName(), id, e.getMessage());
+        }
+    }
+
+    void onRecord(StreamRecord record) {
+        Map<String, String> fields = record.fields();
+        if (instanceId.equals(fields.get("origin"))) {
+            return; // Hibernate already evicted it here
+        }
+        Class<?> type = CACHED.get(fields.get("entity"));
+        if (type == null) {
+            return;
+        }
+        org.hibernate.Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(type, Long.valueOf(fields.get("id")));
+        if (type == Category.class) {
+            cache.evictQueryRegions();
+        }
+    }
+}
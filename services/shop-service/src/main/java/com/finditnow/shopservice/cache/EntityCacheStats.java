@@ -0,0 +1,76 @@
+package com.finditnow.shopservice.cache;
+
+import com.finditnow.shopservice.dto.EntityCacheStatsResponse;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hit ratios of the second-level cache from Hibernate's statistics, and the database round trips it saves
+ * per HTTP request. Requests are counted by this filter; the per-request figures are averages over all
+ * requests since startup.
+ */
+@Component
+public class EntityCacheStats extends OncePerRequestFilter {
+    private final EntityManagerFactory entityManagerFactory;
+    private final AtomicLong requests = new AtomicLong();
+
+    public EntityCacheStats(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        requests.incrementAndGet();
+        chain.doFilter(request, response);
+    }
+
+    public EntityCacheStatsResponse snapshot() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long requestCount = requests.get();
+
+        Map<String, Double> regions = new LinkedHashMap<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics stats = statistics.getCacheRegionStatistics(region);
+            if (stats != null) {
+                regions.put(region, ratio(stats.getHitCount(), stats.getMissCount()));
+            }
+        }
+
+        long entityHits = statistics.getSecondLevelCacheHitCount();
+        long queryHits = statistics.getQueryCacheHitCount();
+        return EntityCacheStatsResponse.builder()
+                .requests(requestCount)
+                .entityHits(entityHits)
+                .entityMisses(statistics.getSecondLevelCacheMissCount())
+                .entityHitRatio(ratio(entityHits, statistics.getSecondLevelCacheMissCount()))
+                .queryHits(queryHits)
+                .queryMisses(statistics.getQueryCacheMissCount())
+                .queryHitRatio(ratio(queryHits, statistics.getQueryCacheMissCount()))
+                .queriesAvoidedPerRequest(perRequest(entityHits + queryHits, requestCount))
+                .statementsPerRequest(perRequest(statistics.getPrepareStatementCount(), requestCount))
+                .regionHitRatios(regions)
+                .build();
+    }
+
+    private static double ratio(long hits, long misses) {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    private static double perRequest(long count, long requests) {
+        return requests == 0 ? 0 : (double) count / requests;
+    }
+}
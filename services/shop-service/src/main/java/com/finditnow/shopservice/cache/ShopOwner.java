@@ -0,0 +1,9 @@
+package com.finditnow.shopservice.cache;
+
+import java.util.UUID;
+
+/**
+ * Owner of a shop as kept by {@link ShopOwnershipIndex}.
+ */
+public record ShopOwner(Long shopId, UUID ownerId) {
+}
@@ -0,0 +1,110 @@
+package com.finditnow.shopservice.cache;
+
+import com.finditnow.common.CatalogEvent;
+import com.finditnow.redis.RedisStore;
+import com.finditnow.redis.StreamRecord;
+import com.finditnow.redis.StreamSubscriber;
+import com.finditnow.shopservice.repository.ShopRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of shop ownership (shop to owner, owner to shops) used by authorization checks.
+ * <p>
+ * Built from the database at startup and kept current by shop creation and deletion: locally right after
+ * commit, and from other instances through the {@link CatalogEvent#STREAM} stream. The owner of a shop
+ * never changes, so an entry can only be stale by outliving its shop, and a request against a deleted shop
+ * fails on the missing row anyway. A shop created on another instance and not yet announced is looked up
+ * in the database once.
+ */
+@Slf4j
+@Component
+public class ShopOwnershipIndex {
+    private final ShopRepository shopRepository;
+    private final StreamSubscriber subscriber;
+
+    private final Map<Long, UUID> owners = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<Long>> shopsByOwner = new ConcurrentHashMap<>();
+
+    public ShopOwnershipIndex(ShopRepository shopRepository, RedisStore redisStore) {
+        this.shopRepository = shopRepository;
+        this.subscriber = new StreamSubscriber(redisStore, CatalogEvent.STREAM, this::onRecord);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        subscriber.start(); // first, so shops created while loading are not missed
+        owners.clear();
+        shopsByOwner.clear();
+        shopRepository.findAllOwners().forEach(this::put);
+        log.info("Shop ownership index built with {} shops", owners.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriber.close();
+    }
+
+    /**
+     * @return the owner of the shop, empty if the shop does not exist
+     */
+    public Optional<UUID> ownerOf(Long shopId) {
+        UUID owner = owners.get(shopId);
+        if (owner != null) {
+            return Optional.of(owner);
+        }
+        Optional<ShopOwner> loaded = shopRepository.findOwner(shopId);
+        loaded.ifPresent(this::put);
+        return loaded.map(ShopOwner::ownerId);
+    }
+
+    public boolean isOwner(Long shopId, UUID userId) {
+        return userId != null && ownerOf(shopId).map(userId::equals).orElse(false);
+    }
+
+    public Set<Long> shopsOf(UUID ownerId) {
+        Set<Long> shops = shopsByOwner.get(ownerId);
+        return shops == null ? Set.of() : Set.copyOf(shops);
+    }
+
+    public synchronized void put(ShopOwner shop) {
+        if (shop.shopId() == null || shop.ownerId() == null) {
+            return;
+        }
+        remove(shop.shopId());
+        owners.put(shop.shopId(), shop.ownerId());
+        shopsByOwner.computeIfAbsent(shop.ownerId(), k -> ConcurrentHashMap.newKeySet()).add(shop.shopId());
+    }
+
+    public synchronized void remove(Long shopId) {
+        UUID owner = owners.remove(shopId);
+        if (owner != null) {
+            shopsByOwner.computeIfPresent(owner, (k, shops) -> {
+                shops.remove(shopId);
+                return shops.isEmpty() ? null : shops;
+            });
+        }
+    }
+
+    public int size() {
+        return owners.size();
+    }
+
+    void onRecord(StreamRecord record) {
+        CatalogEvent event = CatalogEvent.fromFields(record.fields());
+        if (event.type() == CatalogEvent.Type.SHOP_DELETED) {
+            remove(event.shopId());
+        } else if (event.type() == CatalogEvent.Type.SHOP_CHANGED && !owners.containsKey(event.shopId())) {
+            shopRepository.findOwner(event.shopId()).ifPresent(this::put);
+        }
+    }
+}
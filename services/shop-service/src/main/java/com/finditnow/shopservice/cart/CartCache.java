@@ -0,0 +1,203 @@
+package com.finditnow.shopservice.cart;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finditnow.redis.RedisStore;
+import com.finditnow.shopservice.dto.CartResponse;
+import com.finditnow.shopservice.utils.AfterCommit;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of {@link CartResponse}s by user and by (user, shop): an in-process near
+ * cache in front of serialized responses shared by all instances in Redis.
+ * <ul>
+ *     <li>{@code cart:cache:entry:<key>} - the serialized response, prefixed with the owner's version</li>
+ *     <li>{@code cart:cache:user:<id>} - bumped with every change to one of the user's carts</li>
+ *     <li>{@code cart:cache:writes} - bumped by every change; only used to detect writes racing a fill</li>
+ * </ul>
+ * A change deletes the Redis entries of the cart and bumps its owner's version after commit, so near cache
+ * hits on other instances are caught by one GET of the version. Prices and names come from inventory and
+ * products that change without touching carts; those show up once {@code cart.cache.ttl-seconds} pass, which
+ * is why checkout reads carts by id from the database instead.
+ */
+@Slf4j
+@Component
+public class CartCache {
+    private static final String PREFIX = "cart:cache:";
+    static final String WRITES = PREFIX + "writes";
+
+    // Stores the entry only if no cart changed since the caller read WRITES; returns the owner's version
+    private static final String FILL = """
+            if (redis.call('GET', KEYS[1]) or '0') ~= ARGV[1] then return false end
+            local version = redis.call('GET', KEYS[2]) or '0'
+            redis.call('SET', KEYS[3], version .. '|' .. ARGV[2], 'EX', tonumber(ARGV[3]))
+            return version
+            """;
+
+    // KEYS[1] writes, then per cart: owner version, entry by user, by user and shop
+    private static final String INVALIDATE = """
+            redis.call('INCR', KEYS[1])
+            for i = 2, #KEYS, 3 do
+                redis.call('INCR', KEYS[i])
+                redis.call('DEL', KEYS[i + 1], KEYS[i + 2])
+            end
+            return 1
+            """;
+
+    private final RedisStore redisStore;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long ttlSeconds;
+    private final Cache<String, Entry> entries;
+
+    public CartCache(RedisStore redisStore, ObjectMapper objectMapper,
+                     @Value("${cart.cache.enabled:true}") boolean enabled,
+                     @Value("${cart.cache.max-entries:10000}") long maxEntries,
+                     @Value("${cart.cache.ttl-seconds:120}") long ttlSeconds) {
+        this.redisStore = redisStore;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.ttlSeconds = ttlSeconds;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    public static String byUser(UUID userId) {
+        return "user:" + userId;
+    }
+
+    public static String byUserAndShop(UUID userId, Long shopId) {
+        return "user:" + userId + ":shop:" + shopId;
+    }
+
+    /**
+     * Returns the cached response for {@code key} if it is still current, otherwise loads and caches it.
+     * Exceptions of the loader are passed on and nothing is cached.
+     */
+    public CartResponse get(String key, Supplier<CartResponse> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        Entry near = entries.getIfPresent(key);
+        if (near != null) {
+            String version = readCounter(versionKey(near.value().getUserId()));
+            if (near.version().equals(version)) {
+                return near.value();
+            }
+            entries.asMap().remove(key, near);
+        }
+
+        Entry shared = readShared(key);
+        if (shared != null) {
+            entries.put(key, shared);
+            return shared.value();
+        }
+
+        String writesBefore = readCounter(WRITES);
+        CartResponse value = loader.get();
+        if (writesBefore != null) {
+            fill(key, value, writesBefore);
+        }
+        return value;
+    }
+
+    public void cartChanged(UUID cartId, UUID userId, Long shopId) {
+        cartsChanged(List.of(new CartOwner(cartId, userId, shopId)));
+    }
+
+    /**
+     * Drops the cached responses of the given carts once the current transaction commits.
+     */
+    public void cartsChanged(Collection<CartOwner> carts) {
+        if (!enabled || carts.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(1 + carts.size() * 3);
+        keys.add(WRITES);
+        for (CartOwner cart : carts) {
+            keys.add(versionKey(cart.userId()));
+            keys.add(entryKey(byUser(cart.userId())));
+            keys.add(entryKey(byUserAndShop(cart.userId(), cart.shopId())));
+        }
+        AfterCommit.run(() -> {
+            try {
+                redisStore.evalScript(INVALIDATE, keys, List.of());
+            } catch (Exception e) {
+                // Cached responses of these carts stay visible until the cache TTL expires
+                log.warn("Failed to invalidate cached carts {}: {}", carts, e.getMessage());
+            }
+        });
+    }
+
+    public void clear() {
+        entries.invalidateAll();
+    }
+
+    private void fill(String key, CartResponse value, String writesBefore) {
+        try {
+            Object version = redisStore.evalScript(FILL,
+                    List.of(WRITES, versionKey(value.getUserId()), entryKey(key)),
+                    List.of(writesBefore, objectMapper.writeValueAsString(value), String.valueOf(ttlSeconds)));
+            if (version != null) {
+                entries.put(key, new Entry(value, String.valueOf(version)));
+            }
+        } catch (Exception e) {
+            log.warn("Cart cache fill skipped for {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * @return the entry stored in Redis, or {@code null} if there is none or Redis is unavailable
+     */
+    private Entry readShared(String key) {
+        try {
+            String stored = redisStore.getKeyValue(entryKey(key));
+            if (stored == null) {
+                return null;
+            }
+            int separator = stored.indexOf('|');
+            return new Entry(objectMapper.readValue(stored.substring(separator + 1), CartResponse.class),
+                    stored.substring(0, separator));
+        } catch (Exception e) {
+            log.warn("Cart cache entry {} skipped: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return the counter, "0" when unset, or {@code null} when Redis is unavailable (the cache is then bypassed)
+     */
+    private String readCounter(String redisKey) {
+        try {
+            String value = redisStore.getKeyValue(redisKey);
+            return value == null ? "0" : value;
+        } catch (Exception e) {
+            log.warn("Cart cache bypassed, could not read {}: {}", redisKey, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String versionKey(UUID userId) {
+        return PREFIX + "user:" + userId;
+    }
+
+    private static String entryKey(String key) {
+        return PREFIX + "entry:" + key;
+    }
+
+    private record Entry(CartResponse value, String version) {
+    }
+}
@@ -0,0 +1,83 @@
+package com.finditnow.shopservice.cart;
+
+import com.finditnow.shopservice.service.CartExpiryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodically gives the stock of abandoned carts back. Each batch commits on its own, so a failure only
+ * loses the batch at hand; instances can sweep side by side because carts are claimed with SKIP LOCKED.
+ * <p>
+ * Every run logs what it released; running totals are kept for the lifetime of the instance.
+ */
+@Slf4j
+@Component
+public class CartExpirySweeper {
+    private final CartExpiryService cartExpiryService;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    private final AtomicLong expiredCarts = new AtomicLong();
+    private final AtomicLong releasedUnits = new AtomicLong();
+    private volatile ExpiredCarts lastRun = ExpiredCarts.NONE;
+
+    public CartExpirySweeper(CartExpiryService cartExpiryService,
+                             @Value("${cart.expiry.enabled:true}") boolean enabled,
+                             @Value("${cart.expiry.batch-size:200}") int batchSize,
+                             @Value("${cart.expiry.max-batches-per-run:50}") int maxBatchesPerRun) {
+        this.cartExpiryService = cartExpiryService;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    @Scheduled(fixedDelayString = "${cart.expiry.sweep-interval-ms:60000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        int carts = 0;
+        int rows = 0;
+        long units = 0;
+        try {
+            ExpiredCarts batch;
+            int batches = 0;
+            do {
+                batch = cartExpiryService.expireBatch(batchSize);
+                carts += batch.carts();
+                rows += batch.inventoryRows();
+                units += batch.releasedUnits();
+            } while (batch.carts() == batchSize && ++batches < maxBatchesPerRun);
+        } catch (Exception e) {
+            log.error("Cart expiry sweep failed: {}", e.getMessage(), e);
+        }
+
+        lastRun = new ExpiredCarts(carts, rows, units);
+        expiredCarts.addAndGet(carts);
+        releasedUnits.addAndGet(units);
+        if (carts > 0) {
+            log.info("Expired {} carts, released {} units of {} inventory rows in {} ms (total {} carts, {} units)",
+                    carts, units, rows, (System.nanoTime() - start) / 1_000_000, expiredCarts.get(),
+                    releasedUnits.get());
+        }
+    }
+
+    public ExpiredCarts getLastRun() {
+        return lastRun;
+    }
+
+    public long getExpiredCarts() {
+        return expiredCarts.get();
+    }
+
+    public long getReleasedUnits() {
+        return releasedUnits.get();
+    }
+}
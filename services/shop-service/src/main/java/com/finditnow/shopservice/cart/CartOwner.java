@@ -0,0 +1,9 @@
+package com.finditnow.shopservice.cart;
+
+import java.util.UUID;
+
+/**
+ * Identifies a cart together with the user and shop it can be looked up by.
+ */
+public record CartOwner(UUID cartId, UUID userId, Long shopId) {
+}
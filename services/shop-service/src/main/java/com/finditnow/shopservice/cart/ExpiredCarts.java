@@ -0,0 +1,8 @@
+package com.finditnow.shopservice.cart;
+
+/**
+ * What one expiry batch did: carts flipped to EXPIRED and the reserved units given back to stock.
+ */
+public record ExpiredCarts(int carts, int inventoryRows, long releasedUnits) {
+    public static final ExpiredCarts NONE = new ExpiredCarts(0, 0, 0);
+}
@@ -0,0 +1,20 @@
+package com.finditnow.shopservice.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Runs blocking calls to other services while the caller does local work, each on its own virtual thread.
+     * Closed after the beans using it, so calls still in flight at shutdown finish.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService interServiceExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
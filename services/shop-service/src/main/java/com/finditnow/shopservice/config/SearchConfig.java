@@ -0,0 +1,20 @@
+package com.finditnow.shopservice.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class SearchConfig {
+
+    /**
+     * Runs the independent legs of a search (shops, products) concurrently.
+     * Legs are blocking JDBC calls, so each gets its own virtual thread.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService searchExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
@@ -62,6 +62,7 @@ public class SecurityConfig {
                         // ============ INTERNAL SERVICE ENDPOINTS ============
                         // Internal endpoints require SERVICE role
                         .requestMatchers("/cart/*/internal/**").hasRole("SERVICE")
+                        .requestMatchers("/internal/**").hasRole("SERVICE")
 
                         // ============ DEFAULT ============
                         // All other requests require authentication
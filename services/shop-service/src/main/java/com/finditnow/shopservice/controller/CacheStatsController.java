@@ -0,0 +1,32 @@
+package com.finditnow.shopservice.controller;
+
+import com.finditnow.shopservice.cache.EntityCacheStats;
+import com.finditnow.shopservice.dto.EntityCacheStatsResponse;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/admin/cache")
+public class CacheStatsController {
+
+    private final EntityCacheStats entityCacheStats;
+
+    public CacheStatsController(EntityCacheStats entityCacheStats) {
+        this.entityCacheStats = entityCacheStats;
+    }
+
+    /**
+     * Second-level cache hit ratios and database queries avoided per request on this instance.
+     * GET /api/v1/admin/cache/entities
+     *
+     * @return ResponseEntity with the cache statistics
+     */
+    @GetMapping("/entities")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<EntityCacheStatsResponse> entityCacheStats() {
+        return ResponseEntity.ok(entityCacheStats.snapshot());
+    }
+}
@@ -1,8 +1,10 @@
 package com.finditnow.shopservice.controller;
 
 import com.finditnow.shopservice.dto.AddToCartRequest;
+import com.finditnow.shopservice.dto.CartBatchRequest;
 import com.finditnow.shopservice.dto.CartPricingResponse;
 import com.finditnow.shopservice.dto.CartResponse;
+import com.finditnow.shopservice.dto.ConsumeCartRequest;
 import com.finditnow.shopservice.dto.UpdateCartItemRequest;
 import com.finditnow.shopservice.service.CartService;
 import jakarta.validation.Valid;
@@ -53,6 +55,22 @@ public class CartController extends BaseController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Add, update and remove several items at once
+     * POST /api/cart/batch
+     * <p>
+     * Operations are applied in order within one transaction; if one fails, none is applied
+     */
+    @PostMapping("/batch")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CartResponse> applyBatch(
+            Authentication authentication,
+            @Valid @RequestBody CartBatchRequest request) {
+        UUID userId = extractUserId(authentication);
+        CartResponse response = cartService.applyBatch(userId, request);
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Remove an item from the cart
      * DELETE /api/cart/item/{itemId}
@@ -129,15 +147,17 @@ public class CartController extends BaseController {
     }
 
     /**
-     * Clear all items from a cart
-     * DELETE /api/cart/{cartId}/consume
+     * Consume the items an order was placed for
+     * POST /api/cart/{cartId}/internal/consume
      * <p>
-     * Internal use only
+     * Internal use only; DELETE without a body is still accepted from callers that predate the item list
      */
-    @DeleteMapping("/{cartId}/internal/consume")
+    @RequestMapping(value = "/{cartId}/internal/consume", method = {RequestMethod.POST, RequestMethod.DELETE})
     @PreAuthorize("hasRole('SERVICE')")
-    public ResponseEntity<Void> consumeCart(@PathVariable UUID cartId) {
-        cartService.consumeCart(cartId);
+    public ResponseEntity<Void> consumeCart(@PathVariable UUID cartId,
+                                            @Valid @RequestBody(required = false) ConsumeCartRequest request,
+                                            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        cartService.consumeCart(cartId, request != null ? request.getItems() : null, idempotencyKey);
         return ResponseEntity.noContent().build();
     }
 
@@ -1,16 +1,21 @@
 package com.finditnow.shopservice.controller;
 
 import com.finditnow.shopservice.dto.AddInventoryRequest;
+import com.finditnow.shopservice.dto.InventoryImportResponse;
 import com.finditnow.shopservice.dto.InventoryResponse;
 import com.finditnow.shopservice.dto.UpdateInventoryRequest;
+import com.finditnow.shopservice.service.InventoryImportService;
 import com.finditnow.shopservice.service.ShopInventoryService;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.UUID;
 
@@ -19,9 +24,12 @@ import java.util.UUID;
 public class InventoryController extends BaseController {
 
     private final ShopInventoryService shopInventoryService;
+    private final InventoryImportService inventoryImportService;
 
-    public InventoryController(ShopInventoryService shopInventoryService) {
+    public InventoryController(ShopInventoryService shopInventoryService,
+                               InventoryImportService inventoryImportService) {
         this.shopInventoryService = shopInventoryService;
+        this.inventoryImportService = inventoryImportService;
     }
 
     /**
@@ -74,6 +82,34 @@ public class InventoryController extends BaseController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * Create or update many inventory items from a CSV or NDJSON upload, streamed rather than buffered.
+     * POST /api/v1/shops/{shopId}/inventory/import
+     *
+     * @param shopId        The shop ID
+     * @param contentType   text/csv or application/x-ndjson
+     * @param body          The upload
+     * @param authentication Spring Security authentication object
+     * @return ResponseEntity with row counts and the errors of rejected rows
+     */
+    @PostMapping(value = "/inventory/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasAnyRole('SHOP', 'ADMIN')")
+    public ResponseEntity<InventoryImportResponse> importInventory(
+            @PathVariable Long shopId,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body,
+            Authentication authentication) {
+
+        UUID userId = extractUserId(authentication);
+        boolean isAdmin = authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+
+        InventoryImportService.Format format = contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? InventoryImportService.Format.NDJSON
+                : InventoryImportService.Format.CSV;
+        return ResponseEntity.ok(inventoryImportService.importInventory(shopId, body, format, userId, isAdmin));
+    }
+
     /**
      * Update an inventory item (stock and/or price).
      * PUT /api/v1/inventory/{id}
@@ -153,4 +189,30 @@ public class InventoryController extends BaseController {
         InventoryResponse response = shopInventoryService.releaseStock(id, quantity);
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Keep the stock counters of an inventory item in Redis (flash sales).
+     * PUT /api/v1/inventory/{id}/hot
+     *
+     * @param id The inventory ID
+     * @return ResponseEntity with the inventory item
+     */
+    @PutMapping("/inventory/{id}/hot")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<InventoryResponse> promoteToHot(@PathVariable Long id) {
+        return ResponseEntity.ok(shopInventoryService.promoteToHot(id));
+    }
+
+    /**
+     * Write the Redis counters of an inventory item back and serve it from the database again.
+     * DELETE /api/v1/inventory/{id}/hot
+     *
+     * @param id The inventory ID
+     * @return ResponseEntity with the inventory item
+     */
+    @DeleteMapping("/inventory/{id}/hot")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<InventoryResponse> demoteFromHot(@PathVariable Long id) {
+        return ResponseEntity.ok(shopInventoryService.demoteFromHot(id));
+    }
 }
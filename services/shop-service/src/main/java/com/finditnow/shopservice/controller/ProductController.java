@@ -34,10 +34,18 @@ public class ProductController extends BaseController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * Offset paging by default; passing {@code cursor} (empty for the first page) switches to keyset paging.
+     */
     @GetMapping("/all")
     public ResponseEntity<PagedResponse<ProductResponse>> getAllProducts(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean withTotal) {
+        if (cursor != null) {
+            return ResponseEntity.ok(productService.getAll(cursor, size, withTotal));
+        }
         return ResponseEntity.ok(productService.getAll(page, size));
     }
 
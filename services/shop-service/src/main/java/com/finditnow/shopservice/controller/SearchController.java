@@ -2,14 +2,19 @@ package com.finditnow.shopservice.controller;
 
 import com.finditnow.shopservice.dto.ApiResponse;
 import com.finditnow.shopservice.dto.GlobalSearchResponse;
+import com.finditnow.shopservice.dto.NormalizedGlobalSearchResponse;
+import com.finditnow.shopservice.dto.NormalizedSearchResponse;
 import com.finditnow.shopservice.dto.PagedResponse;
 import com.finditnow.shopservice.dto.SearchOpportunityResponse;
+import com.finditnow.shopservice.dto.SuggestionResponse;
 import com.finditnow.shopservice.service.SearchService;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/search")
 public class SearchController {
@@ -23,9 +28,39 @@ public class SearchController {
     public ApiResponse<PagedResponse<SearchOpportunityResponse>> searchProducts(@RequestParam(required = false) String q,
             @RequestParam(required = false) Double lat, @RequestParam(required = false) Double lng,
             @RequestParam(defaultValue = "BOTH") String fulfillment, @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size, @RequestParam(required = false) Long shopId) {
+            @RequestParam(defaultValue = "10") int size, @RequestParam(required = false) Long shopId,
+            @RequestParam(required = false) String sort, @RequestParam(required = false) Double radiusKm,
+            @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "true") boolean withTotal) {
         return ApiResponse.<PagedResponse<SearchOpportunityResponse>>builder()
-                .data(searchService.searchProducts(q, lat, lng, fulfillment, page, size, shopId)).success(true).build();
+                .data(searchService.searchProducts(q, lat, lng, fulfillment, page, size, shopId, sort, radiusKm,
+                        cursor, withTotal))
+                .success(true).build();
+    }
+
+    /**
+     * Same search as {@link #searchProducts}, with each shop and product sent once in id-keyed dictionaries.
+     */
+    @GetMapping(value = "/products", params = "shape=normalized")
+    public ApiResponse<NormalizedSearchResponse> searchProductsNormalized(@RequestParam(required = false) String q,
+            @RequestParam(required = false) Double lat, @RequestParam(required = false) Double lng,
+            @RequestParam(defaultValue = "BOTH") String fulfillment, @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size, @RequestParam(required = false) Long shopId,
+            @RequestParam(required = false) String sort, @RequestParam(required = false) Double radiusKm,
+            @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "true") boolean withTotal) {
+        return ApiResponse.<NormalizedSearchResponse>builder()
+                .data(NormalizedSearchResponse.of(searchService.searchProducts(q, lat, lng, fulfillment, page, size,
+                        shopId, sort, radiusKm, cursor, withTotal)))
+                .success(true).build();
+    }
+
+    @GetMapping("/suggest")
+    public ApiResponse<List<SuggestionResponse>> suggest(
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        return ApiResponse.<List<SuggestionResponse>>builder()
+                .data(searchService.suggest(q, limit))
+                .success(true)
+                .build();
     }
 
     @GetMapping("/global")
@@ -40,4 +75,17 @@ public class SearchController {
                 .success(true)
                 .build();
     }
+
+    @GetMapping(value = "/global", params = "shape=normalized")
+    public ApiResponse<NormalizedGlobalSearchResponse> globalSearchNormalized(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lng,
+            @RequestParam(defaultValue = "5") int shopLimit,
+            @RequestParam(defaultValue = "5") int productLimit) {
+        return ApiResponse.<NormalizedGlobalSearchResponse>builder()
+                .data(NormalizedGlobalSearchResponse.of(searchService.globalSearch(q, lat, lng, shopLimit, productLimit)))
+                .success(true)
+                .build();
+    }
 }
@@ -146,10 +146,14 @@ public class ShopController extends BaseController {
             @RequestParam(required = false) Double lat,
             @RequestParam(required = false) Double lng,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-
-        PagedResponse<ShopResponse> shops =
-                shopService.searchShops(name, deliveryOption, lat, lng, page, size);
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean withTotal) {
+
+        // Passing cursor (empty for the first page) switches to keyset paging ordered by name
+        PagedResponse<ShopResponse> shops = cursor != null
+                ? shopService.searchShops(name, deliveryOption, cursor, size, withTotal)
+                : shopService.searchShops(name, deliveryOption, lat, lng, page, size);
 
         return ResponseEntity.ok(shops);
     }
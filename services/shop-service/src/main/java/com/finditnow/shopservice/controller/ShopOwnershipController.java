@@ -0,0 +1,51 @@
+package com.finditnow.shopservice.controller;
+
+import com.finditnow.shopservice.cache.ShopOwner;
+import com.finditnow.shopservice.cache.ShopOwnershipIndex;
+import com.finditnow.shopservice.exception.NotFoundException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Shop ownership lookups for other services, answered from the {@link ShopOwnershipIndex}.
+ * Internal use only
+ */
+@RestController
+@RequestMapping("/internal")
+public class ShopOwnershipController {
+
+    private final ShopOwnershipIndex shopOwnershipIndex;
+
+    public ShopOwnershipController(ShopOwnershipIndex shopOwnershipIndex) {
+        this.shopOwnershipIndex = shopOwnershipIndex;
+    }
+
+    /**
+     * Get the owner of a shop
+     * GET /api/v1/internal/shops/{shopId}/owner
+     */
+    @GetMapping("/shops/{shopId}/owner")
+    @PreAuthorize("hasRole('SERVICE')")
+    public ResponseEntity<ShopOwner> getShopOwner(@PathVariable Long shopId) {
+        UUID ownerId = shopOwnershipIndex.ownerOf(shopId)
+                .orElseThrow(() -> new NotFoundException("Shop not found with id: " + shopId));
+        return ResponseEntity.ok(new ShopOwner(shopId, ownerId));
+    }
+
+    /**
+     * Get the ids of all shops of an owner
+     * GET /api/v1/internal/owners/{ownerId}/shops
+     */
+    @GetMapping("/owners/{ownerId}/shops")
+    @PreAuthorize("hasRole('SERVICE')")
+    public ResponseEntity<Set<Long>> getOwnerShops(@PathVariable UUID ownerId) {
+        return ResponseEntity.ok(shopOwnershipIndex.shopsOf(ownerId));
+    }
+}
@@ -0,0 +1,26 @@
+package com.finditnow.shopservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartBatchRequest {
+
+    @NotNull(message = "Shop ID is required")
+    private Long shopId;
+
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = 100, message = "At most 100 operations per batch")
+    private List<@Valid @NotNull CartOperation> operations;
+}
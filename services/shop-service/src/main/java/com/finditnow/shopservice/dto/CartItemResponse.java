@@ -18,6 +18,7 @@ public class CartItemResponse {
     private Long inventoryId;
     private Integer quantity;
     private LocalDateTime addedAt;
+    private LocalDateTime reservedUntil;
 
     // Product details for display (NEW FIELDS)
     private Long productId;
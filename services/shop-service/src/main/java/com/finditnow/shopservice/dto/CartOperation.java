@@ -0,0 +1,41 @@
+package com.finditnow.shopservice.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * One step of a {@link CartBatchRequest}:
+ * <ul>
+ *     <li>ADD: adds {@code quantity} units of {@code inventoryId}</li>
+ *     <li>UPDATE: sets the quantity of the cart item {@code itemId} to {@code quantity}</li>
+ *     <li>REMOVE: removes the cart item {@code itemId}</li>
+ * </ul>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartOperation {
+
+    public enum Type {
+        ADD,
+        UPDATE,
+        REMOVE
+    }
+
+    @NotNull(message = "Operation type is required")
+    private Type type;
+
+    private Long inventoryId;
+
+    private UUID itemId;
+
+    @Min(value = 1, message = "Quantity must be at least 1")
+    private Integer quantity;
+}
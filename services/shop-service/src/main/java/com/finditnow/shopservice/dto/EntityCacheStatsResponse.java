@@ -0,0 +1,31 @@
+package com.finditnow.shopservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Second-level cache counters of this instance since it started.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class EntityCacheStatsResponse {
+    private long requests;
+    private long entityHits;
+    private long entityMisses;
+    private double entityHitRatio;
+    private long queryHits;
+    private long queryMisses;
+    private double queryHitRatio;
+    // Cache hits (entity loads and queries not sent to the database) per HTTP request
+    private double queriesAvoidedPerRequest;
+    // Statements that did reach the database per HTTP request
+    private double statementsPerRequest;
+    // Entity hit ratio by cached entity
+    private Map<String, Double> regionHitRatios;
+}
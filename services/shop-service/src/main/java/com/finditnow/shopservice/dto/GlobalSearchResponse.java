@@ -16,4 +16,6 @@ public class GlobalSearchResponse {
     private List<SearchOpportunityResponse> products;
     private Long totalShops;
     private Long totalProducts;
+    // True when a leg timed out or failed and its part of the response is empty
+    private boolean partial;
 }
@@ -0,0 +1,25 @@
+package com.finditnow.shopservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class InventoryImportResponse {
+    private long rows;
+    private long created;
+    private long updated;
+    private long failed;
+    private List<RowError> errors;
+    // More rows failed than are listed in errors
+    private boolean errorsTruncated;
+
+    public record RowError(long line, String message) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.finditnow.shopservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row of a bulk inventory import. The product is referenced by {@code productId}, or described by
+ * {@code productName} and {@code categoryId}: a product of that name in that category is reused, otherwise
+ * it is created.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class InventoryImportRow {
+    private Long productId;
+    private String productName;
+    private Long categoryId;
+    private String description;
+    private String imageUrl;
+    private Integer stock;
+    private Float price;
+}
@@ -0,0 +1,52 @@
+package com.finditnow.shopservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link GlobalSearchResponse} with every shop and product serialized once ({@code shape=normalized}).
+ * {@code shopResults} lists the ids of the shop leg in rank order; {@code shops} also holds the shops
+ * referenced by product results.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NormalizedGlobalSearchResponse {
+    private List<Long> shopResults;
+    private List<OpportunityRef> productResults;
+    private Map<Long, ShopResponse> shops;
+    private Map<Long, ProductResponse> products;
+    private Long totalShops;
+    private Long totalProducts;
+    private boolean partial;
+
+    public static NormalizedGlobalSearchResponse of(GlobalSearchResponse response) {
+        Map<Long, ShopResponse> shops = new LinkedHashMap<>();
+        Map<Long, ProductResponse> products = new LinkedHashMap<>();
+        List<Long> shopResults = response.getShops().stream()
+                .map(shop -> {
+                    shops.putIfAbsent(shop.getId(), shop);
+                    return shop.getId();
+                })
+                .toList();
+        List<OpportunityRef> productResults = NormalizedSearchResponse.collect(response.getProducts(), shops,
+                products);
+
+        return NormalizedGlobalSearchResponse.builder()
+                .shopResults(shopResults)
+                .productResults(productResults)
+                .shops(shops)
+                .products(products)
+                .totalShops(response.getTotalShops())
+                .totalProducts(response.getTotalProducts())
+                .partial(response.isPartial())
+                .build();
+    }
+}
@@ -0,0 +1,66 @@
+package com.finditnow.shopservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Product search page with every shop and product serialized once ({@code shape=normalized}).
+ * Paging fields mirror {@link PagedResponse}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NormalizedSearchResponse {
+    private List<OpportunityRef> content;
+    private Map<Long, ShopResponse> shops;
+    private Map<Long, ProductResponse> products;
+    private int page;
+    private int size;
+    private Long totalElements;
+    private Integer totalPages;
+    private boolean first;
+    private boolean last;
+    private String nextCursor;
+    private boolean truncated;
+
+    public static NormalizedSearchResponse of(PagedResponse<SearchOpportunityResponse> page) {
+        Map<Long, ShopResponse> shops = new LinkedHashMap<>();
+        Map<Long, ProductResponse> products = new LinkedHashMap<>();
+        List<OpportunityRef> content = collect(page.getContent(), shops, products);
+
+        return NormalizedSearchResponse.builder()
+                .content(content)
+                .shops(shops)
+                .products(products)
+                .page(page.getPage())
+                .size(page.getSize())
+                .totalElements(page.getTotalElements())
+                .totalPages(page.getTotalPages())
+                .first(page.isFirst())
+                .last(page.isLast())
+                .nextCursor(page.getNextCursor())
+                .truncated(page.isTruncated())
+                .build();
+    }
+
+    /**
+     * Moves the shop and product of each opportunity into the dictionaries, keeping first-seen order.
+     */
+    static List<OpportunityRef> collect(List<SearchOpportunityResponse> opportunities,
+                                        Map<Long, ShopResponse> shops, Map<Long, ProductResponse> products) {
+        return opportunities.stream()
+                .map(opportunity -> {
+                    shops.putIfAbsent(opportunity.getShop().getId(), opportunity.getShop());
+                    products.putIfAbsent(opportunity.getProduct().getId(), opportunity.getProduct());
+                    return OpportunityRef.of(opportunity);
+                })
+                .toList();
+    }
+}
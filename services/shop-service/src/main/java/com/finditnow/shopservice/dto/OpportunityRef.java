@@ -0,0 +1,29 @@
+package com.finditnow.shopservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Search result row of the normalized response shape; product and shop are looked up by id
+ * in the dictionaries of the enclosing response.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OpportunityRef {
+    private Long productId;
+    private Long shopId;
+    private InventorySearchResponse inventory;
+    private FulfillmentMode fulfillmentMode;
+    private Double distanceInKm;
+
+    public static OpportunityRef of(SearchOpportunityResponse opportunity) {
+        return new OpportunityRef(
+                opportunity.getProduct().getId(),
+                opportunity.getShop().getId(),
+                opportunity.getInventory(),
+                opportunity.getFulfillmentMode(),
+                opportunity.getDistanceInKm());
+    }
+}
@@ -15,8 +15,28 @@ public class PagedResponse<T> {
     private List<T> content;
     private int page;
     private int size;
-    private long totalElements;
-    private int totalPages;
+    // null when the client skipped the count (cursor mode without withTotal)
+    private Long totalElements;
+    private Integer totalPages;
     private boolean first;
     private boolean last;
+    // Opaque keyset position of the next page; only set in cursor mode when more rows exist
+    private String nextCursor;
+    // Set when a search stopped at a candidate cap: more rows match than the totals and pages cover
+    private boolean truncated;
+
+    public PagedResponse(List<T> content, int page, int size, long totalElements, int totalPages,
+                         boolean first, boolean last) {
+        this(content, page, size, totalElements, totalPages, first, last, null, false);
+    }
+
+    /**
+     * Page of a cursor (keyset) listing. Page numbers do not apply; {@code total} may be null when not counted.
+     */
+    public static <T> PagedResponse<T> cursorPage(List<T> content, int size, boolean first, String nextCursor,
+                                                  Long total) {
+        Integer totalPages = total == null ? null : (int) Math.ceil((double) total / size);
+        return new PagedResponse<>(content, 0, size, total, totalPages, first, nextCursor == null, nextCursor,
+                false);
+    }
 }
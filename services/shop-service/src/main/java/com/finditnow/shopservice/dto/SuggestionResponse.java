@@ -0,0 +1,14 @@
+package com.finditnow.shopservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SuggestionResponse {
+    private SuggestionType type;
+    private Long id;
+    private String text;
+}
@@ -0,0 +1,7 @@
+package com.finditnow.shopservice.dto;
+
+public enum SuggestionType {
+    PRODUCT,
+    SHOP,
+    CATEGORY
+}
@@ -16,7 +16,7 @@ public class UserAddressApiResponse {
     @NoArgsConstructor
     @JsonIgnoreProperties(ignoreUnknown = true)
     @JsonInclude(JsonInclude.Include.NON_NULL)
-    public class UserAddressDto {
+    public static class UserAddressDto {
         private double latitude;
         private double longitude;
     }
@@ -38,6 +38,12 @@ public class Cart {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    /**
+     * Idempotency key of the order command that consumed the cart, so a retry of it succeeds again
+     */
+    @Column(name = "consumed_with")
+    private String consumedWith;
+
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<CartItem> items = new ArrayList<>();
@@ -34,6 +34,13 @@ public class CartItem {
     @Column(name = "added_at", nullable = false, updatable = false)
     private LocalDateTime addedAt;
 
+    /**
+     * Reserved units are held for the cart until then; a cart whose items have all lapsed is expired by
+     * the sweeper and its stock released. Null for items added before reservations had a deadline.
+     */
+    @Column(name = "reserved_until")
+    private LocalDateTime reservedUntil;
+
     @PrePersist
     protected void onCreate() {
         addedAt = LocalDateTime.now();
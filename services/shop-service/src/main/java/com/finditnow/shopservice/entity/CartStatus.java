@@ -3,5 +3,6 @@ package com.finditnow.shopservice.entity;
 public enum CartStatus {
     ACTIVE,
     CONVERTED,
-    ABANDONED
+    ABANDONED,
+    EXPIRED
 }
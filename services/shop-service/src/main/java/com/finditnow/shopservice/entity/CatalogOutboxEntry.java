@@ -0,0 +1,40 @@
+package com.finditnow.shopservice.entity;
+
+import com.finditnow.common.CatalogEvent;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A catalog event waiting to be published, written in the transaction of the change it describes.
+ */
+@Entity
+@Table(name = "catalog_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogOutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private CatalogEvent.Type type;
+
+    @Column(name = "shop_id")
+    private Long shopId;
+
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public CatalogEvent toEvent() {
+        return new CatalogEvent(type, shopId, productId);
+    }
+}
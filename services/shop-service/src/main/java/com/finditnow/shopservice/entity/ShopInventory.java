@@ -5,9 +5,14 @@ import jakarta.validation.constraints.Min;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
-@Table(name = "shop_inventories")
+// One listing per product and shop; bulk imports upsert on it
+@Table(name = "shop_inventories", uniqueConstraints = @UniqueConstraint(
+        name = "uk_shop_inventories_shop_product", columnNames = {"shop_id", "product_id"}))
+// reservedStock is moved by conditional UPDATEs; saves must only write the columns they changed
+@DynamicUpdate
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
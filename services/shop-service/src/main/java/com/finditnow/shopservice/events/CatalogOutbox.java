@@ -0,0 +1,108 @@
+package com.finditnow.shopservice.events;
+
+import com.finditnow.common.CatalogEvent;
+import com.finditnow.redis.RedisStore;
+import com.finditnow.shopservice.entity.CatalogOutboxEntry;
+import com.finditnow.shopservice.repository.CatalogOutboxRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Transactional outbox of {@link CatalogEvent}s. Services record an event in the transaction of the change,
+ * so it is published if and only if the change commits; {@link CatalogOutboxRelay} later moves committed
+ * entries to the {@link CatalogEvent#STREAM} stream in batches.
+ * <p>
+ * Stock and reservations moved by carts and orders are not recorded, only changes made by shop owners and
+ * admins: consumers cache shop and listing details, not live availability.
+ */
+@Component
+public class CatalogOutbox {
+    private final CatalogOutboxRepository catalogOutboxRepository;
+    private final RedisStore redisStore;
+    private final boolean enabled;
+    private final long streamMaxLength;
+
+    public CatalogOutbox(CatalogOutboxRepository catalogOutboxRepository, RedisStore redisStore,
+                         @Value("${catalog.outbox.enabled:true}") boolean enabled,
+                         @Value("${catalog.outbox.stream-max-length:100000}") long streamMaxLength) {
+        this.catalogOutboxRepository = catalogOutboxRepository;
+        this.redisStore = redisStore;
+        this.enabled = enabled;
+        this.streamMaxLength = streamMaxLength;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void shopChanged(Long shopId) {
+        record(CatalogEvent.Type.SHOP_CHANGED, List.of(shopId), null);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void shopsDeleted(Collection<Long> shopIds) {
+        record(CatalogEvent.Type.SHOP_DELETED, shopIds, null);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void productsChanged(Collection<Long> productIds) {
+        record(CatalogEvent.Type.PRODUCT_CHANGED, null, productIds);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void productsDeleted(Collection<Long> productIds) {
+        record(CatalogEvent.Type.PRODUCT_DELETED, null, productIds);
+    }
+
+    /**
+     * Listings of the products in the shop were created or had their stock or price set
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void listingsChanged(Long shopId, Collection<Long> productIds) {
+        record(CatalogEvent.Type.LISTING_CHANGED, Collections.nCopies(productIds.size(), shopId), productIds);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void listingDeleted(Long shopId, Long productId) {
+        record(CatalogEvent.Type.LISTING_DELETED, List.of(shopId), List.of(productId));
+    }
+
+    /**
+     * @param shopIds    null when the events are about products only
+     * @param productIds null when the events are about shops only
+     */
+    private void record(CatalogEvent.Type type, Collection<Long> shopIds, Collection<Long> productIds) {
+        int size = shopIds != null ? shopIds.size() : productIds.size();
+        if (!enabled || size == 0) {
+            return;
+        }
+        catalogOutboxRepository.insertAll(type.name(),
+                shopIds != null ? shopIds.toArray(Long[]::new) : new Long[size],
+                productIds != null ? productIds.toArray(Long[]::new) : new Long[size]);
+    }
+
+    /**
+     * Publishes the oldest entries to the stream and deletes them. Entries claimed by another relay are
+     * skipped; if the transaction fails after publishing, the entries are published again later.
+     *
+     * @return number of entries published
+     */
+    @Transactional
+    public int relayBatch(int limit) {
+        List<CatalogOutboxEntry> entries = catalogOutboxRepository.lockOldest(limit);
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        redisStore.appendToStream(CatalogEvent.STREAM,
+                entries.stream().map(entry -> entry.toEvent().toFields()).toList(), streamMaxLength);
+        catalogOutboxRepository.deleteAllByIds(entries.stream().map(CatalogOutboxEntry::getId).toList());
+        return entries.size();
+    }
+}
@@ -0,0 +1,51 @@
+package com.finditnow.shopservice.events;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves committed {@link CatalogOutbox} entries to the Redis stream every
+ * {@code catalog.outbox.relay-interval-ms}, a batch per transaction, until the outbox is drained or
+ * {@code catalog.outbox.max-batches-per-run} is reached. Instances relay side by side because entries are
+ * claimed with SKIP LOCKED; events of different batches may then reach the stream out of order.
+ */
+@Slf4j
+@Component
+public class CatalogOutboxRelay {
+    private final CatalogOutbox catalogOutbox;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    public CatalogOutboxRelay(CatalogOutbox catalogOutbox,
+                              @Value("${catalog.outbox.batch-size:500}") int batchSize,
+                              @Value("${catalog.outbox.max-batches-per-run:20}") int maxBatchesPerRun) {
+        this.catalogOutbox = catalogOutbox;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.outbox.relay-interval-ms:500}")
+    public void relay() {
+        if (!catalogOutbox.isEnabled()) {
+            return;
+        }
+
+        int published = 0;
+        try {
+            int batch;
+            int batches = 0;
+            do {
+                batch = catalogOutbox.relayBatch(batchSize);
+                published += batch;
+            } while (batch == batchSize && ++batches < maxBatchesPerRun);
+        } catch (Exception e) {
+            log.warn("Catalog outbox relay failed after {} events, retrying next run: {}", published, e.getMessage());
+            return;
+        }
+        if (published > 0) {
+            log.debug("Published {} catalog events", published);
+        }
+    }
+}
@@ -68,6 +68,13 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
+    @ExceptionHandler(InventoryUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleInventoryUnavailableException(InventoryUnavailableException ex) {
+        log.error("InventoryUnavailableException: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage(), LocalDateTime.now());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleAllOtherExceptions(Exception ex) {
         log.error("🔥 UNHANDLED EXCEPTION (This is what's causing the 403!): {}", ex.getMessage(), ex);
@@ -0,0 +1,7 @@
+package com.finditnow.shopservice.exception;
+
+public class InventoryUnavailableException extends RuntimeException {
+    public InventoryUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.finditnow.shopservice.inventory;
+
+/**
+ * Counters of a hot row taken for write-behind: the current values and the values last known to be in the
+ * database, which the write is conditioned on.
+ */
+public record HotCounts(Long inventoryId, Long shopId, int stock, int reservedStock, int dbStock,
+                        int dbReservedStock) {
+}
@@ -0,0 +1,434 @@
+package com.finditnow.shopservice.inventory;
+
+import com.finditnow.redis.RedisStore;
+import com.finditnow.shopservice.dto.InventoryResponse;
+import com.finditnow.shopservice.exception.InventoryUnavailableException;
+import com.finditnow.shopservice.utils.OnRollback;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Redis-resident {@code stock}/{@code reservedStock} counters for hot SKUs (flash sales), so reservations on
+ * one row do not contend on a single Postgres tuple.
+ * <p>
+ * A promoted row lives in one Redis hash ({@code inventory:hot}) as {@code <id>:s}, {@code <id>:r} (current
+ * stock and reserved), {@code <id>:ds}, {@code <id>:dr} (values last known to be in the database) and
+ * {@code <id>:shop}. Every change runs as a Lua script, so the availability check and the update are atomic,
+ * and adds the id to the dirty set that {@link HotInventoryFlusher} writes back in batches. While a row is
+ * hot, Redis is the source of truth; a script answering {@link HotResult.Status#NOT_HOT} sends the caller to
+ * the database path. With {@code inventory.hot.enabled=false} (the default) no Redis call is made at all.
+ * <p>
+ * Redis does not take part in the database transaction a change is made in, so every applied change registers
+ * its inverse, which is run if that transaction rolls back. When Redis cannot be reached, a row known to be hot
+ * (seen hot by this instance, or listed by the periodic reload of hot ids) is refused with
+ * {@link InventoryUnavailableException} instead of being changed in the database behind its counters; only rows
+ * not known to be hot fall back to the database.
+ */
+@Slf4j
+@Component
+public class HotInventory {
+    static final String COUNTERS = "inventory:hot";
+    static final String DIRTY = "inventory:hot:dirty";
+    static final String FLUSH_LOCK = "inventory:hot:flush-lock";
+
+    // Scripts that change a row reply {status, stock, reserved}, plus the stock and reserved deltas once applied
+    private static final String RESERVE = """
+            local id = ARGV[1]
+            local v = redis.call('HMGET', KEYS[1], id .. ':s', id .. ':r')
+            if not v[1] then return {-1, 0, 0} end
+            local stock, reserved, qty = tonumber(v[1]), tonumber(v[2]), tonumber(ARGV[2])
+            if stock - reserved < qty then return {0, stock, reserved} end
+            reserved = redis.call('HINCRBY', KEYS[1], id .. ':r', qty)
+            redis.call('SADD', KEYS[2], id)
+            return {1, stock, reserved, 0, qty}
+            """;
+
+    // ARGV[3] = '1' rejects releasing more than is reserved, '0' stops at zero
+    private static final String RELEASE = """
+            local id = ARGV[1]
+            local v = redis.call('HMGET', KEYS[1], id .. ':s', id .. ':r')
+            if not v[1] then return {-1, 0, 0} end
+            local stock, reserved, qty = tonumber(v[1]), tonumber(v[2]), tonumber(ARGV[2])
+            if reserved < qty then
+                if ARGV[3] == '1' then return {0, stock, reserved} end
+                qty = reserved
+            end
+            reserved = redis.call('HINCRBY', KEYS[1], id .. ':r', -qty)
+            redis.call('SADD', KEYS[2], id)
+            return {1, stock, reserved, 0, -qty}
+            """;
+
+    // Converts reserved units into sold ones: stock and reserved both drop by the quantity
+    private static final String CONSUME = """
+            local id = ARGV[1]
+            local v = redis.call('HMGET', KEYS[1], id .. ':s', id .. ':r')
+            if not v[1] then return {-1, 0, 0} end
+            local stock, reserved, qty = tonumber(v[1]), tonumber(v[2]), tonumber(ARGV[2])
+            if stock < qty then return {0, stock, reserved} end
+            local unreserved = math.min(qty, reserved)
+            stock = redis.call('HINCRBY', KEYS[1], id .. ':s', -qty)
+            reserved = redis.call('HINCRBY', KEYS[1], id .. ':r', -unreserved)
+            redis.call('SADD', KEYS[2], id)
+            return {1, stock, reserved, -qty, -unreserved}
+            """;
+
+    private static final String SET_STOCK = """
+            local id = ARGV[1]
+            local v = redis.call('HMGET', KEYS[1], id .. ':s', id .. ':r')
+            if not v[1] then return {-1, 0, 0} end
+            local stock, reserved = tonumber(ARGV[2]), tonumber(v[2])
+            if stock < reserved then return {0, tonumber(v[1]), reserved} end
+            redis.call('HSET', KEYS[1], id .. ':s', stock)
+            redis.call('SADD', KEYS[2], id)
+            return {1, stock, reserved, stock - tonumber(v[1]), 0}
+            """;
+
+    private static final String COUNTS = """
+            local id = ARGV[1]
+            local v = redis.call('HMGET', KEYS[1], id .. ':s', id .. ':r')
+            if not v[1] then return {-1, 0, 0} end
+            return {1, tonumber(v[1]), tonumber(v[2])}
+            """;
+
+    // ARGV: id, stock delta, reserved delta. Takes back a change whose transaction rolled back.
+    private static final String ADJUST = """
+            local id = ARGV[1]
+            if redis.call('HEXISTS', KEYS[1], id .. ':s') == 0 then return 0 end
+            redis.call('HINCRBY', KEYS[1], id .. ':s', tonumber(ARGV[2]))
+            redis.call('HINCRBY', KEYS[1], id .. ':r', tonumber(ARGV[3]))
+            redis.call('SADD', KEYS[2], id)
+            return 1
+            """;
+
+    private static final String HOT_IDS = """
+            local ids = {}
+            for _, field in ipairs(redis.call('HKEYS', KEYS[1])) do
+                local id = string.match(field, '^(%d+):s$')
+                if id then table.insert(ids, id) end
+            end
+            return ids
+            """;
+
+    // ARGV: id, stock, reserved, shop id; a row that is already hot keeps its counters
+    private static final String PROMOTE = """
+            local id = ARGV[1]
+            if redis.call('HEXISTS', KEYS[1], id .. ':s') == 1 then return 0 end
+            redis.call('HSET', KEYS[1], id .. ':s', ARGV[2], id .. ':r', ARGV[3],
+                    id .. ':ds', ARGV[2], id .. ':dr', ARGV[3], id .. ':shop', ARGV[4])
+            return 1
+            """;
+
+    // Only a clean row (database already holds its counters) can leave Redis
+    private static final String DEMOTE = """
+            local id = ARGV[1]
+            local v = redis.call('HMGET', KEYS[1], id .. ':s', id .. ':r', id .. ':ds', id .. ':dr')
+            if not v[1] then return 1 end
+            if v[1] ~= v[3] or v[2] ~= v[4] or redis.call('SISMEMBER', KEYS[2], id) == 1 then return 0 end
+            redis.call('HDEL', KEYS[1], id .. ':s', id .. ':r', id .. ':ds', id .. ':dr', id .. ':shop')
+            return 1
+            """;
+
+    private static final String DISCARD = """
+            local id = ARGV[1]
+            redis.call('HDEL', KEYS[1], id .. ':s', id .. ':r', id .. ':ds', id .. ':dr', id .. ':shop')
+            redis.call('SREM', KEYS[2], id)
+            return 1
+            """;
+
+    // Pops up to ARGV[1] dirty ids; returns id, stock, reserved, db stock, db reserved, shop id per hot row
+    private static final String TAKE_DIRTY = """
+            local ids = redis.call('SPOP', KEYS[2], tonumber(ARGV[1]))
+            local out = {}
+            for _, id in ipairs(ids) do
+                local v = redis.call('HMGET', KEYS[1], id .. ':s', id .. ':r', id .. ':ds', id .. ':dr', id .. ':shop')
+                if v[1] then
+                    table.insert(out, id)
+                    for i = 1, 5 do table.insert(out, v[i] or '') end
+                end
+            end
+            return out
+            """;
+
+    private static final String MARK_DIRTY = """
+            for _, id in ipairs(ARGV) do redis.call('SADD', KEYS[2], id) end
+            return #ARGV
+            """;
+
+    private static final String MARK_ALL_DIRTY = """
+            local n = 0
+            for _, field in ipairs(redis.call('HKEYS', KEYS[1])) do
+                local id = string.match(field, '^(%d+):s$')
+                if id then
+                    redis.call('SADD', KEYS[2], id)
+                    n = n + 1
+                end
+            end
+            return n
+            """;
+
+    // ARGV: id, stock and reserved now in the database
+    private static final String ACKNOWLEDGE = """
+            local id = ARGV[1]
+            if redis.call('HEXISTS', KEYS[1], id .. ':s') == 0 then return 0 end
+            redis.call('HSET', KEYS[1], id .. ':ds', ARGV[2], id .. ':dr', ARGV[3])
+            return 1
+            """;
+
+    // ARGV: id, expected db stock, expected db reserved, actual db stock, actual db reserved. Someone wrote the
+    // row outside Redis; fold their change into the counters as a delta so neither side's updates are lost.
+    private static final String RECONCILE = """
+            local id = ARGV[1]
+            local v = redis.call('HMGET', KEYS[1], id .. ':ds', id .. ':dr')
+            if not v[1] or v[1] ~= ARGV[2] or v[2] ~= ARGV[3] then return 0 end
+            redis.call('HINCRBY', KEYS[1], id .. ':s', tonumber(ARGV[4]) - tonumber(ARGV[2]))
+            redis.call('HINCRBY', KEYS[1], id .. ':r', tonumber(ARGV[5]) - tonumber(ARGV[3]))
+            redis.call('HSET', KEYS[1], id .. ':ds', ARGV[4], id .. ':dr', ARGV[5])
+            redis.call('SADD', KEYS[2], id)
+            return 1
+            """;
+
+    private static final String UNLOCK = """
+            if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end
+            return 0
+            """;
+
+    private final RedisStore redisStore;
+    private final boolean enabled;
+
+    private volatile Set<Long> hotIds = ConcurrentHashMap.newKeySet();
+
+    public HotInventory(RedisStore redisStore, @Value("${inventory.hot.enabled:false}") boolean enabled) {
+        this.redisStore = redisStore;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public HotResult reserve(Long inventoryId, int quantity) {
+        return change(RESERVE, inventoryId, String.valueOf(quantity));
+    }
+
+    /**
+     * @param strict reject releasing more than is reserved instead of stopping at zero
+     */
+    public HotResult release(Long inventoryId, int quantity, boolean strict) {
+        return change(RELEASE, inventoryId, String.valueOf(quantity), strict ? "1" : "0");
+    }
+
+    public HotResult consume(Long inventoryId, int quantity) {
+        return change(CONSUME, inventoryId, String.valueOf(quantity));
+    }
+
+    public HotResult setStock(Long inventoryId, int stock) {
+        return change(SET_STOCK, inventoryId, String.valueOf(stock));
+    }
+
+    /**
+     * Copies the Redis counters of a hot row over the (possibly not yet flushed) database values.
+     */
+    public InventoryResponse overlay(InventoryResponse response) {
+        HotResult counts = read(response.getId());
+        if (counts.handled()) {
+            response.setStock(counts.stock());
+            response.setReservedStock(counts.reservedStock());
+        }
+        return response;
+    }
+
+    /**
+     * @return false if the row was already hot
+     */
+    public boolean promote(StockCounts counts, Long shopId) {
+        boolean promoted = toLong(eval(PROMOTE, String.valueOf(counts.inventoryId()),
+                String.valueOf(counts.stock()), String.valueOf(counts.reservedStock()), String.valueOf(shopId))) == 1;
+        hotIds.add(counts.inventoryId());
+        return promoted;
+    }
+
+    /**
+     * @return false if the row has changes the database does not hold yet; flush and retry
+     */
+    public boolean demote(Long inventoryId) {
+        boolean demoted = toLong(eval(DEMOTE, String.valueOf(inventoryId))) == 1;
+        if (demoted) {
+            hotIds.remove(inventoryId);
+        }
+        return demoted;
+    }
+
+    /**
+     * Forgets a row without writing it back, e.g. because it was deleted.
+     */
+    public void discard(Long inventoryId) {
+        if (enabled) {
+            eval(DISCARD, String.valueOf(inventoryId));
+            hotIds.remove(inventoryId);
+        }
+    }
+
+    /**
+     * Reloads the ids of all hot rows, including those promoted by other instances, so they are refused rather
+     * than written to the database if Redis becomes unreachable.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${inventory.hot.sweep-interval-ms:60000}")
+    public void reloadHotIds() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<?> reply = (List<?>) eval(HOT_IDS);
+            Set<Long> ids = ConcurrentHashMap.newKeySet(reply.size());
+            reply.forEach(id -> ids.add(Long.valueOf(String.valueOf(id))));
+            hotIds = ids;
+        } catch (Exception e) {
+            log.warn("Failed to reload hot inventory ids, keeping the {} known: {}", hotIds.size(), e.getMessage());
+        }
+    }
+
+    List<HotCounts> takeDirty(int limit) {
+        List<?> reply = (List<?>) eval(TAKE_DIRTY, String.valueOf(limit));
+        List<HotCounts> rows = new ArrayList<>(reply.size() / 6);
+        for (int i = 0; i + 5 < reply.size(); i += 6) {
+            String shop = (String) reply.get(i + 5);
+            rows.add(new HotCounts(
+                    Long.valueOf((String) reply.get(i)),
+                    shop.isEmpty() ? null : Long.valueOf(shop),
+                    Integer.parseInt((String) reply.get(i + 1)),
+                    Integer.parseInt((String) reply.get(i + 2)),
+                    Integer.parseInt((String) reply.get(i + 3)),
+                    Integer.parseInt((String) reply.get(i + 4))));
+        }
+        return rows;
+    }
+
+    void markDirty(Collection<Long> inventoryIds) {
+        if (!inventoryIds.isEmpty()) {
+            eval(MARK_DIRTY, inventoryIds.stream().map(String::valueOf).toArray(String[]::new));
+        }
+    }
+
+    long markAllDirty() {
+        return toLong(eval(MARK_ALL_DIRTY));
+    }
+
+    void acknowledge(HotCounts written) {
+        eval(ACKNOWLEDGE, String.valueOf(written.inventoryId()), String.valueOf(written.stock()),
+                String.valueOf(written.reservedStock()));
+    }
+
+    void reconcile(HotCounts expected, StockCounts actual) {
+        log.warn("Hot inventory {} was changed outside Redis (db stock {} -> {}, reserved {} -> {}); merging",
+                expected.inventoryId(), expected.dbStock(), actual.stock(), expected.dbReservedStock(),
+                actual.reservedStock());
+        eval(RECONCILE, String.valueOf(expected.inventoryId()), String.valueOf(expected.dbStock()),
+                String.valueOf(expected.dbReservedStock()), String.valueOf(actual.stock()),
+                String.valueOf(actual.reservedStock()));
+    }
+
+    boolean tryLockFlush(String token, long ttlMillis) {
+        return redisStore.setIfAbsent(FLUSH_LOCK, token, ttlMillis);
+    }
+
+    void unlockFlush(String token) {
+        redisStore.evalScript(UNLOCK, List.of(FLUSH_LOCK), List.of(token));
+    }
+
+    /**
+     * Runs a per-row counter script that changes the row and registers its undo with the current transaction.
+     *
+     * @throws InventoryUnavailableException if Redis cannot be reached and the row is known to be hot
+     */
+    private HotResult change(String script, Long inventoryId, String... args) {
+        if (!enabled) {
+            return HotResult.NOT_HOT;
+        }
+        List<?> reply;
+        try {
+            reply = run(script, inventoryId, args);
+        } catch (Exception e) {
+            if (hotIds.contains(inventoryId)) {
+                log.error("Hot inventory unavailable for {}, refusing the change: {}", inventoryId, e.getMessage());
+                throw new InventoryUnavailableException("Inventory " + inventoryId + " is temporarily unavailable");
+            }
+            log.warn("Hot inventory unavailable for {}, using the database: {}", inventoryId, e.getMessage());
+            return HotResult.NOT_HOT;
+        }
+
+        HotResult result = toResult(inventoryId, reply);
+        if (result.applied()) {
+            long stockDelta = toLong(reply.get(3));
+            long reservedDelta = toLong(reply.get(4));
+            if (stockDelta != 0 || reservedDelta != 0) {
+                OnRollback.run(() -> undo(inventoryId, stockDelta, reservedDelta));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the counters of a row; Redis failures fall back to the database values.
+     */
+    private HotResult read(Long inventoryId) {
+        if (!enabled) {
+            return HotResult.NOT_HOT;
+        }
+        try {
+            return toResult(inventoryId, run(COUNTS, inventoryId));
+        } catch (Exception e) {
+            log.warn("Hot inventory unavailable for {}, using the database: {}", inventoryId, e.getMessage());
+            return HotResult.NOT_HOT;
+        }
+    }
+
+    private void undo(Long inventoryId, long stockDelta, long reservedDelta) {
+        try {
+            if (toLong(eval(ADJUST, String.valueOf(inventoryId), String.valueOf(-stockDelta),
+                    String.valueOf(-reservedDelta))) == 0) {
+                log.error("Hot inventory {} left Redis before its rolled back change (stock {}, reserved {}) "
+                        + "could be undone", inventoryId, stockDelta, reservedDelta);
+            }
+        } catch (Exception e) {
+            log.error("Failed to undo rolled back change of hot inventory {} (stock {}, reserved {}): {}",
+                    inventoryId, stockDelta, reservedDelta, e.getMessage());
+        }
+    }
+
+    private List<?> run(String script, Long inventoryId, String... args) {
+        List<String> argv = new ArrayList<>();
+        argv.add(String.valueOf(inventoryId));
+        argv.addAll(List.of(args));
+        return (List<?>) redisStore.evalScript(script, List.of(COUNTERS, DIRTY), argv);
+    }
+
+    private HotResult toResult(Long inventoryId, List<?> reply) {
+        int status = (int) toLong(reply.get(0));
+        if (status < 0) {
+            hotIds.remove(inventoryId);
+            return HotResult.NOT_HOT;
+        }
+        hotIds.add(inventoryId);
+        return new HotResult(status == 1 ? HotResult.Status.APPLIED : HotResult.Status.REJECTED,
+                (int) toLong(reply.get(1)), (int) toLong(reply.get(2)));
+    }
+
+    private Object eval(String script, String... args) {
+        return redisStore.evalScript(script, List.of(COUNTERS, DIRTY), List.of(args));
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Long l ? l : Long.parseLong(String.valueOf(value));
+    }
+}
@@ -0,0 +1,144 @@
+package com.finditnow.shopservice.inventory;
+
+import com.finditnow.shopservice.search.SearchVersions;
+import com.finditnow.shopservice.service.StockReservationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Write-behind of {@link HotInventory} counters to {@code shop_inventories}.
+ * <p>
+ * Every {@code inventory.hot.flush-interval-ms} one instance (guarded by a Redis lock) pops dirty rows in
+ * batches and writes them with one conditional UPDATE per batch. A row that was changed in the database
+ * behind Redis' back (a database fallback for a row not yet known to be hot during a Redis outage, a
+ * reservation racing the promotion) fails the condition and its change is merged into the counters as a delta,
+ * then written on the next run.
+ * <p>
+ * After a crash between popping and writing, the affected rows are no longer marked dirty but still differ
+ * from the database; a periodic sweep, and one at startup, marks every hot row dirty again.
+ */
+@Slf4j
+@Component
+public class HotInventoryFlusher {
+    private final HotInventory hotInventory;
+    private final StockReservationService stockReservationService;
+    private final SearchVersions searchVersions;
+    private final int batchSize;
+    private final long lockTtlMillis;
+    private final long sweepIntervalMillis;
+
+    private volatile long lastSweep;
+
+    public HotInventoryFlusher(HotInventory hotInventory, StockReservationService stockReservationService,
+                               SearchVersions searchVersions,
+                               @Value("${inventory.hot.flush-batch-size:500}") int batchSize,
+                               @Value("${inventory.hot.flush-lock-ttl-ms:30000}") long lockTtlMillis,
+                               @Value("${inventory.hot.sweep-interval-ms:60000}") long sweepIntervalMillis) {
+        this.hotInventory = hotInventory;
+        this.stockReservationService = stockReservationService;
+        this.searchVersions = searchVersions;
+        this.batchSize = batchSize;
+        this.lockTtlMillis = lockTtlMillis;
+        this.sweepIntervalMillis = sweepIntervalMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        if (hotInventory.isEnabled()) {
+            lastSweep = 0;
+            flush();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.hot.flush-interval-ms:1000}")
+    public void flush() {
+        if (!hotInventory.isEnabled()) {
+            return;
+        }
+
+        String token = UUID.randomUUID().toString();
+        try {
+            if (!hotInventory.tryLockFlush(token, lockTtlMillis)) {
+                return; // another instance is flushing
+            }
+        } catch (Exception e) {
+            log.warn("Hot inventory flush skipped, Redis unavailable: {}", e.getMessage());
+            return;
+        }
+
+        try {
+            long now = System.currentTimeMillis();
+            if (now - lastSweep >= sweepIntervalMillis) {
+                long rows = hotInventory.markAllDirty();
+                lastSweep = now;
+                log.debug("Hot inventory sweep marked {} rows dirty", rows);
+            }
+
+            List<HotCounts> batch;
+            do {
+                batch = hotInventory.takeDirty(batchSize);
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                }
+            } while (batch.size() == batchSize);
+        } catch (Exception e) {
+            log.error("Hot inventory flush failed: {}", e.getMessage(), e);
+        } finally {
+            try {
+                hotInventory.unlockFlush(token);
+            } catch (Exception e) {
+                log.warn("Failed to release hot inventory flush lock, it expires in {} ms", lockTtlMillis);
+            }
+        }
+    }
+
+    private void writeBatch(List<HotCounts> batch) {
+        List<StockCounts> current;
+        try {
+            current = stockReservationService.writeHotCounts(batch);
+        } catch (Exception e) {
+            // Nothing was written; keep the rows dirty for the next run
+            hotInventory.markDirty(batch.stream().map(HotCounts::inventoryId).toList());
+            throw e;
+        }
+
+        Map<Long, StockCounts> byId = new HashMap<>();
+        current.forEach(counts -> byId.put(counts.inventoryId(), counts));
+
+        Set<Long> shopIds = new HashSet<>();
+        for (HotCounts row : batch) {
+            StockCounts db = byId.get(row.inventoryId());
+            if (db == null) {
+                hotInventory.discard(row.inventoryId()); // row was deleted
+            } else if (db.stock() == row.stock() && db.reservedStock() == row.reservedStock()) {
+                hotInventory.acknowledge(row);
+            } else {
+                hotInventory.reconcile(row, db);
+            }
+            if (row.shopId() != null) {
+                shopIds.add(row.shopId());
+            }
+        }
+        // Cached search pages of these shops were filled from the database values just replaced
+        searchVersions.reservationsChanged(shopIds);
+    }
+
+    /**
+     * Moves a row back to the database. Its counters are flushed first; returns false if it kept changing.
+     */
+    public boolean demote(Long inventoryId) {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            if (hotInventory.demote(inventoryId)) {
+                return true;
+            }
+            flush();
+        }
+        return false;
+    }
+}
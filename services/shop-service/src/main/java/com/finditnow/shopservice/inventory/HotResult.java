@@ -0,0 +1,24 @@
+package com.finditnow.shopservice.inventory;
+
+/**
+ * Outcome of a hot inventory operation, with the row's counters after it when the row is hot.
+ */
+public record HotResult(Status status, int stock, int reservedStock) {
+    public static final HotResult NOT_HOT = new HotResult(Status.NOT_HOT, 0, 0);
+
+    public enum Status {
+        APPLIED,
+        // Not enough stock (or reserved stock) for the operation; nothing changed
+        REJECTED,
+        // The row is not kept in Redis; the caller uses the database path
+        NOT_HOT
+    }
+
+    public boolean handled() {
+        return status != Status.NOT_HOT;
+    }
+
+    public boolean applied() {
+        return status == Status.APPLIED;
+    }
+}
@@ -0,0 +1,11 @@
+package com.finditnow.shopservice.inventory;
+
+import com.finditnow.shopservice.dto.InventoryImportResponse;
+
+import java.util.List;
+
+/**
+ * Outcome of writing one chunk of an inventory import.
+ */
+public record ImportChunkResult(int created, int updated, List<InventoryImportResponse.RowError> errors) {
+}
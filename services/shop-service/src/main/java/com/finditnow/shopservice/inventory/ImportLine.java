@@ -0,0 +1,9 @@
+package com.finditnow.shopservice.inventory;
+
+import com.finditnow.shopservice.dto.InventoryImportRow;
+
+/**
+ * A parsed row of an inventory import with its line number in the upload.
+ */
+public record ImportLine(long line, InventoryImportRow row) {
+}
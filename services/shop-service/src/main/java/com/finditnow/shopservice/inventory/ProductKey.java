@@ -0,0 +1,7 @@
+package com.finditnow.shopservice.inventory;
+
+/**
+ * A product as imports identify it when they do not carry its id: lower-case name within a category.
+ */
+public record ProductKey(Long productId, String name, Long categoryId) {
+}
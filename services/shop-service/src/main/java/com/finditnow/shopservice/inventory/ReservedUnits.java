@@ -0,0 +1,7 @@
+package com.finditnow.shopservice.inventory;
+
+/**
+ * Units of one inventory row held by a set of carts.
+ */
+public record ReservedUnits(Long inventoryId, Long shopId, long units) {
+}
@@ -0,0 +1,7 @@
+package com.finditnow.shopservice.inventory;
+
+/**
+ * Stock columns of one inventory row as stored in the database.
+ */
+public record StockCounts(Long inventoryId, int stock, int reservedStock) {
+}
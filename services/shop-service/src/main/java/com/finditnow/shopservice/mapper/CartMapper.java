@@ -70,6 +70,7 @@ public class CartMapper {
                 .inventoryId(inventory.getId())
                 .quantity(cartItem.getQuantity())
                 .addedAt(cartItem.getAddedAt())
+                .reservedUntil(cartItem.getReservedUntil())
                 // Product details
                 .productId(product.getId())
                 .productName(product.getName())
@@ -1,9 +1,15 @@
 package com.finditnow.shopservice.repository;
 
 import com.finditnow.shopservice.entity.CartItem;
+import com.finditnow.shopservice.inventory.ReservedUnits;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -12,5 +18,26 @@ public interface CartItemRepository extends JpaRepository<CartItem, UUID> {
 
     Optional<CartItem> findByCartIdAndShopInventoryId(UUID cartId, Long shopInventoryId);
 
-    void deleteAllByCartId(UUID cartId);
+    /**
+     * Deletes the items in one statement instead of loading and deleting them one by one. Items already
+     * loaded stay in the persistence context; don't modify the cart's item collection afterwards.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id = :cartId")
+    int deleteAllByCartId(@Param("cartId") UUID cartId);
+
+    /**
+     * Units held by the given carts, summed per inventory row
+     */
+    @Query("""
+    SELECT new com.finditnow.shopservice.inventory.ReservedUnits(si.id, si.shop.id, SUM(ci.quantity))
+    FROM CartItem ci JOIN ci.shopInventory si
+    WHERE ci.cart.id IN :cartIds
+    GROUP BY si.id, si.shop.id
+    """)
+    List<ReservedUnits> sumReservedUnitsByCartIds(@Param("cartIds") Collection<UUID> cartIds);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id IN :cartIds")
+    int deleteAllByCartIds(@Param("cartIds") Collection<UUID> cartIds);
 }
@@ -1,12 +1,19 @@
 package com.finditnow.shopservice.repository;
 
+import com.finditnow.shopservice.cart.CartOwner;
 import com.finditnow.shopservice.entity.Cart;
 import com.finditnow.shopservice.entity.CartStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -64,4 +71,58 @@ public interface CartRepository extends JpaRepository<Cart, UUID> {
             "LEFT JOIN FETCH si.product p " +
             "WHERE c.id = :cartId")
     Optional<Cart> findByIdWithDetails(@Param("cartId") UUID cartId);
+
+    /**
+     * @return the idempotency key a converted cart was consumed with, empty if it is not converted
+     */
+    @Query("SELECT c.consumedWith FROM Cart c WHERE c.id = :cartId AND c.status = :converted")
+    Optional<String> findConsumedWith(@Param("cartId") UUID cartId, @Param("converted") CartStatus converted);
+
+    /**
+     * Locks an active cart for the rest of the transaction and marks it as used, so the expiry sweeper
+     * skips it.
+     *
+     * @return 0 if the cart is no longer active, e.g. because it has just expired
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Cart c SET c.updatedAt = :now WHERE c.id = :cartId AND c.status = :active")
+    int touchIfActive(@Param("cartId") UUID cartId, @Param("now") LocalDateTime now,
+                      @Param("active") CartStatus active);
+
+    /**
+     * Flips up to {@code limit} active carts that have been idle since {@code idleBefore} and hold no
+     * reservation lasting past {@code now} to EXPIRED. Carts locked by a running request are skipped.
+     * Items without a deadline count as reserved until {@code idleBefore} after they were added.
+     * <p>
+     * Not {@code @Modifying} because of the {@code RETURNING}; the declared tables get pending changes flushed
+     * first, loaded carts are not refreshed.
+     *
+     * @return ids of the expired carts
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "carts"),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "cart_items")})
+    @Query(value = """
+    UPDATE carts SET status = 'EXPIRED', updated_at = :now
+    WHERE id IN (
+        SELECT c.id FROM carts c
+        WHERE c.status = 'ACTIVE'
+          AND c.updated_at < :idleBefore
+          AND NOT EXISTS (
+              SELECT 1 FROM cart_items ci
+              WHERE ci.cart_id = c.id
+                AND (ci.reserved_until >= :now OR (ci.reserved_until IS NULL AND ci.added_at >= :idleBefore)))
+        LIMIT :limit
+        FOR UPDATE SKIP LOCKED)
+    RETURNING id
+    """, nativeQuery = true)
+    List<UUID> expireIdleCarts(@Param("now") LocalDateTime now, @Param("idleBefore") LocalDateTime idleBefore,
+                               @Param("limit") int limit);
+
+    @Query("""
+    SELECT new com.finditnow.shopservice.cart.CartOwner(c.id, c.userId, c.shopId)
+    FROM Cart c
+    WHERE c.id IN :cartIds
+    """)
+    List<CartOwner> findOwners(@Param("cartIds") Collection<UUID> cartIds);
 }
@@ -0,0 +1,39 @@
+package com.finditnow.shopservice.repository;
+
+import com.finditnow.shopservice.entity.CatalogOutboxEntry;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface CatalogOutboxRepository extends JpaRepository<CatalogOutboxEntry, Long> {
+
+    /**
+     * Writes events of one type in one statement; {@code shopIds} and {@code productIds} are parallel and
+     * may hold nulls
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "catalog_outbox"))
+    @Query(value = """
+    INSERT INTO catalog_outbox (type, shop_id, product_id, created_at)
+    SELECT :type, v.shop_id, v.product_id, now()
+    FROM unnest(CAST(:shopIds AS bigint[]), CAST(:productIds AS bigint[])) AS v(shop_id, product_id)
+    """, nativeQuery = true)
+    int insertAll(@Param("type") String type, @Param("shopIds") Long[] shopIds, @Param("productIds") Long[] productIds);
+
+    /**
+     * Oldest entries not claimed by another relay, locked until the end of the transaction
+     */
+    @Query(value = "SELECT * FROM catalog_outbox ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<CatalogOutboxEntry> lockOldest(@Param("limit") int limit);
+
+    @Modifying
+    @Query("DELETE FROM CatalogOutboxEntry e WHERE e.id IN :ids")
+    int deleteAllByIds(@Param("ids") Collection<Long> ids);
+}
@@ -2,7 +2,12 @@ package com.finditnow.shopservice.repository;
 
 import com.finditnow.shopservice.entity.Category;
 import com.finditnow.shopservice.entity.CategoryType;
+import com.finditnow.shopservice.search.WeightedName;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,7 +15,18 @@ import java.util.Optional;
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     boolean existsByNameIgnoreCaseAndType(String name, CategoryType type);
 
+    /**
+     * Served from the query cache; Hibernate drops the cached results whenever categories are written
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Category> findByTypeInAndActiveTrue(List<CategoryType> types);
 
     Optional<Category> findByNameIgnoreCase(String name);
+
+    /**
+     * Active category names with their number of products, used to build the suggestion trie
+     */
+    @Query("SELECT new com.finditnow.shopservice.search.WeightedName(c.id, c.name, COUNT(p)) " +
+           "FROM Category c LEFT JOIN c.products p WHERE c.active = true GROUP BY c.id, c.name")
+    List<WeightedName> findAllWeightedNames();
 }
@@ -1,14 +1,24 @@
 package com.finditnow.shopservice.repository;
 
 import com.finditnow.shopservice.entity.Product;
+import com.finditnow.shopservice.inventory.ProductKey;
+import com.finditnow.shopservice.search.SearchDocument;
+import com.finditnow.shopservice.search.WeightedName;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
@@ -24,4 +34,75 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
         Page<Product> findPaginatedByQuery(
                         @Param("query") String query,
                         Pageable pageable);
+
+        /**
+         * Products ordered by (name, id), starting strictly after {@code (afterName, afterId)}
+         */
+        @Query("""
+                            SELECT p
+                            FROM Product p
+                            WHERE :afterName IS NULL
+                               OR p.name > :afterName
+                               OR (p.name = :afterName AND p.id > :afterId)
+                            ORDER BY p.name, p.id
+                        """)
+        List<Product> findAllAfter(
+                        @Param("afterName") String afterName,
+                        @Param("afterId") Long afterId,
+                        Limit limit);
+
+        /**
+         * Searchable text of every product, used to (re)build the in-memory text index
+         */
+        @Query("SELECT new com.finditnow.shopservice.search.SearchDocument(p.id, p.name, p.description) FROM Product p")
+        List<SearchDocument> findAllSearchDocuments();
+
+        /**
+         * Searchable text of one product, read past the entity cache for an index update announced by another
+         * instance
+         */
+        @Query("SELECT new com.finditnow.shopservice.search.SearchDocument(p.id, p.name, p.description) FROM Product p WHERE p.id = :productId")
+        Optional<SearchDocument> findSearchDocument(@Param("productId") Long productId);
+
+        /**
+         * Every product name with its number of inventory listings, used to build the suggestion trie
+         */
+        @Query("""
+                            SELECT new com.finditnow.shopservice.search.WeightedName(p.id, p.name, COUNT(inv))
+                            FROM Product p
+                            LEFT JOIN ShopInventory inv ON inv.product = p
+                            GROUP BY p.id, p.name
+                        """)
+        List<WeightedName> findAllWeightedNames();
+
+        @Query("SELECT p.id FROM Product p WHERE p.id IN :ids")
+        List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+        /**
+         * Products by case-insensitive name, for imports that describe products instead of referencing them
+         *
+         * @param names lower-case names
+         */
+        @Query("""
+                            SELECT new com.finditnow.shopservice.inventory.ProductKey(p.id, LOWER(p.name), p.category.id)
+                            FROM Product p
+                            WHERE LOWER(p.name) IN :names
+                        """)
+        List<ProductKey> findKeysByLowerNameIn(@Param("names") Collection<String> names);
+
+        /**
+         * Creates many products in one statement. Declares the table it writes so Hibernate only drops cached
+         * products instead of the whole second-level cache.
+         */
+        @Modifying
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "product"))
+        @Query(value = """
+                            INSERT INTO product (name, category_id, description, image_url)
+                            SELECT * FROM unnest(CAST(:names AS text[]), CAST(:categoryIds AS bigint[]),
+                                                 CAST(:descriptions AS text[]), CAST(:imageUrls AS text[]))
+                        """, nativeQuery = true)
+        int insertAll(@Param("names") String[] names,
+                      @Param("categoryIds") Long[] categoryIds,
+                      @Param("descriptions") String[] descriptions,
+                      @Param("imageUrls") String[] imageUrls);
 }
@@ -1,41 +1,278 @@
 package com.finditnow.shopservice.repository;
 
 import com.finditnow.shopservice.entity.ShopInventory;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import com.finditnow.shopservice.inventory.StockCounts;
+import com.finditnow.shopservice.search.OpportunityRow;
+import com.finditnow.shopservice.search.ShopMatchCount;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
+/**
+ * Native statements that write declare the tables they touch ({@link HibernateHints#HINT_NATIVE_SPACES});
+ * without it Hibernate would clear the whole second-level cache on every execution.
+ * <p>
+ * Statements ending in {@code RETURNING} run as queries, since {@code @Modifying} executes them as updates and
+ * the driver rejects their result. The declared table still makes Hibernate flush pending changes to it first,
+ * but loaded entities of the rows they write are not refreshed; {@link ShopInventory} is not in the
+ * second-level cache, so there is nothing to evict.
+ */
 public interface ShopInventoryRepository extends JpaRepository<ShopInventory, Long> {
+    /**
+     * Select list of the search queries: only the columns of {@link OpportunityRow}, no entity hydration
+     */
+    String OPPORTUNITY_ROW = """
+    SELECT new com.finditnow.shopservice.search.OpportunityRow(
+        inv.id, inv.reservedStock, inv.price, inv.stock,
+        p.id, p.name, p.description, p.imageUrl,
+        pc.id, pc.name, pc.description, pc.imageUrl, pc.type,
+        s.id, s.name, s.address, s.phone, s.ownerId, s.latitude, s.longitude, s.openHours, s.deliveryOption,
+        s.imageUrl,
+        sc.id, sc.name, sc.description, sc.imageUrl, sc.type)
+    FROM ShopInventory inv
+    JOIN inv.shop s
+    JOIN inv.product p
+    LEFT JOIN p.category pc
+    LEFT JOIN s.category sc
+    """;
+
     List<ShopInventory> findByShopId(long shopId);
 
+    boolean existsByShopIdAndProductId(Long shopId, Long productId);
+
     @Query("SELECT inv FROM ShopInventory inv WHERE lower(inv.product.name) LIKE lower(concat('%', :prodName, '%'))")
     List<ShopInventory> searchByProductName(@Param("prodName") String prodName);
 
     @Query("SELECT inv FROM ShopInventory inv WHERE inv.shop.id = :shopId AND lower(inv.product.name) LIKE lower(concat('%', :prodName, '%'))")
     List<ShopInventory> searchByProductNameAndShopId(@Param("prodName") String prodName, @Param("shopId") Long shopId);
 
+    /**
+     * Rows with their product and shop, for building cart responses without a query per row
+     */
+    @Query("SELECT inv FROM ShopInventory inv JOIN FETCH inv.product JOIN FETCH inv.shop WHERE inv.id IN :ids")
+    List<ShopInventory> findAllWithProductByIdIn(@Param("ids") Collection<Long> ids);
+
     @Query("SELECT inv FROM ShopInventory inv WHERE inv.product.id = :productId")
     List<ShopInventory> findByProductId(@Param("productId") Long productId);
 
     @Query("SELECT inv FROM ShopInventory inv WHERE inv.product.id = :productId AND inv.shop.ownerId = :ownerId")
     List<ShopInventory> findByProductIdAndOwnerId(@Param("productId") Long productId, @Param("ownerId") java.util.UUID ownerId);
 
-    @Query("""
-    SELECT inv FROM ShopInventory inv
-    JOIN FETCH inv.shop s
-    JOIN FETCH inv.product p
-    LEFT JOIN FETCH p.category
-    LEFT JOIN FETCH s.category
-    WHERE (COALESCE(:query, '') = '' OR LOWER(p.name) LIKE LOWER(CONCAT('%', :query, '%')))
+    /**
+     * Matching rows ordered by (product name, inventory id), starting strictly after {@code (afterName, afterId)};
+     * used for cursor pages and for chunked scans of all matches. No count query is issued
+     */
+    @Query(OPPORTUNITY_ROW + """
+    WHERE (:anyProduct = TRUE OR p.id IN :productIds)
       AND (:shopId IS NULL OR s.id = :shopId)
+      AND (:afterName IS NULL OR p.name > :afterName OR (p.name = :afterName AND inv.id > :afterId))
+    ORDER BY p.name, inv.id
     """)
-    Page<ShopInventory> searchOpportunities(
-            @Param("query") String query,
+    List<OpportunityRow> searchOpportunitiesAfter(
+            @Param("anyProduct") boolean anyProduct,
+            @Param("productIds") Collection<Long> productIds,
             @Param("shopId") Long shopId,
-            Pageable pageable
+            @Param("afterName") String afterName,
+            @Param("afterId") Long afterId,
+            Limit limit
+    );
+
+    @Query("""
+    SELECT COUNT(inv) FROM ShopInventory inv
+    JOIN inv.product p
+    WHERE (:anyProduct = TRUE OR p.id IN :productIds)
+      AND (:shopId IS NULL OR inv.shop.id = :shopId)
+    """)
+    long countOpportunities(
+            @Param("anyProduct") boolean anyProduct,
+            @Param("productIds") Collection<Long> productIds,
+            @Param("shopId") Long shopId
+    );
+
+    /**
+     * Number of matching inventory rows per shop, restricted to the given shops
+     */
+    @Query("""
+    SELECT new com.finditnow.shopservice.search.ShopMatchCount(s.id, COUNT(inv))
+    FROM ShopInventory inv
+    JOIN inv.shop s
+    JOIN inv.product p
+    WHERE s.id IN :shopIds
+      AND (:anyProduct = TRUE OR p.id IN :productIds)
+    GROUP BY s.id
+    """)
+    List<ShopMatchCount> countOpportunitiesByShop(
+            @Param("anyProduct") boolean anyProduct,
+            @Param("productIds") Collection<Long> productIds,
+            @Param("shopIds") Collection<Long> shopIds
     );
+
+    @Query(OPPORTUNITY_ROW + """
+    WHERE s.id IN :shopIds
+      AND (:anyProduct = TRUE OR p.id IN :productIds)
+    ORDER BY inv.id
+    """)
+    List<OpportunityRow> findOpportunitiesInShops(
+            @Param("anyProduct") boolean anyProduct,
+            @Param("productIds") Collection<Long> productIds,
+            @Param("shopIds") Collection<Long> shopIds
+    );
+
+    /**
+     * Reserves {@code quantity} units only if that many are still available; the check and the increment are
+     * one statement, so concurrent reservations cannot oversell the row.
+     *
+     * @return 1 if reserved, 0 if not enough stock is available or the row does not exist
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+    UPDATE ShopInventory inv SET inv.reservedStock = inv.reservedStock + :quantity
+    WHERE inv.id = :id AND inv.stock - inv.reservedStock >= :quantity
+    """)
+    int reserve(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * @return 1 if released, 0 if fewer than {@code quantity} units are reserved or the row does not exist
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+    UPDATE ShopInventory inv SET inv.reservedStock = inv.reservedStock - :quantity
+    WHERE inv.id = :id AND inv.reservedStock >= :quantity
+    """)
+    int release(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Releases up to {@code quantity} units, stopping at zero reserved
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+    UPDATE ShopInventory inv
+    SET inv.reservedStock = CASE WHEN inv.reservedStock > :quantity THEN inv.reservedStock - :quantity ELSE 0 END
+    WHERE inv.id = :id
+    """)
+    int releaseUpTo(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Query("""
+    SELECT new com.finditnow.shopservice.inventory.StockCounts(inv.id, inv.stock, inv.reservedStock)
+    FROM ShopInventory inv
+    WHERE inv.id IN :ids
+    """)
+    List<StockCounts> findStockCounts(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Write-behind of hot inventory counters in one statement. A row is only written if it still holds the
+     * expected values, i.e. nobody changed it outside Redis since the last write.
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "shop_inventories"))
+    @Query(value = """
+    UPDATE shop_inventories AS inv
+    SET stock = v.stock, reserved_stock = v.reserved_stock
+    FROM unnest(CAST(:ids AS bigint[]), CAST(:stocks AS integer[]), CAST(:reservedStocks AS integer[]),
+                CAST(:expectedStocks AS integer[]), CAST(:expectedReservedStocks AS integer[]))
+         AS v(id, stock, reserved_stock, expected_stock, expected_reserved_stock)
+    WHERE inv.id = v.id
+      AND inv.stock = v.expected_stock
+      AND inv.reserved_stock = v.expected_reserved_stock
+    """, nativeQuery = true)
+    int writeCountsIfUnchanged(
+            @Param("ids") Long[] ids,
+            @Param("stocks") Integer[] stocks,
+            @Param("reservedStocks") Integer[] reservedStocks,
+            @Param("expectedStocks") Integer[] expectedStocks,
+            @Param("expectedReservedStocks") Integer[] expectedReservedStocks
+    );
+
+    /**
+     * Reserves units of many rows in one statement, each only if that many are still available.
+     *
+     * @return ids of the rows reserved; any other id has too little stock
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "shop_inventories"))
+    @Query(value = """
+    UPDATE shop_inventories AS inv
+    SET reserved_stock = inv.reserved_stock + v.units
+    FROM unnest(CAST(:ids AS bigint[]), CAST(:units AS integer[])) AS v(id, units)
+    WHERE inv.id = v.id AND inv.stock - inv.reserved_stock >= v.units
+    RETURNING inv.id
+    """, nativeQuery = true)
+    List<Long> reserveAll(@Param("ids") Long[] ids, @Param("units") Integer[] units);
+
+    /**
+     * Releases reserved units of many rows in one statement, each stopping at zero reserved.
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "shop_inventories"))
+    @Query(value = """
+    UPDATE shop_inventories AS inv
+    SET reserved_stock = GREATEST(inv.reserved_stock - v.units, 0)
+    FROM unnest(CAST(:ids AS bigint[]), CAST(:units AS integer[])) AS v(id, units)
+    WHERE inv.id = v.id
+    """, nativeQuery = true)
+    int releaseAllUpTo(@Param("ids") Long[] ids, @Param("units") Integer[] units);
+
+    /**
+     * Turns reserved units of many rows into sold ones in one statement. Rows with less stock than their
+     * units are left alone.
+     *
+     * @return ids of the rows written; any other id underflowed
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "shop_inventories"))
+    @Query(value = """
+    UPDATE shop_inventories AS inv
+    SET stock = inv.stock - v.units, reserved_stock = GREATEST(inv.reserved_stock - v.units, 0)
+    FROM unnest(CAST(:ids AS bigint[]), CAST(:units AS integer[])) AS v(id, units)
+    WHERE inv.id = v.id AND inv.stock >= v.units
+    RETURNING inv.id
+    """, nativeQuery = true)
+    List<Long> consumeAll(@Param("ids") Long[] ids, @Param("units") Integer[] units);
+
+    /**
+     * Creates or replaces the listings of many products in a shop in one statement. An existing listing only
+     * takes the new stock if it still covers the units reserved in carts.
+     *
+     * @return {@code [product_id, created]} of every row written; any other product was left alone
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "shop_inventories"))
+    @Query(value = """
+    INSERT INTO shop_inventories (shop_id, product_id, stock, price, reserved_stock)
+    SELECT :shopId, v.product_id, v.stock, v.price, 0
+    FROM unnest(CAST(:productIds AS bigint[]), CAST(:stocks AS integer[]), CAST(:prices AS real[]))
+        AS v(product_id, stock, price)
+    ON CONFLICT (shop_id, product_id) DO UPDATE
+    SET stock = EXCLUDED.stock, price = EXCLUDED.price
+    WHERE shop_inventories.reserved_stock <= EXCLUDED.stock
+    RETURNING shop_inventories.product_id, (shop_inventories.xmax = 0) AS created
+    """, nativeQuery = true)
+    List<Object[]> upsertAll(@Param("shopId") Long shopId,
+                             @Param("productIds") Long[] productIds,
+                             @Param("stocks") Integer[] stocks,
+                             @Param("prices") Float[] prices);
+
+    /**
+     * @return {@code [product_id, id]} of the shop's existing listings of the given products
+     */
+    @Query("SELECT inv.product.id, inv.id FROM ShopInventory inv WHERE inv.shop.id = :shopId AND inv.product.id IN :productIds")
+    List<Object[]> findListingIds(@Param("shopId") Long shopId, @Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Sets the price of many rows in one statement, leaving their stock alone.
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "shop_inventories"))
+    @Query(value = """
+    UPDATE shop_inventories AS inv
+    SET price = v.price
+    FROM unnest(CAST(:ids AS bigint[]), CAST(:prices AS real[])) AS v(id, price)
+    WHERE inv.id = v.id
+    """, nativeQuery = true)
+    int updatePrices(@Param("ids") Long[] ids, @Param("prices") Float[] prices);
 }
@@ -1,6 +1,11 @@
 package com.finditnow.shopservice.repository;
 
+import com.finditnow.shopservice.cache.ShopOwner;
 import com.finditnow.shopservice.entity.Shop;
+import com.finditnow.shopservice.search.SearchDocument;
+import com.finditnow.shopservice.search.ShopPoint;
+import com.finditnow.shopservice.search.WeightedName;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -8,7 +13,10 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Repository
@@ -17,18 +25,86 @@ public interface ShopRepository extends JpaRepository<Shop, Long> {
     Page<Shop> findByOwnerId(UUID ownerId, Pageable pageable);
     boolean existsByIdAndOwnerId(Long id, UUID ownerId);
 
-    @Query("""
-        SELECT s FROM Shop s 
-        WHERE LOWER(s.name) LIKE LOWER(CONCAT('%', :query, '%'))
-           OR LOWER(s.address) LIKE LOWER(CONCAT('%', :query, '%'))
-        """)
-    List<Shop> searchByNameOrAddress(@Param("query") String query);
-
+    /**
+     * Shops filtered by delivery option and, unless {@code anyShop} is set, restricted to the given ids
+     * (resolved from the text index), ordered by (name, id) so pages do not overlap
+     */
     @Query("SELECT s FROM Shop s WHERE " +
-           "(:name IS NULL OR LOWER(s.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
-           "(:deliveryOption IS NULL OR s.deliveryOption = :deliveryOption)")
-    Page<Shop> searchShops(@Param("name") String name, 
+           "(:anyShop = TRUE OR s.id IN :shopIds) AND " +
+           "(:deliveryOption IS NULL OR s.deliveryOption = :deliveryOption) " +
+           "ORDER BY s.name, s.id")
+    Page<Shop> searchShops(@Param("anyShop") boolean anyShop,
+                          @Param("shopIds") Collection<Long> shopIds,
                           @Param("deliveryOption") String deliveryOption, 
                           Pageable pageable);
-}
 
+    /**
+     * Keyset variant of {@link #searchShops}: shops ordered by (name, id), starting strictly after
+     * {@code (afterName, afterId)}
+     */
+    @Query("SELECT s FROM Shop s WHERE " +
+           "(:anyShop = TRUE OR s.id IN :shopIds) AND " +
+           "(:deliveryOption IS NULL OR s.deliveryOption = :deliveryOption) AND " +
+           "(:afterName IS NULL OR s.name > :afterName OR (s.name = :afterName AND s.id > :afterId)) " +
+           "ORDER BY s.name, s.id")
+    List<Shop> searchShopsAfter(@Param("anyShop") boolean anyShop,
+                                @Param("shopIds") Collection<Long> shopIds,
+                                @Param("deliveryOption") String deliveryOption,
+                                @Param("afterName") String afterName,
+                                @Param("afterId") Long afterId,
+                                Limit limit);
+
+    /**
+     * The given shops that offer the delivery option, for filtering ids ranked by the text index
+     */
+    @Query("SELECT s.id FROM Shop s WHERE s.id IN :shopIds AND s.deliveryOption = :deliveryOption")
+    Set<Long> findIdsWithDeliveryOption(@Param("shopIds") Collection<Long> shopIds,
+                                        @Param("deliveryOption") String deliveryOption);
+
+    @Query("SELECT COUNT(s) FROM Shop s WHERE " +
+           "(:anyShop = TRUE OR s.id IN :shopIds) AND " +
+           "(:deliveryOption IS NULL OR s.deliveryOption = :deliveryOption)")
+    long countShops(@Param("anyShop") boolean anyShop,
+                    @Param("shopIds") Collection<Long> shopIds,
+                    @Param("deliveryOption") String deliveryOption);
+
+    /**
+     * Coordinates of every shop, used to (re)build the in-memory geo index
+     */
+    @Query("SELECT new com.finditnow.shopservice.search.ShopPoint(s.id, s.latitude, s.longitude, s.deliveryOption) FROM Shop s")
+    List<ShopPoint> findAllGeoPoints();
+
+    /**
+     * Coordinates of one shop, read past the entity cache for an index update announced by another instance
+     */
+    @Query("SELECT new com.finditnow.shopservice.search.ShopPoint(s.id, s.latitude, s.longitude, s.deliveryOption) FROM Shop s WHERE s.id = :shopId")
+    Optional<ShopPoint> findGeoPoint(@Param("shopId") Long shopId);
+
+    /**
+     * Searchable text of every shop, used to (re)build the in-memory text index
+     */
+    @Query("SELECT new com.finditnow.shopservice.search.SearchDocument(s.id, s.name, s.address) FROM Shop s")
+    List<SearchDocument> findAllSearchDocuments();
+
+    /**
+     * Searchable text of one shop, read past the entity cache for an index update announced by another instance
+     */
+    @Query("SELECT new com.finditnow.shopservice.search.SearchDocument(s.id, s.name, s.address) FROM Shop s WHERE s.id = :shopId")
+    Optional<SearchDocument> findSearchDocument(@Param("shopId") Long shopId);
+
+    /**
+     * Every shop name with its number of inventory listings, used to build the suggestion trie
+     */
+    @Query("SELECT new com.finditnow.shopservice.search.WeightedName(s.id, s.name, COUNT(inv)) " +
+           "FROM Shop s LEFT JOIN ShopInventory inv ON inv.shop = s GROUP BY s.id, s.name")
+    List<WeightedName> findAllWeightedNames();
+
+    /**
+     * Owner of every shop, used to (re)build the in-memory ownership index
+     */
+    @Query("SELECT new com.finditnow.shopservice.cache.ShopOwner(s.id, s.ownerId) FROM Shop s")
+    List<ShopOwner> findAllOwners();
+
+    @Query("SELECT new com.finditnow.shopservice.cache.ShopOwner(s.id, s.ownerId) FROM Shop s WHERE s.id = :shopId")
+    Optional<ShopOwner> findOwner(@Param("shopId") Long shopId);
+}
@@ -0,0 +1,97 @@
+package com.finditnow.shopservice.search;
+
+import com.finditnow.common.CatalogEvent;
+import com.finditnow.redis.RedisStore;
+import com.finditnow.redis.StreamRecord;
+import com.finditnow.redis.StreamSubscriber;
+import com.finditnow.shopservice.repository.ProductRepository;
+import com.finditnow.shopservice.repository.ShopRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies catalog changes made on other instances to the in-memory search indexes of this one.
+ * <p>
+ * The writing instance updates its own indexes right after commit; every instance, the writer included, then
+ * reads the change from the {@link CatalogEvent#STREAM} stream and loads the shop or product again. Events carry
+ * only ids, so applying one twice is harmless. The rows are read with projection queries, which do not go
+ * through the entity cache that another instance may not have evicted yet.
+ */
+@Slf4j
+@Component
+public class CatalogIndexSync {
+    private final ShopRepository shopRepository;
+    private final ProductRepository productRepository;
+    private final ShopGeoIndex shopGeoIndex;
+    private final CatalogTextIndex catalogTextIndex;
+    private final CatalogSuggestions catalogSuggestions;
+    private final StreamSubscriber subscriber;
+
+    public CatalogIndexSync(ShopRepository shopRepository, ProductRepository productRepository,
+                            ShopGeoIndex shopGeoIndex, CatalogTextIndex catalogTextIndex,
+                            CatalogSuggestions catalogSuggestions, RedisStore redisStore) {
+        this.shopRepository = shopRepository;
+        this.productRepository = productRepository;
+        this.shopGeoIndex = shopGeoIndex;
+        this.catalogTextIndex = catalogTextIndex;
+        this.catalogSuggestions = catalogSuggestions;
+        this.subscriber = new StreamSubscriber(redisStore, CatalogEvent.STREAM, this::onRecord);
+    }
+
+    /**
+     * Runs before the indexes rebuild, so a change committed while they load is applied to the new index too
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        subscriber.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriber.close();
+    }
+
+    void onRecord(StreamRecord record) {
+        CatalogEvent event = CatalogEvent.fromFields(record.fields());
+        switch (event.type()) {
+            case SHOP_CHANGED -> shopChanged(event.shopId());
+            case SHOP_DELETED -> shopDeleted(event.shopId());
+            case PRODUCT_CHANGED -> productChanged(event.productId());
+            case PRODUCT_DELETED -> productDeleted(event.productId());
+            default -> {
+            }
+        }
+    }
+
+    private void shopChanged(Long shopId) {
+        shopRepository.findGeoPoint(shopId).ifPresentOrElse(shopGeoIndex::put, () -> shopGeoIndex.remove(shopId));
+        shopRepository.findSearchDocument(shopId).ifPresentOrElse(shop -> {
+            catalogTextIndex.upsertShop(shop);
+            catalogSuggestions.upsertShop(shop);
+        }, () -> shopDeleted(shopId));
+    }
+
+    private void shopDeleted(Long shopId) {
+        shopGeoIndex.remove(shopId);
+        catalogTextIndex.removeShop(shopId);
+        catalogSuggestions.removeShop(shopId);
+    }
+
+    private void productChanged(Long productId) {
+        productRepository.findSearchDocument(productId).ifPresentOrElse(product -> {
+            catalogTextIndex.upsertProduct(product);
+            catalogSuggestions.upsertProduct(product);
+        }, () -> productDeleted(productId));
+    }
+
+    private void productDeleted(Long productId) {
+        catalogTextIndex.removeProduct(productId);
+        catalogSuggestions.removeProduct(productId);
+    }
+}
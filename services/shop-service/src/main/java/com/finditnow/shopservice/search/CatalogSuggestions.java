@@ -0,0 +1,107 @@
+package com.finditnow.shopservice.search;
+
+import com.finditnow.shopservice.dto.SuggestionType;
+import com.finditnow.shopservice.entity.Category;
+import com.finditnow.shopservice.entity.Product;
+import com.finditnow.shopservice.entity.Shop;
+import com.finditnow.shopservice.repository.CategoryRepository;
+import com.finditnow.shopservice.repository.ProductRepository;
+import com.finditnow.shopservice.repository.ShopRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Typeahead over product, shop and category names.
+ * <p>
+ * Suggestions are weighted by how many inventory listings they have (a product stocked by many shops, a shop
+ * with a large catalog), loaded once on startup and then kept current by the catalog write paths. Names of shops
+ * and products changed on other instances arrive through {@link CatalogIndexSync}; their listing counts do not,
+ * so weights only drift between instances until the next rebuild, which affects ranking, not what is suggested.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogSuggestions {
+    private final ProductRepository productRepository;
+    private final ShopRepository shopRepository;
+    private final CategoryRepository categoryRepository;
+
+    private final PrefixTrie trie = new PrefixTrie();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        trie.clear();
+        load(SuggestionType.PRODUCT, productRepository.findAllWeightedNames());
+        load(SuggestionType.SHOP, shopRepository.findAllWeightedNames());
+        load(SuggestionType.CATEGORY, categoryRepository.findAllWeightedNames());
+        log.info("Catalog suggestions built with {} entries", trie.size());
+    }
+
+    public List<Suggestion> suggest(String query, int limit) {
+        return trie.complete(query, Math.min(limit, PrefixTrie.TOP_K));
+    }
+
+    public void upsertProduct(Product product) {
+        upsert(SuggestionType.PRODUCT, product.getId(), product.getName());
+    }
+
+    void upsertProduct(SearchDocument product) {
+        upsert(SuggestionType.PRODUCT, product.id(), product.text());
+    }
+
+    public void removeProduct(Long productId) {
+        trie.remove(SuggestionType.PRODUCT, productId);
+    }
+
+    public void upsertShop(Shop shop) {
+        upsert(SuggestionType.SHOP, shop.getId(), shop.getName());
+    }
+
+    void upsertShop(SearchDocument shop) {
+        upsert(SuggestionType.SHOP, shop.id(), shop.text());
+    }
+
+    public void removeShop(Long shopId) {
+        trie.remove(SuggestionType.SHOP, shopId);
+    }
+
+    public void upsertCategory(Category category) {
+        if (!category.isActive()) {
+            trie.remove(SuggestionType.CATEGORY, category.getId());
+            return;
+        }
+        upsert(SuggestionType.CATEGORY, category.getId(), category.getName());
+    }
+
+    /**
+     * Called when an inventory listing is added ({@code +1}) or removed ({@code -1}).
+     */
+    public void listingChanged(Long productId, Long shopId, int delta) {
+        reweigh(SuggestionType.PRODUCT, productId, delta);
+        reweigh(SuggestionType.SHOP, shopId, delta);
+    }
+
+    private void load(SuggestionType type, List<WeightedName> names) {
+        names.forEach(n -> trie.put(new Suggestion(type, n.id(), n.name(), n.weight() != null ? n.weight() : 0)));
+    }
+
+    /**
+     * Renames keep the current weight.
+     */
+    private void upsert(SuggestionType type, Long id, String name) {
+        Suggestion existing = trie.get(type, id);
+        trie.put(new Suggestion(type, id, name, existing != null ? existing.weight() : 0));
+    }
+
+    private void reweigh(SuggestionType type, Long id, int delta) {
+        Suggestion existing = trie.get(type, id);
+        if (existing != null) {
+            trie.put(new Suggestion(type, id, existing.text(), Math.max(0, existing.weight() + delta)));
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.finditnow.shopservice.search;
+
+import com.finditnow.shopservice.entity.Product;
+import com.finditnow.shopservice.entity.Shop;
+import com.finditnow.shopservice.repository.ProductRepository;
+import com.finditnow.shopservice.repository.ShopRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Text search over the catalog, replacing {@code LOWER(x) LIKE '%q%'} scans.
+ * Built from the database on startup and kept current by the services that write products and shops, and on
+ * other instances by {@link CatalogIndexSync}.
+ * <p>
+ * A rebuild fills fresh indexes and swaps them in at once, so searches never see a half-built catalog; writes
+ * made while it runs are replayed onto the new indexes before the swap. A query returns at most
+ * {@code search.text.max-candidates} ids and says when it had to drop matches ({@link TextMatch#truncated()}).
+ */
+@Slf4j
+@Component
+public class CatalogTextIndex {
+    private final ProductRepository productRepository;
+    private final ShopRepository shopRepository;
+    private final int maxCandidates;
+
+    private volatile Indexes indexes = new Indexes();
+    // Writes made during a rebuild, replayed onto the new indexes; null when no rebuild runs
+    private List<Consumer<Indexes>> pending;
+
+    private record Indexes(TextIndex productNames, TextIndex shopNames, TextIndex shopAddresses) {
+        Indexes() {
+            this(new TextIndex(), new TextIndex(), new TextIndex());
+        }
+    }
+
+    public CatalogTextIndex(ProductRepository productRepository, ShopRepository shopRepository,
+                            @Value("${search.text.max-candidates:2000}") int maxCandidates) {
+        this.productRepository = productRepository;
+        this.shopRepository = shopRepository;
+        this.maxCandidates = maxCandidates;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+        Indexes fresh = new Indexes();
+        try {
+            productRepository.findAllSearchDocuments().forEach(doc -> fresh.productNames().put(doc.id(), doc.text()));
+            shopRepository.findAllSearchDocuments().forEach(doc -> {
+                fresh.shopNames().put(doc.id(), doc.text());
+                fresh.shopAddresses().put(doc.id(), doc.secondaryText());
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pending = null;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            pending.forEach(write -> write.accept(fresh));
+            pending = null;
+            indexes = fresh;
+        }
+        log.info("Catalog text index built with {} products and {} shops", fresh.productNames().size(),
+                fresh.shopNames().size());
+    }
+
+    /**
+     * @return products matching the query; a blank query matches every product
+     */
+    public ProductMatch productMatch(String query) {
+        if (query == null || query.isBlank()) {
+            return ProductMatch.ANY;
+        }
+        TextMatch match = matchProducts(query);
+        return new ProductMatch(false, match.ids(), match.truncated());
+    }
+
+    /**
+     * @return ids of products whose name matches the query, best match first
+     */
+    public TextMatch matchProducts(String query) {
+        return capped(indexes.productNames().search(query, maxCandidates + 1), query);
+    }
+
+    /**
+     * @return ids of shops whose name matches the query, best match first
+     */
+    public TextMatch matchShopNames(String query) {
+        return capped(indexes.shopNames().search(query, maxCandidates + 1), query);
+    }
+
+    /**
+     * @return ids of shops whose name or address matches the query; name matches come first
+     */
+    public TextMatch matchShops(String query) {
+        Indexes current = indexes;
+        Set<Long> ids = new LinkedHashSet<>(current.shopNames().search(query, maxCandidates + 1));
+        ids.addAll(current.shopAddresses().search(query, maxCandidates + 1));
+        return capped(List.copyOf(ids), query);
+    }
+
+    public void upsertProduct(Product product) {
+        upsertProduct(new SearchDocument(product.getId(), product.getName(), product.getDescription()));
+    }
+
+    void upsertProduct(SearchDocument product) {
+        write(index -> index.productNames().put(product.id(), product.text()));
+    }
+
+    public void removeProduct(Long productId) {
+        write(index -> index.productNames().remove(productId));
+    }
+
+    public void upsertShop(Shop shop) {
+        upsertShop(new SearchDocument(shop.getId(), shop.getName(), shop.getAddress()));
+    }
+
+    void upsertShop(SearchDocument shop) {
+        write(index -> {
+            index.shopNames().put(shop.id(), shop.text());
+            index.shopAddresses().put(shop.id(), shop.secondaryText());
+        });
+    }
+
+    public void removeShop(Long shopId) {
+        write(index -> {
+            index.shopNames().remove(shopId);
+            index.shopAddresses().remove(shopId);
+        });
+    }
+
+    private synchronized void write(Consumer<Indexes> write) {
+        write.accept(indexes);
+        if (pending != null) {
+            pending.add(write);
+        }
+    }
+
+    /**
+     * Cuts a result fetched with one extra id down to {@code maxCandidates}, noting whether anything was dropped.
+     */
+    private TextMatch capped(List<Long> ids, String query) {
+        if (ids.size() <= maxCandidates) {
+            return new TextMatch(ids, false);
+        }
+        log.debug("Text query '{}' matched more than {} documents; keeping the best", query, maxCandidates);
+        return new TextMatch(ids.subList(0, maxCandidates), true);
+    }
+}
@@ -0,0 +1,46 @@
+package com.finditnow.shopservice.search;
+
+import com.finditnow.shopservice.dto.FulfillmentMode;
+import com.finditnow.shopservice.entity.CategoryType;
+
+import java.util.UUID;
+
+/**
+ * Flat, read-only projection of one inventory row with the product, shop and category columns that the search
+ * responses need. Selected with a JPQL constructor expression, so no entities are created or tracked by the
+ * persistence context. Category columns are null when the product or shop has no category.
+ */
+public record OpportunityRow(
+        Long inventoryId,
+        int reservedStock,
+        float price,
+        int stock,
+        Long productId,
+        String productName,
+        String productDescription,
+        String productImageUrl,
+        Long productCategoryId,
+        String productCategoryName,
+        String productCategoryDescription,
+        String productCategoryImageUrl,
+        CategoryType productCategoryType,
+        Long shopId,
+        String shopName,
+        String shopAddress,
+        String shopPhone,
+        UUID shopOwnerId,
+        Double shopLatitude,
+        Double shopLongitude,
+        String shopOpenHours,
+        String shopDeliveryOption,
+        String shopImageUrl,
+        Long shopCategoryId,
+        String shopCategoryName,
+        String shopCategoryDescription,
+        String shopCategoryImageUrl,
+        CategoryType shopCategoryType
+) {
+    public FulfillmentMode fulfillmentMode() {
+        return "NO_DELIVERY".equals(shopDeliveryOption) ? FulfillmentMode.PICKUP : FulfillmentMode.DELIVERY;
+    }
+}
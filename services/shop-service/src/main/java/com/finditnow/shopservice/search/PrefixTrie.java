@@ -0,0 +1,255 @@
+package com.finditnow.shopservice.search;
+
+import com.finditnow.shopservice.dto.SuggestionType;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * Weighted completion trie.
+ * <p>
+ * Each suggestion is stored under its normalized text and under every word suffix of it ("peanut butter"
+ * is reachable from "pea" and from "but"). Every node keeps the best {@link #TOP_K} suggestions of its
+ * subtree, so a lookup is a walk down the query prefix and a copy of that list, independent of catalog size.
+ * Updates recompute the cached lists along the affected paths only.
+ */
+public class PrefixTrie {
+    public static final int TOP_K = 10;
+
+    private static final Comparator<Suggestion> RANK = Comparator.comparingLong(Suggestion::weight).reversed()
+            .thenComparingInt(s -> s.text().length())
+            .thenComparing(Suggestion::text)
+            .thenComparing(Suggestion::type)
+            .thenComparing(Suggestion::id);
+
+    private final Node root = new Node();
+    private final Map<Key, Suggestion> suggestions = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private record Key(SuggestionType type, Long id) {
+    }
+
+    private static final class Node {
+        // Children sorted by label; small arrays keep the trie compact
+        char[] labels = new char[0];
+        Node[] children = new Node[0];
+        List<Suggestion> terminals = List.of();
+        Suggestion[] top = new Suggestion[0];
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node childOrCreate(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            int at = -i - 1;
+            Node node = new Node();
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            newLabels[at] = c;
+            newChildren[at] = node;
+            System.arraycopy(labels, at, newLabels, at + 1, labels.length - at);
+            System.arraycopy(children, at, newChildren, at + 1, children.length - at);
+            labels = newLabels;
+            children = newChildren;
+            return node;
+        }
+
+        void removeChild(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            if (i < 0) {
+                return;
+            }
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(labels, i + 1, newLabels, i, labels.length - i - 1);
+            System.arraycopy(children, i + 1, newChildren, i, children.length - i - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+
+        boolean isEmpty() {
+            return labels.length == 0 && terminals.isEmpty();
+        }
+    }
+
+    /**
+     * Adds or replaces the suggestion with the same type and id.
+     */
+    public void put(Suggestion suggestion) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(new Key(suggestion.type(), suggestion.id()));
+            Set<String> keys = keysOf(suggestion.text());
+            if (keys.isEmpty()) {
+                return;
+            }
+            suggestions.put(new Key(suggestion.type(), suggestion.id()), suggestion);
+            for (String key : keys) {
+                update(key, terminals -> {
+                    List<Suggestion> updated = new ArrayList<>(terminals);
+                    updated.add(suggestion);
+                    return updated;
+                });
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(SuggestionType type, Long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(new Key(type, id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Suggestion get(SuggestionType type, Long id) {
+        lock.readLock().lock();
+        try {
+            return suggestions.get(new Key(type, id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            suggestions.clear();
+            root.labels = new char[0];
+            root.children = new Node[0];
+            root.terminals = List.of();
+            root.top = new Suggestion[0];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return suggestions.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return best suggestions whose text (or one of its words onwards) starts with the query
+     */
+    public List<Suggestion> complete(String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                node = node.child(prefix.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            List<Suggestion> result = new ArrayList<>(Math.min(limit, node.top.length));
+            for (int i = 0; i < node.top.length && result.size() < limit; i++) {
+                result.add(node.top[i]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(Key key) {
+        Suggestion existing = suggestions.remove(key);
+        if (existing == null) {
+            return;
+        }
+        for (String text : keysOf(existing.text())) {
+            update(text, terminals -> terminals.stream()
+                    .filter(s -> !(s.type() == existing.type() && s.id().equals(existing.id())))
+                    .toList());
+        }
+    }
+
+    /**
+     * Applies {@code change} to the terminals of the node at {@code key}, then refreshes the cached
+     * top lists from that node back up to the root, dropping nodes that became empty.
+     */
+    private void update(String key, UnaryOperator<List<Suggestion>> change) {
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = path[i].childOrCreate(key.charAt(i));
+        }
+
+        Node target = path[key.length()];
+        target.terminals = change.apply(target.terminals);
+
+        for (int depth = key.length(); depth >= 0; depth--) {
+            Node node = path[depth];
+            if (depth > 0 && node.isEmpty()) {
+                path[depth - 1].removeChild(key.charAt(depth - 1));
+                continue;
+            }
+            node.top = best(node);
+        }
+    }
+
+    private static Suggestion[] best(Node node) {
+        List<Suggestion> candidates = new ArrayList<>(node.terminals);
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        candidates.sort(RANK);
+
+        // A suggestion reachable through several of its words appears once
+        Set<Key> seen = new HashSet<>();
+        List<Suggestion> top = new ArrayList<>(TOP_K);
+        for (Suggestion candidate : candidates) {
+            if (seen.add(new Key(candidate.type(), candidate.id()))) {
+                top.add(candidate);
+                if (top.size() == TOP_K) {
+                    break;
+                }
+            }
+        }
+        return top.toArray(new Suggestion[0]);
+    }
+
+    /**
+     * The normalized text and every word suffix of it.
+     */
+    private static Set<String> keysOf(String text) {
+        List<String> tokens = TextIndex.tokenize(text);
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            keys.add(String.join(" ", tokens.subList(i, tokens.size())));
+        }
+        return keys;
+    }
+
+    static String normalize(String query) {
+        String normalized = String.join(" ", TextIndex.tokenize(query));
+        // Keep a trailing space so "milk " only completes to longer phrases, not "milkshake"
+        if (!normalized.isEmpty() && Character.isWhitespace(query.charAt(query.length() - 1))) {
+            normalized += " ";
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,22 @@
+package com.finditnow.shopservice.search;
+
+import java.util.List;
+
+/**
+ * Products selected by a text query. {@code any} means the query was blank and every product qualifies;
+ * {@code truncated} that the query matched more products than the text index returns (see {@link TextMatch}).
+ */
+public record ProductMatch(boolean any, List<Long> productIds, boolean truncated) {
+    public static final ProductMatch ANY = new ProductMatch(true, List.of(), false);
+
+    public boolean isEmpty() {
+        return !any && productIds.isEmpty();
+    }
+
+    /**
+     * Ids bound to {@code p.id IN :productIds}; never empty so the query stays valid when {@code any} is set.
+     */
+    public List<Long> queryIds() {
+        return productIds.isEmpty() ? List.of(-1L) : productIds;
+    }
+}
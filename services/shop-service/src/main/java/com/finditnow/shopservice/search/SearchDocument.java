@@ -0,0 +1,4 @@
+package com.finditnow.shopservice.search;
+
+public record SearchDocument(Long id, String text, String secondaryText) {
+}
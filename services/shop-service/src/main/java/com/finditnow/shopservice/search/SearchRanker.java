@@ -0,0 +1,126 @@
+package com.finditnow.shopservice.search;
+
+import com.finditnow.shopservice.dto.FulfillmentMode;
+import com.finditnow.shopservice.dto.Location;
+import com.finditnow.shopservice.utils.DistanceUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Scores search candidates and keeps the best {@code k} of them.
+ * <p>
+ * The score is a weighted sum of terms in [0, 1]: closeness to the user, available stock
+ * ({@code stock - reservedStock}), cheapness and delivery over pickup. Rows with nothing available are
+ * pushed below every row that can be bought. Ties are broken by inventory id, so the order is total and
+ * the same candidates always rank the same way.
+ */
+@Component
+public class SearchRanker {
+    // Available units at which the stock term saturates
+    private static final int STOCK_SATURATION = 10;
+
+    private final double distanceWeight;
+    private final double stockWeight;
+    private final double priceWeight;
+    private final double deliveryWeight;
+    private final double distanceScaleKm;
+    private final double priceScale;
+
+    public SearchRanker(@Value("${search.rank.weight.distance:0.4}") double distanceWeight,
+                        @Value("${search.rank.weight.stock:0.25}") double stockWeight,
+                        @Value("${search.rank.weight.price:0.2}") double priceWeight,
+                        @Value("${search.rank.weight.delivery:0.15}") double deliveryWeight,
+                        @Value("${search.rank.distance-scale-km:5}") double distanceScaleKm,
+                        @Value("${search.rank.price-scale:100}") double priceScale) {
+        this.distanceWeight = distanceWeight;
+        this.stockWeight = stockWeight;
+        this.priceWeight = priceWeight;
+        this.deliveryWeight = deliveryWeight;
+        this.distanceScaleKm = distanceScaleKm;
+        this.priceScale = priceScale;
+    }
+
+    /**
+     * @param origin location distances are scored from, or {@code null} to leave distance out
+     */
+    public double score(OpportunityRow row, Location origin) {
+        double score = 0;
+        if (origin != null && row.shopLatitude() != null && row.shopLongitude() != null) {
+            double km = DistanceUtil.km(origin, row.shopLatitude(), row.shopLongitude());
+            score += distanceWeight / (1 + km / distanceScaleKm);
+        }
+
+        int available = row.stock() - row.reservedStock();
+        score += stockWeight * Math.min(Math.max(available, 0), STOCK_SATURATION) / STOCK_SATURATION;
+        score += priceWeight * priceScale / (priceScale + Math.max(row.price(), 0));
+        if (row.fulfillmentMode() == FulfillmentMode.DELIVERY) {
+            score += deliveryWeight;
+        }
+        return available > 0 ? score : score - 1;
+    }
+
+    public TopK topK(int k, Location origin) {
+        return new TopK(k, origin);
+    }
+
+    /**
+     * Bounded selection of the best rows offered to it; holds at most {@code k} rows at any time.
+     */
+    public final class TopK {
+        // Worst row first, so the head is the one to evict
+        private static final Comparator<Scored> WORST_FIRST = Comparator.comparingDouble(Scored::score)
+                .thenComparing(Comparator.comparingLong(Scored::inventoryId).reversed());
+
+        private final int k;
+        private final Location origin;
+        private final PriorityQueue<Scored> heap;
+        private long offered;
+
+        private TopK(int k, Location origin) {
+            this.k = k;
+            this.origin = origin;
+            this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, 1024)), WORST_FIRST);
+        }
+
+        public void offer(OpportunityRow row) {
+            offered++;
+            if (k <= 0) {
+                return;
+            }
+            Scored scored = new Scored(row, score(row, origin));
+            if (heap.size() < k) {
+                heap.add(scored);
+            } else if (WORST_FIRST.compare(scored, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(scored);
+            }
+        }
+
+        /**
+         * @return number of rows offered, kept or not
+         */
+        public long offered() {
+            return offered;
+        }
+
+        /**
+         * @return the kept rows, best first
+         */
+        public List<OpportunityRow> ranked() {
+            List<Scored> sorted = new ArrayList<>(heap);
+            sorted.sort(WORST_FIRST.reversed());
+            return sorted.stream().map(Scored::row).toList();
+        }
+    }
+
+    private record Scored(OpportunityRow row, double score) {
+        long inventoryId() {
+            return row.inventoryId();
+        }
+    }
+}
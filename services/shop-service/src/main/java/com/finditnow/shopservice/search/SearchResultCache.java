@@ -0,0 +1,122 @@
+package com.finditnow.shopservice.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * In-process cache of search results, validated against {@link SearchVersions} on every hit.
+ * <p>
+ * An entry remembers the catalog version and the versions of the shops its rows came from. A hit is served
+ * only if none of them moved, which costs one Redis MGET instead of the search queries. A fill is only
+ * admitted when neither the catalog nor any of those shops changed while the result was being computed (their
+ * versions are still at or below the {@link SearchVersions#WRITES} sequence read before loading), so a result
+ * read before a commit can never be stored under the post-commit versions. Writes to other shops do not
+ * keep the result out.
+ */
+@Slf4j
+@Component
+public class SearchResultCache {
+    private final SearchVersions searchVersions;
+    private final boolean enabled;
+    private final Cache<String, Entry> entries;
+
+    public SearchResultCache(SearchVersions searchVersions,
+                             @Value("${search.cache.enabled:true}") boolean enabled,
+                             @Value("${search.cache.max-entries:10000}") long maxEntries,
+                             @Value("${search.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.searchVersions = searchVersions;
+        this.enabled = enabled;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * Returns the cached value for {@code key} if it is still current, otherwise computes and caches it.
+     *
+     * @param shopsOf shops whose inventory the value was built from
+     */
+    public <T> T get(String key, Function<T, Collection<Long>> shopsOf, Supplier<T> loader) {
+        return get(key, shopsOf, SearchVersions::shopKey, Long.MAX_VALUE, loader);
+    }
+
+    /**
+     * Like {@link #get}, but reservations in the shops do not invalidate the value; it is served for at most
+     * {@code maxAge} instead, which bounds how stale its reserved stock can be. For values that are expensive to
+     * compute and would otherwise be dropped by every add-to-cart.
+     */
+    public <T> T getIgnoringReservations(String key, Function<T, Collection<Long>> shopsOf, Duration maxAge,
+                                         Supplier<T> loader) {
+        return get(key, shopsOf, SearchVersions::listingKey, maxAge.toNanos(), loader);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(String key, Function<T, Collection<Long>> shopsOf, Function<Long, String> versionKey,
+                      long maxAgeNanos, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        Entry cached = entries.getIfPresent(key);
+        if (cached != null) {
+            if (System.nanoTime() - cached.filledAt() < maxAgeNanos) {
+                List<String> current = readVersions(cached.versionKeys());
+                if (cached.versions().equals(current)) {
+                    return (T) cached.value();
+                }
+            }
+            entries.asMap().remove(key, cached);
+        }
+
+        List<String> writesBefore = readVersions(List.of(SearchVersions.WRITES));
+        long filledAt = System.nanoTime();
+        T value = loader.get();
+        if (writesBefore == null) {
+            return value;
+        }
+
+        List<String> keys = new ArrayList<>();
+        keys.add(SearchVersions.CATALOG);
+        shopsOf.apply(value).stream().distinct().sorted().map(versionKey).forEach(keys::add);
+
+        List<String> versions = readVersions(keys);
+        if (versions != null && unchangedSince(Long.parseLong(writesBefore.get(0)), versions)) {
+            entries.put(key, new Entry(value, keys, versions, filledAt));
+        }
+        return value;
+    }
+
+    private static boolean unchangedSince(long sequence, List<String> versions) {
+        return versions.stream().allMatch(version -> Long.parseLong(version) <= sequence);
+    }
+
+    /**
+     * @return current versions, or {@code null} when Redis is unavailable (the cache is then bypassed)
+     */
+    private List<String> readVersions(List<String> keys) {
+        try {
+            return searchVersions.read(keys);
+        } catch (Exception e) {
+            log.warn("Search cache bypassed, could not read versions: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    public void clear() {
+        entries.invalidateAll();
+    }
+
+    private record Entry(Object value, List<String> versionKeys, List<String> versions, long filledAt) {
+    }
+}
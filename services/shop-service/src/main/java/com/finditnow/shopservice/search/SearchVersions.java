@@ -0,0 +1,96 @@
+package com.finditnow.shopservice.search;
+
+import com.finditnow.redis.RedisStore;
+import com.finditnow.shopservice.utils.AfterCommit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Version counters used to validate cached search results, shared between instances through Redis.
+ * <ul>
+ *     <li>{@code writes} - a sequence advanced by every change</li>
+ *     <li>{@code shop:<id>} - set to the new sequence when stock, reserved stock or price of a shop's inventory
+ *     changes</li>
+ *     <li>{@code listing:<id>} - the same, except for changes that only move units in or out of reservation
+ *     (carts, checkouts); for results that can tolerate briefly stale reserved stock</li>
+ *     <li>{@code catalog} - set to the new sequence when rows appear or disappear (inventory, products, shops)</li>
+ * </ul>
+ * Since a version is the sequence of its last change, a version above a sequence read earlier means that one
+ * changed since then. All bumps happen after commit, so a reader that sees the new version also sees the new data.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SearchVersions {
+    private static final String PREFIX = "search:version:";
+    static final String WRITES = PREFIX + "writes";
+    static final String CATALOG = PREFIX + "catalog";
+
+    // KEYS[1] is the sequence, the others take its new value
+    private static final String BUMP = """
+            local seq = redis.call('INCR', KEYS[1])
+            for i = 2, #KEYS do redis.call('SET', KEYS[i], seq) end
+            return seq
+            """;
+
+    private final RedisStore redisStore;
+
+    /**
+     * Stock or price of a shop's inventory was set, e.g. by its owner.
+     */
+    public void shopChanged(Long shopId) {
+        if (shopId != null) {
+            AfterCommit.run(() -> bump(List.of(WRITES, shopKey(shopId), listingKey(shopId))));
+        }
+    }
+
+    /**
+     * Units of a shop's inventory were reserved, released or sold from reservation.
+     */
+    public void reservationsChanged(Long shopId) {
+        if (shopId != null) {
+            AfterCommit.run(() -> bump(List.of(WRITES, shopKey(shopId))));
+        }
+    }
+
+    public void reservationsChanged(Collection<Long> shopIds) {
+        List<String> keys = new ArrayList<>();
+        keys.add(WRITES);
+        shopIds.stream().distinct().map(SearchVersions::shopKey).forEach(keys::add);
+        AfterCommit.run(() -> bump(keys));
+    }
+
+    public void catalogChanged() {
+        AfterCommit.run(() -> bump(List.of(WRITES, CATALOG)));
+    }
+
+    /**
+     * Reads the current value of the given version keys in one round trip; unset counters read as "0".
+     */
+    List<String> read(List<String> keys) {
+        List<String> values = redisStore.getKeyValues(keys);
+        return values.stream().map(v -> v == null ? "0" : v).toList();
+    }
+
+    static String shopKey(Long shopId) {
+        return PREFIX + "shop:" + shopId;
+    }
+
+    static String listingKey(Long shopId) {
+        return PREFIX + "listing:" + shopId;
+    }
+
+    private void bump(List<String> keys) {
+        try {
+            redisStore.evalScript(BUMP, keys, List.of());
+        } catch (Exception e) {
+            // Cached results for these shops stay valid until the cache TTL expires
+            log.warn("Failed to bump search versions {}: {}", keys, e.getMessage());
+        }
+    }
+}
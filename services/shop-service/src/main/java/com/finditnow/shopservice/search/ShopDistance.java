@@ -0,0 +1,8 @@
+package com.finditnow.shopservice.search;
+
+public record ShopDistance(ShopPoint shop, double distanceKm) {
+
+    public Long shopId() {
+        return shop.shopId();
+    }
+}
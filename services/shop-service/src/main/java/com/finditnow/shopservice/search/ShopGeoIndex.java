@@ -0,0 +1,239 @@
+package com.finditnow.shopservice.search;
+
+import com.finditnow.shopservice.dto.Location;
+import com.finditnow.shopservice.entity.Shop;
+import com.finditnow.shopservice.repository.ShopRepository;
+import com.finditnow.shopservice.utils.DistanceUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * In-memory grid index over shop coordinates.
+ * <p>
+ * The globe is split into fixed cells of {@link #CELL_DEGREES}; every shop lives in exactly one cell.
+ * Nearest-first lookups expand rings of cells around the origin and stop as soon as no unvisited cell
+ * can hold a closer shop, so only the neighbourhood of the user is ever inspected.
+ * <p>
+ * A rebuild fills a fresh grid and swaps it in at once, so lookups never see an empty or half-filled index;
+ * writes made while it runs are replayed onto the new grid before the swap.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ShopGeoIndex {
+    static final double CELL_DEGREES = 0.05; // ~5.5 km of latitude
+    private static final double KM_PER_DEGREE = 111.32;
+    private static final int LAT_CELLS = (int) Math.ceil(180 / CELL_DEGREES);
+    private static final int LNG_CELLS = (int) Math.ceil(360 / CELL_DEGREES);
+
+    private final ShopRepository shopRepository;
+
+    private volatile Grid grid = new Grid();
+    // Writes made during a rebuild, replayed onto the new grid; null when no rebuild runs
+    private List<Consumer<Grid>> pending;
+
+    private record Grid(Map<Long, ShopPoint> points, Map<Long, Set<Long>> cells) {
+        Grid() {
+            this(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        }
+
+        void put(ShopPoint point) {
+            remove(point.shopId());
+            points.put(point.shopId(), point);
+            cells.computeIfAbsent(cellKey(point.latitude(), point.longitude()), k -> ConcurrentHashMap.newKeySet())
+                    .add(point.shopId());
+        }
+
+        void remove(Long shopId) {
+            ShopPoint previous = points.remove(shopId);
+            if (previous != null) {
+                Set<Long> cell = cells.get(cellKey(previous.latitude(), previous.longitude()));
+                if (cell != null) {
+                    cell.remove(shopId);
+                }
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+        Grid fresh = new Grid();
+        try {
+            shopRepository.findAllGeoPoints().forEach(point -> {
+                if (isLocated(point)) {
+                    fresh.put(point);
+                }
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pending = null;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            pending.forEach(write -> write.accept(fresh));
+            pending = null;
+            grid = fresh;
+        }
+        log.info("Shop geo index built with {} shops", fresh.points().size());
+    }
+
+    public void upsert(Shop shop) {
+        put(new ShopPoint(shop.getId(), shop.getLatitude(), shop.getLongitude(), shop.getDeliveryOption()));
+    }
+
+    public void remove(Long shopId) {
+        write(current -> current.remove(shopId));
+    }
+
+    public ShopPoint get(Long shopId) {
+        return grid.points().get(shopId);
+    }
+
+    public int size() {
+        return grid.points().size();
+    }
+
+    /**
+     * A shop without coordinates cannot be found by distance, so it is removed instead
+     */
+    void put(ShopPoint point) {
+        if (isLocated(point)) {
+            write(current -> current.put(point));
+        } else if (point.shopId() != null) {
+            remove(point.shopId());
+        }
+    }
+
+    private synchronized void write(Consumer<Grid> write) {
+        write.accept(grid);
+        if (pending != null) {
+            pending.add(write);
+        }
+    }
+
+    private static boolean isLocated(ShopPoint point) {
+        return point.shopId() != null && point.latitude() != null && point.longitude() != null;
+    }
+
+    /**
+     * Returns shops within {@code radiusKm} of the origin, nearest first (ties broken by shop id).
+     *
+     * @param origin   user location
+     * @param radiusKm search radius in kilometres
+     * @param limit    maximum number of shops to return
+     * @param filter   shops rejected by the filter are skipped
+     */
+    public List<ShopDistance> nearest(Location origin, double radiusKm, int limit, Predicate<ShopPoint> filter) {
+        Grid current = grid;
+        if (limit <= 0 || radiusKm <= 0 || current.points().isEmpty()) {
+            return List.of();
+        }
+
+        int centerLat = latIndex(origin.lat());
+        int centerLng = lngIndex(origin.lng());
+        Comparator<ShopDistance> order = Comparator.comparingDouble(ShopDistance::distanceKm)
+                .thenComparing(ShopDistance::shopId);
+
+        List<ShopDistance> found = new ArrayList<>();
+        Set<Long> visitedCells = new HashSet<>();
+
+        for (int ring = 0; ring <= LNG_CELLS / 2; ring++) {
+            for (long key : ringCells(centerLat, centerLng, ring)) {
+                if (!visitedCells.add(key)) {
+                    continue;
+                }
+                Set<Long> ids = current.cells().get(key);
+                if (ids == null) {
+                    continue;
+                }
+                for (Long id : ids) {
+                    ShopPoint point = current.points().get(id);
+                    if (point == null || !filter.test(point)) {
+                        continue;
+                    }
+                    double distance = DistanceUtil.km(origin, point.latitude(), point.longitude());
+                    if (distance <= radiusKm) {
+                        found.add(new ShopDistance(point, distance));
+                    }
+                }
+            }
+
+            // Anything outside the explored square is at least this far away
+            double explored = ring * minCellKm(origin.lat(), ring);
+            if (explored > radiusKm) {
+                break;
+            }
+            if (found.size() >= limit) {
+                found.sort(order);
+                if (found.get(limit - 1).distanceKm() <= explored) {
+                    break;
+                }
+            }
+        }
+
+        found.sort(order);
+        return found.size() > limit ? new ArrayList<>(found.subList(0, limit)) : found;
+    }
+
+    private List<Long> ringCells(int centerLat, int centerLng, int ring) {
+        List<Long> keys = new ArrayList<>();
+        if (ring == 0) {
+            addCell(keys, centerLat, centerLng);
+            return keys;
+        }
+        for (int dLng = -ring; dLng <= ring; dLng++) {
+            addCell(keys, centerLat - ring, centerLng + dLng);
+            addCell(keys, centerLat + ring, centerLng + dLng);
+        }
+        for (int dLat = -ring + 1; dLat <= ring - 1; dLat++) {
+            addCell(keys, centerLat + dLat, centerLng - ring);
+            addCell(keys, centerLat + dLat, centerLng + ring);
+        }
+        return keys;
+    }
+
+    private void addCell(List<Long> keys, int latIdx, int lngIdx) {
+        if (latIdx < 0 || latIdx >= LAT_CELLS) {
+            return;
+        }
+        keys.add(key(latIdx, Math.floorMod(lngIdx, LNG_CELLS)));
+    }
+
+    /**
+     * Smallest width of a cell (in km) anywhere inside the explored square; longitude cells
+     * shrink towards the poles so the bound uses the most poleward latitude reached.
+     */
+    private static double minCellKm(double lat, int ring) {
+        double poleward = Math.min(89.9, Math.abs(lat) + (ring + 1) * CELL_DEGREES);
+        return CELL_DEGREES * KM_PER_DEGREE * Math.cos(Math.toRadians(poleward));
+    }
+
+    private static long cellKey(double lat, double lng) {
+        return key(latIndex(lat), lngIndex(lng));
+    }
+
+    private static int latIndex(double lat) {
+        return Math.min(LAT_CELLS - 1, Math.max(0, (int) Math.floor((lat + 90) / CELL_DEGREES)));
+    }
+
+    private static int lngIndex(double lng) {
+        return Math.floorMod((int) Math.floor((lng + 180) / CELL_DEGREES), LNG_CELLS);
+    }
+
+    private static long key(int latIdx, int lngIdx) {
+        return ((long) latIdx << 32) | (lngIdx & 0xffffffffL);
+    }
+}
@@ -0,0 +1,4 @@
+package com.finditnow.shopservice.search;
+
+public record ShopMatchCount(Long shopId, Long matches) {
+}
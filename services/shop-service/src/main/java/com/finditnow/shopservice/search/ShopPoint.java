@@ -0,0 +1,13 @@
+package com.finditnow.shopservice.search;
+
+import com.finditnow.shopservice.dto.FulfillmentMode;
+
+/**
+ * Minimal shop projection kept by {@link ShopGeoIndex}.
+ */
+public record ShopPoint(Long shopId, Double latitude, Double longitude, String deliveryOption) {
+
+    public FulfillmentMode fulfillmentMode() {
+        return "NO_DELIVERY".equals(deliveryOption) ? FulfillmentMode.PICKUP : FulfillmentMode.DELIVERY;
+    }
+}
@@ -0,0 +1,9 @@
+package com.finditnow.shopservice.search;
+
+import com.finditnow.shopservice.dto.SuggestionType;
+
+/**
+ * A completion candidate; higher weight ranks first.
+ */
+public record Suggestion(SuggestionType type, Long id, String text, long weight) {
+}
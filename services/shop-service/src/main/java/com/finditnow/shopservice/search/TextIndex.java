@@ -0,0 +1,260 @@
+package com.finditnow.shopservice.search;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Small in-process inverted index with a trigram vocabulary index.
+ * <p>
+ * Every document is split into normalized tokens. A query token matches an indexed term when it is
+ * equal to it, a prefix of it, a substring of it (3+ characters) or within a small edit distance of it
+ * (4+ characters). All query tokens must match for a document to be returned. Lookups only touch the
+ * postings of the matched terms, so latency depends on the size of the result rather than the catalog.
+ */
+public class TextIndex {
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final int EXACT = 4;
+    private static final int PREFIX = 3;
+    private static final int SUBSTRING = 2;
+    private static final int FUZZY = 1;
+
+    private final Map<Long, Set<String>> documents = new HashMap<>();
+    private final NavigableMap<String, Set<Long>> postings = new TreeMap<>();
+    private final Map<String, Set<String>> trigramTerms = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void put(Long id, String... texts) {
+        Set<String> terms = new HashSet<>();
+        for (String text : texts) {
+            terms.addAll(tokenize(text));
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            if (terms.isEmpty()) {
+                return;
+            }
+            documents.put(id, terms);
+            for (String term : terms) {
+                Set<Long> docs = postings.computeIfAbsent(term, t -> {
+                    for (String gram : trigrams(t)) {
+                        trigramTerms.computeIfAbsent(gram, g -> new HashSet<>()).add(t);
+                    }
+                    return new HashSet<>();
+                });
+                docs.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            postings.clear();
+            trigramTerms.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return ids of documents matching every token of the query, best match first (ties by id)
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Map<Long, Integer> scores = null;
+        lock.readLock().lock();
+        try {
+            for (String token : new LinkedHashSet<>(tokens)) {
+                Map<Long, Integer> tokenScores = matchToken(token);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((id, score) -> score + tokenScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private Map<Long, Integer> matchToken(String token) {
+        Map<Long, Integer> scores = new HashMap<>();
+
+        // Exact and prefix matches come straight from the sorted term dictionary
+        for (Map.Entry<String, Set<Long>> entry : postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+            int score = entry.getKey().equals(token) ? EXACT : PREFIX;
+            entry.getValue().forEach(id -> scores.merge(id, score, Math::max));
+        }
+
+        int maxEdits = token.length() >= 8 ? 2 : token.length() >= 4 ? 1 : 0;
+        if (token.length() < 3) {
+            return scores;
+        }
+
+        // Substring and typo matches: candidate terms share trigrams with the token
+        Set<String> grams = trigrams(token);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : grams) {
+            Set<String> terms = trigramTerms.get(gram);
+            if (terms != null) {
+                terms.forEach(term -> shared.merge(term, 1, Integer::sum));
+            }
+        }
+
+        // Each edit destroys at most three padded trigrams; one more is lost when matching a prefix
+        int minShared = Math.max(1, grams.size() - 1 - 3 * maxEdits);
+        for (Map.Entry<String, Integer> candidate : shared.entrySet()) {
+            String term = candidate.getKey();
+            if (term.startsWith(token)) {
+                continue;
+            }
+
+            int score;
+            if (term.contains(token)) {
+                score = SUBSTRING;
+            } else if (maxEdits > 0 && candidate.getValue() >= minShared && isTypoOf(token, term, maxEdits)) {
+                score = FUZZY;
+            } else {
+                continue;
+            }
+            postings.get(term).forEach(id -> scores.merge(id, score, Math::max));
+        }
+        return scores;
+    }
+
+    private void removeLocked(Long id) {
+        Set<String> terms = documents.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Set<Long> docs = postings.get(term);
+            if (docs == null) {
+                continue;
+            }
+            docs.remove(id);
+            if (docs.isEmpty()) {
+                postings.remove(term);
+                for (String gram : trigrams(term)) {
+                    Set<String> gramTerms = trigramTerms.get(gram);
+                    if (gramTerms != null) {
+                        gramTerms.remove(term);
+                        if (gramTerms.isEmpty()) {
+                            trigramTerms.remove(gram);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A token is a typo of a term when it is within {@code maxEdits} of the whole term,
+     * or of the term's prefix of similar length (the user is still typing).
+     */
+    private static boolean isTypoOf(String token, String term, int maxEdits) {
+        if (Math.abs(term.length() - token.length()) <= maxEdits
+                && editDistance(token, term, maxEdits) <= maxEdits) {
+            return true;
+        }
+        for (int len = token.length() - maxEdits; len <= token.length() + maxEdits; len++) {
+            if (len > 0 && len < term.length() && editDistance(token, term.substring(0, len), maxEdits) <= maxEdits) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Levenshtein distance, giving up (returning {@code max + 1}) once every cell of a row exceeds {@code max}.
+     */
+    static int editDistance(String a, String b, int max) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    static Set<String> trigrams(String term) {
+        String padded = "$" + term + "$";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    /**
+     * Lower-cases, strips accents and splits on anything that is not a letter or digit.
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(NON_WORD.split(normalized))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+}
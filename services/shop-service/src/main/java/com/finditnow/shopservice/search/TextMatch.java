@@ -0,0 +1,11 @@
+package com.finditnow.shopservice.search;
+
+import java.util.List;
+
+/**
+ * Ids matched by a text query, best first. {@code truncated} means more documents matched than
+ * {@code search.text.max-candidates} and only the best ones were kept.
+ */
+public record TextMatch(List<Long> ids, boolean truncated) {
+    public static final TextMatch NONE = new TextMatch(List.of(), false);
+}
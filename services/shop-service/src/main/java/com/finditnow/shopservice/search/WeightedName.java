@@ -0,0 +1,7 @@
+package com.finditnow.shopservice.search;
+
+/**
+ * Name of a catalog entity with its suggestion weight (number of inventory listings), loaded at startup.
+ */
+public record WeightedName(Long id, String name, Long weight) {
+}
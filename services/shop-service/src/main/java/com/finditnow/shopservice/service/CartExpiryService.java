@@ -0,0 +1,76 @@
+package com.finditnow.shopservice.service;
+
+import com.finditnow.shopservice.cart.CartCache;
+import com.finditnow.shopservice.cart.ExpiredCarts;
+import com.finditnow.shopservice.inventory.ReservedUnits;
+import com.finditnow.shopservice.repository.CartItemRepository;
+import com.finditnow.shopservice.repository.CartRepository;
+import com.finditnow.shopservice.search.SearchVersions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Cart reservations last {@code cart.reservation.ttl-minutes} from the last change to an item. Carts that
+ * outlive all of their reservations are expired in batches: a handful of set-based statements per batch,
+ * whatever the number of carts and items in it.
+ */
+@Service
+public class CartExpiryService {
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final StockReservationService stockReservationService;
+    private final SearchVersions searchVersions;
+    private final CartCache cartCache;
+    private final Duration reservationTtl;
+
+    public CartExpiryService(CartRepository cartRepository, CartItemRepository cartItemRepository,
+                             StockReservationService stockReservationService, SearchVersions searchVersions,
+                             CartCache cartCache,
+                             @Value("${cart.reservation.ttl-minutes:30}") long ttlMinutes) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.stockReservationService = stockReservationService;
+        this.searchVersions = searchVersions;
+        this.cartCache = cartCache;
+        this.reservationTtl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    /**
+     * Deadline for units reserved now.
+     */
+    public LocalDateTime reservationDeadline() {
+        return LocalDateTime.now().plus(reservationTtl);
+    }
+
+    /**
+     * Expires up to {@code limit} stale carts, deletes their items and releases the units they held.
+     */
+    @Transactional
+    public ExpiredCarts expireBatch(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<UUID> cartIds = cartRepository.expireIdleCarts(now, now.minus(reservationTtl), limit);
+        if (cartIds.isEmpty()) {
+            return ExpiredCarts.NONE;
+        }
+
+        List<ReservedUnits> reserved = cartItemRepository.sumReservedUnitsByCartIds(cartIds);
+        cartItemRepository.deleteAllByCartIds(cartIds);
+        // Hot rows are released in Redis last, after every statement that could still fail
+        stockReservationService.releaseAllUpTo(reserved);
+
+        Set<Long> shopIds = reserved.stream().map(ReservedUnits::shopId).collect(Collectors.toSet());
+        searchVersions.reservationsChanged(shopIds);
+        cartCache.cartsChanged(cartRepository.findOwners(cartIds));
+
+        long units = reserved.stream().mapToLong(ReservedUnits::units).sum();
+        return new ExpiredCarts(cartIds.size(), reserved.size(), units);
+    }
+}
@@ -1,10 +1,13 @@
 package com.finditnow.shopservice.service;
 
 import com.finditnow.shopservice.dto.AddToCartRequest;
+import com.finditnow.shopservice.dto.CartBatchRequest;
 import com.finditnow.shopservice.dto.CartPricingResponse;
 import com.finditnow.shopservice.dto.CartResponse;
+import com.finditnow.shopservice.dto.ConsumeCartRequest;
 import com.finditnow.shopservice.dto.UpdateCartItemRequest;
 
+import java.util.List;
 import java.util.UUID;
 
 public interface CartService {
@@ -28,6 +31,15 @@ public interface CartService {
      */
     CartResponse updateCartItem(UUID userId, UUID cartItemId, UpdateCartItemRequest request);
 
+    /**
+     * Apply several add/update/remove operations to the user's active cart of a shop in one go;
+     * either all of them succeed or none does
+     * @param userId The authenticated user ID
+     * @param request The shop and the operations, applied in order
+     * @return Cart response after the last operation
+     */
+    CartResponse applyBatch(UUID userId, CartBatchRequest request);
+
     /**
      * Remove an item from the cart with user ownership validation
      * @param userId The authenticated user ID
@@ -54,9 +66,12 @@ public interface CartService {
 
     /**
      * Consume all items from a cart after order for internal use(inter service calling)
-     * @param cartId The cart ID to clear
+     * @param cartId         The cart ID to clear
+     * @param items          The lines the order was placed for; refused unless the cart holds exactly these.
+     *                       Null consumes the cart as it is
+     * @param idempotencyKey Key of the caller's request, may be null; a repeat with the same key is a no-op
      */
-    void consumeCart(UUID cartId);
+    void consumeCart(UUID cartId, List<ConsumeCartRequest.Item> items, String idempotencyKey);
 
     /**
      * Mark a cart as converted (to order)
@@ -6,6 +6,8 @@ import com.finditnow.shopservice.entity.Category;
 import com.finditnow.shopservice.entity.CategoryType;
 import com.finditnow.shopservice.mapper.CategoryMapper;
 import com.finditnow.shopservice.repository.CategoryRepository;
+import com.finditnow.shopservice.search.CatalogSuggestions;
+import com.finditnow.shopservice.utils.AfterCommit;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -15,10 +17,13 @@ public class CategoryService {
 
     private final CategoryRepository repository;
     private final CategoryMapper mapper;
+    private final CatalogSuggestions catalogSuggestions;
 
-    public CategoryService(CategoryRepository repository, CategoryMapper mapper) {
+    public CategoryService(CategoryRepository repository, CategoryMapper mapper,
+                           CatalogSuggestions catalogSuggestions) {
         this.repository = repository;
         this.mapper = mapper;
+        this.catalogSuggestions = catalogSuggestions;
     }
 
     public CategoryResponse create(CategoryRequest request) {
@@ -31,6 +36,7 @@ public class CategoryService {
         Category saved = repository.save(
                 mapper.toEntity(request)
         );
+        AfterCommit.run(() -> catalogSuggestions.upsertCategory(saved));
 
         return mapper.toResponse(saved);
     }
@@ -0,0 +1,214 @@
+package com.finditnow.shopservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finditnow.shopservice.cache.ShopOwnershipIndex;
+import com.finditnow.shopservice.dto.InventoryImportResponse;
+import com.finditnow.shopservice.dto.InventoryImportResponse.RowError;
+import com.finditnow.shopservice.dto.InventoryImportRow;
+import com.finditnow.shopservice.exception.BadRequestException;
+import com.finditnow.shopservice.exception.NotFoundException;
+import com.finditnow.shopservice.inventory.ImportChunkResult;
+import com.finditnow.shopservice.inventory.ImportLine;
+import com.finditnow.shopservice.utils.CsvLine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Bulk inventory import for shop owners. The upload is read line by line and written in chunks of
+ * {@code inventory.import.chunk-size} rows, each in its own transaction, so memory does not grow with the
+ * file. Rows that fail to parse or to write are reported by line number; a chunk that fails as a whole
+ * reports all of its rows and the import goes on with the next one.
+ * <p>
+ * CSV needs a header row naming the columns ({@code productId, productName, categoryId, description,
+ * imageUrl, stock, price}, in any order); NDJSON has one object with the same fields per line.
+ */
+@Slf4j
+@Service
+public class InventoryImportService {
+    private final ShopOwnershipIndex shopOwnershipIndex;
+    private final InventoryUpsertService inventoryUpsertService;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    public InventoryImportService(ShopOwnershipIndex shopOwnershipIndex, InventoryUpsertService inventoryUpsertService,
+                                  ObjectMapper objectMapper,
+                                  @Value("${inventory.import.chunk-size:500}") int chunkSize,
+                                  @Value("${inventory.import.max-errors:1000}") int maxErrors) {
+        this.shopOwnershipIndex = shopOwnershipIndex;
+        this.inventoryUpsertService = inventoryUpsertService;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    public InventoryImportResponse importInventory(Long shopId, InputStream body, Format format, UUID userId,
+                                                   boolean isAdmin) {
+        UUID owner = shopOwnershipIndex.ownerOf(shopId)
+                .orElseThrow(() -> new NotFoundException("Shop not found with id: " + shopId));
+        if (!isAdmin && !owner.equals(userId)) {
+            throw new IllegalStateException("Not allowed to modify inventory for this shop");
+        }
+
+        Report report = new Report(maxErrors);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            Map<String, Integer> columns = null;
+            List<ImportLine> chunk = new ArrayList<>(chunkSize);
+            long lineNumber = 0;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                lineNumber++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && columns == null) {
+                    columns = header(text);
+                    continue;
+                }
+
+                report.rows++;
+                InventoryImportRow row;
+                try {
+                    row = format == Format.CSV ? fromCsv(columns, text) : objectMapper.readValue(text, InventoryImportRow.class);
+                    validate(row);
+                } catch (Exception e) {
+                    report.error(lineNumber, e.getMessage());
+                    continue;
+                }
+                chunk.add(new ImportLine(lineNumber, row));
+                if (chunk.size() == chunkSize) {
+                    write(shopId, chunk, report);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                write(shopId, chunk, report);
+            }
+        } catch (IOException e) {
+            throw new BadRequestException("Could not read the upload: " + e.getMessage());
+        }
+
+        log.info("Imported inventory of shop {}: {} rows, {} created, {} updated, {} failed",
+                shopId, report.rows, report.created, report.updated, report.failed);
+        return report.toResponse();
+    }
+
+    private void write(Long shopId, List<ImportLine> chunk, Report report) {
+        try {
+            ImportChunkResult result = inventoryUpsertService.upsert(shopId, chunk);
+            report.created += result.created();
+            report.updated += result.updated();
+            result.errors().forEach(error -> report.error(error.line(), error.message()));
+        } catch (Exception e) {
+            log.warn("Inventory import chunk for shop {} failed: {}", shopId, e.getMessage());
+            chunk.forEach(line -> report.error(line.line(), "Not imported, its chunk failed: " + e.getMessage()));
+        }
+    }
+
+    private static Map<String, Integer> header(String text) {
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = CsvLine.split(text);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("stock") || !columns.containsKey("price")) {
+            throw new BadRequestException("CSV header must name the stock and price columns");
+        }
+        return columns;
+    }
+
+    private static InventoryImportRow fromCsv(Map<String, Integer> columns, String text) {
+        List<String> fields = CsvLine.split(text);
+        String productId = field(columns, fields, "productid");
+        String categoryId = field(columns, fields, "categoryid");
+        String stock = field(columns, fields, "stock");
+        String price = field(columns, fields, "price");
+        try {
+            return InventoryImportRow.builder()
+                    .productId(productId == null ? null : Long.valueOf(productId))
+                    .productName(field(columns, fields, "productname"))
+                    .categoryId(categoryId == null ? null : Long.valueOf(categoryId))
+                    .description(field(columns, fields, "description"))
+                    .imageUrl(field(columns, fields, "imageurl"))
+                    .stock(stock == null ? null : Integer.valueOf(stock))
+                    .price(price == null ? null : Float.valueOf(price))
+                    .build();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return the trimmed field, or null when it is empty or the row has no such column
+     */
+    private static String field(Map<String, Integer> columns, List<String> fields, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static void validate(InventoryImportRow row) {
+        if (row.getProductId() == null && (row.getProductName() == null || row.getProductName().isBlank()
+                || row.getCategoryId() == null)) {
+            throw new IllegalArgumentException("Product ID, or product name and category ID, is required");
+        }
+        if (row.getStock() == null) {
+            throw new IllegalArgumentException("Stock is required");
+        }
+        if (row.getStock() < 0) {
+            throw new IllegalArgumentException("Stock must be non-negative");
+        }
+        if (row.getPrice() == null) {
+            throw new IllegalArgumentException("Price is required");
+        }
+        if (row.getPrice() < 0) {
+            throw new IllegalArgumentException("Price must be non-negative");
+        }
+    }
+
+    private static class Report {
+        private final int maxErrors;
+        private final List<RowError> errors = new ArrayList<>();
+        private long rows;
+        private long created;
+        private long updated;
+        private long failed;
+
+        Report(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        void error(long line, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new RowError(line, message));
+            }
+        }
+
+        InventoryImportResponse toResponse() {
+            return InventoryImportResponse.builder()
+                    .rows(rows)
+                    .created(created)
+                    .updated(updated)
+                    .failed(failed)
+                    .errors(errors)
+                    .errorsTruncated(failed > errors.size())
+                    .build();
+        }
+    }
+}
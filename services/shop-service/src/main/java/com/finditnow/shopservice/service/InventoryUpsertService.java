@@ -0,0 +1,231 @@
+package com.finditnow.shopservice.service;
+
+import com.finditnow.shopservice.dto.InventoryImportResponse.RowError;
+import com.finditnow.shopservice.dto.InventoryImportRow;
+import com.finditnow.shopservice.entity.Product;
+import com.finditnow.shopservice.events.CatalogOutbox;
+import com.finditnow.shopservice.inventory.HotInventory;
+import com.finditnow.shopservice.inventory.HotResult;
+import com.finditnow.shopservice.inventory.ImportChunkResult;
+import com.finditnow.shopservice.inventory.ImportLine;
+import com.finditnow.shopservice.inventory.ProductKey;
+import com.finditnow.shopservice.repository.CategoryRepository;
+import com.finditnow.shopservice.repository.ProductRepository;
+import com.finditnow.shopservice.repository.ShopInventoryRepository;
+import com.finditnow.shopservice.search.CatalogSuggestions;
+import com.finditnow.shopservice.search.CatalogTextIndex;
+import com.finditnow.shopservice.search.SearchVersions;
+import com.finditnow.shopservice.utils.AfterCommit;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Writes one chunk of a bulk inventory import in one transaction, with a handful of set-based statements
+ * whatever the chunk size: products described by name are looked up and the missing ones created together,
+ * then every listing is upserted on {@code (shop_id, product_id)}. Listings promoted to {@link HotInventory}
+ * take their stock in Redis, like a single update does, and only their price from the statement.
+ */
+@Service
+@RequiredArgsConstructor
+public class InventoryUpsertService {
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ShopInventoryRepository shopInventoryRepository;
+    private final CatalogTextIndex catalogTextIndex;
+    private final CatalogSuggestions catalogSuggestions;
+    private final SearchVersions searchVersions;
+    private final CatalogOutbox catalogOutbox;
+    private final HotInventory hotInventory;
+
+    private record NameKey(String name, Long categoryId) {
+    }
+
+    /**
+     * Rows that cannot be written are reported, the others are written. When a product appears more than
+     * once, its last row wins.
+     */
+    @Transactional
+    public ImportChunkResult upsert(Long shopId, List<ImportLine> lines) {
+        List<RowError> errors = new ArrayList<>();
+        Set<Long> existing = existingProducts(lines);
+        Map<NameKey, Long> named = resolveNamedProducts(lines, errors);
+
+        Map<Long, ImportLine> byProduct = new LinkedHashMap<>();
+        for (ImportLine line : lines) {
+            InventoryImportRow row = line.row();
+            Long productId;
+            if (row.getProductId() != null) {
+                productId = existing.contains(row.getProductId()) ? row.getProductId() : null;
+                if (productId == null) {
+                    errors.add(new RowError(line.line(), "Product not found with id: " + row.getProductId()));
+                }
+            } else {
+                productId = named.get(nameKey(row)); // unresolved names were reported above
+            }
+            if (productId == null) {
+                continue;
+            }
+            ImportLine previous = byProduct.put(productId, line);
+            if (previous != null) {
+                errors.add(new RowError(previous.line(), "Superseded by line " + line.line()));
+            }
+        }
+        Set<Long> writtenIds = new HashSet<>(setHotStock(shopId, byProduct, errors));
+        int hotUpdated = writtenIds.size();
+        if (byProduct.isEmpty()) {
+            if (hotUpdated > 0) {
+                searchVersions.shopChanged(shopId);
+                catalogOutbox.listingsChanged(shopId, writtenIds);
+            }
+            return new ImportChunkResult(0, hotUpdated, errors);
+        }
+
+        List<Object[]> written = shopInventoryRepository.upsertAll(shopId,
+                byProduct.keySet().toArray(Long[]::new),
+                byProduct.values().stream().map(line -> line.row().getStock()).toArray(Integer[]::new),
+                byProduct.values().stream().map(line -> line.row().getPrice()).toArray(Float[]::new));
+
+        List<Long> created = new ArrayList<>();
+        for (Object[] row : written) {
+            Long productId = ((Number) row[0]).longValue();
+            writtenIds.add(productId);
+            if (Boolean.TRUE.equals(row[1])) {
+                created.add(productId);
+            }
+        }
+        byProduct.forEach((productId, line) -> {
+            if (!writtenIds.contains(productId)) {
+                errors.add(new RowError(line.line(), "Stock cannot be less than reserved stock"));
+            }
+        });
+
+        if (!created.isEmpty()) {
+            AfterCommit.run(() -> created.forEach(productId ->
+                    catalogSuggestions.listingChanged(productId, shopId, 1)));
+            searchVersions.catalogChanged();
+        }
+        int updated = written.size() - created.size() + hotUpdated;
+        if (updated > 0) {
+            searchVersions.shopChanged(shopId);
+        }
+        catalogOutbox.listingsChanged(shopId, writtenIds);
+        return new ImportChunkResult(created.size(), updated, errors);
+    }
+
+    /**
+     * Sets the stock of the listings that are hot in Redis and their price in the database, removing them from
+     * {@code byProduct} so the upsert does not write stock behind their counters. A hot listing whose reserved
+     * units exceed the new stock is reported and left alone.
+     *
+     * @return product ids of the hot listings written
+     */
+    private List<Long> setHotStock(Long shopId, Map<Long, ImportLine> byProduct, List<RowError> errors) {
+        if (!hotInventory.isEnabled() || byProduct.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> written = new ArrayList<>();
+        List<Long> pricedIds = new ArrayList<>();
+        List<Float> prices = new ArrayList<>();
+        for (Object[] listing : shopInventoryRepository.findListingIds(shopId, byProduct.keySet())) {
+            Long productId = ((Number) listing[0]).longValue();
+            Long inventoryId = ((Number) listing[1]).longValue();
+            InventoryImportRow row = byProduct.get(productId).row();
+            HotResult hot = hotInventory.setStock(inventoryId, row.getStock());
+            if (!hot.handled()) {
+                continue;
+            }
+            ImportLine line = byProduct.remove(productId);
+            if (hot.applied()) {
+                written.add(productId);
+                pricedIds.add(inventoryId);
+                prices.add(row.getPrice());
+            } else {
+                errors.add(new RowError(line.line(), "Stock cannot be less than reserved stock"));
+            }
+        }
+        if (!pricedIds.isEmpty()) {
+            shopInventoryRepository.updatePrices(pricedIds.toArray(Long[]::new), prices.toArray(Float[]::new));
+        }
+        return written;
+    }
+
+    private Set<Long> existingProducts(List<ImportLine> lines) {
+        Set<Long> referenced = lines.stream()
+                .map(line -> line.row().getProductId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        return referenced.isEmpty() ? Set.of() : new HashSet<>(productRepository.findExistingIds(referenced));
+    }
+
+    /**
+     * Ids of the products the chunk describes by name, creating the ones that do not exist yet
+     */
+    private Map<NameKey, Long> resolveNamedProducts(List<ImportLine> lines, List<RowError> errors) {
+        List<ImportLine> namedLines = lines.stream().filter(line -> line.row().getProductId() == null).toList();
+        if (namedLines.isEmpty()) {
+            return Map.of();
+        }
+
+        Set<Long> categoryIds = new HashSet<>();
+        categoryRepository.findAllById(namedLines.stream().map(line -> line.row().getCategoryId()).collect(Collectors.toSet()))
+                .forEach(category -> categoryIds.add(category.getId()));
+        Set<String> names = namedLines.stream().map(line -> nameKey(line.row()).name()).collect(Collectors.toSet());
+        Map<NameKey, Long> ids = findByName(names);
+
+        Map<NameKey, InventoryImportRow> missing = new LinkedHashMap<>();
+        for (ImportLine line : namedLines) {
+            NameKey key = nameKey(line.row());
+            if (!categoryIds.contains(key.categoryId())) {
+                errors.add(new RowError(line.line(), "Category not found with id: " + key.categoryId()));
+            } else if (!ids.containsKey(key)) {
+                missing.putIfAbsent(key, line.row());
+            }
+        }
+        if (missing.isEmpty()) {
+            return ids;
+        }
+
+        Collection<InventoryImportRow> rows = missing.values();
+        productRepository.insertAll(
+                rows.stream().map(row -> row.getProductName().trim()).toArray(String[]::new),
+                rows.stream().map(InventoryImportRow::getCategoryId).toArray(Long[]::new),
+                rows.stream().map(InventoryImportRow::getDescription).toArray(String[]::new),
+                rows.stream().map(InventoryImportRow::getImageUrl).toArray(String[]::new));
+        Map<NameKey, Long> resolved = findByName(names);
+
+        List<Product> createdProducts = new ArrayList<>();
+        missing.forEach((key, row) -> {
+            Product product = new Product();
+            product.setId(resolved.get(key));
+            product.setName(row.getProductName().trim());
+            createdProducts.add(product);
+        });
+        AfterCommit.run(() -> createdProducts.forEach(product -> {
+            catalogTextIndex.upsertProduct(product);
+            catalogSuggestions.upsertProduct(product);
+        }));
+        searchVersions.catalogChanged();
+        catalogOutbox.productsChanged(createdProducts.stream().map(Product::getId).toList());
+        return resolved;
+    }
+
+    /**
+     * Product ids by name and category; of duplicates already in the catalog, the oldest wins
+     */
+    private Map<NameKey, Long> findByName(Set<String> names) {
+        Map<NameKey, Long> ids = new HashMap<>();
+        for (ProductKey key : productRepository.findKeysByLowerNameIn(names)) {
+            ids.merge(new NameKey(key.name(), key.categoryId()), key.productId(), Math::min);
+        }
+        return ids;
+    }
+
+    private static NameKey nameKey(InventoryImportRow row) {
+        return new NameKey(row.getProductName().trim().toLowerCase(Locale.ROOT), row.getCategoryId());
+    }
+}
@@ -1,5 +1,6 @@
 package com.finditnow.shopservice.service;
 
+import com.finditnow.shopservice.cache.ShopOwnershipIndex;
 import com.finditnow.shopservice.dto.CategoryResponse;
 import com.finditnow.shopservice.dto.PagedResponse;
 import com.finditnow.shopservice.dto.ProductRequest;
@@ -8,6 +9,7 @@ import com.finditnow.shopservice.entity.Category;
 import com.finditnow.shopservice.entity.Product;
 import com.finditnow.shopservice.entity.Shop;
 import com.finditnow.shopservice.entity.ShopInventory;
+import com.finditnow.shopservice.events.CatalogOutbox;
 import com.finditnow.shopservice.exception.ForbiddenException;
 import com.finditnow.shopservice.exception.NotFoundException;
 import com.finditnow.shopservice.mapper.ProductMapper;
@@ -15,14 +17,23 @@ import com.finditnow.shopservice.repository.CategoryRepository;
 import com.finditnow.shopservice.repository.ProductRepository;
 import com.finditnow.shopservice.repository.ShopInventoryRepository;
 import com.finditnow.shopservice.repository.ShopRepository;
+import com.finditnow.shopservice.search.CatalogSuggestions;
+import com.finditnow.shopservice.search.CatalogTextIndex;
+import com.finditnow.shopservice.search.SearchVersions;
+import com.finditnow.shopservice.utils.AfterCommit;
+import com.finditnow.shopservice.utils.CursorCodec;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -36,6 +47,11 @@ public class ProductService {
     private final ShopInventoryRepository shopInventoryRepository;
     private final ProductMapper productMapper;
     private final CategoryRepository categoryRepository;
+    private final CatalogTextIndex catalogTextIndex;
+    private final CatalogSuggestions catalogSuggestions;
+    private final SearchVersions searchVersions;
+    private final CatalogOutbox catalogOutbox;
+    private final ShopOwnershipIndex shopOwnershipIndex;
 
     @Transactional
     public ProductResponse addProduct(ProductRequest request, UUID creatorId) {
@@ -49,6 +65,12 @@ public class ProductService {
         product.setCategory(cat);
 
         Product saved = productRepository.save(product);
+        AfterCommit.run(() -> {
+            catalogTextIndex.upsertProduct(saved);
+            catalogSuggestions.upsertProduct(saved);
+        });
+        searchVersions.catalogChanged();
+        catalogOutbox.productsChanged(List.of(saved.getId()));
         return productMapper.toDto(saved);
     }
 
@@ -93,10 +115,50 @@ public class ProductService {
         );
     }
 
+    /**
+     * Returns products ordered by name using keyset pagination.
+     *
+     * @param cursor    {@code nextCursor} of the previous page, or empty for the first page
+     * @param size      The page size
+     * @param withTotal Whether to run a count query for totalElements
+     * @return PagedResponse with products and the cursor of the next page
+     */
+    @Transactional(readOnly = true)
+    public PagedResponse<ProductResponse> getAll(String cursor, int size, boolean withTotal) {
+        CursorCodec.NameKey after = cursor.isEmpty() ? null : CursorCodec.decodeNameKey(cursor);
+        List<Product> products = productRepository.findAllAfter(
+                after != null ? after.name() : null,
+                after != null ? after.id() : null,
+                Limit.of(size + 1));
+
+        boolean hasMore = products.size() > size;
+        List<Product> pageProducts = hasMore ? products.subList(0, size) : products;
+        String nextCursor = null;
+        if (hasMore) {
+            Product last = pageProducts.get(pageProducts.size() - 1);
+            nextCursor = CursorCodec.encode(new CursorCodec.NameKey(last.getName(), last.getId()));
+        }
+
+        return PagedResponse.cursorPage(productMapper.toDtoList(pageProducts), size, after == null, nextCursor,
+                withTotal ? productRepository.count() : null);
+    }
+
     @Transactional(readOnly = true)
     public List<ProductResponse> searchProducts(String query) {
-        List<Product> products = productRepository.findByNameContainingIgnoreCase(query);
-        return products.stream().map(productMapper::toDto).collect(Collectors.toList());
+        List<Long> ids = catalogTextIndex.matchProducts(query).ids();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // findAllById does not keep the order of the ids; restore the index ranking
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            rank.put(ids.get(i), i);
+        }
+        return productRepository.findAllById(ids).stream()
+                .sorted(Comparator.comparing(product -> rank.get(product.getId())))
+                .map(productMapper::toDto)
+                .collect(Collectors.toList());
     }
 
     @Transactional(readOnly = true)
@@ -112,12 +174,13 @@ public class ProductService {
      */
     @Transactional
     public ProductResponse addProduct(ProductRequest request, Long shopId, UUID ownerId) {
-        Shop shop = shopRepository.findById(shopId)
+        UUID shopOwner = shopOwnershipIndex.ownerOf(shopId)
                 .orElseThrow(() -> new NotFoundException("Shop not found with id: " + shopId));
-
-        if (!shop.getOwnerId().equals(ownerId)) {
+        if (!shopOwner.equals(ownerId)) {
             throw new ForbiddenException("You don't have permission to add products to this shop");
         }
+        Shop shop = shopRepository.findById(shopId)
+                .orElseThrow(() -> new NotFoundException("Shop not found with id: " + shopId));
 
         Category cat = resolveCategory(request);
         Product product = new Product();
@@ -127,6 +190,11 @@ public class ProductService {
         product.setCategory(cat);
 
         Product savedProduct = productRepository.save(product);
+        AfterCommit.run(() -> {
+            catalogTextIndex.upsertProduct(savedProduct);
+            catalogSuggestions.upsertProduct(savedProduct);
+        });
+        searchVersions.catalogChanged();
 
         ShopInventory inventory = new ShopInventory();
         inventory.setProduct(savedProduct);
@@ -136,6 +204,9 @@ public class ProductService {
         inventory.setReservedStock(0);
 
         ShopInventory savedInventory = shopInventoryRepository.save(inventory);
+        AfterCommit.run(() -> catalogSuggestions.listingChanged(savedProduct.getId(), shopId, 1));
+        catalogOutbox.productsChanged(List.of(savedProduct.getId()));
+        catalogOutbox.listingsChanged(shopId, List.of(savedProduct.getId()));
         return mapToResponse(savedProduct, savedInventory);
     }
 
@@ -159,6 +230,12 @@ public class ProductService {
         }
 
         Product updated = productRepository.save(product);
+        AfterCommit.run(() -> {
+            catalogTextIndex.upsertProduct(updated);
+            catalogSuggestions.upsertProduct(updated);
+        });
+        searchVersions.catalogChanged();
+        catalogOutbox.productsChanged(List.of(updated.getId()));
         return productMapper.toDto(updated);
     }
 
@@ -174,6 +251,12 @@ public class ProductService {
         }
 
         productRepository.delete(product);
+        AfterCommit.run(() -> {
+            catalogTextIndex.removeProduct(productId);
+            catalogSuggestions.removeProduct(productId);
+        });
+        searchVersions.catalogChanged();
+        catalogOutbox.productsDeleted(List.of(productId));
     }
 
     @Transactional
@@ -199,6 +282,12 @@ public class ProductService {
         }
 
         productRepository.deleteAll(products);
+        AfterCommit.run(() -> products.forEach(product -> {
+            catalogTextIndex.removeProduct(product.getId());
+            catalogSuggestions.removeProduct(product.getId());
+        }));
+        searchVersions.catalogChanged();
+        catalogOutbox.productsDeleted(products.stream().map(Product::getId).toList());
     }
 
     private Category resolveCategory(ProductRequest request) {
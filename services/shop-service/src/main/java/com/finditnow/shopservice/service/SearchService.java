@@ -1,23 +1,41 @@
 package com.finditnow.shopservice.service;
 
 import com.finditnow.shopservice.dto.*;
-import com.finditnow.shopservice.entity.Category;
-import com.finditnow.shopservice.entity.Product;
-import com.finditnow.shopservice.entity.Shop;
-import com.finditnow.shopservice.entity.ShopInventory;
+import com.finditnow.shopservice.entity.CategoryType;
+import com.finditnow.shopservice.exception.BadRequestException;
 import com.finditnow.shopservice.repository.ShopInventoryRepository;
+import com.finditnow.shopservice.search.CatalogSuggestions;
+import com.finditnow.shopservice.search.CatalogTextIndex;
+import com.finditnow.shopservice.search.OpportunityRow;
+import com.finditnow.shopservice.search.ProductMatch;
+import com.finditnow.shopservice.search.SearchRanker;
+import com.finditnow.shopservice.search.SearchResultCache;
+import com.finditnow.shopservice.search.ShopDistance;
+import com.finditnow.shopservice.search.ShopGeoIndex;
+import com.finditnow.shopservice.search.ShopMatchCount;
+import com.finditnow.shopservice.search.ShopPoint;
+import com.finditnow.shopservice.search.TextIndex;
+import com.finditnow.shopservice.utils.CursorCodec;
 import com.finditnow.shopservice.utils.DistanceUtil;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
-import java.util.Comparator;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class SearchService {
@@ -25,10 +43,92 @@ public class SearchService {
     private final ShopService shopService;
     private final ShopInventoryService shopInventoryService;
     private final ShopInventoryRepository shopInventoryRepository;
+    private final ShopGeoIndex shopGeoIndex;
+    private final CatalogTextIndex catalogTextIndex;
+    private final CatalogSuggestions catalogSuggestions;
+    private final SearchResultCache searchResultCache;
+    private final SearchRanker searchRanker;
+    private final ExecutorService searchExecutor;
+
+    @Value("${search.geo.default-radius-km:25}")
+    private double defaultRadiusKm;
+
+    @Value("${search.geo.max-radius-km:100}")
+    private double maxRadiusKm;
+
+    @Value("${search.cache.cell-degrees:0.01}")
+    private double cacheCellDegrees;
+
+    @Value("${search.rank.max-results:500}")
+    private int maxRankedResults;
+
+    @Value("${search.rank.scan-chunk:1000}")
+    private int rankScanChunk;
+
+    @Value("${search.rank.max-scan:5000}")
+    private int maxRankScan;
+
+    @Value("${search.rank.snapshot-ttl-seconds:30}")
+    private long rankSnapshotTtlSeconds;
+
+    @Value("${search.global.leg-timeout-ms:800}")
+    private long legTimeoutMs;
+
+    // Keeps IN (...) lists well below driver/planner limits
+    private static final int SHOP_ID_CHUNK = 500;
 
     public PagedResponse<SearchOpportunityResponse> searchProducts(String query, Double lat, Double lng,
                                                                    String fulfillment, int page, int size, Long shopId) {
+        return searchProducts(query, lat, lng, fulfillment, page, size, shopId, null, null, null, true);
+    }
+
+    /**
+     * Product search. With {@code sort=distance} (or a {@code radiusKm}) and a user location, results are
+     * ordered nearest-first across all pages using the in-memory shop geo index; otherwise they are ranked
+     * across all matches by {@link SearchRanker} (see {@link #rankedPage}).
+     * <p>
+     * Results are cached per normalized query and location cell, so users in the same cell share page contents;
+     * distances are always recomputed from the caller's own location.
+     * <p>
+     * A non-null {@code cursor} (empty for the first page) switches to keyset paging: nearest-first pages are
+     * keyed on (distance bucket, shop id, inventory id), others on (product name, inventory id). The count
+     * behind {@code totalElements} only runs when {@code withTotal} is set.
+     */
+    public PagedResponse<SearchOpportunityResponse> searchProducts(String query, Double lat, Double lng,
+                                                                   String fulfillment, int page, int size, Long shopId,
+                                                                   String sort, Double radiusKm, String cursor,
+                                                                   boolean withTotal) {
         FulfillmentPreference preference = FulfillmentPreference.from(fulfillment);
+        boolean nearestFirst = ("distance".equalsIgnoreCase(sort) || radiusKm != null)
+                && lat != null && lng != null && shopId == null;
+        if (!nearestFirst && cursor == null) {
+            return rankedPage(query, lat, lng, preference, shopId, page, size);
+        }
+
+        String key = String.join("|", "products", normalizeQuery(query), locationCell(lat, lng), preference.name(),
+                String.valueOf(shopId), nearestFirst ? "nearest:" + resolveRadius(radiusKm) : "name",
+                cursor != null ? "cursor:" + cursor + ":" + withTotal : "page:" + page, "size:" + size);
+        PagedResponse<SearchOpportunityResponse> result = searchResultCache.get(key, SearchService::shopIdsOf,
+                () -> findProducts(query, lat, lng, preference, page, size, shopId, nearestFirst, radiusKm,
+                        cursor, withTotal));
+
+        if (lat == null || lng == null) {
+            return result;
+        }
+        return withDistancesFrom(result, new Location(lat, lng), nearestFirst);
+    }
+
+    private PagedResponse<SearchOpportunityResponse> findProducts(String query, Double lat, Double lng,
+                                                                  FulfillmentPreference preference, int page,
+                                                                  int size, Long shopId, boolean nearestFirst,
+                                                                  Double radiusKm, String cursor, boolean withTotal) {
+        // Resolve the text query to product ids up front; nothing matched means nothing to load
+        ProductMatch match = catalogTextIndex.productMatch(query);
+        if (match.isEmpty()) {
+            return cursor != null
+                    ? PagedResponse.cursorPage(List.of(), size, cursor.isEmpty(), null, withTotal ? 0L : null)
+                    : emptyPage(page, size);
+        }
 
         Optional<Location> userLocation;
         if (lat != null && lng != null) {
@@ -37,108 +137,488 @@ public class SearchService {
             userLocation = Optional.empty();
         }
 
-        // Use a single query with JOINs to fetch all data at once
-        Pageable pageable = PageRequest.of(page, size);
-        Page<ShopInventory> inventoryPage = shopInventoryRepository.searchOpportunities(
-                query, shopId, pageable
-        );
+        if (cursor != null) {
+            return nearestFirst
+                    ? searchNearestAfter(match, new Location(lat, lng), preference, resolveRadius(radiusKm), cursor,
+                    size, withTotal)
+                    : searchByNameAfter(match, userLocation, preference, shopId, cursor, size, withTotal);
+        }
+        return searchNearest(match, new Location(lat, lng), preference, resolveRadius(radiusKm), page, size);
+    }
+
+    /**
+     * Default (ranked) product search. Matching rows are read from the database and scored by
+     * {@link SearchRanker}; a bounded heap keeps the best {@code search.rank.max-results}, which form a ranked
+     * snapshot that all pages are sliced from, so page 2 never outranks page 1.
+     * <p>
+     * Candidates are narrowed before anything is read: the text index resolves the query to product ids, and
+     * with a location only shops within {@code search.geo.max-radius-km} are read, nearest first. At most
+     * {@code search.rank.max-scan} rows are read (see {@link #scanNearby} and {@link #scanByName}).
+     * {@code totalElements} counts the rows in the snapshot, i.e. the pages that can be requested; when the text
+     * index, the scan cap or {@code max-results} left matching rows out, the page is flagged {@code truncated}.
+     * <p>
+     * Distances are scored from the centre of the caller's cache cell, so the snapshot does not depend on which
+     * user in the cell filled it. The snapshot is cached against the listing versions of every shop that supplied
+     * a candidate, since a price or stock change anywhere can move a row into the top. Reservations do not drop
+     * it; it is rebuilt after {@code search.rank.snapshot-ttl-seconds} instead, which bounds how stale the
+     * reserved stock it shows and ranks by can be.
+     */
+    private PagedResponse<SearchOpportunityResponse> rankedPage(String query, Double lat, Double lng,
+                                                                FulfillmentPreference preference, Long shopId,
+                                                                int page, int size) {
+        if (page < 0 || size <= 0) {
+            throw new BadRequestException("page must not be negative and size must be positive");
+        }
 
-        List<SearchOpportunityResponse> opportunities = inventoryPage.getContent().stream()
-                .map(inventory -> mapToOpportunity(inventory, userLocation, preference))
-                .filter(Objects::nonNull) // Filter out null (fulfillment mismatch)
-                .sorted(Comparator
-                        .comparing(SearchOpportunityResponse::getFulfillmentMode)
-                        .thenComparing(
-                                SearchOpportunityResponse::getDistanceInKm,
-                                Comparator.nullsLast(Double::compareTo)))
+        String key = String.join("|", "ranked", normalizeQuery(query), locationCell(lat, lng), preference.name(),
+                String.valueOf(shopId));
+        RankedSnapshot snapshot = searchResultCache.getIgnoringReservations(key, RankedSnapshot::candidateShopIds,
+                Duration.ofSeconds(rankSnapshotTtlSeconds),
+                () -> rankAll(query, cellCenter(lat, lng), preference, shopId));
+
+        Optional<Location> userLocation = lat != null && lng != null
+                ? Optional.of(new Location(lat, lng))
+                : Optional.empty();
+        List<OpportunityRow> rows = snapshot.rows();
+        long from = Math.min((long) page * size, rows.size());
+        int to = (int) Math.min(from + size, rows.size());
+        List<SearchOpportunityResponse> content = rows.subList((int) from, to).stream()
+                .map(row -> mapToOpportunity(row, userLocation, preference))
                 .toList();
 
-        return PagedResponse.<SearchOpportunityResponse>builder().content(opportunities).totalElements(inventoryPage.getTotalElements()).page(page).totalPages(inventoryPage.getTotalPages()).size(size)
-                .first(inventoryPage.isFirst()).last(inventoryPage.isLast()).build();
+        int totalPages = (int) Math.ceil((double) rows.size() / size);
+        return PagedResponse.<SearchOpportunityResponse>builder().content(content).totalElements((long) rows.size())
+                .page(page).totalPages(totalPages).size(size).first(page == 0).last(page >= totalPages - 1)
+                .truncated(snapshot.truncated()).build();
     }
 
-    private SearchOpportunityResponse mapToOpportunity(ShopInventory inventory,
-                                                       Optional<Location> userLocation,
-                                                       FulfillmentPreference preference) {
-        Shop shop = inventory.getShop();
-        Product product = inventory.getProduct();
+    private RankedSnapshot rankAll(String query, Location origin, FulfillmentPreference preference, Long shopId) {
+        ProductMatch match = catalogTextIndex.productMatch(query);
+        if (match.isEmpty()) {
+            return RankedSnapshot.EMPTY;
+        }
 
-        // Determine fulfillment mode
-        FulfillmentMode fulfillmentMode = "NO_DELIVERY".equals(shop.getDeliveryOption())
-                ? FulfillmentMode.PICKUP
-                : FulfillmentMode.DELIVERY;
+        PageProbe probe = PageProbe.start();
+        SearchRanker.TopK topK = searchRanker.topK(maxRankedResults, origin);
+        Set<Long> candidateShops = new HashSet<>();
+        Consumer<OpportunityRow> offer = row -> {
+            if (preference.allows(row.fulfillmentMode())) {
+                candidateShops.add(row.shopId());
+                topK.offer(row);
+            }
+        };
+        boolean scanCapped = origin != null && shopId == null
+                ? scanNearby(match, origin, preference, offer)
+                : scanByName(match, shopId, offer);
+        probe.finish(topK.offered());
 
-        // Filter by preference
-        if (!preference.allows(fulfillmentMode)) {
+        boolean truncated = match.truncated() || scanCapped || topK.offered() > maxRankedResults;
+        return new RankedSnapshot(topK.ranked(), List.copyOf(candidateShops), truncated);
+    }
+
+    /**
+     * Reads the matching rows of the shops in range, nearest shops first. Per-shop match counts are read before
+     * the rows, so shops whose rows would go past {@code search.rank.max-scan} are not loaded at all; the
+     * nearest shop with matches is always read whole.
+     *
+     * @return true if the cap left matching rows unread
+     */
+    private boolean scanNearby(ProductMatch match, Location origin, FulfillmentPreference preference,
+                               Consumer<OpportunityRow> offer) {
+        List<ShopDistance> shops = shopGeoIndex.nearest(origin, maxRadiusKm, Integer.MAX_VALUE,
+                point -> preference.allows(point.fulfillmentMode()));
+
+        long scanned = 0;
+        for (int from = 0; from < shops.size(); from += SHOP_ID_CHUNK) {
+            List<ShopDistance> chunk = shops.subList(from, Math.min(from + SHOP_ID_CHUNK, shops.size()));
+            Map<Long, Long> matchesByShop = countMatchesByShop(match, chunk);
+
+            List<Long> shopIds = new ArrayList<>();
+            boolean capped = false;
+            for (ShopDistance shop : chunk) {
+                long matches = matchesByShop.getOrDefault(shop.shopId(), 0L);
+                if (matches == 0) {
+                    continue;
+                }
+                if (scanned > 0 && scanned + matches > maxRankScan) {
+                    capped = true;
+                    break;
+                }
+                shopIds.add(shop.shopId());
+                scanned += matches;
+            }
+            if (!shopIds.isEmpty()) {
+                shopInventoryRepository.findOpportunitiesInShops(match.any(), match.queryIds(), shopIds)
+                        .forEach(offer);
+            }
+            if (capped) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads matching rows in (product name, inventory id) keyset chunks, stopping after
+     * {@code search.rank.max-scan} rows.
+     *
+     * @return true if the cap left matching rows unread
+     */
+    private boolean scanByName(ProductMatch match, Long shopId, Consumer<OpportunityRow> offer) {
+        String afterName = null;
+        Long afterId = null;
+        long scanned = 0;
+        while (scanned < maxRankScan) {
+            int limit = (int) Math.min(rankScanChunk, maxRankScan - scanned);
+            List<OpportunityRow> chunk = shopInventoryRepository.searchOpportunitiesAfter(match.any(),
+                    match.queryIds(), shopId, afterName, afterId, Limit.of(limit));
+            chunk.forEach(offer);
+            scanned += chunk.size();
+            if (chunk.size() < limit) {
+                return false;
+            }
+            OpportunityRow last = chunk.get(chunk.size() - 1);
+            afterName = last.productName();
+            afterId = last.inventoryId();
+        }
+        return !shopInventoryRepository.searchOpportunitiesAfter(match.any(), match.queryIds(), shopId, afterName,
+                afterId, Limit.of(1)).isEmpty();
+    }
+
+    private Location cellCenter(Double lat, Double lng) {
+        if (lat == null || lng == null) {
             return null;
         }
+        return new Location((Math.floor(lat / cacheCellDegrees) + 0.5) * cacheCellDegrees,
+                (Math.floor(lng / cacheCellDegrees) + 0.5) * cacheCellDegrees);
+    }
 
-        // Calculate distance
-        Double distance = userLocation
-                .map(loc -> DistanceUtil.km(loc, shop.getLatitude(), shop.getLongitude()))
-                .orElse(null);
+    /**
+     * Nearest-first search: shops in range come from the geo index already ordered by distance, the per-shop
+     * match counts locate which shops cover the requested page, and only those shops' rows are loaded.
+     * Rows are ordered by (shop distance, shop id, inventory id), which is stable between pages.
+     */
+    private PagedResponse<SearchOpportunityResponse> searchNearest(ProductMatch match, Location origin,
+                                                                   FulfillmentPreference preference,
+                                                                   double radiusKm, int page, int size) {
+        List<ShopDistance> shops = shopGeoIndex.nearest(origin, radiusKm, Integer.MAX_VALUE,
+                point -> preference.allows(point.fulfillmentMode()));
 
-        // Map to response objects
-        ProductResponse productResponse = mapToProductResponse(product);
-        ShopResponse shopResponse = mapToShopResponse(shop);
-        InventorySearchResponse inventoryResponse = new InventorySearchResponse(
-                inventory.getId(),
-                inventory.getReservedStock(),
-                inventory.getPrice(),
-                inventory.getStock()
-        );
+        Map<Long, Long> matchesByShop = countMatchesByShop(match, shops);
+
+        long total = matchesByShop.values().stream().mapToLong(Long::longValue).sum();
+        long offset = (long) page * size;
+
+        // Walk shops nearest-first until the page window [offset, offset + size) is covered
+        List<ShopDistance> pageShops = new ArrayList<>();
+        long skipInFirstShop = 0;
+        long seen = 0;
+        for (ShopDistance shop : shops) {
+            long matches = matchesByShop.getOrDefault(shop.shopId(), 0L);
+            if (matches == 0) {
+                continue;
+            }
+            if (seen + matches > offset && seen < offset + size) {
+                if (pageShops.isEmpty()) {
+                    skipInFirstShop = offset - seen;
+                }
+                pageShops.add(shop);
+            }
+            seen += matches;
+            if (seen >= offset + size) {
+                break;
+            }
+        }
+
+        List<SearchOpportunityResponse> content = List.of();
+        if (!pageShops.isEmpty()) {
+            Map<Long, List<OpportunityRow>> rowsByShop = shopInventoryRepository
+                    .findOpportunitiesInShops(match.any(), match.queryIds(),
+                            pageShops.stream().map(ShopDistance::shopId).toList())
+                    .stream()
+                    .collect(Collectors.groupingBy(OpportunityRow::shopId));
 
-        SearchOpportunityResponse opportunity = new SearchOpportunityResponse();
-        opportunity.setProduct(productResponse);
-        opportunity.setShop(shopResponse);
-        opportunity.setInventory(inventoryResponse);
-        opportunity.setFulfillmentMode(fulfillmentMode);
-        opportunity.setDistanceInKm(distance);
+            content = pageShops.stream()
+                    .flatMap(shop -> rowsByShop.getOrDefault(shop.shopId(), List.of()).stream()
+                            .map(row -> mapToOpportunity(row, Optional.of(origin), preference)))
+                    .filter(Objects::nonNull)
+                    .skip(skipInFirstShop)
+                    .limit(size)
+                    .toList();
+        }
 
-        return opportunity;
+        int totalPages = (int) Math.ceil((double) total / size);
+        return PagedResponse.<SearchOpportunityResponse>builder().content(content).totalElements(total).page(page)
+                .totalPages(totalPages).size(size).first(page == 0).last(page >= totalPages - 1)
+                .truncated(match.truncated()).build();
     }
 
-    private ProductResponse mapToProductResponse(Product product) {
-        CategoryResponse categoryResponse = product.getCategory() != null
-                ? mapCategoryToCategoryResponse(product.getCategory()) : null;
+    /**
+     * Keyset variant of {@link #searchNearest}. Shops are ordered by (distance bucket, shop id) and rows within
+     * a shop by inventory id; the page starts strictly after the cursor row. Shops are walked in chunks and
+     * only those needed to fill {@code size + 1} rows are loaded, the extra row telling whether a next page exists.
+     */
+    private PagedResponse<SearchOpportunityResponse> searchNearestAfter(ProductMatch match, Location origin,
+                                                                        FulfillmentPreference preference,
+                                                                        double radiusKm, String cursor, int size,
+                                                                        boolean withTotal) {
+        List<ShopDistance> shops = new ArrayList<>(shopGeoIndex.nearest(origin, radiusKm, Integer.MAX_VALUE,
+                point -> preference.allows(point.fulfillmentMode())));
+        shops.sort(Comparator.comparingLong((ShopDistance shop) -> CursorCodec.distanceBucket(shop.distanceKm()))
+                .thenComparing(ShopDistance::shopId));
 
-        return new ProductResponse(
-                product.getId(),
-                product.getName(),
-                product.getDescription(),
-                categoryResponse,
-                product.getImageUrl()
-        );
+        int start = 0;
+        CursorCodec.DistanceKey after = null;
+        if (!cursor.isEmpty()) {
+            after = CursorCodec.decodeDistanceKey(cursor);
+            // Re-measure the cursor shop from this origin; the encoded bucket only matters if the shop is gone
+            ShopPoint point = shopGeoIndex.get(after.shopId());
+            long afterBucket = point != null
+                    ? CursorCodec.distanceBucket(DistanceUtil.km(origin, point.latitude(), point.longitude()))
+                    : after.bucket();
+            after = new CursorCodec.DistanceKey(afterBucket, after.shopId(), after.inventoryId());
+            while (start < shops.size() && isBefore(shops.get(start), after)) {
+                start++;
+            }
+        }
+
+        List<SearchOpportunityResponse> rows = new ArrayList<>();
+        for (int from = start; from < shops.size() && rows.size() <= size; from += SHOP_ID_CHUNK) {
+            List<ShopDistance> chunk = shops.subList(from, Math.min(from + SHOP_ID_CHUNK, shops.size()));
+            Map<Long, Long> matchesByShop = countMatchesByShop(match, chunk);
+
+            List<ShopDistance> pending = new ArrayList<>();
+            long expected = 0;
+            for (ShopDistance shop : chunk) {
+                long matches = matchesByShop.getOrDefault(shop.shopId(), 0L);
+                if (matches == 0) {
+                    continue;
+                }
+                pending.add(shop);
+                expected += matches;
+                if (rows.size() + expected > size) {
+                    appendShopRows(rows, match, pending, origin, preference, after);
+                    pending.clear();
+                    expected = 0;
+                    if (rows.size() > size) {
+                        break;
+                    }
+                }
+            }
+            if (!pending.isEmpty()) {
+                appendShopRows(rows, match, pending, origin, preference, after);
+            }
+        }
+
+        boolean hasMore = rows.size() > size;
+        List<SearchOpportunityResponse> content = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            SearchOpportunityResponse last = content.get(content.size() - 1);
+            nextCursor = CursorCodec.encode(new CursorCodec.DistanceKey(
+                    CursorCodec.distanceBucket(last.getDistanceInKm()), last.getShop().getId(),
+                    last.getInventory().getInventoryId()));
+        }
+
+        Long total = withTotal
+                ? countMatchesByShop(match, shops).values().stream().mapToLong(Long::longValue).sum()
+                : null;
+        PagedResponse<SearchOpportunityResponse> response = PagedResponse.cursorPage(new ArrayList<>(content), size,
+                after == null, nextCursor, total);
+        response.setTruncated(match.truncated());
+        return response;
+    }
+
+    private static boolean isBefore(ShopDistance shop, CursorCodec.DistanceKey after) {
+        long bucket = CursorCodec.distanceBucket(shop.distanceKm());
+        return bucket < after.bucket() || (bucket == after.bucket() && shop.shopId() < after.shopId());
     }
 
-    private ShopResponse mapToShopResponse(Shop shop) {
-        CategoryResponse categoryResponse = shop.getCategory() != null
-                ? mapCategoryToCategoryResponse(shop.getCategory())
+    /**
+     * Loads the matching rows of {@code shops} and appends them in shop order, skipping rows of the cursor
+     * shop that were already returned.
+     */
+    private void appendShopRows(List<SearchOpportunityResponse> rows, ProductMatch match, List<ShopDistance> shops,
+                                Location origin, FulfillmentPreference preference, CursorCodec.DistanceKey after) {
+        Map<Long, List<OpportunityRow>> rowsByShop = shopInventoryRepository
+                .findOpportunitiesInShops(match.any(), match.queryIds(),
+                        shops.stream().map(ShopDistance::shopId).toList())
+                .stream()
+                .collect(Collectors.groupingBy(OpportunityRow::shopId));
+
+        for (ShopDistance shop : shops) {
+            for (OpportunityRow row : rowsByShop.getOrDefault(shop.shopId(), List.of())) {
+                if (after != null && shop.shopId() == after.shopId() && row.inventoryId() <= after.inventoryId()) {
+                    continue;
+                }
+                SearchOpportunityResponse opportunity = mapToOpportunity(row, Optional.of(origin), preference);
+                if (opportunity != null) {
+                    rows.add(opportunity);
+                }
+            }
+        }
+    }
+
+    private Map<Long, Long> countMatchesByShop(ProductMatch match, List<ShopDistance> shops) {
+        Map<Long, Long> matchesByShop = new HashMap<>();
+        for (int from = 0; from < shops.size(); from += SHOP_ID_CHUNK) {
+            List<Long> chunk = shops.subList(from, Math.min(from + SHOP_ID_CHUNK, shops.size())).stream()
+                    .map(ShopDistance::shopId)
+                    .toList();
+            for (ShopMatchCount count : shopInventoryRepository.countOpportunitiesByShop(match.any(),
+                    match.queryIds(), chunk)) {
+                matchesByShop.put(count.shopId(), count.matches());
+            }
+        }
+        return matchesByShop;
+    }
+
+    /**
+     * Keyset variant of the default search: rows ordered by (product name, inventory id). One extra row is
+     * fetched to tell whether a next page exists; the cursor is taken from the last fetched row so rows
+     * dropped by the fulfillment filter are not scanned again.
+     */
+    private PagedResponse<SearchOpportunityResponse> searchByNameAfter(ProductMatch match,
+                                                                       Optional<Location> userLocation,
+                                                                       FulfillmentPreference preference, Long shopId,
+                                                                       String cursor, int size, boolean withTotal) {
+        CursorCodec.NameKey after = cursor.isEmpty() ? null : CursorCodec.decodeNameKey(cursor);
+        List<OpportunityRow> fetched = shopInventoryRepository.searchOpportunitiesAfter(
+                match.any(), match.queryIds(), shopId,
+                after != null ? after.name() : null,
+                after != null ? after.id() : null,
+                Limit.of(size + 1));
+
+        boolean hasMore = fetched.size() > size;
+        List<OpportunityRow> pageRows = hasMore ? fetched.subList(0, size) : fetched;
+        String nextCursor = null;
+        if (hasMore) {
+            OpportunityRow last = pageRows.get(pageRows.size() - 1);
+            nextCursor = CursorCodec.encode(new CursorCodec.NameKey(last.productName(), last.inventoryId()));
+        }
+
+        List<SearchOpportunityResponse> content = pageRows.stream()
+                .map(row -> mapToOpportunity(row, userLocation, preference))
+                .filter(Objects::nonNull)
+                .toList();
+
+        Long total = withTotal ? shopInventoryRepository.countOpportunities(match.any(), match.queryIds(), shopId)
                 : null;
+        PagedResponse<SearchOpportunityResponse> response = PagedResponse.cursorPage(content, size, after == null,
+                nextCursor, total);
+        response.setTruncated(match.truncated());
+        return response;
+    }
+
+    /**
+     * Copies a (possibly cached) page with distances measured from {@code origin}, restoring the order the
+     * search path produced: nearest shop first, or the keyset order of a name-ordered cursor page (kept as is).
+     */
+    private PagedResponse<SearchOpportunityResponse> withDistancesFrom(PagedResponse<SearchOpportunityResponse> result,
+                                                                       Location origin, boolean nearestFirst) {
+        Comparator<SearchOpportunityResponse> order = null;
+        if (nearestFirst) {
+            order = Comparator.comparingLong(
+                            (SearchOpportunityResponse o) -> CursorCodec.distanceBucket(o.getDistanceInKm()))
+                    .thenComparing(o -> o.getShop().getId())
+                    .thenComparing(o -> o.getInventory().getInventoryId());
+        }
+
+        Stream<SearchOpportunityResponse> rows = result.getContent().stream()
+                .map(o -> new SearchOpportunityResponse(o.getProduct(), o.getShop(), o.getInventory(),
+                        o.getFulfillmentMode(),
+                        DistanceUtil.km(origin, o.getShop().getLatitude(), o.getShop().getLongitude())));
+        List<SearchOpportunityResponse> content = (order != null ? rows.sorted(order) : rows).toList();
 
-        return new ShopResponse(
-                shop.getId(),
-                shop.getName(),
-                shop.getAddress(),
-                shop.getPhone(),
-                shop.getOwnerId(),
-                shop.getLatitude(),
-                shop.getLongitude(),
-                shop.getOpenHours(),
-                shop.getDeliveryOption(),
-                categoryResponse,
-                shop.getImageUrl()
+        return new PagedResponse<>(content, result.getPage(), result.getSize(), result.getTotalElements(),
+                result.getTotalPages(), result.isFirst(), result.isLast(), result.getNextCursor(),
+                result.isTruncated());
+    }
+
+    private static Collection<Long> shopIdsOf(PagedResponse<SearchOpportunityResponse> result) {
+        return result.getContent().stream().map(o -> o.getShop().getId()).toList();
+    }
+
+    /**
+     * Cache key form of a query: the distinct tokens the text index matches on, so "Milk  amul" and
+     * "amul milk" share an entry. A blank query (match everything) is kept apart from a query without tokens.
+     */
+    private static String normalizeQuery(String query) {
+        if (query == null || query.isBlank()) {
+            return "*";
+        }
+        return String.join(" ", new TreeSet<>(TextIndex.tokenize(query)));
+    }
+
+    private String locationCell(Double lat, Double lng) {
+        if (lat == null || lng == null) {
+            return "-";
+        }
+        return (long) Math.floor(lat / cacheCellDegrees) + ":" + (long) Math.floor(lng / cacheCellDegrees);
+    }
+
+    private PagedResponse<SearchOpportunityResponse> emptyPage(int page, int size) {
+        return PagedResponse.<SearchOpportunityResponse>builder().content(List.of()).totalElements(0L).page(page)
+                .totalPages(0).size(size).first(page == 0).last(true).build();
+    }
+
+    private double resolveRadius(Double radiusKm) {
+        if (radiusKm == null || radiusKm <= 0) {
+            return defaultRadiusKm;
+        }
+        return Math.min(radiusKm, maxRadiusKm);
+    }
+
+    private SearchOpportunityResponse mapToOpportunity(OpportunityRow row,
+                                                       Optional<Location> userLocation,
+                                                       FulfillmentPreference preference) {
+        // Filter by preference
+        FulfillmentMode fulfillmentMode = row.fulfillmentMode();
+        if (!preference.allows(fulfillmentMode)) {
+            return null;
+        }
+
+        // Calculate distance
+        Double distance = userLocation
+                .map(loc -> DistanceUtil.km(loc, row.shopLatitude(), row.shopLongitude()))
+                .orElse(null);
+
+        ProductResponse productResponse = new ProductResponse(
+                row.productId(),
+                row.productName(),
+                row.productDescription(),
+                categoryResponse(row.productCategoryId(), row.productCategoryName(),
+                        row.productCategoryDescription(), row.productCategoryImageUrl(), row.productCategoryType()),
+                row.productImageUrl()
+        );
+        ShopResponse shopResponse = new ShopResponse(
+                row.shopId(),
+                row.shopName(),
+                row.shopAddress(),
+                row.shopPhone(),
+                row.shopOwnerId(),
+                row.shopLatitude(),
+                row.shopLongitude(),
+                row.shopOpenHours(),
+                row.shopDeliveryOption(),
+                categoryResponse(row.shopCategoryId(), row.shopCategoryName(), row.shopCategoryDescription(),
+                        row.shopCategoryImageUrl(), row.shopCategoryType()),
+                row.shopImageUrl()
+        );
+        InventorySearchResponse inventoryResponse = new InventorySearchResponse(
+                row.inventoryId(),
+                row.reservedStock(),
+                row.price(),
+                row.stock()
         );
+
+        return new SearchOpportunityResponse(productResponse, shopResponse, inventoryResponse, fulfillmentMode,
+                distance);
     }
 
-    private CategoryResponse mapCategoryToCategoryResponse(Category category) {
-        CategoryResponse categoryResponse = new CategoryResponse();
-        categoryResponse.setId(category.getId());
-        categoryResponse.setName(category.getName());
-        categoryResponse.setDescription(category.getDescription());
-        categoryResponse.setImageUrl(category.getImageUrl());
-        categoryResponse.setType(category.getType());
-        return categoryResponse;
+    private static CategoryResponse categoryResponse(Long id, String name, String description, String imageUrl,
+                                                     CategoryType type) {
+        return id != null ? new CategoryResponse(id, name, description, imageUrl, type) : null;
     }
 
     public PagedResponse<SearchOpportunityResponse> buildPagedResponseFromOpportunities(
@@ -154,7 +634,7 @@ public class SearchService {
         response.setContent(pageContent);
         response.setPage(page);
         response.setSize(size);
-        response.setTotalElements(opportunities.size());
+        response.setTotalElements((long) opportunities.size());
 
         int totalPages = (int) Math.ceil((double) opportunities.size() / size);
         response.setTotalPages(totalPages);
@@ -165,23 +645,95 @@ public class SearchService {
         return response;
     }
 
+    /**
+     * Typeahead completions for products, shops and categories, served from memory without a database call.
+     */
+    public List<SuggestionResponse> suggest(String query, int limit) {
+        return catalogSuggestions.suggest(query, limit).stream()
+                .map(s -> new SuggestionResponse(s.type(), s.id(), s.text()))
+                .toList();
+    }
+
+    /**
+     * Runs the shop and product legs concurrently, so latency is that of the slower leg. A leg that fails or
+     * does not finish within {@code search.global.leg-timeout-ms} is returned empty and the response is
+     * flagged {@code partial}.
+     */
     public GlobalSearchResponse globalSearch(String query, Double lat, Double lng, int shopLimit, int productLimit) {
-        // Search shops
-        List<ShopResponse> allShops = shopService.searchShops(query);
-        List<ShopResponse> shops = allShops;
-        if (shopLimit > 0 && shops.size() > shopLimit) {
-            shops = shops.subList(0, shopLimit);
-        }
+        Future<PagedResponse<ShopResponse>> shopLeg = searchExecutor.submit(() -> searchResultCache.get(
+                "shops|" + normalizeQuery(query) + "|" + shopLimit, shops -> List.of(),
+                () -> shopService.searchShops(query, shopLimit)));
+        Future<PagedResponse<SearchOpportunityResponse>> productLeg = searchExecutor.submit(
+                () -> searchProducts(query, lat, lng, "BOTH", 0, productLimit, null));
 
-        // Search products (using existing method)
-        PagedResponse<SearchOpportunityResponse> productResults = searchProducts(query, lat, lng, "BOTH", 0, productLimit, null);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(legTimeoutMs);
+        PagedResponse<ShopResponse> shopResults = awaitLeg(shopLeg, deadline, "shops");
+        PagedResponse<SearchOpportunityResponse> productResults = awaitLeg(productLeg, deadline, "products");
 
-        // Build response
         return GlobalSearchResponse.builder()
-                .shops(shops)
-                .products(productResults.getContent())
-                .totalShops((long) allShops.size())
-                .totalProducts(productResults.getTotalElements())
+                .shops(shopResults != null ? shopResults.getContent() : List.of())
+                .products(productResults != null ? productResults.getContent() : List.of())
+                .totalShops(shopResults != null ? shopResults.getTotalElements() : 0L)
+                .totalProducts(productResults != null ? productResults.getTotalElements() : 0L)
+                .partial(shopResults == null || productResults == null)
                 .build();
     }
+
+    /**
+     * @return the leg's result, or {@code null} if it failed or missed the shared deadline
+     */
+    private <T> T awaitLeg(Future<T> leg, long deadlineNanos, String name) {
+        try {
+            return leg.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Global search {} leg timed out after {} ms", name, legTimeoutMs);
+            leg.cancel(true);
+        } catch (ExecutionException e) {
+            log.error("Global search {} leg failed: {}", name, e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            leg.cancel(true);
+        }
+        return null;
+    }
+
+    /**
+     * Rows of a ranked search, best first, and the shops whose rows competed for them. {@code truncated} is set
+     * when not every matching row could compete.
+     */
+    private record RankedSnapshot(List<OpportunityRow> rows, List<Long> candidateShopIds, boolean truncated) {
+        private static final RankedSnapshot EMPTY = new RankedSnapshot(List.of(), List.of(), false);
+    }
+
+    /**
+     * Debug-level latency and allocation of one ranked search scan (queries + scoring), used to compare
+     * query shapes against a real database. Costs nothing unless DEBUG is enabled for this class.
+     */
+    private record PageProbe(long startNanos, long startBytes) {
+        private static final PageProbe DISABLED = new PageProbe(0, -1);
+
+        static PageProbe start() {
+            if (!log.isDebugEnabled()) {
+                return DISABLED;
+            }
+            return new PageProbe(System.nanoTime(), allocatedBytes());
+        }
+
+        void finish(long rows) {
+            if (this == DISABLED) {
+                return;
+            }
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+            long bytes = startBytes >= 0 ? allocatedBytes() - startBytes : -1;
+            log.debug("Search scan: {} rows in {} us, {} bytes allocated", rows, micros, bytes);
+        }
+
+        private static long allocatedBytes() {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                    && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getCurrentThreadAllocatedBytes();
+            }
+            return -1;
+        }
+    }
 }
@@ -1,14 +1,24 @@
 package com.finditnow.shopservice.service;
 
+import com.finditnow.shopservice.cache.ShopOwnershipIndex;
 import com.finditnow.shopservice.dto.*;
 import com.finditnow.shopservice.entity.Product;
 import com.finditnow.shopservice.entity.Shop;
 import com.finditnow.shopservice.entity.ShopInventory;
+import com.finditnow.shopservice.events.CatalogOutbox;
+import com.finditnow.shopservice.exception.BadRequestException;
 import com.finditnow.shopservice.exception.NotFoundException;
+import com.finditnow.shopservice.inventory.HotInventory;
+import com.finditnow.shopservice.inventory.HotInventoryFlusher;
+import com.finditnow.shopservice.inventory.HotResult;
+import com.finditnow.shopservice.inventory.StockCounts;
 import com.finditnow.shopservice.mapper.ShopInventoryMapper;
 import com.finditnow.shopservice.repository.ProductRepository;
 import com.finditnow.shopservice.repository.ShopInventoryRepository;
 import com.finditnow.shopservice.repository.ShopRepository;
+import com.finditnow.shopservice.search.CatalogSuggestions;
+import com.finditnow.shopservice.search.SearchVersions;
+import com.finditnow.shopservice.utils.AfterCommit;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,6 +35,13 @@ public class ShopInventoryService {
     private final ShopRepository shopRepository;
     private final ProductRepository productRepository;
     private final ProductService productService;
+    private final SearchVersions searchVersions;
+    private final CatalogSuggestions catalogSuggestions;
+    private final StockReservationService stockReservationService;
+    private final HotInventory hotInventory;
+    private final HotInventoryFlusher hotInventoryFlusher;
+    private final CatalogOutbox catalogOutbox;
+    private final ShopOwnershipIndex shopOwnershipIndex;
 
     public List<InventoryResponse> getInventory(long shopId) {
         return inventoryMapper.toDtoList(shopInventoryRepository.findByShopId(shopId));
@@ -66,12 +83,15 @@ public class ShopInventoryService {
         inventory.setReservedStock(reserved);
 
         ShopInventory saved = shopInventoryRepository.save(inventory);
+        AfterCommit.run(() -> catalogSuggestions.listingChanged(product.getId(), shop.getId(), 1));
+        searchVersions.catalogChanged();
+        catalogOutbox.listingsChanged(shop.getId(), List.of(product.getId()));
         return inventoryMapper.toDto(saved);
     }
 
     public InventoryResponse findById(long id) {
-        return inventoryMapper.toDto(shopInventoryRepository.findById(id)
-                .orElseThrow(() -> new NoSuchElementException("No inventory by id->" + id)));
+        return hotInventory.overlay(inventoryMapper.toDto(shopInventoryRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("No inventory by id->" + id))));
     }
 
     public List<InventoryResponse> findAllByShopId(long shopId) {
@@ -97,23 +117,21 @@ public class ShopInventoryService {
                 .orElseThrow(() -> new NotFoundException("Inventory not found with id: " + inventoryId));
     }
 
-    private void requireOwnerOrAdmin(Shop shop, UUID userId, boolean isAdmin) {
+    private void requireOwnerOrAdmin(Long shopId, UUID userId, boolean isAdmin) {
         if (isAdmin) return;
-        if (shop.getOwnerId() == null || !shop.getOwnerId().equals(userId)) {
+        if (!shopOwnershipIndex.isOwner(shopId, userId)) {
             throw new IllegalStateException("Not allowed to modify inventory for this shop");
         }
     }
 
     @Transactional
     public InventoryResponse addInventory(Long shopId, AddInventoryRequest request, UUID userId, boolean isAdmin) {
+        requireOwnerOrAdmin(shopId, userId, isAdmin);
         Shop shop = requireShop(shopId);
-        requireOwnerOrAdmin(shop, userId, isAdmin);
 
         Product product = requireProduct(request.getProductId());
 
-        boolean exists = shopInventoryRepository.findByShopId(shopId).stream()
-                .anyMatch(inv -> inv.getProduct() != null && inv.getProduct().getId().equals(product.getId()));
-        if (exists) {
+        if (shopInventoryRepository.existsByShopIdAndProductId(shopId, product.getId())) {
             throw new IllegalStateException("Product already exists in shop inventory");
         }
 
@@ -123,26 +141,41 @@ public class ShopInventoryService {
     @Transactional
     public InventoryResponse updateInventory(Long inventoryId, UpdateInventoryRequest request, UUID userId, boolean isAdmin) {
         ShopInventory inv = requireInventory(inventoryId);
-        requireOwnerOrAdmin(inv.getShop(), userId, isAdmin);
+        requireOwnerOrAdmin(inv.getShop().getId(), userId, isAdmin);
 
         if (request.getStock() != null) {
-            if (request.getStock() < inv.getReservedStock()) {
-                throw new IllegalStateException("Stock cannot be less than reserved stock");
+            HotResult hot = hotInventory.setStock(inventoryId, request.getStock());
+            if (hot.handled()) {
+                if (!hot.applied()) {
+                    throw new IllegalStateException("Stock cannot be less than reserved stock");
+                }
+            } else {
+                if (request.getStock() < inv.getReservedStock()) {
+                    throw new IllegalStateException("Stock cannot be less than reserved stock");
+                }
+                inv.setStock(request.getStock());
             }
-            inv.setStock(request.getStock());
         }
         if (request.getPrice() != null) {
             inv.setPrice(request.getPrice());
         }
 
-        return inventoryMapper.toDto(shopInventoryRepository.save(inv));
+        searchVersions.shopChanged(inv.getShop().getId());
+        catalogOutbox.listingsChanged(inv.getShop().getId(), List.of(inv.getProduct().getId()));
+        return hotInventory.overlay(inventoryMapper.toDto(shopInventoryRepository.save(inv)));
     }
 
     @Transactional
     public void deleteInventory(Long inventoryId, UUID userId, boolean isAdmin) {
         ShopInventory inv = requireInventory(inventoryId);
-        requireOwnerOrAdmin(inv.getShop(), userId, isAdmin);
+        requireOwnerOrAdmin(inv.getShop().getId(), userId, isAdmin);
+        Long productId = inv.getProduct().getId();
+        Long shopId = inv.getShop().getId();
         shopInventoryRepository.delete(inv);
+        AfterCommit.run(() -> catalogSuggestions.listingChanged(productId, shopId, -1));
+        AfterCommit.run(() -> hotInventory.discard(inventoryId));
+        searchVersions.catalogChanged();
+        catalogOutbox.listingDeleted(shopId, productId);
     }
 
     @Transactional
@@ -151,14 +184,15 @@ public class ShopInventoryService {
             throw new IllegalArgumentException("quantity must be > 0");
         }
 
-        ShopInventory inv = requireInventory(inventoryId);
-        int available = inv.getStock() - inv.getReservedStock();
-        if (quantity > available) {
+        if (!stockReservationService.tryReserve(inventoryId, quantity)) {
+            requireInventory(inventoryId);
             throw new IllegalStateException("Insufficient stock available");
         }
 
-        inv.setReservedStock(inv.getReservedStock() + quantity);
-        return inventoryMapper.toDto(shopInventoryRepository.save(inv));
+        // First load in this transaction, so it reflects the update
+        ShopInventory inv = requireInventory(inventoryId);
+        searchVersions.reservationsChanged(inv.getShop().getId());
+        return hotInventory.overlay(inventoryMapper.toDto(inv));
     }
 
     @Transactional
@@ -167,14 +201,38 @@ public class ShopInventoryService {
             throw new IllegalArgumentException("quantity must be > 0");
         }
 
-        ShopInventory inv = requireInventory(inventoryId);
-        int newReserved = inv.getReservedStock() - quantity;
-        if (newReserved < 0) {
+        if (!stockReservationService.tryRelease(inventoryId, quantity)) {
+            requireInventory(inventoryId);
             throw new IllegalStateException("reservedStock cannot become negative");
         }
 
-        inv.setReservedStock(newReserved);
-        return inventoryMapper.toDto(shopInventoryRepository.save(inv));
+        ShopInventory inv = requireInventory(inventoryId);
+        searchVersions.reservationsChanged(inv.getShop().getId());
+        return hotInventory.overlay(inventoryMapper.toDto(inv));
+    }
+
+    /**
+     * Moves the stock counters of a row into Redis ({@link HotInventory}), e.g. ahead of a flash sale.
+     */
+    @Transactional(readOnly = true)
+    public InventoryResponse promoteToHot(Long inventoryId) {
+        if (!hotInventory.isEnabled()) {
+            throw new BadRequestException("Hot inventory mode is disabled");
+        }
+        ShopInventory inv = requireInventory(inventoryId);
+        hotInventory.promote(new StockCounts(inv.getId(), inv.getStock(), inv.getReservedStock()),
+                inv.getShop().getId());
+        return hotInventory.overlay(inventoryMapper.toDto(inv));
+    }
+
+    /**
+     * Writes the Redis counters of a hot row back and serves it from the database again.
+     */
+    public InventoryResponse demoteFromHot(Long inventoryId) {
+        if (hotInventory.isEnabled() && !hotInventoryFlusher.demote(inventoryId)) {
+            throw new IllegalStateException("Inventory " + inventoryId + " is still changing, try again");
+        }
+        return inventoryMapper.toDto(requireInventory(inventoryId));
     }
 
     public List<InventoryResponse> searchByProductNameShopId(String prodName, Long shopId) {
@@ -1,23 +1,38 @@
 package com.finditnow.shopservice.service;
 
+import com.finditnow.shopservice.cache.ShopOwner;
+import com.finditnow.shopservice.cache.ShopOwnershipIndex;
 import com.finditnow.shopservice.dto.CategoryResponse;
 import com.finditnow.shopservice.dto.PagedResponse;
 import com.finditnow.shopservice.dto.ShopRequest;
 import com.finditnow.shopservice.dto.ShopResponse;
 import com.finditnow.shopservice.entity.Category;
 import com.finditnow.shopservice.entity.Shop;
+import com.finditnow.shopservice.events.CatalogOutbox;
 import com.finditnow.shopservice.exception.ForbiddenException;
 import com.finditnow.shopservice.exception.NotFoundException;
 import com.finditnow.shopservice.repository.CategoryRepository;
 import com.finditnow.shopservice.repository.ShopRepository;
+import com.finditnow.shopservice.search.CatalogSuggestions;
+import com.finditnow.shopservice.search.CatalogTextIndex;
+import com.finditnow.shopservice.search.SearchVersions;
+import com.finditnow.shopservice.search.ShopGeoIndex;
+import com.finditnow.shopservice.search.TextMatch;
+import com.finditnow.shopservice.utils.AfterCommit;
+import com.finditnow.shopservice.utils.CursorCodec;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -27,6 +42,12 @@ public class ShopService {
 
     private final ShopRepository shopRepository;
     private final CategoryRepository categoryRepository;
+    private final ShopGeoIndex shopGeoIndex;
+    private final CatalogTextIndex catalogTextIndex;
+    private final CatalogSuggestions catalogSuggestions;
+    private final SearchVersions searchVersions;
+    private final CatalogOutbox catalogOutbox;
+    private final ShopOwnershipIndex shopOwnershipIndex;
 
     @Transactional
     public ShopResponse registerShop(ShopRequest request, UUID ownerId) {
@@ -51,6 +72,14 @@ public class ShopService {
         }
 
         Shop savedShop = shopRepository.save(shop);
+        AfterCommit.run(() -> {
+            shopOwnershipIndex.put(new ShopOwner(savedShop.getId(), savedShop.getOwnerId()));
+            shopGeoIndex.upsert(savedShop);
+            catalogTextIndex.upsertShop(savedShop);
+            catalogSuggestions.upsertShop(savedShop);
+        });
+        searchVersions.catalogChanged();
+        catalogOutbox.shopChanged(savedShop.getId());
         return mapToResponse(savedShop);
     }
 
@@ -151,14 +180,14 @@ public class ShopService {
      */
     @Transactional
     public ShopResponse updateShop(Long shopId, ShopRequest request, UUID ownerId, boolean isAdmin) {
-        Shop shop = shopRepository.findById(shopId)
-                .orElseThrow(() -> new NotFoundException("Shop not found with id: " + shopId));
-
         // Verify that the user owns it OR is an admin
-        if (!isAdmin && !shop.getOwnerId().equals(ownerId)) {
+        if (!isAdmin && !isOwner(shopId, ownerId)) {
             throw new ForbiddenException("You don't have permission to update this shop");
         }
 
+        Shop shop = shopRepository.findById(shopId)
+                .orElseThrow(() -> new NotFoundException("Shop not found with id: " + shopId));
+
         // Update shop fields
         if (request.getName() != null) {
             shop.setName(request.getName());
@@ -191,6 +220,13 @@ public class ShopService {
         }
 
         Shop updatedShop = shopRepository.save(shop);
+        AfterCommit.run(() -> {
+            shopGeoIndex.upsert(updatedShop);
+            catalogTextIndex.upsertShop(updatedShop);
+            catalogSuggestions.upsertShop(updatedShop);
+        });
+        searchVersions.catalogChanged();
+        catalogOutbox.shopChanged(updatedShop.getId());
         return mapToResponse(updatedShop);
     }
 
@@ -203,11 +239,10 @@ public class ShopService {
      * @return true if the user owns the shop, false otherwise
      * @throws NotFoundException if the shop doesn't exist
      */
-    @Transactional(readOnly = true)
     public boolean isOwner(Long shopId, UUID ownerId) {
-        Shop shop = shopRepository.findById(shopId)
+        UUID owner = shopOwnershipIndex.ownerOf(shopId)
                 .orElseThrow(() -> new NotFoundException("Shop not found with id: " + shopId));
-        return shop.getOwnerId().equals(ownerId);
+        return owner.equals(ownerId);
     }
 
     /**
@@ -223,18 +258,26 @@ public class ShopService {
      */
     @Transactional
     public void deleteShop(Long shopId, UUID ownerId, boolean isAdmin) {
-        // Find the shop entity
-        Shop shop = shopRepository.findById(shopId)
-                .orElseThrow(() -> new NotFoundException("Shop not found with id: " + shopId));
-
         // Verify that the user owns it OR is an admin
-        if (!isAdmin && !shop.getOwnerId().equals(ownerId)) {
+        if (!isAdmin && !isOwner(shopId, ownerId)) {
             throw new ForbiddenException("You don't have permission to delete this shop");
         }
 
+        // Find the shop entity
+        Shop shop = shopRepository.findById(shopId)
+                .orElseThrow(() -> new NotFoundException("Shop not found with id: " + shopId));
+
         // Delete the shop (this will cascade delete all associated products due to
         // orphanRemoval = true)
         shopRepository.delete(shop);
+        AfterCommit.run(() -> {
+            shopOwnershipIndex.remove(shopId);
+            shopGeoIndex.remove(shopId);
+            catalogTextIndex.removeShop(shopId);
+            catalogSuggestions.removeShop(shopId);
+        });
+        searchVersions.catalogChanged();
+        catalogOutbox.shopsDeleted(List.of(shopId));
     }
 
     /**
@@ -254,7 +297,16 @@ public class ShopService {
             throw new IllegalArgumentException("Shop IDs list cannot be empty");
         }
 
-        // First, validate all shops exist and user owns them
+        // Check ownership for all shops if not admin, before loading any of them
+        if (!isAdmin) {
+            for (Long shopId : shopIds) {
+                if (!isOwner(shopId, ownerId)) {
+                    throw new ForbiddenException("You don't have permission to delete shop with id: " + shopId);
+                }
+            }
+        }
+
+        // Then validate all shops exist
         List<Shop> shopsToDelete = shopRepository.findAllById(shopIds);
 
         // Check if all shops were found
@@ -262,35 +314,90 @@ public class ShopService {
             throw new NotFoundException("One or more shops not found");
         }
 
-        // Check ownership for all shops if not admin
-        if (!isAdmin) {
-            for (Shop shop : shopsToDelete) {
-                if (!shop.getOwnerId().equals(ownerId)) {
-                    throw new ForbiddenException("You don't have permission to delete shop with id: " + shop.getId());
-                }
-            }
-        }
-
         // If all validations pass, delete all shops
         shopRepository.deleteAll(shopsToDelete);
+        AfterCommit.run(() -> shopsToDelete.forEach(shop -> {
+            shopOwnershipIndex.remove(shop.getId());
+            shopGeoIndex.remove(shop.getId());
+            catalogTextIndex.removeShop(shop.getId());
+            catalogSuggestions.removeShop(shop.getId());
+        }));
+        searchVersions.catalogChanged();
+        catalogOutbox.shopsDeleted(shopsToDelete.stream().map(Shop::getId).toList());
     }
 
     /**
      * Searches shops by name or address.
+     * Matching is done by the in-memory text index; name matches are ranked before address matches.
      * 
      * @param query The search query string
      * @return List of ShopResponse DTOs matching the query
      */
     @Transactional(readOnly = true)
     public List<ShopResponse> searchShops(String query) {
-        List<Shop> shops = shopRepository.searchByNameOrAddress(query);
-        return shops.stream()
+        return searchShops(query, 0).getContent();
+    }
+
+    /**
+     * Searches shops by name or address, loading at most {@code limit} shops.
+     * The total is taken from the index (or a count query for a blank query), so only the
+     * returned shops are fetched from the database.
+     *
+     * @param query The search query string
+     * @param limit Maximum number of shops to return; {@code <= 0} returns every match
+     * @return First page of matching shops with the total number of matches
+     */
+    @Transactional(readOnly = true)
+    public PagedResponse<ShopResponse> searchShops(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            List<Shop> shops;
+            long total;
+            if (limit > 0) {
+                Page<Shop> shopPage = shopRepository.findAll(PageRequest.of(0, limit));
+                shops = shopPage.getContent();
+                total = shopPage.getTotalElements();
+            } else {
+                shops = shopRepository.findAll();
+                total = shops.size();
+            }
+            return firstPage(shops.stream().map(this::mapToResponse).collect(Collectors.toList()), limit, total);
+        }
+
+        TextMatch match = catalogTextIndex.matchShops(query);
+        List<Long> ids = match.ids();
+        if (ids.isEmpty()) {
+            return firstPage(List.of(), limit, 0);
+        }
+        List<Long> pageIds = limit > 0 && ids.size() > limit ? ids.subList(0, limit) : ids;
+
+        PagedResponse<ShopResponse> response = firstPage(inRankOrder(pageIds), limit, ids.size());
+        response.setTruncated(match.truncated());
+        return response;
+    }
+
+    /**
+     * Loads the shops in the order of the ids; findAllById does not keep it
+     */
+    private List<ShopResponse> inRankOrder(List<Long> ids) {
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            rank.put(ids.get(i), i);
+        }
+        return shopRepository.findAllById(ids).stream()
+                .sorted(Comparator.comparing(shop -> rank.get(shop.getId())))
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
     }
 
+    private PagedResponse<ShopResponse> firstPage(List<ShopResponse> content, int limit, long total) {
+        int size = limit > 0 ? limit : content.size();
+        int totalPages = size == 0 ? 0 : (int) Math.ceil((double) total / size);
+        return new PagedResponse<>(content, 0, size, total, totalPages, true, totalPages <= 1);
+    }
+
     /**
      * Filtered shop search with pagination (used by /api/v1/shops/search).
+     * With a name, pages follow the text index ranking; without one, shops are ordered by (name, id).
      * Location params are accepted for future distance-based sorting, but not used
      * yet.
      */
@@ -303,17 +410,45 @@ public class ShopService {
             int page,
             int size) {
 
+        boolean anyShop = name == null || name.isBlank();
+        TextMatch match = anyShop ? TextMatch.NONE : catalogTextIndex.matchShopNames(name);
+        List<Long> shopIds = match.ids();
+        if (!anyShop && shopIds.isEmpty()) {
+            return new PagedResponse<>(List.of(), page, size, 0L, 0, page == 0, true);
+        }
+
         Pageable pageable = PageRequest.of(page, size);
+        String delivery = (deliveryOption == null || deliveryOption.isBlank()) ? null : deliveryOption;
+        if (!anyShop) {
+            // Page over the ranked ids, so every page continues the ranking of the one before
+            Set<Long> offered = delivery == null ? null : shopRepository.findIdsWithDeliveryOption(shopIds, delivery);
+            List<Long> ranked = offered == null ? shopIds : shopIds.stream().filter(offered::contains).toList();
+            int from = (int) Math.min(pageable.getOffset(), ranked.size());
+            int to = Math.min(from + size, ranked.size());
+            int totalPages = (int) Math.ceil((double) ranked.size() / size);
+            PagedResponse<ShopResponse> response = new PagedResponse<>(
+                    inRankOrder(ranked.subList(from, to)),
+                    page,
+                    size,
+                    (long) ranked.size(),
+                    totalPages,
+                    page == 0,
+                    page >= totalPages - 1);
+            response.setTruncated(match.truncated());
+            return response;
+        }
+
         Page<Shop> shopPage = shopRepository.searchShops(
-                (name == null || name.isBlank()) ? null : name,
-                (deliveryOption == null || deliveryOption.isBlank()) ? null : deliveryOption,
+                true,
+                List.of(-1L),
+                delivery,
                 pageable);
 
         List<ShopResponse> content = shopPage.getContent().stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
 
-        return new PagedResponse<>(
+        PagedResponse<ShopResponse> response = new PagedResponse<>(
                 content,
                 shopPage.getNumber(),
                 shopPage.getSize(),
@@ -321,6 +456,57 @@ public class ShopService {
                 shopPage.getTotalPages(),
                 shopPage.isFirst(),
                 shopPage.isLast());
+        response.setTruncated(match.truncated());
+        return response;
+    }
+
+    /**
+     * Keyset variant of the filtered shop search: shops ordered by (name, id).
+     *
+     * @param cursor    {@code nextCursor} of the previous page, or empty for the first page
+     * @param withTotal Whether to run a count query for totalElements
+     */
+    @Transactional(readOnly = true)
+    public PagedResponse<ShopResponse> searchShops(
+            String name,
+            String deliveryOption,
+            String cursor,
+            int size,
+            boolean withTotal) {
+
+        CursorCodec.NameKey after = cursor.isEmpty() ? null : CursorCodec.decodeNameKey(cursor);
+        boolean anyShop = name == null || name.isBlank();
+        TextMatch match = anyShop ? TextMatch.NONE : catalogTextIndex.matchShopNames(name);
+        List<Long> shopIds = match.ids();
+        if (!anyShop && shopIds.isEmpty()) {
+            return PagedResponse.cursorPage(List.of(), size, after == null, null, withTotal ? 0L : null);
+        }
+        List<Long> queryIds = anyShop ? List.of(-1L) : shopIds;
+        String delivery = (deliveryOption == null || deliveryOption.isBlank()) ? null : deliveryOption;
+
+        List<Shop> shops = shopRepository.searchShopsAfter(
+                anyShop,
+                queryIds,
+                delivery,
+                after != null ? after.name() : null,
+                after != null ? after.id() : null,
+                Limit.of(size + 1));
+
+        boolean hasMore = shops.size() > size;
+        List<Shop> pageShops = hasMore ? shops.subList(0, size) : shops;
+        String nextCursor = null;
+        if (hasMore) {
+            Shop last = pageShops.get(pageShops.size() - 1);
+            nextCursor = CursorCodec.encode(new CursorCodec.NameKey(last.getName(), last.getId()));
+        }
+
+        List<ShopResponse> content = pageShops.stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+        PagedResponse<ShopResponse> response = PagedResponse.cursorPage(content, size, after == null, nextCursor,
+                withTotal ? shopRepository.countShops(anyShop, queryIds, delivery) : null);
+        response.setTruncated(match.truncated());
+        return response;
     }
 
     /**
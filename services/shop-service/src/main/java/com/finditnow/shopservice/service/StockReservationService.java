@@ -0,0 +1,194 @@
+package com.finditnow.shopservice.service;
+
+import com.finditnow.shopservice.inventory.HotCounts;
+import com.finditnow.shopservice.inventory.HotInventory;
+import com.finditnow.shopservice.inventory.HotResult;
+import com.finditnow.shopservice.inventory.ReservedUnits;
+import com.finditnow.shopservice.inventory.StockCounts;
+import com.finditnow.shopservice.repository.ShopInventoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Moves inventory units in and out of reservation with single conditional UPDATEs instead of
+ * read-check-save, so parallel carts cannot oversell a row and no lock is held past the statement.
+ * Rows promoted to {@link HotInventory} are served from Redis instead and written back later.
+ * Entities already loaded in the caller's persistence context are not refreshed.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockReservationService {
+    private final ShopInventoryRepository shopInventoryRepository;
+    private final HotInventory hotInventory;
+
+    /**
+     * @return false when fewer than {@code quantity} units are available or the inventory does not exist
+     */
+    @Transactional
+    public boolean tryReserve(Long inventoryId, int quantity) {
+        if (quantity <= 0) {
+            return true;
+        }
+        HotResult hot = hotInventory.reserve(inventoryId, quantity);
+        if (hot.handled()) {
+            return hot.applied();
+        }
+        return shopInventoryRepository.reserve(inventoryId, quantity) == 1;
+    }
+
+    /**
+     * @return false when fewer than {@code quantity} units are reserved or the inventory does not exist
+     */
+    @Transactional
+    public boolean tryRelease(Long inventoryId, int quantity) {
+        if (quantity <= 0) {
+            return true;
+        }
+        HotResult hot = hotInventory.release(inventoryId, quantity, true);
+        if (hot.handled()) {
+            return hot.applied();
+        }
+        return shopInventoryRepository.release(inventoryId, quantity) == 1;
+    }
+
+    /**
+     * Releases up to {@code quantity} units; reserved stock never goes below zero.
+     */
+    @Transactional
+    public void releaseUpTo(Long inventoryId, int quantity) {
+        if (quantity > 0 && !hotInventory.release(inventoryId, quantity, false).handled()) {
+            shopInventoryRepository.releaseUpTo(inventoryId, quantity);
+        }
+    }
+
+    /**
+     * Reserves the units of many rows, all or nothing. Rows that are not hot are written with one statement.
+     *
+     * @return ids of the rows with too little stock; when not empty, nothing stays reserved
+     */
+    @Transactional
+    public List<Long> tryReserveAll(List<ReservedUnits> rows) {
+        List<ReservedUnits> reserved = new ArrayList<>();
+        List<ReservedUnits> cold = new ArrayList<>();
+        List<Long> rejected = new ArrayList<>();
+        for (ReservedUnits row : rows) {
+            if (row.units() <= 0) {
+                continue;
+            }
+            HotResult hot = hotInventory.reserve(row.inventoryId(), (int) row.units());
+            if (!hot.handled()) {
+                cold.add(row);
+            } else if (hot.applied()) {
+                reserved.add(row);
+            } else {
+                rejected.add(row.inventoryId());
+            }
+        }
+
+        if (rejected.isEmpty() && !cold.isEmpty()) {
+            Set<Long> written = new HashSet<>(shopInventoryRepository.reserveAll(
+                    cold.stream().map(ReservedUnits::inventoryId).toArray(Long[]::new),
+                    cold.stream().map(row -> (int) row.units()).toArray(Integer[]::new)));
+            for (ReservedUnits row : cold) {
+                if (written.contains(row.inventoryId())) {
+                    reserved.add(row);
+                } else {
+                    rejected.add(row.inventoryId());
+                }
+            }
+        }
+
+        if (!rejected.isEmpty()) {
+            releaseAllUpTo(reserved);
+        }
+        return rejected;
+    }
+
+    /**
+     * Releases the units of many rows, each stopping at zero reserved. Rows that are not hot are written
+     * with one statement.
+     */
+    @Transactional
+    public void releaseAllUpTo(List<ReservedUnits> rows) {
+        List<ReservedUnits> cold = new ArrayList<>(rows.size());
+        for (ReservedUnits row : rows) {
+            if (row.units() > 0 && !hotInventory.release(row.inventoryId(), (int) row.units(), false).handled()) {
+                cold.add(row);
+            }
+        }
+        if (!cold.isEmpty()) {
+            shopInventoryRepository.releaseAllUpTo(
+                    cold.stream().map(ReservedUnits::inventoryId).toArray(Long[]::new),
+                    cold.stream().map(row -> (int) row.units()).toArray(Integer[]::new));
+        }
+    }
+
+    /**
+     * Turns reserved units of a hot row into sold ones; the change is undone if the transaction rolls back.
+     *
+     * @return false if the row is not hot and must be updated in the database
+     * @throws IllegalStateException if the row has less stock than {@code quantity}
+     */
+    private boolean consumeIfHot(Long inventoryId, int quantity) {
+        HotResult hot = hotInventory.consume(inventoryId, quantity);
+        if (hot.handled() && !hot.applied()) {
+            throw new IllegalStateException("Stock underflow for inventory " + inventoryId);
+        }
+        return hot.handled();
+    }
+
+    /**
+     * Turns reserved units of many rows into sold ones. Rows that are not hot are written with one statement.
+     * Hot rows are consumed in Redis first, since only Redis can tell which rows are hot; should the statement
+     * then underflow, the rollback it causes gives those units back ({@link HotInventory} undoes its changes
+     * when their transaction rolls back), so no separate compensation is made here.
+     *
+     * @throws IllegalStateException if any row has less stock than its units; nothing stays consumed then
+     */
+    @Transactional
+    public void consumeAll(List<ReservedUnits> rows) {
+        List<ReservedUnits> cold = new ArrayList<>(rows.size());
+        for (ReservedUnits row : rows) {
+            if (!consumeIfHot(row.inventoryId(), (int) row.units())) {
+                cold.add(row);
+            }
+        }
+        if (cold.isEmpty()) {
+            return;
+        }
+
+        List<Long> consumed = shopInventoryRepository.consumeAll(
+                cold.stream().map(ReservedUnits::inventoryId).toArray(Long[]::new),
+                cold.stream().map(row -> (int) row.units()).toArray(Integer[]::new));
+        if (consumed.size() != cold.size()) {
+            Set<Long> written = new HashSet<>(consumed);
+            List<Long> underflowed = cold.stream().map(ReservedUnits::inventoryId)
+                    .filter(id -> !written.contains(id))
+                    .toList();
+            throw new IllegalStateException("Stock underflow for inventory " + underflowed);
+        }
+    }
+
+    /**
+     * Writes hot counters back in one statement, each row conditioned on its last known database values.
+     *
+     * @return database counters of the rows after the write, for the caller to tell written rows from conflicts
+     */
+    @Transactional
+    public List<StockCounts> writeHotCounts(List<HotCounts> rows) {
+        shopInventoryRepository.writeCountsIfUnchanged(
+                rows.stream().map(HotCounts::inventoryId).toArray(Long[]::new),
+                rows.stream().map(HotCounts::stock).toArray(Integer[]::new),
+                rows.stream().map(HotCounts::reservedStock).toArray(Integer[]::new),
+                rows.stream().map(HotCounts::dbStock).toArray(Integer[]::new),
+                rows.stream().map(HotCounts::dbReservedStock).toArray(Integer[]::new));
+        // Written rows stay locked until commit, so this read cannot interleave with another writer for them
+        return shopInventoryRepository.findStockCounts(rows.stream().map(HotCounts::inventoryId).toList());
+    }
+}
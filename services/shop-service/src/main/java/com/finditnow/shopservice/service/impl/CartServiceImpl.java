@@ -1,27 +1,38 @@
 package com.finditnow.shopservice.service.impl;
 
+import com.finditnow.common.DeliveryPricing;
 import com.finditnow.interservice.InterServiceClient;
 import com.finditnow.interservice.JsonUtil;
+import com.finditnow.shopservice.cart.CartCache;
 import com.finditnow.shopservice.dto.*;
 import com.finditnow.shopservice.entity.*;
 import com.finditnow.shopservice.exception.BadRequestException;
 import com.finditnow.shopservice.exception.CartItemNotFoundException;
 import com.finditnow.shopservice.exception.CartNotFoundException;
 import com.finditnow.shopservice.exception.NotFoundException;
+import com.finditnow.shopservice.inventory.ReservedUnits;
 import com.finditnow.shopservice.mapper.CartMapper;
 import com.finditnow.shopservice.repository.CartItemRepository;
 import com.finditnow.shopservice.repository.CartRepository;
 import com.finditnow.shopservice.repository.ShopInventoryRepository;
 import com.finditnow.shopservice.repository.ShopRepository;
+import com.finditnow.shopservice.search.SearchVersions;
+import com.finditnow.shopservice.service.CartExpiryService;
 import com.finditnow.shopservice.service.CartService;
+import com.finditnow.shopservice.service.StockReservationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Map;
-import java.util.NoSuchElementException;
-import java.util.UUID;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -34,6 +45,12 @@ public class CartServiceImpl implements CartService {
     private final ShopInventoryRepository shopInventoryRepository;
     private final ShopRepository shopRepository;
     private final CartMapper cartMapper;
+    private final SearchVersions searchVersions;
+    private final StockReservationService stockReservationService;
+    private final CartExpiryService cartExpiryService;
+    private final CartCache cartCache;
+    // Blocking calls to other services, overlapped with local work
+    private final ExecutorService interServiceExecutor;
 
     @Override
     @Transactional(readOnly = true)
@@ -46,7 +63,9 @@ public class CartServiceImpl implements CartService {
                             .shopId(shopId)
                             .status(CartStatus.ACTIVE)
                             .build();
-                    return cartRepository.save(newCart);
+                    Cart saved = cartRepository.save(newCart);
+                    cartChanged(saved);
+                    return saved;
                 });
 
         return cartMapper.toCartResponse(cart);
@@ -54,8 +73,10 @@ public class CartServiceImpl implements CartService {
 
     @Override
     public CartResponse addItemToCart(UUID userId, Long shopId, AddToCartRequest request) {
+        // A cart that expired since it was read is left behind for a new one
         Cart cart = cartRepository
                 .findByUserIdAndShopIdAndStatus(userId, shopId, CartStatus.ACTIVE)
+                .filter(active -> lockIfActive(active.getId()))
                 .orElseGet(() -> {
                     Cart newCart = Cart.builder()
                             .userId(userId)
@@ -81,21 +102,21 @@ public class CartServiceImpl implements CartService {
             newQuantity += existingItem.getQuantity();
         }
 
-        validateStockAvailability(inventory, newQuantity, existingItem != null ? existingItem.getQuantity() : 0);
-
-        // Update reserved stock
-        int quantityToAdd = request.getQuantity();
-        inventory.setReservedStock(inventory.getReservedStock() + quantityToAdd);
-        shopInventoryRepository.save(inventory);
+        // Reserve atomically; the loaded inventory is only read, never saved back
+        reserveStock(inventory, request.getQuantity());
+        searchVersions.reservationsChanged(shopId);
+        cartChanged(cart);
 
         if (existingItem != null) {
             existingItem.setQuantity(newQuantity);
+            existingItem.setReservedUntil(cartExpiryService.reservationDeadline());
             cartItemRepository.save(existingItem);
         } else {
             CartItem newItem = CartItem.builder()
                     .cart(cart)
                     .shopInventory(inventory)
                     .quantity(request.getQuantity())
+                    .reservedUntil(cartExpiryService.reservationDeadline())
                     .build();
             cartItemRepository.save(newItem);
             cart.getItems().add(newItem);
@@ -118,19 +139,24 @@ public class CartServiceImpl implements CartService {
         if (!cartItem.getCart().getUserId().equals(userId)) {
             throw new RuntimeException("You don't have permission to modify this cart item");
         }
+        requireActive(cartItem.getCart().getId());
 
         ShopInventory inventory = cartItem.getShopInventory();
         int oldQuantity = cartItem.getQuantity();
         int newQuantity = request.getQuantity();
 
-        validateStockAvailability(inventory, newQuantity, oldQuantity);
-
         // Update reserved stock
         int diff = newQuantity - oldQuantity;
-        inventory.setReservedStock(inventory.getReservedStock() + diff);
-        shopInventoryRepository.save(inventory);
+        if (diff > 0) {
+            reserveStock(inventory, diff);
+        } else {
+            stockReservationService.releaseUpTo(inventory.getId(), -diff);
+        }
+        searchVersions.reservationsChanged(inventory.getShop().getId());
+        cartChanged(cartItem.getCart());
 
         cartItem.setQuantity(newQuantity);
+        cartItem.setReservedUntil(cartExpiryService.reservationDeadline());
         cartItemRepository.save(cartItem);
 
         // Use WITH DETAILS query to fetch all relationships for response
@@ -140,6 +166,122 @@ public class CartServiceImpl implements CartService {
         return cartMapper.toCartResponse(cart);
     }
 
+    @Override
+    public CartResponse applyBatch(UUID userId, CartBatchRequest request) {
+        Long shopId = request.getShopId();
+        Cart cart = cartRepository
+                .findByUserIdAndShopIdAndStatusWithDetails(userId, shopId, CartStatus.ACTIVE)
+                .filter(active -> lockIfActive(active.getId()))
+                .orElseGet(() -> cartRepository.save(Cart.builder()
+                        .userId(userId)
+                        .shopId(shopId)
+                        .status(CartStatus.ACTIVE)
+                        .build()));
+
+        Map<Long, CartItem> itemsByInventory = new HashMap<>();
+        Map<UUID, Long> inventoryByItem = new HashMap<>();
+        for (CartItem item : cart.getItems()) {
+            itemsByInventory.put(item.getShopInventory().getId(), item);
+            inventoryByItem.put(item.getId(), item.getShopInventory().getId());
+        }
+
+        // One fetch for every inventory the batch adds
+        Set<Long> addedIds = request.getOperations().stream()
+                .filter(op -> op.getType() == CartOperation.Type.ADD && op.getInventoryId() != null)
+                .map(CartOperation::getInventoryId)
+                .collect(Collectors.toSet());
+        Map<Long, ShopInventory> inventories = addedIds.isEmpty() ? Map.of()
+                : shopInventoryRepository.findAllWithProductByIdIn(addedIds).stream()
+                .collect(Collectors.toMap(ShopInventory::getId, Function.identity()));
+
+        // Quantity of every touched inventory once all operations are applied
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        itemsByInventory.forEach((inventoryId, item) -> quantities.put(inventoryId, item.getQuantity()));
+        for (CartOperation op : request.getOperations()) {
+            switch (op.getType()) {
+                case ADD -> {
+                    if (op.getInventoryId() == null || op.getQuantity() == null) {
+                        throw new BadRequestException("ADD needs an inventoryId and a quantity");
+                    }
+                    ShopInventory inventory = inventories.get(op.getInventoryId());
+                    if (inventory == null) {
+                        throw new NotFoundException("Inventory not found with id: " + op.getInventoryId());
+                    }
+                    if (!inventory.getShop().getId().equals(shopId)) {
+                        throw new BadRequestException("Inventory does not belong to the specified shop");
+                    }
+                    quantities.merge(inventory.getId(), op.getQuantity(), Integer::sum);
+                }
+                case UPDATE -> {
+                    if (op.getQuantity() == null) {
+                        throw new BadRequestException("UPDATE needs an itemId and a quantity");
+                    }
+                    quantities.put(inventoryOf(op, inventoryByItem), op.getQuantity());
+                }
+                case REMOVE -> quantities.put(inventoryOf(op, inventoryByItem), 0);
+            }
+        }
+
+        List<ReservedUnits> toReserve = new ArrayList<>();
+        List<ReservedUnits> toRelease = new ArrayList<>();
+        quantities.forEach((inventoryId, quantity) -> {
+            CartItem item = itemsByInventory.get(inventoryId);
+            int diff = quantity - (item == null ? 0 : item.getQuantity());
+            if (diff > 0) {
+                toReserve.add(new ReservedUnits(inventoryId, shopId, diff));
+            } else if (diff < 0) {
+                toRelease.add(new ReservedUnits(inventoryId, shopId, -diff));
+            }
+        });
+        if (toReserve.isEmpty() && toRelease.isEmpty()) {
+            return cartMapper.toCartResponse(cart);
+        }
+
+        List<Long> rejected = stockReservationService.tryReserveAll(toReserve);
+        if (!rejected.isEmpty()) {
+            throw new BadRequestException("Insufficient stock for inventory " + rejected);
+        }
+        stockReservationService.releaseAllUpTo(toRelease);
+        searchVersions.reservationsChanged(shopId);
+        cartChanged(cart);
+
+        LocalDateTime reservedUntil = cartExpiryService.reservationDeadline();
+        List<CartItem> changed = new ArrayList<>();
+        quantities.forEach((inventoryId, quantity) -> {
+            CartItem item = itemsByInventory.get(inventoryId);
+            if (item == null) {
+                if (quantity > 0) {
+                    CartItem newItem = CartItem.builder()
+                            .cart(cart)
+                            .shopInventory(inventories.get(inventoryId))
+                            .quantity(quantity)
+                            .reservedUntil(reservedUntil)
+                            .build();
+                    cart.getItems().add(newItem);
+                    changed.add(newItem);
+                }
+            } else if (quantity == 0) {
+                cart.getItems().remove(item); // orphan removal deletes it
+            } else if (!quantity.equals(item.getQuantity())) {
+                item.setQuantity(quantity);
+                item.setReservedUntil(reservedUntil);
+                changed.add(item);
+            }
+        });
+        cartItemRepository.saveAll(changed);
+
+        // Everything the response needs is already loaded
+        return cartMapper.toCartResponse(cart);
+    }
+
+    private static Long inventoryOf(CartOperation op, Map<UUID, Long> inventoryByItem) {
+        Long inventoryId = op.getItemId() == null ? null : inventoryByItem.get(op.getItemId());
+        if (inventoryId == null) {
+            throw new CartItemNotFoundException("Cart item not found with id: " + op.getItemId());
+        }
+        return inventoryId;
+    }
+
     @Override
     public void removeCartItem(UUID userId, UUID cartItemId) {
         CartItem cartItem = cartItemRepository.findById(cartItemId)
@@ -150,44 +292,46 @@ public class CartServiceImpl implements CartService {
         if (!cartItem.getCart().getUserId().equals(userId)) {
             throw new RuntimeException("You don't have permission to remove this cart item");
         }
+        requireActive(cartItem.getCart().getId());
 
         ShopInventory inventory = cartItem.getShopInventory();
 
-        // Release reserved stock
-        inventory.setReservedStock(inventory.getReservedStock() - cartItem.getQuantity());
-        // Simple safety check to prevent negative reserved stock if manual DB edits happened
-        if (inventory.getReservedStock() < 0) {
-            inventory.setReservedStock(0);
-        }
-        shopInventoryRepository.save(inventory);
+        // Release reserved stock; never below zero in case of manual DB edits
+        stockReservationService.releaseUpTo(inventory.getId(), cartItem.getQuantity());
+        searchVersions.reservationsChanged(inventory.getShop().getId());
+        cartChanged(cartItem.getCart());
 
         cartItemRepository.delete(cartItem);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true) // cache hits need no connection
     public CartResponse getCartByUserAndShop(UUID userId, Long shopId) {
-        // Use WITH DETAILS query to eagerly fetch all relationships
-        // This prevents LazyInitializationException when CartMapper accesses nested entities
-        Cart cart = cartRepository
-                .findByUserIdAndShopIdAndStatusWithDetails(userId, shopId, CartStatus.ACTIVE)
-                .orElseThrow(() -> new CartNotFoundException(
-                        "Active cart not found for user: " + userId + " and shop: " + shopId));
-
-        return cartMapper.toCartResponse(cart);
+        return cartCache.get(CartCache.byUserAndShop(userId, shopId), () -> {
+            // Use WITH DETAILS query to eagerly fetch all relationships
+            // This prevents LazyInitializationException when CartMapper accesses nested entities
+            Cart cart = cartRepository
+                    .findByUserIdAndShopIdAndStatusWithDetails(userId, shopId, CartStatus.ACTIVE)
+                    .orElseThrow(() -> new CartNotFoundException(
+                            "Active cart not found for user: " + userId + " and shop: " + shopId));
+
+            return cartMapper.toCartResponse(cart);
+        });
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public CartResponse getUserCart(UUID userId) {
-        // Use WITH DETAILS query to eagerly fetch all relationships
-        // This prevents LazyInitializationException when CartMapper accesses nested entities
-        Cart cart = cartRepository
-                .findByUserIdAndStatusWithDetails(userId, CartStatus.ACTIVE)
-                .orElseThrow(() -> new CartNotFoundException(
-                        "Active cart not found for user: " + userId));
-
-        return cartMapper.toCartResponse(cart);
+        return cartCache.get(CartCache.byUser(userId), () -> {
+            // Use WITH DETAILS query to eagerly fetch all relationships
+            // This prevents LazyInitializationException when CartMapper accesses nested entities
+            Cart cart = cartRepository
+                    .findByUserIdAndStatusWithDetails(userId, CartStatus.ACTIVE)
+                    .orElseThrow(() -> new CartNotFoundException(
+                            "Active cart not found for user: " + userId));
+
+            return cartMapper.toCartResponse(cart);
+        });
     }
 
     @Override
@@ -201,6 +345,7 @@ public class CartServiceImpl implements CartService {
         if (!cart.getUserId().equals(userId)) {
             throw new RuntimeException("You don't have permission to clear this cart");
         }
+        requireActive(cartId);
 
         // Release reserved stock for all items
         releaseCartItemsStock(cartId, cart);
@@ -208,48 +353,74 @@ public class CartServiceImpl implements CartService {
 
     @Override
     @Transactional
-    public void consumeCart(UUID cartId) {
+    public void consumeCart(UUID cartId, List<ConsumeCartRequest.Item> items, String idempotencyKey) {
         Cart cart = cartRepository.findByIdWithDetails(cartId)
                 .orElseThrow(() -> new CartNotFoundException("Cart not found"));
 
+        if (cart.getStatus() == CartStatus.CONVERTED && idempotencyKey != null
+                && idempotencyKey.equals(cart.getConsumedWith())) {
+            return; // a retry of the request that consumed it
+        }
         if (cart.getStatus() != CartStatus.ACTIVE) {
             throw new BadRequestException("Cart is not active");
         }
-
-        for (CartItem item : cart.getItems()) {
-            ShopInventory inventory = item.getShopInventory();
-            int qty = item.getQuantity();
-
-            inventory.setReservedStock(inventory.getReservedStock() - qty);
-            inventory.setStock(inventory.getStock() - qty);
-
-            if (inventory.getStock() < 0) {
-                throw new IllegalStateException("Stock underflow for inventory " + inventory.getId());
+        if (!lockIfActive(cartId)) {
+            // Consumed since it was read, possibly by an earlier attempt of this same request
+            if (idempotencyKey != null && cartRepository.findConsumedWith(cartId, CartStatus.CONVERTED)
+                    .filter(idempotencyKey::equals).isPresent()) {
+                return;
             }
+            throw new BadRequestException("Cart is not active");
+        }
 
-            shopInventoryRepository.save(inventory);
+        // The cart may have changed since the order was placed; selling what it holds now would sell units
+        // that were never ordered, or units the customer already gave back
+        List<ReservedUnits> units = reservedUnits(cart);
+        if (items != null && !orderedUnits(items).equals(unitsByInventory(units))) {
+            throw new BadRequestException("Cart no longer holds the ordered items");
         }
 
+        // One statement for the stock of all items, one for deleting them; underflow rolls both back, along
+        // with units already consumed from hot rows in Redis
+        stockReservationService.consumeAll(units);
+        searchVersions.reservationsChanged(cart.getShopId());
+        cartChanged(cart);
         cartItemRepository.deleteAllByCartId(cartId);
-        cart.getItems().clear();
+        // The item collection is left as loaded: clearing it would delete the already deleted rows again
         cart.setStatus(CartStatus.CONVERTED);
+        cart.setConsumedWith(idempotencyKey);
 
         cartRepository.save(cart);
     }
 
     private void releaseCartItemsStock(UUID cartId, Cart cart) {
+        stockReservationService.releaseAllUpTo(reservedUnits(cart));
+        searchVersions.reservationsChanged(cart.getShopId());
+        cartChanged(cart);
+
+        cartItemRepository.deleteAllByCartId(cartId);
+    }
+
+    private static List<ReservedUnits> reservedUnits(Cart cart) {
+        Map<Long, Long> units = new LinkedHashMap<>();
         for (CartItem item : cart.getItems()) {
-            ShopInventory inventory = item.getShopInventory();
-            inventory.setReservedStock(inventory.getReservedStock() - item.getQuantity());
-            if (inventory.getReservedStock() < 0) {
-                inventory.setReservedStock(0);
-            }
-            shopInventoryRepository.save(inventory);
+            units.merge(item.getShopInventory().getId(), (long) item.getQuantity(), Long::sum);
         }
+        return units.entrySet().stream()
+                .map(entry -> new ReservedUnits(entry.getKey(), cart.getShopId(), entry.getValue()))
+                .toList();
+    }
 
-        cart.getItems().clear();
-        cartItemRepository.deleteAllByCartId(cartId);
-        cartRepository.save(cart);
+    private static Map<Long, Long> orderedUnits(List<ConsumeCartRequest.Item> items) {
+        Map<Long, Long> units = new HashMap<>();
+        for (ConsumeCartRequest.Item item : items) {
+            units.merge(item.getInventoryId(), (long) item.getQuantity(), Long::sum);
+        }
+        return units;
+    }
+
+    private static Map<Long, Long> unitsByInventory(List<ReservedUnits> units) {
+        return units.stream().collect(Collectors.toMap(ReservedUnits::inventoryId, ReservedUnits::units));
     }
 
     @Override
@@ -259,24 +430,40 @@ public class CartServiceImpl implements CartService {
                         "Cart not found with id: " + cartId));
 
         cart.setStatus(CartStatus.CONVERTED);
+        cartChanged(cart);
         // Note: We do NOT decrease reserved stock here because the order process
         // will likely handle the inventory deduction (converting reserved to sold).
 
         cartRepository.save(cart);
     }
 
-    private void validateStockAvailability(ShopInventory inventory, int requestedQuantity, int currentQuantity) {
-        // Calculate how much we're trying to add/change
-        int diff = requestedQuantity - currentQuantity;
+    /**
+     * Drops the cached responses of the cart once this transaction commits
+     */
+    private void cartChanged(Cart cart) {
+        cartCache.cartChanged(cart.getId(), cart.getUserId(), cart.getShopId());
+    }
 
-        if (diff > 0) {
-            // We're increasing quantity, check if there's enough available stock
-            int availableStock = inventory.getStock() - inventory.getReservedStock();
-            if (diff > availableStock) {
-                throw new BadRequestException("Insufficient stock. Available: " + availableStock);
-            }
+    /**
+     * Locks the cart against the expiry sweeper for the rest of the transaction; without it the sweeper
+     * could release the cart's stock while this request changes its items.
+     */
+    private boolean lockIfActive(UUID cartId) {
+        return cartRepository.touchIfActive(cartId, LocalDateTime.now(), CartStatus.ACTIVE) == 1;
+    }
+
+    private void requireActive(UUID cartId) {
+        if (!lockIfActive(cartId)) {
+            throw new BadRequestException("Cart is not active");
+        }
+    }
+
+    private void reserveStock(ShopInventory inventory, int quantity) {
+        if (!stockReservationService.tryReserve(inventory.getId(), quantity)) {
+            // Availability as of the read above; the conditional update is what decided
+            int availableStock = Math.max(0, inventory.getStock() - inventory.getReservedStock());
+            throw new BadRequestException("Insufficient stock. Available: " + availableStock);
         }
-        // If diff <= 0, we're decreasing quantity, no stock check needed
     }
 
     @Override
@@ -294,7 +481,12 @@ public class CartServiceImpl implements CartService {
         return new CartPricingResponse(deliveryQuote.getDistanceKm(), deliveryQuote.getAmount(), tax, payable);
     }
 
+    /**
+     * Read for checkout, so never from {@link CartCache}: the order is priced from this response, and price
+     * changes do not invalidate cached carts.
+     */
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public CartResponse getCartById(UUID cartId) {
         Cart cart = cartRepository.findByIdWithDetails(cartId)
                 .orElseThrow(() -> new CartNotFoundException(
@@ -325,28 +517,37 @@ public class CartServiceImpl implements CartService {
 
     private DeliveryQuoteApiResponse calculateDeliveryFee(Cart cart) {
         try {
+            // The address is a blocking call to user-service; load the shop meanwhile
+            CompletableFuture<UserAddressApiResponse.UserAddressDto> address =
+                    CompletableFuture.supplyAsync(() -> primaryAddress(cart.getUserId()), interServiceExecutor);
+
             Shop shop = shopRepository.findById(cart.getShopId()).orElseThrow(() -> new NoSuchElementException("Shop " + cart.getShopId() + " for the cart " +
                     cart.getId() + " does not exist or is deleted"));
 
-            var userAddrRes = InterServiceClient.call("user-service", "/addresses/user/" +
-                    cart.getUserId() + "/primary", "GET", null, true);
+            UserAddressApiResponse.UserAddressDto userLocation = address.join();
 
-            UserAddressApiResponse.UserAddressDto userLocation = JsonUtil.fromJson(userAddrRes.body(),
-                    UserAddressApiResponse.class).getData();
+            // Same pricing as delivery-service's calculate-quote, without the extra hop
+            DeliveryPricing.Quote quote = DeliveryPricing.quote(shop.getLatitude(), shop.getLongitude(),
+                    userLocation.getLatitude(), userLocation.getLongitude());
 
-            Map<String, Double> deliveryQuoteReq = Map.of(
-                    "shopLatitude", shop.getLatitude(),
-                    "shopLongitude", shop.getLongitude(),
-                    "userLatitude", userLocation.getLatitude(),
-                    "userLongitude", userLocation.getLongitude()
-            );
-
-            var deliveryQuoteRes = InterServiceClient.call("delivery-service", "/deliveries/calculate-quote", "POST", JsonUtil.toJson(deliveryQuoteReq));
-
-            return JsonUtil.fromJson(deliveryQuoteRes.body(), DeliveryQuoteApiResponse.class);
+            DeliveryQuoteApiResponse deliveryQuote = new DeliveryQuoteApiResponse();
+            deliveryQuote.setAmount(quote.amount());
+            deliveryQuote.setDistanceKm(quote.distanceKm());
+            return deliveryQuote;
         } catch (Exception e) {
             log.error("failed to calculate delivery quote for cartId {}: reason: {}, returning sample quote", cart.getId(), e.getMessage(), e);
             return new DeliveryQuoteApiResponse();
         }
     }
+
+    private static UserAddressApiResponse.UserAddressDto primaryAddress(UUID userId) {
+        try {
+            var userAddrRes = InterServiceClient.call("user-service", "/addresses/user/" +
+                    userId + "/primary", "GET", null, true);
+
+            return JsonUtil.fromJson(userAddrRes.body(), UserAddressApiResponse.class).getData();
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
 }
\ No newline at end of file
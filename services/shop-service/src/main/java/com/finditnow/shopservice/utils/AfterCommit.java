@@ -0,0 +1,26 @@
+package com.finditnow.shopservice.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class AfterCommit {
+
+    /**
+     * Runs the action once the current transaction commits, or immediately when
+     * there is no transaction. Used for in-memory side effects (indexes, caches)
+     * that must not observe rolled back writes.
+     */
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
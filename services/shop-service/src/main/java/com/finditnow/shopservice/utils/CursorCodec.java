@@ -0,0 +1,92 @@
+package com.finditnow.shopservice.utils;
+
+import com.finditnow.shopservice.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes keyset pagination positions as opaque, URL-safe cursors.
+ * <p>
+ * A cursor is the sort key of the last row of a page: {@code (name, id)} for name-ordered listings and
+ * {@code (distance bucket, shop id, inventory id)} for nearest-first search. Clients pass it back unchanged
+ * to continue after that row.
+ */
+public class CursorCodec {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final String NAME = "n";
+    private static final String DISTANCE = "d";
+
+    public record NameKey(String name, long id) {
+    }
+
+    /**
+     * @param bucket distance from the user in whole metres
+     */
+    public record DistanceKey(long bucket, long shopId, long inventoryId) {
+    }
+
+    public static String encode(NameKey key) {
+        return join(NAME, key.name(), String.valueOf(key.id()));
+    }
+
+    public static String encode(DistanceKey key) {
+        return join(DISTANCE, String.valueOf(key.bucket()), String.valueOf(key.shopId()),
+                String.valueOf(key.inventoryId()));
+    }
+
+    public static NameKey decodeNameKey(String cursor) {
+        String[] parts = split(cursor, NAME, 2);
+        try {
+            return new NameKey(parts[0], Long.parseLong(parts[1]));
+        } catch (NumberFormatException e) {
+            throw invalid();
+        }
+    }
+
+    public static DistanceKey decodeDistanceKey(String cursor) {
+        String[] parts = split(cursor, DISTANCE, 3);
+        try {
+            return new DistanceKey(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        } catch (NumberFormatException e) {
+            throw invalid();
+        }
+    }
+
+    /**
+     * Distance rounded to whole metres; ordering on the bucket keeps cursors stable across
+     * floating point noise when the distance is recomputed for the next page.
+     */
+    public static long distanceBucket(double distanceKm) {
+        return Math.round(distanceKm * 1000);
+    }
+
+    private static String join(String kind, String... values) {
+        StringBuilder sb = new StringBuilder(kind);
+        for (String value : values) {
+            sb.append('.').append(ENCODER.encodeToString(value.getBytes(StandardCharsets.UTF_8)));
+        }
+        return ENCODER.encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] split(String cursor, String kind, int count) {
+        try {
+            String[] raw = new String(DECODER.decode(cursor), StandardCharsets.UTF_8).split("\\.", -1);
+            if (raw.length != count + 1 || !raw[0].equals(kind)) {
+                throw invalid();
+            }
+            String[] parts = new String[count];
+            for (int i = 0; i < count; i++) {
+                parts[i] = new String(DECODER.decode(raw[i + 1]), StandardCharsets.UTF_8);
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+    }
+
+    private static BadRequestException invalid() {
+        return new BadRequestException("Invalid cursor");
+    }
+}
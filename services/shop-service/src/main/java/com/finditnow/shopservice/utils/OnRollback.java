@@ -0,0 +1,27 @@
+package com.finditnow.shopservice.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class OnRollback {
+
+    /**
+     * Runs the action if the current transaction rolls back; does nothing when there
+     * is no transaction. Used to undo side effects outside the database (Redis
+     * counters) that were applied on behalf of writes that are now discarded.
+     */
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+    }
+}
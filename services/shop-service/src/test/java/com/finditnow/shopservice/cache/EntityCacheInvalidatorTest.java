@@ -0,0 +1,89 @@
+package com.finditnow.shopservice.cache;
+
+import com.finditnow.redis.RedisStore;
+import com.finditnow.redis.StreamRecord;
+import com.finditnow.shopservice.entity.Category;
+import com.finditnow.shopservice.entity.Shop;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EntityCacheInvalidatorTest {
+
+        @Mock
+        private EntityManagerFactory entityManagerFactory;
+
+        @Mock
+        private SessionFactory sessionFactory;
+
+        @Mock
+        private Cache cache;
+
+        @Mock
+        private RedisStore redisStore;
+
+        private EntityCacheInvalidator invalidator;
+
+        @BeforeEach
+        void setUp() {
+                invalidator = new EntityCacheInvalidator(entityManagerFactory, redisStore, true);
+        }
+
+        @Test
+        void onRecord_EvictsEntitiesChangedOnOtherInstances() {
+                when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+                when(sessionFactory.getCache()).thenReturn(cache);
+
+                invalidator.onRecord(new StreamRecord("1-0", Map.of("entity", "Shop", "id", "7", "origin", "other")));
+
+                verify(cache).evictEntityData(Shop.class, 7L);
+                verify(cache, never()).evictQueryRegions();
+        }
+
+        @Test
+        void onRecord_CategoryChangeAlsoDropsCachedQueries() {
+                when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+                when(sessionFactory.getCache()).thenReturn(cache);
+
+                invalidator.onRecord(new StreamRecord("1-0", Map.of("entity", "Category", "id", "3", "origin", "other")));
+
+                verify(cache).evictEntityData(Category.class, 3L);
+                verify(cache).evictQueryRegions();
+        }
+
+        @Test
+        void onRecord_IgnoresItsOwnEvictions() {
+                Shop shop = new Shop();
+                PostUpdateEvent event = mock(PostUpdateEvent.class);
+                when(event.getEntity()).thenReturn(shop);
+                when(event.getId()).thenReturn(7L);
+                invalidator.onPostUpdate(event);
+
+                @SuppressWarnings("unchecked")
+                ArgumentCaptor<List<Map<String, String>>> published = ArgumentCaptor.forClass(List.class);
+                verify(redisStore).appendToStream(eq(EntityCacheInvalidator.STREAM), published.capture(), anyLong());
+                Map<String, String> fields = published.getValue().get(0);
+                assertEquals("Shop", fields.get("entity"));
+                assertEquals("7", fields.get("id"));
+
+                invalidator.onRecord(new StreamRecord("1-0", fields));
+
+                verifyNoInteractions(entityManagerFactory);
+        }
+}
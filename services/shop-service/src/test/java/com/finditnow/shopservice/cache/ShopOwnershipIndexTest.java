@@ -0,0 +1,77 @@
+package com.finditnow.shopservice.cache;
+
+import com.finditnow.redis.RedisStore;
+import com.finditnow.redis.StreamRecord;
+import com.finditnow.shopservice.repository.ShopRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ShopOwnershipIndexTest {
+
+        @Mock
+        private ShopRepository shopRepository;
+
+        @Mock
+        private RedisStore redisStore;
+
+        private ShopOwnershipIndex index;
+
+        private final UUID ownerId = UUID.randomUUID();
+
+        @BeforeEach
+        void setUp() {
+                index = new ShopOwnershipIndex(shopRepository, redisStore);
+        }
+
+        @Test
+        void isOwner_AnsweredFromTheIndexWithoutTheDatabase() {
+                index.put(new ShopOwner(1L, ownerId));
+                index.put(new ShopOwner(2L, ownerId));
+
+                assertTrue(index.isOwner(1L, ownerId));
+                assertFalse(index.isOwner(1L, UUID.randomUUID()));
+                assertEquals(Set.of(1L, 2L), index.shopsOf(ownerId));
+                verifyNoInteractions(shopRepository);
+        }
+
+        @Test
+        void ownerOf_UnknownShopIsLoadedOnce() {
+                when(shopRepository.findOwner(3L)).thenReturn(Optional.of(new ShopOwner(3L, ownerId)));
+
+                assertEquals(Optional.of(ownerId), index.ownerOf(3L));
+                assertEquals(Optional.of(ownerId), index.ownerOf(3L));
+
+                verify(shopRepository, times(1)).findOwner(3L);
+        }
+
+        @Test
+        void ownerOf_MissingShopIsEmpty() {
+                when(shopRepository.findOwner(4L)).thenReturn(Optional.empty());
+
+                assertTrue(index.ownerOf(4L).isEmpty());
+                assertFalse(index.isOwner(4L, ownerId));
+        }
+
+        @Test
+        void onRecord_ShopDeletedOnAnotherInstanceIsRemoved() {
+                index.put(new ShopOwner(1L, ownerId));
+                index.put(new ShopOwner(2L, ownerId));
+
+                index.onRecord(new StreamRecord("1-0", Map.of("type", "SHOP_DELETED", "shopId", "1")));
+
+                assertEquals(1, index.size());
+                assertEquals(Set.of(2L), index.shopsOf(ownerId));
+        }
+}
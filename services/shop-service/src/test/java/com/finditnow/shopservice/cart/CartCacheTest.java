@@ -0,0 +1,107 @@
+package com.finditnow.shopservice.cart;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finditnow.redis.RedisStore;
+import com.finditnow.shopservice.dto.CartResponse;
+import com.finditnow.shopservice.entity.CartStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CartCacheTest {
+
+        @Mock
+        private RedisStore redisStore;
+
+        private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+        private CartCache cache;
+
+        private final UUID userId = UUID.randomUUID();
+        private final CartResponse cart = CartResponse.builder()
+                        .cartId(UUID.randomUUID())
+                        .userId(userId)
+                        .shopId(1L)
+                        .status(CartStatus.ACTIVE)
+                        .items(List.of())
+                        .totalItems(0)
+                        .subtotal(0f)
+                        .build();
+
+        @BeforeEach
+        void setUp() {
+                cache = new CartCache(redisStore, objectMapper, true, 100, 60);
+        }
+
+        @Test
+        void get_ServesNearHitsWhileTheOwnerVersionHolds() {
+                String key = CartCache.byUserAndShop(userId, 1L);
+                AtomicInteger loads = new AtomicInteger();
+                when(redisStore.getKeyValue("cart:cache:entry:" + key)).thenReturn(null);
+                when(redisStore.getKeyValue(CartCache.WRITES)).thenReturn("7");
+                when(redisStore.evalScript(anyString(), anyList(), anyList())).thenReturn("3");
+                when(redisStore.getKeyValue("cart:cache:user:" + userId)).thenReturn("3", "4");
+
+                cache.get(key, () -> load(loads));
+                cache.get(key, () -> load(loads));
+                assertEquals(1, loads.get());
+
+                cache.get(key, () -> load(loads)); // the owner's carts changed
+                assertEquals(2, loads.get());
+        }
+
+        @Test
+        void get_ReadsEntriesSharedThroughRedis() throws Exception {
+                String key = CartCache.byUser(userId);
+                when(redisStore.getKeyValue("cart:cache:entry:" + key))
+                                .thenReturn("5|" + objectMapper.writeValueAsString(cart));
+
+                CartResponse cached = cache.get(key, () -> {
+                        throw new AssertionError("must not load");
+                });
+
+                assertEquals(cart, cached);
+        }
+
+        @Test
+        void get_BypassesTheCacheWhenRedisIsDown() {
+                AtomicInteger loads = new AtomicInteger();
+                when(redisStore.getKeyValue(anyString())).thenThrow(new IllegalStateException("down"));
+
+                cache.get(CartCache.byUser(userId), () -> load(loads));
+                cache.get(CartCache.byUser(userId), () -> load(loads));
+
+                assertEquals(2, loads.get());
+                verify(redisStore, never()).evalScript(anyString(), anyList(), anyList());
+        }
+
+        @Test
+        void cartChanged_DropsEveryKeyOfTheCart() {
+                cache.cartChanged(cart.getCartId(), userId, 1L);
+
+                verify(redisStore).evalScript(anyString(), eq(List.of(
+                                CartCache.WRITES,
+                                "cart:cache:user:" + userId,
+                                "cart:cache:entry:user:" + userId,
+                                "cart:cache:entry:user:" + userId + ":shop:1")), any());
+        }
+
+        private CartResponse load(AtomicInteger loads) {
+                loads.incrementAndGet();
+                return cart;
+        }
+}
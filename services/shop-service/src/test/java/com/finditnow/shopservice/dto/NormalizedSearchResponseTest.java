@@ -0,0 +1,67 @@
+package com.finditnow.shopservice.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class NormalizedSearchResponseTest {
+
+        @Test
+        void of_SendsEachShopAndProductOnce() {
+                ShopResponse shop = shop(1L);
+                ProductResponse milk = product(10L);
+                ProductResponse bread = product(11L);
+                PagedResponse<SearchOpportunityResponse> page = new PagedResponse<>(List.of(
+                                opportunity(milk, shop, 100L),
+                                opportunity(bread, shop, 101L),
+                                opportunity(milk, shop(2L), 102L)), 0, 10, 3L, 1, true, true);
+
+                NormalizedSearchResponse normalized = NormalizedSearchResponse.of(page);
+
+                assertEquals(List.of(1L, 2L), List.copyOf(normalized.getShops().keySet()));
+                assertEquals(List.of(10L, 11L), List.copyOf(normalized.getProducts().keySet()));
+                assertSame(shop, normalized.getShops().get(1L));
+                assertEquals(3, normalized.getContent().size());
+                assertEquals(2L, normalized.getContent().get(2).getShopId());
+                assertEquals(102L, normalized.getContent().get(2).getInventory().getInventoryId());
+                assertEquals(3L, normalized.getTotalElements());
+        }
+
+        @Test
+        void global_KeepsShopLegOrderAndSharesDictionaries() {
+                ShopResponse shop = shop(1L);
+                GlobalSearchResponse response = GlobalSearchResponse.builder()
+                                .shops(List.of(shop(3L), shop))
+                                .products(List.of(opportunity(product(10L), shop, 100L)))
+                                .totalShops(2L)
+                                .totalProducts(1L)
+                                .build();
+
+                NormalizedGlobalSearchResponse normalized = NormalizedGlobalSearchResponse.of(response);
+
+                assertEquals(List.of(3L, 1L), normalized.getShopResults());
+                assertEquals(2, normalized.getShops().size());
+                assertEquals(1L, normalized.getProductResults().get(0).getShopId());
+        }
+
+        private static ShopResponse shop(Long id) {
+                ShopResponse shop = new ShopResponse();
+                shop.setId(id);
+                return shop;
+        }
+
+        private static ProductResponse product(Long id) {
+                ProductResponse product = new ProductResponse();
+                product.setId(id);
+                return product;
+        }
+
+        private static SearchOpportunityResponse opportunity(ProductResponse product, ShopResponse shop,
+                                                             long inventoryId) {
+                return new SearchOpportunityResponse(product, shop,
+                                new InventorySearchResponse(inventoryId, 0, 1.0f, 5), FulfillmentMode.DELIVERY, null);
+        }
+}
@@ -0,0 +1,84 @@
+package com.finditnow.shopservice.events;
+
+import com.finditnow.common.CatalogEvent;
+import com.finditnow.redis.RedisStore;
+import com.finditnow.shopservice.entity.CatalogOutboxEntry;
+import com.finditnow.shopservice.repository.CatalogOutboxRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogOutboxTest {
+
+        @Mock
+        private CatalogOutboxRepository catalogOutboxRepository;
+
+        @Mock
+        private RedisStore redisStore;
+
+        @Test
+        void listingsChanged_WritesOneRowPerProductInOneStatement() {
+                CatalogOutbox outbox = new CatalogOutbox(catalogOutboxRepository, redisStore, true, 1000);
+
+                outbox.listingsChanged(7L, List.of(1L, 2L));
+
+                verify(catalogOutboxRepository).insertAll(eq("LISTING_CHANGED"),
+                                aryEq(new Long[]{7L, 7L}), aryEq(new Long[]{1L, 2L}));
+        }
+
+        @Test
+        void shopsDeleted_LeavesProductIdsEmpty() {
+                CatalogOutbox outbox = new CatalogOutbox(catalogOutboxRepository, redisStore, true, 1000);
+
+                outbox.shopsDeleted(List.of(3L));
+
+                verify(catalogOutboxRepository).insertAll(eq("SHOP_DELETED"), aryEq(new Long[]{3L}),
+                                aryEq(new Long[]{null}));
+        }
+
+        @Test
+        void disabled_RecordsNothing() {
+                CatalogOutbox outbox = new CatalogOutbox(catalogOutboxRepository, redisStore, false, 1000);
+
+                outbox.shopChanged(3L);
+
+                verifyNoInteractions(catalogOutboxRepository);
+        }
+
+        @Test
+        void relayBatch_PublishesThenDeletesTheLockedEntries() {
+                CatalogOutbox outbox = new CatalogOutbox(catalogOutboxRepository, redisStore, true, 1000);
+                when(catalogOutboxRepository.lockOldest(100)).thenReturn(List.of(
+                                new CatalogOutboxEntry(10L, CatalogEvent.Type.SHOP_CHANGED, 3L, null, LocalDateTime.now()),
+                                new CatalogOutboxEntry(11L, CatalogEvent.Type.LISTING_DELETED, 3L, 5L, LocalDateTime.now())));
+
+                assertEquals(2, outbox.relayBatch(100));
+
+                var order = inOrder(redisStore, catalogOutboxRepository);
+                order.verify(redisStore).appendToStream(CatalogEvent.STREAM, List.of(
+                                Map.of("type", "SHOP_CHANGED", "shopId", "3"),
+                                Map.of("type", "LISTING_DELETED", "shopId", "3", "productId", "5")), 1000);
+                order.verify(catalogOutboxRepository).deleteAllByIds(List.of(10L, 11L));
+        }
+
+        @Test
+        void relayBatch_EmptyOutboxPublishesNothing() {
+                CatalogOutbox outbox = new CatalogOutbox(catalogOutboxRepository, redisStore, true, 1000);
+                when(catalogOutboxRepository.lockOldest(100)).thenReturn(List.of());
+
+                assertEquals(0, outbox.relayBatch(100));
+
+                verifyNoInteractions(redisStore);
+                verify(catalogOutboxRepository, never()).deleteAllByIds(anyList());
+        }
+}
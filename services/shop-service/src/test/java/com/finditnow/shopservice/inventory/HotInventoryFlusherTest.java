@@ -0,0 +1,83 @@
+package com.finditnow.shopservice.inventory;
+
+import com.finditnow.shopservice.search.SearchVersions;
+import com.finditnow.shopservice.service.StockReservationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HotInventoryFlusherTest {
+
+        @Mock
+        private HotInventory hotInventory;
+
+        @Mock
+        private StockReservationService stockReservationService;
+
+        @Mock
+        private SearchVersions searchVersions;
+
+        private HotInventoryFlusher flusher;
+
+        @BeforeEach
+        void setUp() {
+                flusher = new HotInventoryFlusher(hotInventory, stockReservationService, searchVersions, 2, 30000,
+                                60000);
+                when(hotInventory.isEnabled()).thenReturn(true);
+                when(hotInventory.tryLockFlush(anyString(), anyLong())).thenReturn(true);
+        }
+
+        @Test
+        void flush_AcknowledgesWrittenRowsAndMergesConflicts() {
+                HotCounts written = new HotCounts(1L, 7L, 10, 4, 10, 2);
+                HotCounts conflicted = new HotCounts(2L, 7L, 5, 5, 5, 1);
+                HotCounts deleted = new HotCounts(3L, 8L, 1, 0, 1, 0);
+                when(hotInventory.takeDirty(2)).thenReturn(List.of(written, conflicted), List.of(deleted));
+                when(stockReservationService.writeHotCounts(List.of(written, conflicted))).thenReturn(List.of(
+                                new StockCounts(1L, 10, 4),
+                                new StockCounts(2L, 5, 2))); // reserved changed behind Redis
+                when(stockReservationService.writeHotCounts(List.of(deleted))).thenReturn(List.of());
+
+                flusher.flush();
+
+                verify(hotInventory).acknowledge(written);
+                verify(hotInventory).reconcile(conflicted, new StockCounts(2L, 5, 2));
+                verify(hotInventory).discard(3L);
+                verify(searchVersions).reservationsChanged(Set.of(7L));
+                verify(searchVersions).reservationsChanged(Set.of(8L));
+                verify(hotInventory).unlockFlush(anyString());
+        }
+
+        @Test
+        void flush_KeepsRowsDirtyWhenTheWriteFails() {
+                HotCounts row = new HotCounts(1L, 7L, 10, 4, 10, 2);
+                when(hotInventory.takeDirty(2)).thenReturn(List.of(row));
+                when(stockReservationService.writeHotCounts(any())).thenThrow(new IllegalStateException("db down"));
+
+                flusher.flush();
+
+                verify(hotInventory).markDirty(List.of(1L));
+                verify(hotInventory, never()).acknowledge(any());
+                verify(hotInventory).unlockFlush(anyString());
+        }
+
+        @Test
+        void flush_SkipsWhenAnotherInstanceHoldsTheLock() {
+                when(hotInventory.tryLockFlush(anyString(), anyLong())).thenReturn(false);
+
+                flusher.flush();
+
+                verify(hotInventory, never()).takeDirty(anyInt());
+        }
+}
@@ -0,0 +1,104 @@
+package com.finditnow.shopservice.inventory;
+
+import com.finditnow.redis.RedisStore;
+import com.finditnow.shopservice.exception.InventoryUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HotInventoryTest {
+
+        @Mock
+        private RedisStore redisStore;
+
+        private HotInventory hotInventory;
+
+        @BeforeEach
+        void setUp() {
+                hotInventory = new HotInventory(redisStore, true);
+                TransactionSynchronizationManager.initSynchronization();
+        }
+
+        @AfterEach
+        void tearDown() {
+                TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        @Test
+        void reserve_RolledBackTransactionGivesTheUnitsBack() {
+                when(redisStore.evalScript(anyString(), anyList(), eq(List.of("1", "3"))))
+                                .thenReturn(List.of(1L, 10L, 3L, 0L, 3L));
+                when(redisStore.evalScript(anyString(), anyList(), eq(List.of("1", "0", "-3")))).thenReturn(1L);
+
+                assertTrue(hotInventory.reserve(1L, 3).applied());
+                complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+                verify(redisStore).evalScript(anyString(), anyList(), eq(List.of("1", "0", "-3")));
+        }
+
+        @Test
+        void consume_CommittedTransactionKeepsTheChange() {
+                when(redisStore.evalScript(anyString(), anyList(), eq(List.of("1", "2"))))
+                                .thenReturn(List.of(1L, 8L, 0L, -2L, -2L));
+
+                assertTrue(hotInventory.consume(1L, 2).applied());
+                complete(TransactionSynchronization.STATUS_COMMITTED);
+
+                verify(redisStore, times(1)).evalScript(anyString(), anyList(), anyList());
+        }
+
+        @Test
+        void reserve_RejectedChangeRegistersNoUndo() {
+                when(redisStore.evalScript(anyString(), anyList(), anyList())).thenReturn(List.of(0L, 1L, 1L));
+
+                assertFalse(hotInventory.reserve(1L, 3).applied());
+
+                assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+        }
+
+        @Test
+        void reserve_RedisDownRefusesRowKnownToBeHot() {
+                when(redisStore.evalScript(anyString(), anyList(), anyList()))
+                                .thenReturn(List.of(1L, 10L, 1L, 0L, 1L))
+                                .thenThrow(new RuntimeException("connection refused"));
+
+                hotInventory.reserve(1L, 1);
+
+                assertThrows(InventoryUnavailableException.class, () -> hotInventory.reserve(1L, 1));
+        }
+
+        @Test
+        void reserve_RedisDownFallsBackForRowNotKnownToBeHot() {
+                when(redisStore.evalScript(anyString(), anyList(), anyList()))
+                                .thenThrow(new RuntimeException("connection refused"));
+
+                assertFalse(hotInventory.reserve(2L, 1).handled());
+        }
+
+        @Test
+        void reloadHotIds_RowsPromotedElsewhereAreRefusedWhileRedisIsDown() {
+                when(redisStore.evalScript(anyString(), anyList(), eq(List.of())))
+                                .thenReturn(List.of("5", "6"));
+                hotInventory.reloadHotIds();
+                when(redisStore.evalScript(anyString(), anyList(), eq(List.of("6", "1"))))
+                                .thenThrow(new RuntimeException("connection refused"));
+
+                assertThrows(InventoryUnavailableException.class, () -> hotInventory.reserve(6L, 1));
+        }
+
+        private static void complete(int status) {
+                TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCompletion(status));
+        }
+}
@@ -0,0 +1,115 @@
+package com.finditnow.shopservice.search;
+
+import com.finditnow.redis.RedisStore;
+import com.finditnow.redis.StreamRecord;
+import com.finditnow.shopservice.repository.CategoryRepository;
+import com.finditnow.shopservice.repository.ProductRepository;
+import com.finditnow.shopservice.repository.ShopRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogIndexSyncTest {
+
+        @Mock
+        private ShopRepository shopRepository;
+
+        @Mock
+        private ProductRepository productRepository;
+
+        @Mock
+        private CategoryRepository categoryRepository;
+
+        @Mock
+        private RedisStore redisStore;
+
+        private ShopGeoIndex shopGeoIndex;
+
+        private CatalogTextIndex catalogTextIndex;
+
+        private CatalogSuggestions catalogSuggestions;
+
+        private CatalogIndexSync sync;
+
+        @BeforeEach
+        void setUp() {
+                shopGeoIndex = new ShopGeoIndex(shopRepository);
+                catalogTextIndex = new CatalogTextIndex(productRepository, shopRepository, 100);
+                catalogSuggestions = new CatalogSuggestions(productRepository, shopRepository, categoryRepository);
+                sync = new CatalogIndexSync(shopRepository, productRepository, shopGeoIndex, catalogTextIndex,
+                                catalogSuggestions, redisStore);
+        }
+
+        @Test
+        void onRecord_ShopChangedOnAnotherInstanceIsLoadedIntoTheIndexes() {
+                ShopPoint point = new ShopPoint(1L, 12.9716, 77.5946, "IN_HOUSE_DRIVER");
+                when(shopRepository.findGeoPoint(1L)).thenReturn(Optional.of(point));
+                when(shopRepository.findSearchDocument(1L))
+                                .thenReturn(Optional.of(new SearchDocument(1L, "Corner Bakery", "MG Road")));
+
+                sync.onRecord(new StreamRecord("1-0", Map.of("type", "SHOP_CHANGED", "shopId", "1")));
+
+                assertEquals(point, shopGeoIndex.get(1L));
+                assertEquals(List.of(1L), catalogTextIndex.matchShops("bakery").ids());
+        }
+
+        @Test
+        void onRecord_ShopGoneSinceTheEventIsRemoved() {
+                shopGeoIndex.put(new ShopPoint(1L, 12.9716, 77.5946, "IN_HOUSE_DRIVER"));
+                when(shopRepository.findGeoPoint(1L)).thenReturn(Optional.empty());
+                when(shopRepository.findSearchDocument(1L)).thenReturn(Optional.empty());
+
+                sync.onRecord(new StreamRecord("1-0", Map.of("type", "SHOP_CHANGED", "shopId", "1")));
+
+                assertNull(shopGeoIndex.get(1L));
+        }
+
+        @Test
+        void onRecord_ShopDeletedOnAnotherInstanceIsRemoved() {
+                shopGeoIndex.put(new ShopPoint(1L, 12.9716, 77.5946, "IN_HOUSE_DRIVER"));
+
+                sync.onRecord(new StreamRecord("1-0", Map.of("type", "SHOP_DELETED", "shopId", "1")));
+
+                assertEquals(0, shopGeoIndex.size());
+                verifyNoInteractions(shopRepository);
+        }
+
+        @Test
+        void onRecord_ProductRenamedOnAnotherInstanceIsFoundByItsNewName() {
+                catalogTextIndex.upsertProduct(new SearchDocument(7L, "Whole Milk", null));
+                when(productRepository.findSearchDocument(7L))
+                                .thenReturn(Optional.of(new SearchDocument(7L, "Toned Milk", null)));
+
+                sync.onRecord(new StreamRecord("1-0", Map.of("type", "PRODUCT_CHANGED", "productId", "7")));
+
+                assertEquals(List.of(7L), catalogTextIndex.matchProducts("toned").ids());
+                assertTrue(catalogTextIndex.matchProducts("whole").ids().isEmpty());
+                assertEquals(List.of("Toned Milk"), texts(catalogSuggestions.suggest("ton", 5)));
+        }
+
+        @Test
+        void onRecord_ProductDeletedOnAnotherInstanceIsRemoved() {
+                catalogTextIndex.upsertProduct(new SearchDocument(7L, "Whole Milk", null));
+                catalogSuggestions.upsertProduct(new SearchDocument(7L, "Whole Milk", null));
+
+                sync.onRecord(new StreamRecord("1-0", Map.of("type", "PRODUCT_DELETED", "productId", "7")));
+
+                assertTrue(catalogTextIndex.matchProducts("milk").ids().isEmpty());
+                assertTrue(catalogSuggestions.suggest("who", 5).isEmpty());
+                verifyNoInteractions(productRepository);
+        }
+
+        private static List<String> texts(List<Suggestion> suggestions) {
+                return suggestions.stream().map(Suggestion::text).toList();
+        }
+}
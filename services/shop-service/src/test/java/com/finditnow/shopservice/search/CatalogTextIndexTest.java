@@ -0,0 +1,69 @@
+package com.finditnow.shopservice.search;
+
+import com.finditnow.shopservice.entity.Product;
+import com.finditnow.shopservice.repository.ProductRepository;
+import com.finditnow.shopservice.repository.ShopRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogTextIndexTest {
+
+        @Mock
+        private ProductRepository productRepository;
+
+        @Mock
+        private ShopRepository shopRepository;
+
+        private CatalogTextIndex index;
+
+        @BeforeEach
+        void setUp() {
+                index = new CatalogTextIndex(productRepository, shopRepository, 2);
+        }
+
+        @Test
+        void matchProducts_ReportsMatchesDroppedByTheCap() {
+                index.upsertProduct(product(1L, "Amul Butter"));
+                index.upsertProduct(product(2L, "Peanut Butter"));
+
+                assertEquals(new TextMatch(List.of(1L, 2L), false), index.matchProducts("butter"));
+
+                index.upsertProduct(product(3L, "Butter Cookies"));
+                TextMatch match = index.matchProducts("butter");
+                assertEquals(2, match.ids().size());
+                assertTrue(match.truncated());
+                assertTrue(index.productMatch("butter").truncated());
+        }
+
+        @Test
+        void rebuild_ServesTheOldIndexUntilTheNewOneIsComplete() {
+                index.upsertProduct(product(1L, "Amul Butter"));
+                when(productRepository.findAllSearchDocuments()).thenAnswer(invocation -> {
+                        // Still searchable mid-rebuild, and a write made now must survive the swap
+                        assertEquals(List.of(1L), index.matchProducts("butter").ids());
+                        index.upsertProduct(product(5L, "Butter Milk"));
+                        return List.of(new SearchDocument(2L, "Peanut Butter", null));
+                });
+                when(shopRepository.findAllSearchDocuments()).thenReturn(List.of());
+
+                index.rebuild();
+
+                assertEquals(List.of(2L, 5L), index.matchProducts("butter").ids());
+        }
+
+        private static Product product(Long id, String name) {
+                Product product = new Product();
+                product.setId(id);
+                product.setName(name);
+                return product;
+        }
+}
@@ -0,0 +1,47 @@
+package com.finditnow.shopservice.search;
+
+import com.finditnow.shopservice.dto.SuggestionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrefixTrieTest {
+
+        private PrefixTrie trie;
+
+        @BeforeEach
+        void setUp() {
+                trie = new PrefixTrie();
+                trie.put(new Suggestion(SuggestionType.PRODUCT, 1L, "Peanut Butter", 5));
+                trie.put(new Suggestion(SuggestionType.PRODUCT, 2L, "Butter Milk", 9));
+                trie.put(new Suggestion(SuggestionType.SHOP, 1L, "Butter & Bread Co", 2));
+                trie.put(new Suggestion(SuggestionType.PRODUCT, 4L, "Milkshake", 3));
+        }
+
+        private List<String> texts(String query) {
+                return trie.complete(query, 10).stream().map(Suggestion::text).toList();
+        }
+
+        @Test
+        void complete_MatchesAnyWordPrefixByWeight() {
+                assertEquals(List.of("Butter Milk", "Peanut Butter", "Butter & Bread Co"), texts("bu"));
+                assertEquals(List.of("Butter Milk", "Milkshake"), texts("milk"));
+                assertEquals(List.of("Peanut Butter"), texts("peanut b"));
+                assertTrue(texts("milk ").isEmpty());
+        }
+
+        @Test
+        void putAndRemove_UpdateCachedCompletions() {
+                trie.remove(SuggestionType.PRODUCT, 2L);
+                assertEquals(List.of("Peanut Butter", "Butter & Bread Co"), texts("bu"));
+
+                trie.put(new Suggestion(SuggestionType.PRODUCT, 1L, "Almond Butter", 50));
+                assertEquals(List.of("Almond Butter", "Butter & Bread Co"), texts("b"));
+                assertTrue(texts("pea").isEmpty());
+                assertEquals(3, trie.size());
+        }
+}
@@ -0,0 +1,71 @@
+package com.finditnow.shopservice.search;
+
+import com.finditnow.shopservice.dto.Location;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchRankerTest {
+
+        private final SearchRanker ranker = new SearchRanker(0.4, 0.25, 0.2, 0.15, 5, 100);
+
+        private final Location bangalore = new Location(12.9716, 77.5946);
+
+        @Test
+        void score_PrefersCloserCheaperAndInStockRows() {
+                OpportunityRow near = row(1L, 12.9716, 77.6046, 50f, 10, 0, "IN_HOUSE_DRIVER");
+                OpportunityRow far = row(2L, 13.3000, 77.5946, 50f, 10, 0, "IN_HOUSE_DRIVER");
+                OpportunityRow pricey = row(3L, 12.9716, 77.6046, 500f, 10, 0, "IN_HOUSE_DRIVER");
+                OpportunityRow soldOut = row(4L, 12.9716, 77.5950, 1f, 3, 3, "IN_HOUSE_DRIVER");
+
+                assertTrue(ranker.score(near, bangalore) > ranker.score(far, bangalore));
+                assertTrue(ranker.score(near, bangalore) > ranker.score(pricey, bangalore));
+                assertTrue(ranker.score(far, bangalore) > ranker.score(soldOut, bangalore));
+        }
+
+        @Test
+        void score_WithoutLocationIgnoresDistance() {
+                OpportunityRow near = row(1L, 12.9716, 77.6046, 50f, 10, 0, "NO_DELIVERY");
+                OpportunityRow far = row(2L, 28.6139, 77.2090, 50f, 10, 0, "NO_DELIVERY");
+
+                assertEquals(ranker.score(near, null), ranker.score(far, null));
+        }
+
+        @Test
+        void topK_MatchesFullSortAndKeepsAtMostK() {
+                Random random = new Random(7);
+                List<OpportunityRow> rows = new ArrayList<>();
+                for (long id = 1; id <= 500; id++) {
+                        rows.add(row(id, 12.9 + random.nextDouble() * 0.2, 77.5 + random.nextDouble() * 0.2,
+                                        random.nextInt(5) * 20f, random.nextInt(8), random.nextInt(3),
+                                        random.nextBoolean() ? "NO_DELIVERY" : "IN_HOUSE_DRIVER"));
+                }
+
+                SearchRanker.TopK topK = ranker.topK(25, bangalore);
+                rows.forEach(topK::offer);
+
+                List<OpportunityRow> expected = rows.stream()
+                                .sorted(Comparator.comparingDouble((OpportunityRow r) -> -ranker.score(r, bangalore))
+                                                .thenComparing(OpportunityRow::inventoryId))
+                                .limit(25)
+                                .toList();
+                assertEquals(expected, topK.ranked());
+                assertEquals(500, topK.offered());
+        }
+
+        private static OpportunityRow row(Long inventoryId, double lat, double lng, float price, int stock,
+                                          int reserved, String deliveryOption) {
+                return new OpportunityRow(inventoryId, reserved, price, stock,
+                                10L, "Milk", null, null,
+                                null, null, null, null, null,
+                                inventoryId, "Shop " + inventoryId, null, null, null, lat, lng, null, deliveryOption,
+                                null,
+                                null, null, null, null, null);
+        }
+}
@@ -0,0 +1,97 @@
+package com.finditnow.shopservice.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SearchResultCacheTest {
+
+        private static final List<String> SHOP_1_KEYS = List.of(SearchVersions.CATALOG, SearchVersions.shopKey(1L));
+
+        @Mock
+        private SearchVersions searchVersions;
+
+        private SearchResultCache cache;
+        private final AtomicInteger loads = new AtomicInteger();
+
+        @BeforeEach
+        void setUp() {
+                cache = new SearchResultCache(searchVersions, true, 100, 60);
+        }
+
+        private String load() {
+                return "result-" + loads.incrementAndGet();
+        }
+
+        @Test
+        void get_ServesHitWhileVersionsAreUnchanged() {
+                when(searchVersions.read(List.of(SearchVersions.WRITES))).thenReturn(List.of("7"));
+                when(searchVersions.read(SHOP_1_KEYS)).thenReturn(List.of("3", "1"));
+
+                assertEquals("result-1", cache.get("k", v -> List.of(1L), this::load));
+                assertEquals("result-1", cache.get("k", v -> List.of(1L), this::load));
+                assertEquals(1, loads.get());
+        }
+
+        @Test
+        void get_ReloadsAfterShopVersionMoves() {
+                when(searchVersions.read(List.of(SearchVersions.WRITES))).thenReturn(List.of("7"));
+                when(searchVersions.read(SHOP_1_KEYS)).thenReturn(List.of("3", "1"), List.of("3", "8"));
+
+                cache.get("k", v -> List.of(1L), this::load);
+                assertEquals("result-2", cache.get("k", v -> List.of(1L), this::load));
+        }
+
+        @Test
+        void get_DoesNotCacheResultRacingAWriteToItsShop() {
+                when(searchVersions.read(List.of(SearchVersions.WRITES))).thenReturn(List.of("7"));
+                when(searchVersions.read(SHOP_1_KEYS)).thenReturn(List.of("3", "8"));
+
+                cache.get("k", v -> List.of(1L), this::load);
+                cache.get("k", v -> List.of(1L), this::load);
+                assertEquals(2, loads.get());
+        }
+
+        @Test
+        void get_CachesResultDespiteWritesToOtherShops() {
+                // Shop 1 last changed at sequence 7, before the load; later writes elsewhere do not matter
+                when(searchVersions.read(List.of(SearchVersions.WRITES))).thenReturn(List.of("7"));
+                when(searchVersions.read(SHOP_1_KEYS)).thenReturn(List.of("5", "7"));
+
+                cache.get("k", v -> List.of(1L), this::load);
+                assertEquals("result-1", cache.get("k", v -> List.of(1L), this::load));
+                assertEquals(1, loads.get());
+        }
+
+        @Test
+        void getIgnoringReservations_ValidatesAgainstListingVersionsUntilMaxAge() {
+                List<String> listingKeys = List.of(SearchVersions.CATALOG, SearchVersions.listingKey(1L));
+                when(searchVersions.read(List.of(SearchVersions.WRITES))).thenReturn(List.of("7"));
+                when(searchVersions.read(listingKeys)).thenReturn(List.of("3", "1"));
+
+                cache.getIgnoringReservations("k", v -> List.of(1L), Duration.ofMinutes(1), this::load);
+                assertEquals("result-1",
+                                cache.getIgnoringReservations("k", v -> List.of(1L), Duration.ofMinutes(1), this::load));
+                assertEquals("result-2",
+                                cache.getIgnoringReservations("k", v -> List.of(1L), Duration.ZERO, this::load));
+        }
+
+        @Test
+        void get_BypassesCacheWhenRedisIsDown() {
+                when(searchVersions.read(anyList())).thenThrow(new IllegalStateException("connection refused"));
+
+                assertEquals("result-1", cache.get("k", v -> List.of(1L), this::load));
+                assertEquals("result-2", cache.get("k", v -> List.of(1L), this::load));
+        }
+}
@@ -0,0 +1,89 @@
+package com.finditnow.shopservice.search;
+
+import com.finditnow.shopservice.dto.FulfillmentMode;
+import com.finditnow.shopservice.dto.Location;
+import com.finditnow.shopservice.repository.ShopRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ShopGeoIndexTest {
+
+        @Mock
+        private ShopRepository shopRepository;
+
+        private ShopGeoIndex index;
+
+        private final Location bangalore = new Location(12.9716, 77.5946);
+
+        @BeforeEach
+        void setUp() {
+                index = new ShopGeoIndex(shopRepository);
+                when(shopRepository.findAllGeoPoints()).thenReturn(List.of(
+                                new ShopPoint(1L, 12.9716, 77.6046, "IN_HOUSE_DRIVER"), // ~1 km
+                                new ShopPoint(2L, 13.0827, 77.5946, "NO_DELIVERY"),     // ~12 km
+                                new ShopPoint(3L, 12.9716, 77.5950, "IN_HOUSE_DRIVER"), // ~0.04 km
+                                new ShopPoint(4L, 13.3000, 77.5946, "IN_HOUSE_DRIVER"), // ~36 km
+                                new ShopPoint(5L, 28.6139, 77.2090, "IN_HOUSE_DRIVER")  // Delhi
+                ));
+                index.rebuild();
+        }
+
+        @Test
+        void nearest_ReturnsShopsInRadiusOrderedByDistance() {
+                List<ShopDistance> result = index.nearest(bangalore, 50, Integer.MAX_VALUE, p -> true);
+
+                assertEquals(List.of(3L, 1L, 2L, 4L), result.stream().map(ShopDistance::shopId).toList());
+                for (int i = 1; i < result.size(); i++) {
+                        assertTrue(result.get(i - 1).distanceKm() <= result.get(i).distanceKm());
+                }
+        }
+
+        @Test
+        void nearest_RespectsRadiusLimitAndFilter() {
+                assertEquals(List.of(3L, 1L), index.nearest(bangalore, 5, 10, p -> true)
+                                .stream().map(ShopDistance::shopId).toList());
+
+                assertEquals(List.of(3L), index.nearest(bangalore, 50, 1, p -> true)
+                                .stream().map(ShopDistance::shopId).toList());
+
+                assertEquals(List.of(2L), index.nearest(bangalore, 50, 10,
+                                p -> p.fulfillmentMode() == FulfillmentMode.PICKUP)
+                                .stream().map(ShopDistance::shopId).toList());
+        }
+
+        @Test
+        void upsertAndRemove_MoveShopsBetweenCells() {
+                index.put(new ShopPoint(5L, 12.9716, 77.5947, "IN_HOUSE_DRIVER")); // Delhi shop relocated
+                assertEquals(5L, index.nearest(bangalore, 1, 1, p -> true).get(0).shopId());
+
+                index.remove(5L);
+                index.remove(3L);
+                assertEquals(List.of(1L), index.nearest(bangalore, 5, 10, p -> true)
+                                .stream().map(ShopDistance::shopId).toList());
+                assertEquals(3, index.size());
+        }
+
+        @Test
+        void rebuild_KeepsServingTheOldGridAndReplaysWritesMadeMeanwhile() {
+                when(shopRepository.findAllGeoPoints()).thenAnswer(invocation -> {
+                        assertEquals(5, index.size());
+                        index.put(new ShopPoint(6L, 12.9716, 77.5948, "IN_HOUSE_DRIVER"));
+                        return List.of(new ShopPoint(3L, 12.9716, 77.5950, "IN_HOUSE_DRIVER"));
+                });
+
+                index.rebuild();
+
+                assertEquals(List.of(6L, 3L), index.nearest(bangalore, 5, 10, p -> true)
+                                .stream().map(ShopDistance::shopId).toList());
+        }
+}
@@ -0,0 +1,47 @@
+package com.finditnow.shopservice.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextIndexTest {
+
+        private TextIndex index;
+
+        @BeforeEach
+        void setUp() {
+                index = new TextIndex();
+                index.put(1L, "Amul Butter 500g");
+                index.put(2L, "Peanut Butter Crunchy");
+                index.put(3L, "Butterscotch Ice Cream");
+                index.put(4L, "Crème Brûlée");
+        }
+
+        @Test
+        void search_RanksExactThenPrefixThenSubstring() {
+                assertEquals(List.of(1L, 2L, 3L), index.search("butter", 10));
+                assertEquals(List.of(2L), index.search("peanut butter", 10));
+                assertEquals(List.of(1L), index.search("mul", 10));
+        }
+
+        @Test
+        void search_ToleratesTyposAndAccents() {
+                assertEquals(List.of(2L), index.search("penut", 10));
+                assertEquals(List.of(4L), index.search("creme brulee", 10));
+                assertTrue(index.search("xyz", 10).isEmpty());
+        }
+
+        @Test
+        void putAndRemove_ReplaceDocuments() {
+                index.put(1L, "Mango Pickle");
+                assertEquals(List.of(2L, 3L), index.search("butter", 10));
+
+                index.remove(2L);
+                assertEquals(List.of(3L), index.search("butter", 10));
+                assertEquals(3, index.size());
+        }
+}
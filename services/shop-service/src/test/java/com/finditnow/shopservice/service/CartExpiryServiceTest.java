@@ -0,0 +1,89 @@
+package com.finditnow.shopservice.service;
+
+import com.finditnow.shopservice.cart.CartCache;
+import com.finditnow.shopservice.cart.CartOwner;
+import com.finditnow.shopservice.cart.ExpiredCarts;
+import com.finditnow.shopservice.inventory.ReservedUnits;
+import com.finditnow.shopservice.repository.CartItemRepository;
+import com.finditnow.shopservice.repository.CartRepository;
+import com.finditnow.shopservice.search.SearchVersions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CartExpiryServiceTest {
+
+        @Mock
+        private CartRepository cartRepository;
+
+        @Mock
+        private CartItemRepository cartItemRepository;
+
+        @Mock
+        private StockReservationService stockReservationService;
+
+        @Mock
+        private SearchVersions searchVersions;
+
+        @Mock
+        private CartCache cartCache;
+
+        private CartExpiryService cartExpiryService;
+
+        @BeforeEach
+        void setUp() {
+                cartExpiryService = new CartExpiryService(cartRepository, cartItemRepository, stockReservationService,
+                                searchVersions, cartCache, 30);
+        }
+
+        @Test
+        void expireBatch_ReleasesUnitsOfExpiredCartsInOneCall() {
+                List<UUID> cartIds = List.of(UUID.randomUUID(), UUID.randomUUID());
+                List<ReservedUnits> reserved = List.of(
+                                new ReservedUnits(10L, 1L, 3),
+                                new ReservedUnits(11L, 1L, 2),
+                                new ReservedUnits(20L, 2L, 1));
+                when(cartRepository.expireIdleCarts(any(), any(), eq(50))).thenReturn(cartIds);
+                when(cartItemRepository.sumReservedUnitsByCartIds(cartIds)).thenReturn(reserved);
+                List<CartOwner> owners = List.of(
+                                new CartOwner(cartIds.get(0), UUID.randomUUID(), 1L),
+                                new CartOwner(cartIds.get(1), UUID.randomUUID(), 2L));
+                when(cartRepository.findOwners(cartIds)).thenReturn(owners);
+
+                ExpiredCarts expired = cartExpiryService.expireBatch(50);
+
+                assertEquals(new ExpiredCarts(2, 3, 6), expired);
+                verify(cartItemRepository).deleteAllByCartIds(cartIds);
+                verify(stockReservationService).releaseAllUpTo(reserved);
+                verify(searchVersions).reservationsChanged(Set.of(1L, 2L));
+                verify(cartCache).cartsChanged(owners);
+        }
+
+        @Test
+        void expireBatch_LooksForCartsIdleLongerThanTheTtl() {
+                when(cartRepository.expireIdleCarts(any(), any(), eq(50))).thenAnswer(invocation -> {
+                        LocalDateTime now = invocation.getArgument(0);
+                        LocalDateTime idleBefore = invocation.getArgument(1);
+                        assertEquals(Duration.ofMinutes(30), Duration.between(idleBefore, now));
+                        return List.of();
+                });
+
+                assertEquals(ExpiredCarts.NONE, cartExpiryService.expireBatch(50));
+
+                verifyNoInteractions(cartItemRepository, stockReservationService, searchVersions, cartCache);
+        }
+}
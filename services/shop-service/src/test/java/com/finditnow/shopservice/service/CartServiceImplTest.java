@@ -1,13 +1,20 @@
 package com.finditnow.shopservice.service;
 
+import com.finditnow.shopservice.cart.CartCache;
 import com.finditnow.shopservice.dto.AddToCartRequest;
+import com.finditnow.shopservice.dto.CartBatchRequest;
+import com.finditnow.shopservice.dto.CartOperation;
 import com.finditnow.shopservice.dto.CartResponse;
+import com.finditnow.shopservice.dto.ConsumeCartRequest;
 import com.finditnow.shopservice.entity.*;
 import com.finditnow.shopservice.exception.BadRequestException;
+import com.finditnow.shopservice.exception.CartItemNotFoundException;
+import com.finditnow.shopservice.inventory.ReservedUnits;
 import com.finditnow.shopservice.mapper.CartMapper;
 import com.finditnow.shopservice.repository.CartItemRepository;
 import com.finditnow.shopservice.repository.CartRepository;
 import com.finditnow.shopservice.repository.ShopInventoryRepository;
+import com.finditnow.shopservice.search.SearchVersions;
 import com.finditnow.shopservice.service.impl.CartServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,12 +24,16 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,6 +51,18 @@ class CartServiceImplTest {
         @Mock
         private CartMapper cartMapper;
 
+        @Mock
+        private SearchVersions searchVersions;
+
+        @Mock
+        private StockReservationService stockReservationService;
+
+        @Mock
+        private CartExpiryService cartExpiryService;
+
+        @Mock
+        private CartCache cartCache;
+
         @InjectMocks
         private CartServiceImpl cartService;
 
@@ -80,17 +103,19 @@ class CartServiceImplTest {
 
                 when(cartRepository.findByUserIdAndShopIdAndStatus(userId, shopId, CartStatus.ACTIVE))
                                 .thenReturn(Optional.of(cart));
+                when(cartRepository.touchIfActive(eq(cart.getId()), any(), eq(CartStatus.ACTIVE))).thenReturn(1);
                 when(shopInventoryRepository.findById(inventoryId)).thenReturn(Optional.of(inventory));
                 when(cartItemRepository.findByCartIdAndShopInventoryId(cart.getId(), inventoryId))
                                 .thenReturn(Optional.empty());
-                when(cartRepository.save(any(Cart.class))).thenReturn(cart);
+                when(stockReservationService.tryReserve(inventoryId, 2)).thenReturn(true);
+                when(cartRepository.findByIdWithDetails(cart.getId())).thenReturn(Optional.of(cart));
                 when(cartMapper.toCartResponse(any(Cart.class))).thenReturn(new CartResponse());
 
                 cartService.addItemToCart(userId, shopId, request);
 
-                // Verify reserved stock increased
-                assertEquals(4, inventory.getReservedStock()); // 2 existing + 2 new
-                verify(shopInventoryRepository).save(inventory);
+                // Reserved through the conditional update, the loaded entity is never written back
+                verify(stockReservationService).tryReserve(inventoryId, 2);
+                verify(shopInventoryRepository, never()).save(any(ShopInventory.class));
                 verify(cartItemRepository).save(any(CartItem.class));
         }
 
@@ -100,14 +125,254 @@ class CartServiceImplTest {
 
                 when(cartRepository.findByUserIdAndShopIdAndStatus(userId, shopId, CartStatus.ACTIVE))
                                 .thenReturn(Optional.of(cart));
+                when(cartRepository.touchIfActive(eq(cart.getId()), any(), eq(CartStatus.ACTIVE))).thenReturn(1);
                 when(shopInventoryRepository.findById(inventoryId)).thenReturn(Optional.of(inventory));
                 when(cartItemRepository.findByCartIdAndShopInventoryId(cart.getId(), inventoryId))
                                 .thenReturn(Optional.empty());
+                when(stockReservationService.tryReserve(inventoryId, 9)).thenReturn(false);
 
-                assertThrows(BadRequestException.class, () -> cartService.addItemToCart(userId, shopId, request));
+                BadRequestException e = assertThrows(BadRequestException.class,
+                                () -> cartService.addItemToCart(userId, shopId, request));
 
-                // Verify reserved stock NOT modified
-                assertEquals(2, inventory.getReservedStock());
+                // Verify nothing was added to the cart
+                assertEquals("Insufficient stock. Available: 8", e.getMessage());
                 verify(shopInventoryRepository, never()).save(inventory);
+                verify(cartItemRepository, never()).save(any(CartItem.class));
+        }
+
+        @Test
+        void addItemToCart_CartExpiredSinceReadStartsANewCart() {
+                AddToCartRequest request = new AddToCartRequest(inventoryId, shopId, 2);
+                Cart fresh = Cart.builder()
+                                .id(UUID.randomUUID())
+                                .userId(userId)
+                                .shopId(shopId)
+                                .status(CartStatus.ACTIVE)
+                                .items(new ArrayList<>())
+                                .build();
+
+                when(cartRepository.findByUserIdAndShopIdAndStatus(userId, shopId, CartStatus.ACTIVE))
+                                .thenReturn(Optional.of(cart));
+                when(cartRepository.touchIfActive(eq(cart.getId()), any(), eq(CartStatus.ACTIVE))).thenReturn(0);
+                when(cartRepository.save(any(Cart.class))).thenReturn(fresh);
+                when(shopInventoryRepository.findById(inventoryId)).thenReturn(Optional.of(inventory));
+                when(cartItemRepository.findByCartIdAndShopInventoryId(fresh.getId(), inventoryId))
+                                .thenReturn(Optional.empty());
+                when(stockReservationService.tryReserve(inventoryId, 2)).thenReturn(true);
+                when(cartRepository.findByIdWithDetails(fresh.getId())).thenReturn(Optional.of(fresh));
+
+                cartService.addItemToCart(userId, shopId, request);
+
+                assertEquals(1, fresh.getItems().size());
+                assertEquals(0, cart.getItems().size());
+        }
+
+        @Test
+        void removeCartItem_RejectsExpiredCart() {
+                CartItem item = CartItem.builder()
+                                .id(UUID.randomUUID())
+                                .cart(cart)
+                                .shopInventory(inventory)
+                                .quantity(2)
+                                .build();
+                when(cartItemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+                when(cartRepository.touchIfActive(eq(cart.getId()), any(), eq(CartStatus.ACTIVE))).thenReturn(0);
+
+                assertThrows(BadRequestException.class, () -> cartService.removeCartItem(userId, item.getId()));
+
+                // The sweeper already released the units of the expired cart
+                verify(stockReservationService, never()).releaseUpTo(any(), anyInt());
+        }
+
+        @Test
+        void consumeCart_UpdatesStockAndDeletesItemsWithOneStatementEach() {
+                ShopInventory other = new ShopInventory();
+                other.setId(11L);
+                other.setShop(shop);
+                cart.getItems().add(CartItem.builder().cart(cart).shopInventory(inventory).quantity(2).build());
+                cart.getItems().add(CartItem.builder().cart(cart).shopInventory(other).quantity(3).build());
+
+                when(cartRepository.findByIdWithDetails(cart.getId())).thenReturn(Optional.of(cart));
+                when(cartRepository.touchIfActive(eq(cart.getId()), any(), eq(CartStatus.ACTIVE))).thenReturn(1);
+
+                cartService.consumeCart(cart.getId(), List.of(new ConsumeCartRequest.Item(inventoryId, 2),
+                                new ConsumeCartRequest.Item(11L, 3)), "order-1:consume_cart");
+
+                verify(stockReservationService).consumeAll(List.of(
+                                new ReservedUnits(inventoryId, shopId, 2),
+                                new ReservedUnits(11L, shopId, 3)));
+                verify(cartItemRepository).deleteAllByCartId(cart.getId());
+                verify(shopInventoryRepository, never()).save(any(ShopInventory.class));
+                assertEquals(CartStatus.CONVERTED, cart.getStatus());
+                assertEquals("order-1:consume_cart", cart.getConsumedWith());
+        }
+
+        @Test
+        void consumeCart_RetryWithTheSameKeyIsANoOp() {
+                cart.setStatus(CartStatus.CONVERTED);
+                cart.setConsumedWith("order-1:consume_cart");
+                when(cartRepository.findByIdWithDetails(cart.getId())).thenReturn(Optional.of(cart));
+
+                cartService.consumeCart(cart.getId(), null, "order-1:consume_cart");
+
+                verifyNoInteractions(stockReservationService);
+                verify(cartItemRepository, never()).deleteAllByCartId(any());
+        }
+
+        @Test
+        void consumeCart_RetryRacingTheFirstAttemptIsANoOp() {
+                when(cartRepository.findByIdWithDetails(cart.getId())).thenReturn(Optional.of(cart));
+                when(cartRepository.touchIfActive(eq(cart.getId()), any(), eq(CartStatus.ACTIVE))).thenReturn(0);
+                when(cartRepository.findConsumedWith(cart.getId(), CartStatus.CONVERTED))
+                                .thenReturn(Optional.of("order-1:consume_cart"));
+
+                cartService.consumeCart(cart.getId(), null, "order-1:consume_cart");
+
+                verifyNoInteractions(stockReservationService);
+        }
+
+        @Test
+        void consumeCart_ConvertedWithAnotherKeyIsRefused() {
+                cart.setStatus(CartStatus.CONVERTED);
+                cart.setConsumedWith("order-1:consume_cart");
+                when(cartRepository.findByIdWithDetails(cart.getId())).thenReturn(Optional.of(cart));
+
+                assertThrows(BadRequestException.class,
+                                () -> cartService.consumeCart(cart.getId(), null, "order-2:consume_cart"));
+
+                verifyNoInteractions(stockReservationService);
+        }
+
+        @Test
+        void consumeCart_CartChangedSinceTheOrderIsRefused() {
+                cart.getItems().add(CartItem.builder().cart(cart).shopInventory(inventory).quantity(5).build());
+
+                when(cartRepository.findByIdWithDetails(cart.getId())).thenReturn(Optional.of(cart));
+                when(cartRepository.touchIfActive(eq(cart.getId()), any(), eq(CartStatus.ACTIVE))).thenReturn(1);
+
+                assertThrows(BadRequestException.class, () -> cartService.consumeCart(cart.getId(),
+                                List.of(new ConsumeCartRequest.Item(inventoryId, 2)), "order-1:consume_cart"));
+
+                verifyNoInteractions(stockReservationService);
+                verify(cartItemRepository, never()).deleteAllByCartId(any());
+                assertEquals(CartStatus.ACTIVE, cart.getStatus());
+        }
+
+        @Test
+        void consumeCart_ClearedCartIsRefused() {
+                when(cartRepository.findByIdWithDetails(cart.getId())).thenReturn(Optional.of(cart));
+                when(cartRepository.touchIfActive(eq(cart.getId()), any(), eq(CartStatus.ACTIVE))).thenReturn(1);
+
+                assertThrows(BadRequestException.class, () -> cartService.consumeCart(cart.getId(),
+                                List.of(new ConsumeCartRequest.Item(inventoryId, 2)), "order-1:consume_cart"));
+
+                verifyNoInteractions(stockReservationService);
+        }
+
+        @Test
+        void consumeCart_UnderflowLeavesCartActive() {
+                cart.getItems().add(CartItem.builder().cart(cart).shopInventory(inventory).quantity(20).build());
+
+                when(cartRepository.findByIdWithDetails(cart.getId())).thenReturn(Optional.of(cart));
+                when(cartRepository.touchIfActive(eq(cart.getId()), any(), eq(CartStatus.ACTIVE))).thenReturn(1);
+                doThrow(new IllegalStateException("Stock underflow for inventory [10]"))
+                                .when(stockReservationService).consumeAll(any());
+
+                assertThrows(IllegalStateException.class, () -> cartService.consumeCart(cart.getId(), null, null));
+
+                verify(cartItemRepository, never()).deleteAllByCartId(any());
+                assertEquals(CartStatus.ACTIVE, cart.getStatus());
+        }
+
+        @Test
+        void clearCart_ReleasesAllItemsInOneCall() {
+                cart.getItems().add(CartItem.builder().cart(cart).shopInventory(inventory).quantity(2).build());
+
+                when(cartRepository.findByIdWithDetails(cart.getId())).thenReturn(Optional.of(cart));
+                when(cartRepository.touchIfActive(eq(cart.getId()), any(), eq(CartStatus.ACTIVE))).thenReturn(1);
+
+                cartService.clearCart(userId, cart.getId());
+
+                verify(stockReservationService).releaseAllUpTo(List.of(new ReservedUnits(inventoryId, shopId, 2)));
+                verify(stockReservationService, never()).releaseUpTo(any(), anyInt());
+                verify(cartItemRepository).deleteAllByCartId(cart.getId());
+        }
+
+        @Test
+        void applyBatch_ReservesAndReleasesAllChangesAtOnce() {
+                CartItem kept = CartItem.builder().id(UUID.randomUUID()).cart(cart).shopInventory(inventory)
+                                .quantity(2).build();
+                ShopInventory dropped = inventoryOf(11L, shop);
+                CartItem removed = CartItem.builder().id(UUID.randomUUID()).cart(cart).shopInventory(dropped)
+                                .quantity(4).build();
+                cart.getItems().add(kept);
+                cart.getItems().add(removed);
+                ShopInventory added = inventoryOf(12L, shop);
+
+                CartBatchRequest request = new CartBatchRequest(shopId, List.of(
+                                new CartOperation(CartOperation.Type.UPDATE, null, kept.getId(), 5),
+                                new CartOperation(CartOperation.Type.REMOVE, null, removed.getId(), null),
+                                new CartOperation(CartOperation.Type.ADD, 12L, null, 1),
+                                new CartOperation(CartOperation.Type.ADD, 12L, null, 2)));
+
+                when(cartRepository.findByUserIdAndShopIdAndStatusWithDetails(userId, shopId, CartStatus.ACTIVE))
+                                .thenReturn(Optional.of(cart));
+                when(cartRepository.touchIfActive(eq(cart.getId()), any(), eq(CartStatus.ACTIVE))).thenReturn(1);
+                when(shopInventoryRepository.findAllWithProductByIdIn(Set.of(12L))).thenReturn(List.of(added));
+                when(stockReservationService.tryReserveAll(any())).thenReturn(List.of());
+
+                cartService.applyBatch(userId, request);
+
+                verify(stockReservationService).tryReserveAll(List.of(
+                                new ReservedUnits(inventoryId, shopId, 3),
+                                new ReservedUnits(12L, shopId, 3)));
+                verify(stockReservationService).releaseAllUpTo(List.of(new ReservedUnits(11L, shopId, 4)));
+                verify(stockReservationService, never()).tryReserve(any(), anyInt());
+                verify(cartRepository, never()).findByIdWithDetails(any());
+                assertEquals(2, cart.getItems().size());
+                assertEquals(5, kept.getQuantity());
+                assertEquals(3, cart.getItems().get(1).getQuantity());
+                verify(cartMapper).toCartResponse(cart);
+        }
+
+        @Test
+        void applyBatch_InsufficientStockChangesNothing() {
+                ShopInventory added = inventoryOf(12L, shop);
+                CartBatchRequest request = new CartBatchRequest(shopId, List.of(
+                                new CartOperation(CartOperation.Type.ADD, 12L, null, 50)));
+
+                when(cartRepository.findByUserIdAndShopIdAndStatusWithDetails(userId, shopId, CartStatus.ACTIVE))
+                                .thenReturn(Optional.of(cart));
+                when(cartRepository.touchIfActive(eq(cart.getId()), any(), eq(CartStatus.ACTIVE))).thenReturn(1);
+                when(shopInventoryRepository.findAllWithProductByIdIn(Set.of(12L))).thenReturn(List.of(added));
+                when(stockReservationService.tryReserveAll(any())).thenReturn(List.of(12L));
+
+                assertThrows(BadRequestException.class, () -> cartService.applyBatch(userId, request));
+
+                assertEquals(0, cart.getItems().size());
+                verify(cartItemRepository, never()).saveAll(any());
+        }
+
+        @Test
+        void applyBatch_RejectsItemsOfOtherCarts() {
+                CartBatchRequest request = new CartBatchRequest(shopId, List.of(
+                                new CartOperation(CartOperation.Type.REMOVE, null, UUID.randomUUID(), null)));
+
+                when(cartRepository.findByUserIdAndShopIdAndStatusWithDetails(userId, shopId, CartStatus.ACTIVE))
+                                .thenReturn(Optional.of(cart));
+                when(cartRepository.touchIfActive(eq(cart.getId()), any(), eq(CartStatus.ACTIVE))).thenReturn(1);
+
+                assertThrows(CartItemNotFoundException.class, () -> cartService.applyBatch(userId, request));
+
+                verifyNoInteractions(stockReservationService);
+        }
+
+        private static ShopInventory inventoryOf(Long id, Shop shop) {
+                ShopInventory inventory = new ShopInventory();
+                inventory.setId(id);
+                inventory.setShop(shop);
+                inventory.setStock(10);
+                inventory.setReservedStock(0);
+                return inventory;
         }
 }
@@ -0,0 +1,106 @@
+package com.finditnow.shopservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finditnow.shopservice.cache.ShopOwnershipIndex;
+import com.finditnow.shopservice.dto.InventoryImportResponse;
+import com.finditnow.shopservice.dto.InventoryImportResponse.RowError;
+import com.finditnow.shopservice.inventory.ImportChunkResult;
+import com.finditnow.shopservice.inventory.ImportLine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryImportServiceTest {
+
+        @Mock
+        private ShopOwnershipIndex shopOwnershipIndex;
+
+        @Mock
+        private InventoryUpsertService inventoryUpsertService;
+
+        private InventoryImportService service;
+
+        private final UUID ownerId = UUID.randomUUID();
+
+        @BeforeEach
+        void setUp() {
+                service = new InventoryImportService(shopOwnershipIndex, inventoryUpsertService, new ObjectMapper(), 2, 10);
+                when(shopOwnershipIndex.ownerOf(7L)).thenReturn(Optional.of(ownerId));
+        }
+
+        @Test
+        void importInventory_Csv_WritesValidRowsInChunksAndReportsTheRest() {
+                when(inventoryUpsertService.upsert(eq(7L), any()))
+                                .thenReturn(new ImportChunkResult(1, 1, List.of()))
+                                .thenReturn(new ImportChunkResult(0, 0, List.of(new RowError(6, "Product not found with id: 9"))));
+
+                InventoryImportResponse response = service.importInventory(7L, body("""
+                                price,stock,productId,productName,categoryId
+                                10.5,3,1,,
+                                "2,000",4,2,,
+                                20,5,,"Milk, 1L",3
+
+                                5,1,9,,
+                                1,-1,10,,
+                                """), InventoryImportService.Format.CSV, ownerId, false);
+
+                ArgumentCaptor<List<ImportLine>> chunks = ArgumentCaptor.captor();
+                verify(inventoryUpsertService, times(2)).upsert(eq(7L), chunks.capture());
+                List<ImportLine> first = chunks.getAllValues().get(0);
+                assertEquals(List.of(2L, 4L), first.stream().map(ImportLine::line).toList());
+                assertEquals("Milk, 1L", first.get(1).row().getProductName());
+                assertEquals(List.of(6L), chunks.getAllValues().get(1).stream().map(ImportLine::line).toList());
+
+                assertEquals(5, response.getRows());
+                assertEquals(1, response.getCreated());
+                assertEquals(1, response.getUpdated());
+                assertEquals(3, response.getFailed());
+                assertEquals(List.of(3L, 7L, 6L), response.getErrors().stream().map(RowError::line).toList());
+                assertFalse(response.isErrorsTruncated());
+        }
+
+        @Test
+        void importInventory_FailedChunkReportsEveryRowAndContinues() {
+                when(inventoryUpsertService.upsert(eq(7L), any()))
+                                .thenThrow(new IllegalStateException("deadlock"))
+                                .thenReturn(new ImportChunkResult(1, 0, List.of()));
+
+                InventoryImportResponse response = service.importInventory(7L, body("""
+                                {"productId": 1, "stock": 1, "price": 1}
+                                {"productId": 2, "stock": 1, "price": 1}
+                                {"productId": 3, "stock": 1, "price": 1}
+                                """), InventoryImportService.Format.NDJSON, ownerId, false);
+
+                assertEquals(3, response.getRows());
+                assertEquals(1, response.getCreated());
+                assertEquals(2, response.getFailed());
+                assertEquals(List.of(1L, 2L), response.getErrors().stream().map(RowError::line).toList());
+        }
+
+        @Test
+        void importInventory_RejectsOtherOwners() {
+                assertThrows(IllegalStateException.class, () -> service.importInventory(7L, body(""),
+                                InventoryImportService.Format.CSV, UUID.randomUUID(), false));
+                verifyNoInteractions(inventoryUpsertService);
+        }
+
+        private static InputStream body(String text) {
+                return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+        }
+}
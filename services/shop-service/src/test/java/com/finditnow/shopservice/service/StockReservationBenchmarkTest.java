@@ -0,0 +1,145 @@
+package com.finditnow.shopservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Throughput of reservations on a single hot SKU under many parallel carts: the conditional UPDATE used by
+ * {@link StockReservationService} against the row-lock alternative (SELECT ... FOR UPDATE, check, UPDATE).
+ * Needs a PostgreSQL database, so it only runs when {@code BENCHMARK_JDBC_URL} is set, e.g.
+ * <pre>
+ * BENCHMARK_JDBC_URL=jdbc:postgresql://localhost:5432/finditnow?user=postgres&amp;password=postgres \
+ *     ./gradlew :services:shop-service:test --tests '*StockReservationBenchmarkTest'
+ * </pre>
+ * Works on its own scratch table and logs operations per second for each strategy.
+ */
+@EnabledIfEnvironmentVariable(named = "BENCHMARK_JDBC_URL", matches = ".+")
+class StockReservationBenchmarkTest {
+
+        private static final Logger log = LoggerFactory.getLogger(StockReservationBenchmarkTest.class);
+
+        private static final int CARTS = 64;
+        private static final int ATTEMPTS_PER_CART = 200;
+        private static final int STOCK = CARTS * ATTEMPTS_PER_CART / 2; // half of the attempts must fail
+
+        private final String url = System.getenv("BENCHMARK_JDBC_URL");
+
+        @BeforeEach
+        void setUp() throws SQLException {
+                try (Connection connection = DriverManager.getConnection(url);
+                     Statement statement = connection.createStatement()) {
+                        statement.execute("DROP TABLE IF EXISTS stock_reservation_bench");
+                        statement.execute("CREATE TABLE stock_reservation_bench (id BIGINT PRIMARY KEY, "
+                                        + "stock INT NOT NULL, reserved_stock INT NOT NULL)");
+                }
+        }
+
+        @AfterEach
+        void tearDown() throws SQLException {
+                try (Connection connection = DriverManager.getConnection(url);
+                     Statement statement = connection.createStatement()) {
+                        statement.execute("DROP TABLE IF EXISTS stock_reservation_bench");
+                }
+        }
+
+        @Test
+        void conditionalUpdate_NeverOversells() throws Exception {
+                run("conditional UPDATE", connection -> {
+                        try (PreparedStatement update = connection.prepareStatement(
+                                        "UPDATE stock_reservation_bench SET reserved_stock = reserved_stock + 1 "
+                                                        + "WHERE id = 1 AND stock - reserved_stock >= 1")) {
+                                return update.executeUpdate() == 1;
+                        }
+                });
+        }
+
+        @Test
+        void rowLock_NeverOversells() throws Exception {
+                run("SELECT FOR UPDATE", connection -> {
+                        connection.setAutoCommit(false);
+                        try (PreparedStatement select = connection.prepareStatement(
+                                        "SELECT stock, reserved_stock FROM stock_reservation_bench WHERE id = 1 FOR UPDATE");
+                             PreparedStatement update = connection.prepareStatement(
+                                             "UPDATE stock_reservation_bench SET reserved_stock = ? WHERE id = 1")) {
+                                ResultSet row = select.executeQuery();
+                                row.next();
+                                int reserved = row.getInt(2);
+                                boolean reservedOne = row.getInt(1) - reserved >= 1;
+                                if (reservedOne) {
+                                        update.setInt(1, reserved + 1);
+                                        update.executeUpdate();
+                                }
+                                connection.commit();
+                                return reservedOne;
+                        } finally {
+                                connection.setAutoCommit(true);
+                        }
+                });
+        }
+
+        private void run(String name, Attempt attempt) throws Exception {
+                try (Connection connection = DriverManager.getConnection(url);
+                     Statement statement = connection.createStatement()) {
+                        statement.execute("INSERT INTO stock_reservation_bench VALUES (1, " + STOCK + ", 0)");
+                }
+
+                AtomicInteger reserved = new AtomicInteger();
+                long start = System.nanoTime();
+                try (ExecutorService carts = Executors.newFixedThreadPool(CARTS)) {
+                        List<Future<?>> futures = new ArrayList<>();
+                        for (int cart = 0; cart < CARTS; cart++) {
+                                futures.add(carts.submit(() -> {
+                                        try (Connection connection = DriverManager.getConnection(url)) {
+                                                for (int i = 0; i < ATTEMPTS_PER_CART; i++) {
+                                                        if (attempt.reserveOne(connection)) {
+                                                                reserved.incrementAndGet();
+                                                        }
+                                                }
+                                        }
+                                        return null;
+                                }));
+                        }
+                        for (Future<?> future : futures) {
+                                future.get();
+                        }
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                int attempts = CARTS * ATTEMPTS_PER_CART;
+                log.info("{}: {} carts, {} attempts in {} s, {} ops/s, {} reserved", name, CARTS, attempts,
+                                String.format("%.2f", seconds), Math.round(attempts / seconds), reserved.get());
+
+                try (Connection connection = DriverManager.getConnection(url);
+                     Statement statement = connection.createStatement();
+                     ResultSet row = statement.executeQuery(
+                                     "SELECT reserved_stock FROM stock_reservation_bench WHERE id = 1")) {
+                        row.next();
+                        assertEquals(STOCK, row.getInt(1));
+                }
+                assertEquals(STOCK, reserved.get());
+        }
+
+        @FunctionalInterface
+        private interface Attempt {
+                boolean reserveOne(Connection connection) throws SQLException;
+        }
+}
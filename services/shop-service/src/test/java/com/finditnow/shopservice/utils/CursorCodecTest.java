@@ -0,0 +1,29 @@
+package com.finditnow.shopservice.utils;
+
+import com.finditnow.shopservice.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CursorCodecTest {
+
+        @Test
+        void nameKey_RoundTripsNamesWithSeparators() {
+                CursorCodec.NameKey key = new CursorCodec.NameKey("Milk | 1.5L.", 42L);
+                assertEquals(key, CursorCodec.decodeNameKey(CursorCodec.encode(key)));
+        }
+
+        @Test
+        void distanceKey_RoundTrips() {
+                CursorCodec.DistanceKey key = new CursorCodec.DistanceKey(1234L, 5L, 99L);
+                assertEquals(key, CursorCodec.decodeDistanceKey(CursorCodec.encode(key)));
+        }
+
+        @Test
+        void decode_RejectsForeignOrMalformedCursors() {
+                String nameCursor = CursorCodec.encode(new CursorCodec.NameKey("Milk", 1L));
+                assertThrows(BadRequestException.class, () -> CursorCodec.decodeDistanceKey(nameCursor));
+                assertThrows(BadRequestException.class, () -> CursorCodec.decodeNameKey("%%%"));
+        }
+}